@@ -0,0 +1,85 @@
+package org.cryptomator.common.settings;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.cryptomator.common.Environment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares persisting a single changed vault setting by rewriting the whole settings file (as done by {@link SettingsJournal#compact()})
+ * with appending it to the {@link SettingsJournal journal}.
+ */
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class SettingsPersistenceBenchmark {
+
+	private static final ObjectMapper JSON = new ObjectMapper().setDefaultLeniency(true).registerModule(new JavaTimeModule());
+
+	@Param({"10", "100", "1000"})
+	public int vaultCount;
+
+	private Path tmpDir;
+	private Settings settings;
+	private SettingsJournal journal;
+	private int counter;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		tmpDir = Files.createTempDirectory("cryptomator-benchmark");
+		settings = Settings.create(Environment.getInstance());
+		for (int i = 0; i < vaultCount; i++) {
+			var vaultSettings = VaultSettings.withRandomId();
+			vaultSettings.path.set(tmpDir.resolve("vault" + i));
+			vaultSettings.displayName.set("Vault " + i);
+			settings.directories.add(vaultSettings);
+		}
+		journal = new SettingsJournal(JSON, settings, tmpDir.resolve("settings.json"), null, () -> "benchmark");
+		journal.compact();
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() throws IOException {
+		MoreFiles.deleteRecursively(tmpDir, RecursiveDeleteOption.ALLOW_INSECURE);
+	}
+
+	private void changeSomeVault() {
+		var vaultSettings = settings.directories.get(counter++ % vaultCount);
+		vaultSettings.autoLockIdleSeconds.set(counter);
+	}
+
+	@Benchmark
+	public void fullRewrite() throws IOException {
+		changeSomeVault();
+		journal.compact();
+	}
+
+	@Benchmark
+	public void journaled() {
+		changeSomeVault();
+		journal.flush(); // includes compaction every SettingsJournal.MAX_JOURNAL_RECORDS changes
+	}
+
+}
@@ -0,0 +1,226 @@
+package org.cryptomator.common.vaults;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.cryptomator.common.Constants;
+import org.cryptomator.common.Environment;
+import org.cryptomator.common.mount.Mounter;
+import org.cryptomator.common.mount.WindowsDriveLetters;
+import org.cryptomator.common.settings.Settings;
+import org.cryptomator.common.settings.VaultSettings;
+import org.cryptomator.cryptofs.CryptoFileSystem;
+import org.cryptomator.cryptofs.CryptoFileSystemProperties;
+import org.cryptomator.cryptofs.CryptoFileSystemProvider;
+import org.cryptomator.cryptofs.common.FileSystemCapabilityChecker;
+import org.cryptomator.cryptolib.api.CryptoException;
+import org.cryptomator.cryptolib.api.Masterkey;
+import org.cryptomator.cryptolib.api.MasterkeyLoader;
+import org.cryptomator.integrations.mount.Mount;
+import org.cryptomator.integrations.mount.MountBuilder;
+import org.cryptomator.integrations.mount.MountCapability;
+import org.cryptomator.integrations.mount.MountService;
+import org.cryptomator.integrations.mount.Mountpoint;
+import org.cryptomator.integrations.mount.UnmountFailedException;
+
+import javafx.beans.property.SimpleObjectProperty;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A freshly initialized vault in a temporary directory, wired up like the app does, but without Dagger and JavaFX toolkit.
+ * <p>
+ * The masterkey is served by a stub {@link MasterkeyLoader}, so unlocking measures everything but the key derivation.
+ * Unless a {@link MountService} class name is given, vaults get "mounted" by a no-op mount service, which keeps the cleartext I/O benchmarks free of FUSE/WebDAV overhead.
+ */
+class BenchmarkVault implements Closeable {
+
+	static final String STUB_MOUNT_SERVICE = "stub";
+	private static final URI KEY_ID = URI.create("benchmark:stub");
+	private static final String MOUNTPOINT_DIR_PROP_NAME = "cryptomator.mountPointsDir";
+
+	private final Path tmpDir;
+	private final Masterkey masterkey;
+	private final AtomicReference<CryptoFileSystem> cryptoFileSystem;
+	private final ScheduledExecutorService scheduler;
+	private final StubMountService stubMountService;
+	private final Vault vault;
+
+	private BenchmarkVault(Path tmpDir, Masterkey masterkey, AtomicReference<CryptoFileSystem> cryptoFileSystem, ScheduledExecutorService scheduler, StubMountService stubMountService, Vault vault) {
+		this.tmpDir = tmpDir;
+		this.masterkey = masterkey;
+		this.cryptoFileSystem = cryptoFileSystem;
+		this.scheduler = scheduler;
+		this.stubMountService = stubMountService;
+		this.vault = vault;
+	}
+
+	/**
+	 * Creates a new vault in a temporary directory.
+	 *
+	 * @param mountService Fully qualified class name of the mount service to use or {@value STUB_MOUNT_SERVICE}
+	 * @return A locked vault
+	 * @throws IOException If initializing the vault fails
+	 */
+	static BenchmarkVault create(String mountService) throws IOException {
+		var tmpDir = Files.createTempDirectory("cryptomator-benchmark");
+		var vaultPath = Files.createDirectory(tmpDir.resolve("vault"));
+		if (System.getProperty(MOUNTPOINT_DIR_PROP_NAME) == null) {
+			System.setProperty(MOUNTPOINT_DIR_PROP_NAME, Files.createDirectory(tmpDir.resolve("mnt")).toString());
+		}
+
+		var masterkey = Masterkey.generate(new SecureRandom());
+		MasterkeyLoader keyLoader = ignored -> masterkey.copy();
+		try {
+			var fsProps = CryptoFileSystemProperties.cryptoFileSystemProperties() //
+					.withKeyLoader(keyLoader) //
+					.withVaultConfigFilename(Constants.VAULTCONFIG_FILENAME) //
+					.build();
+			CryptoFileSystemProvider.initialize(vaultPath, fsProps, KEY_ID);
+		} catch (CryptoException e) {
+			throw new IOException("Vault initialization failed", e);
+		}
+
+		var env = Environment.getInstance();
+		var settings = Settings.create(env);
+		settings.useQuickAccess.set(false);
+		var vaultSettings = VaultSettings.withRandomId();
+		vaultSettings.path.set(vaultPath);
+		vaultSettings.displayName.set("benchmark");
+		vaultSettings.maxCleartextFilenameLength.set(Integer.MAX_VALUE);
+
+		var stubMountService = new StubMountService();
+		var mountServices = new ArrayList<MountService>(MountService.get().toList());
+		mountServices.add(stubMountService);
+		if (!STUB_MOUNT_SERVICE.equals(mountService)) {
+			vaultSettings.mountService.set(mountService);
+		}
+		var mounter = new Mounter(env, settings, new WindowsDriveLetters(), mountServices, ConcurrentHashMap.newKeySet(), new SimpleObjectProperty<>(stubMountService));
+
+		var scheduler = Executors.newSingleThreadScheduledExecutor();
+		var cryptoFileSystem = new AtomicReference<CryptoFileSystem>();
+		var state = new VaultState(VaultState.Value.LOCKED);
+		var stats = new VaultStats(cryptoFileSystem, new VaultStatsSampler(scheduler));
+		var vault = new Vault(vaultSettings, new VaultConfigCache(vaultSettings), cryptoFileSystem, state, new SimpleObjectProperty<>(), () -> stats, mounter, settings, new IoMemoryBudget(), new FileSystemCapabilityCache(Optional.empty(), new FileSystemCapabilityChecker(), Clock.systemUTC()), scheduler, scheduler, new DirectoryTreeWarmUp(settings));
+		return new BenchmarkVault(tmpDir, masterkey, cryptoFileSystem, scheduler, stubMountService, vault);
+	}
+
+	Vault vault() {
+		return vault;
+	}
+
+	MasterkeyLoader keyLoader() {
+		return ignored -> masterkey.copy();
+	}
+
+	/**
+	 * @return The root of the cleartext file system
+	 * @throws IllegalStateException If the vault is not unlocked
+	 */
+	Path cleartextRoot() {
+		var fs = cryptoFileSystem.get();
+		if (fs == null) {
+			throw new IllegalStateException("Vault is not unlocked");
+		}
+		return fs.getRootDirectories().iterator().next();
+	}
+
+	/**
+	 * @return The root handed to the stub mount service, i.e. the cleartext root including the decorators enabled in the vault settings
+	 * @throws IllegalStateException If the vault is not unlocked or not mounted by the stub mount service
+	 */
+	Path mountedRoot() {
+		var root = stubMountService.mountedRoot;
+		if (root == null || !isUnlocked()) {
+			throw new IllegalStateException("Vault is not mounted by stub mount service");
+		}
+		return root;
+	}
+
+	boolean isUnlocked() {
+		return cryptoFileSystem.get() != null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			vault.lock(true);
+		} catch (UnmountFailedException e) {
+			throw new IOException("Failed to lock benchmark vault", e);
+		} finally {
+			scheduler.shutdown();
+			masterkey.destroy();
+			MoreFiles.deleteRecursively(tmpDir, RecursiveDeleteOption.ALLOW_INSECURE);
+		}
+	}
+
+	/**
+	 * Mount service that does not expose the file system at all, but satisfies the {@link Mounter}.
+	 */
+	private static class StubMountService implements MountService {
+
+		private volatile Path mountedRoot;
+
+		@Override
+		public String displayName() {
+			return "Benchmark Stub";
+		}
+
+		@Override
+		public boolean isSupported() {
+			return true;
+		}
+
+		@Override
+		public Set<MountCapability> capabilities() {
+			return Set.of(MountCapability.MOUNT_TO_SYSTEM_CHOSEN_PATH, MountCapability.UNMOUNT_FORCED);
+		}
+
+		@Override
+		public MountBuilder forFileSystem(Path fileSystemRoot) {
+			mountedRoot = fileSystemRoot;
+			var mountpoint = Mountpoint.forUri(URI.create("benchmark:/" + fileSystemRoot.getFileSystem().hashCode()));
+			return new MountBuilder() {
+				@Override
+				public Mount mount() {
+					return new StubMount(mountpoint);
+				}
+			};
+		}
+	}
+
+	private record StubMount(Mountpoint mountpoint) implements Mount {
+
+		@Override
+		public Mountpoint getMountpoint() {
+			return mountpoint;
+		}
+
+		@Override
+		public void unmount() {
+			// no-op
+		}
+
+		@Override
+		public void unmountForced() {
+			// no-op
+		}
+
+		@Override
+		public void close() {
+			// no-op
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+package org.cryptomator.common.vaults;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequential and random cleartext reads and writes of a fixed block size on a single file inside an unlocked vault.
+ * <p>
+ * Each operation transfers one block. Writes overwrite existing content, so partial chunk writes include the read-modify-write cycle.
+ * Files are accessed via the root handed to the mount, so the read-ahead configured by {@link #readAheadChunks} applies to the read benchmarks.
+ */
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class CleartextIoBenchmark {
+
+	private static final long FILE_SIZE = 64 * 1024 * 1024;
+
+	@Param({"4096", "65536"})
+	public int blockSize;
+
+	@Param(BenchmarkVault.STUB_MOUNT_SERVICE)
+	public String mountService;
+
+	@Param({"0", "64"})
+	public int readAheadChunks;
+
+	private BenchmarkVault benchmarkVault;
+	private Path file;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		benchmarkVault = BenchmarkVault.create(mountService);
+		benchmarkVault.vault().getVaultSettings().readAheadChunks.set(readAheadChunks);
+		benchmarkVault.vault().unlock(benchmarkVault.keyLoader());
+		file = benchmarkVault.mountedRoot().resolve("file.bin");
+		var random = new SplittableRandom(42L);
+		var buf = ByteBuffer.allocate(1024 * 1024);
+		try (var ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			for (long written = 0; written < FILE_SIZE; written += buf.capacity()) {
+				random.nextBytes(buf.array());
+				buf.clear();
+				while (buf.hasRemaining()) {
+					ch.write(buf);
+				}
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() throws IOException {
+		benchmarkVault.close();
+	}
+
+	@State(Scope.Thread)
+	public static class OpenFile {
+
+		FileChannel channel;
+		FileChannel readOnlyChannel;
+		ByteBuffer buffer;
+		SplittableRandom random;
+		long blocks;
+		long nextBlock;
+
+		@Setup(Level.Iteration)
+		public void open(CleartextIoBenchmark benchmark) throws IOException {
+			channel = FileChannel.open(benchmark.file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			readOnlyChannel = FileChannel.open(benchmark.file, StandardOpenOption.READ); // read-ahead only applies to files not open for writing
+			buffer = ByteBuffer.allocate(benchmark.blockSize);
+			random = new SplittableRandom();
+			random.nextBytes(buffer.array());
+			blocks = FILE_SIZE / benchmark.blockSize;
+			nextBlock = 0;
+		}
+
+		@TearDown(Level.Iteration)
+		public void close() throws IOException {
+			channel.close();
+			readOnlyChannel.close();
+		}
+
+		long nextSequentialPosition() {
+			long block = nextBlock;
+			nextBlock = (block + 1) % blocks;
+			return block * buffer.capacity();
+		}
+
+		long nextRandomPosition() {
+			return random.nextLong(blocks) * buffer.capacity();
+		}
+	}
+
+	@Benchmark
+	public int sequentialRead(OpenFile f) throws IOException {
+		f.buffer.clear();
+		return f.readOnlyChannel.read(f.buffer, f.nextSequentialPosition());
+	}
+
+	@Benchmark
+	public int randomRead(OpenFile f) throws IOException {
+		f.buffer.clear();
+		return f.readOnlyChannel.read(f.buffer, f.nextRandomPosition());
+	}
+
+	@Benchmark
+	public int sequentialWrite(OpenFile f) throws IOException {
+		f.buffer.clear();
+		return f.channel.write(f.buffer, f.nextSequentialPosition());
+	}
+
+	@Benchmark
+	public int randomWrite(OpenFile f) throws IOException {
+		f.buffer.clear();
+		return f.channel.write(f.buffer, f.nextRandomPosition());
+	}
+
+}
@@ -0,0 +1,174 @@
+package org.cryptomator.common.vaults;
+
+import com.google.common.base.Suppliers;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.cryptomator.common.ApplicationThread;
+import org.cryptomator.common.Environment;
+import org.cryptomator.common.mount.Mounter;
+import org.cryptomator.common.mount.WindowsDriveLetters;
+import org.cryptomator.common.settings.Settings;
+import org.cryptomator.common.settings.VaultSettings;
+import org.cryptomator.cryptofs.CryptoFileSystem;
+import org.cryptomator.cryptofs.common.FileSystemCapabilityChecker;
+import org.cryptomator.integrations.mount.MountService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * Measures how the {@link VaultListManager} scales with the number of configured vaults.
+ * <p>
+ * {@link #startup()} restores all vaults from the settings and waits until their initial state is known, like the app does during launch.
+ * The vaults don't exist on disk, hence the state detection itself is cheap and the result mostly reflects the per-vault overhead.
+ * Run with <code>-prof gc</code> (as done by the <code>benchmark</code> profile): <code>gc.alloc.rate.norm</code> divided by {@link #vaultCount}
+ * is the heap <em>allocated</em> per vault during startup, including short-lived garbage. The heap <em>retained</em> per vault (settings included)
+ * is measured once per trial by comparing the used heap after garbage collections before and after restoring the vaults, and printed to the console.
+ * As {@link System#gc()} is only a hint, it is an approximation.
+ * <p>
+ * Background services that would outlive a single invocation (file system watches, periodic scans) are not started.
+ */
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class VaultListBenchmark {
+
+	@Param({"10", "1000", "10000"})
+	public int vaultCount;
+
+	private Path tmpDir;
+	private Environment env;
+	private Settings settings;
+	private Mounter mounter;
+	private ResourceBundle resourceBundle;
+	private ScheduledExecutorService scheduler;
+	private ExecutorService executor;
+	private VaultStatsSampler sampler;
+	private IoMemoryBudget ioMemoryBudget;
+	private FileSystemCapabilityCache capabilityCache;
+	private DirectoryTreeWarmUp directoryTreeWarmUp;
+	private List<String> vaultIds;
+	private VaultListManager vaultListManager;
+	private int counter;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		ApplicationThread.startHeadless();
+		tmpDir = Files.createTempDirectory("cryptomator-benchmark");
+		env = Environment.getInstance();
+		settings = Settings.create(env);
+		mounter = new Mounter(env, settings, new WindowsDriveLetters(), MountService.get().toList(), ConcurrentHashMap.newKeySet(), new SimpleObjectProperty<>());
+		resourceBundle = ResourceBundle.getBundle("i18n.strings");
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		executor = Executors.newCachedThreadPool();
+		sampler = new VaultStatsSampler(scheduler);
+		ioMemoryBudget = new IoMemoryBudget();
+		capabilityCache = new FileSystemCapabilityCache(Optional.empty(), new FileSystemCapabilityChecker(), Clock.systemUTC());
+		directoryTreeWarmUp = new DirectoryTreeWarmUp(settings);
+		long heapBefore = usedHeapAfterGc();
+		var restoredSettings = createSettings();
+		vaultListManager = restore(restoredSettings);
+		long retained = usedHeapAfterGc() - heapBefore;
+		System.out.printf("Retained heap per vault: %d bytes%n", retained / vaultCount);
+		vaultIds = restoredSettings.directories.stream().map(vaultSettings -> vaultSettings.id).toList();
+	}
+
+	private static long usedHeapAfterGc() {
+		for (int i = 0; i < 3; i++) { // collect garbage promoted during earlier collections as well
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() throws IOException {
+		scheduler.shutdown();
+		executor.shutdown();
+		MoreFiles.deleteRecursively(tmpDir, RecursiveDeleteOption.ALLOW_INSECURE);
+	}
+
+	@Benchmark
+	public VaultListManager startup() {
+		return restore(createSettings());
+	}
+
+	@Benchmark
+	public Optional<Vault> lookupById() {
+		return vaultListManager.getById(vaultIds.get(counter++ % vaultCount));
+	}
+
+	private VaultListManager restore(Settings settings) {
+		ObservableList<Vault> vaultList = FXCollections.observableArrayList(Vault::observables);
+		var autoLocker = new AutoLocker(scheduler, executor, vaultList);
+		var integrityScanner = new IntegrityScanner(scheduler, vaultList, settings, env, new SecureRandom()) {
+			@Override
+			public void init() {
+				// not scheduling periodic scans
+			}
+		};
+		var presenceMonitor = new VaultPresenceMonitor(vaultList, new VaultStateRefresher(vaultList)) {
+			@Override
+			public void init() {
+				// not watching the file system
+			}
+		};
+		var manager = new VaultListManager(vaultList, autoLocker, integrityScanner, presenceMonitor, List.of(), this::createVaultComponent, resourceBundle, settings);
+		manager.initialStatesDetermined().toCompletableFuture().join();
+		return manager;
+	}
+
+	private Settings createSettings() {
+		var settings = Settings.create(env);
+		settings.directories.addAll(IntStream.range(0, vaultCount).mapToObj(this::createVaultSettings).toList());
+		return settings;
+	}
+
+	private VaultSettings createVaultSettings(int i) {
+		var vaultSettings = VaultSettings.withRandomId();
+		vaultSettings.path.set(tmpDir.resolve("vault" + i));
+		vaultSettings.displayName.set("Vault " + i);
+		return vaultSettings;
+	}
+
+	private VaultComponent createVaultComponent(VaultSettings vaultSettings, VaultConfigCache configCache, VaultState.Value initialState, Exception initialErrorCause) {
+		var cryptoFileSystem = new AtomicReference<CryptoFileSystem>();
+		var state = new VaultState(initialState);
+		var stats = Suppliers.memoize(() -> new VaultStats(cryptoFileSystem, sampler));
+		var vault = new Vault(vaultSettings, configCache, cryptoFileSystem, state, new SimpleObjectProperty<>(initialErrorCause), stats::get, mounter, settings, ioMemoryBudget, capabilityCache, executor, scheduler, directoryTreeWarmUp);
+		return () -> vault;
+	}
+
+}
@@ -0,0 +1,88 @@
+package org.cryptomator.common.vaults;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Vault#unlock(org.cryptomator.cryptolib.api.MasterkeyLoader)} and {@link Vault#lock(boolean)} independently of each other.
+ */
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class VaultUnlockBenchmark {
+
+	@State(Scope.Thread)
+	public static class LockedVault {
+
+		@Param(BenchmarkVault.STUB_MOUNT_SERVICE)
+		public String mountService;
+
+		BenchmarkVault benchmarkVault;
+
+		@Setup(Level.Trial)
+		public void setup() throws IOException {
+			benchmarkVault = BenchmarkVault.create(mountService);
+		}
+
+		@TearDown(Level.Invocation)
+		public void lockAgain() throws Exception {
+			benchmarkVault.vault().lock(false);
+		}
+
+		@TearDown(Level.Trial)
+		public void teardown() throws IOException {
+			benchmarkVault.close();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class UnlockedVault {
+
+		@Param(BenchmarkVault.STUB_MOUNT_SERVICE)
+		public String mountService;
+
+		BenchmarkVault benchmarkVault;
+
+		@Setup(Level.Trial)
+		public void setup() throws IOException {
+			benchmarkVault = BenchmarkVault.create(mountService);
+		}
+
+		@Setup(Level.Invocation)
+		public void unlockAgain() throws Exception {
+			benchmarkVault.vault().unlock(benchmarkVault.keyLoader());
+		}
+
+		@TearDown(Level.Trial)
+		public void teardown() throws IOException {
+			benchmarkVault.close();
+		}
+	}
+
+	@Benchmark
+	public void unlock(LockedVault lockedVault) throws Exception {
+		lockedVault.benchmarkVault.vault().unlock(lockedVault.benchmarkVault.keyLoader());
+	}
+
+	@Benchmark
+	public void lock(UnlockedVault unlockedVault) throws Exception {
+		unlockedVault.benchmarkVault.vault().lock(false);
+	}
+
+}
@@ -0,0 +1,67 @@
+package org.cryptomator.common;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javafx.application.Platform;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The thread on which observable application state (such as vault states) gets modified.
+ * <p>
+ * This is the JavaFX application thread, unless the application runs {@link #startHeadless() headless}, in which case the JavaFX
+ * runtime is not available and a dedicated thread takes over its role.
+ */
+public final class ApplicationThread {
+
+	private static volatile Thread headlessThread;
+	private static volatile ExecutorService headlessExecutor;
+
+	private ApplicationThread() {}
+
+	/**
+	 * Starts the thread replacing the JavaFX application thread. Must be invoked before any state is modified, if the JavaFX runtime will not be started.
+	 */
+	public static synchronized void startHeadless() {
+		if (headlessExecutor == null) {
+			var threadFactory = new ThreadFactoryBuilder().setNameFormat("Headless Application Thread").setDaemon(true).build();
+			headlessExecutor = Executors.newSingleThreadExecutor(r -> {
+				var thread = threadFactory.newThread(r);
+				headlessThread = thread;
+				return thread;
+			});
+		}
+	}
+
+	public static boolean isHeadless() {
+		return headlessExecutor != null;
+	}
+
+	/**
+	 * @return <code>true</code> if the calling thread is the application thread
+	 * @see Platform#isFxApplicationThread()
+	 */
+	public static boolean isCurrent() {
+		if (isHeadless()) {
+			return Thread.currentThread() == headlessThread;
+		} else {
+			return Platform.isFxApplicationThread();
+		}
+	}
+
+	/**
+	 * Runs the given runnable on the application thread at some unspecified time in the future.
+	 *
+	 * @param runnable The runnable
+	 * @see Platform#runLater(Runnable)
+	 */
+	public static void runLater(Runnable runnable) {
+		var executor = headlessExecutor;
+		if (executor != null) {
+			executor.execute(runnable);
+		} else {
+			Platform.runLater(runnable);
+		}
+	}
+
+}
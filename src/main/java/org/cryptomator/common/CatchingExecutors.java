@@ -3,7 +3,6 @@ package org.cryptomator.common;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javafx.application.Platform;
 import javafx.concurrent.Task;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
@@ -82,7 +81,7 @@ public final class CatchingExecutors {
 
 	private static void afterExecuteTask(Task<?> task) {
 		var caller = Thread.currentThread();
-		Platform.runLater(() -> {
+		ApplicationThread.runLater(() -> {
 			if (task.getOnFailed() == null) {
 				callHandler(caller, task.getException());
 			}
@@ -33,6 +33,7 @@ public class Environment {
 	private static final String PLUGIN_DIR_PROP_NAME = "cryptomator.pluginDir";
 	private static final String TRAY_ICON_PROP_NAME = "cryptomator.showTrayIcon";
 	private static final String DISABLE_UPDATE_CHECK_PROP_NAME = "cryptomator.disableUpdateCheck";
+	private static final String METRICS_PORT_PROP_NAME = "cryptomator.metricsPort";
 
 	private Environment() {}
 
@@ -55,6 +56,7 @@ public class Environment {
 		logCryptomatorSystemProperty(PLUGIN_DIR_PROP_NAME);
 		logCryptomatorSystemProperty(TRAY_ICON_PROP_NAME);
 		logCryptomatorSystemProperty(DISABLE_UPDATE_CHECK_PROP_NAME);
+		logCryptomatorSystemProperty(METRICS_PORT_PROP_NAME);
 	}
 
 	public static Environment getInstance() {
@@ -130,6 +132,15 @@ public class Environment {
 		return Boolean.getBoolean(DISABLE_UPDATE_CHECK_PROP_NAME);
 	}
 
+	/**
+	 * Returns the loopback port defined in the {@value METRICS_PORT_PROP_NAME} property, on which vault metrics shall be exposed.
+	 *
+	 * @return The metrics port or an empty optional, if the metrics endpoint is disabled
+	 */
+	public Optional<Integer> getMetricsPort() {
+		return Optional.ofNullable(Integer.getInteger(METRICS_PORT_PROP_NAME));
+	}
+
 	private Optional<Path> getPath(String propertyName) {
 		String value = System.getProperty(propertyName);
 		return Optional.ofNullable(value).map(Paths::get);
@@ -0,0 +1,385 @@
+package org.cryptomator.common.fs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AccessMode;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves repeated attribute reads and directory listings from memory, sparing the decorated file system the name encryption and decryption.
+ * <p>
+ * Both caches are bounded, evict the least recently used entries first and expire entries {@value #TTL_MILLIS} ms after they have been loaded,
+ * so changes made to the vault storage by other processes (e.g. sync clients) become visible after that time at the latest.
+ * Changes made through this file system invalidate the affected entries immediately: Creating, deleting or moving a node invalidates the node, its
+ * parent and (for moves and copies) everything below it. Writing to a channel or setting attributes invalidates the attributes of the file.
+ * <p>
+ * Absent files are cached as well, since file managers and the OS frequently probe for files that don't exist.
+ */
+public class CachingFileSystemProvider extends DelegatingFileSystemProvider {
+
+	static final long TTL_MILLIS = 2000;
+	private static final int MAX_CACHED_PATHS = 10_000;
+	private static final int MAX_CACHED_DIRECTORY_ENTRIES = 100_000;
+	private static final Object NO_SUCH_FILE = new Object();
+	private static final Set<StandardOpenOption> MODIFYING_OPTIONS = EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.APPEND, StandardOpenOption.CREATE, //
+			StandardOpenOption.CREATE_NEW, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.DELETE_ON_CLOSE);
+
+	private final MetadataCacheStats stats;
+	private final Cache<Path, Map<AttributesKey, Object>> attributes; // absolute path -> attributes (or NO_SUCH_FILE) by type
+	private final Cache<Path, List<Path>> listings; // absolute path -> entries
+	private final AtomicLong modifications = new AtomicLong(); // prevents caching results loaded concurrently to a modification
+
+	public CachingFileSystemProvider(Path delegateRoot, MetadataCacheStats stats) {
+		super(delegateRoot);
+		this.stats = stats;
+		this.attributes = CacheBuilder.newBuilder() //
+				.maximumSize(MAX_CACHED_PATHS) //
+				.expireAfterWrite(Duration.ofMillis(TTL_MILLIS)) //
+				.build();
+		this.listings = CacheBuilder.newBuilder() //
+				.maximumWeight(MAX_CACHED_DIRECTORY_ENTRIES) //
+				.weigher((Path dir, List<Path> entries) -> entries.size() + 1) //
+				.expireAfterWrite(Duration.ofMillis(TTL_MILLIS)) //
+				.build();
+	}
+
+	private record AttributesKey(Class<?> type, boolean followLinks) {
+
+		static AttributesKey of(Class<?> type, LinkOption... options) {
+			for (var option : options) {
+				if (option == LinkOption.NOFOLLOW_LINKS) {
+					return new AttributesKey(type, false);
+				}
+			}
+			return new AttributesKey(type, true);
+		}
+	}
+
+	/* Cached reads */
+
+	@Override
+	public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException {
+		var cachePath = path.toAbsolutePath();
+		var key = AttributesKey.of(type, options);
+		var cachedByType = attributes.getIfPresent(cachePath);
+		var cached = cachedByType == null ? null : cachedByType.get(key);
+		if (cached == NO_SUCH_FILE) {
+			stats.hit();
+			throw new NoSuchFileException(path.toString());
+		} else if (cached != null) {
+			stats.hit();
+			return type.cast(cached);
+		}
+		stats.miss();
+		long modCount = modifications.get();
+		try {
+			var attrs = super.readAttributes(path, type, options);
+			cacheAttributes(cachePath, key, attrs, modCount);
+			return attrs;
+		} catch (NoSuchFileException e) {
+			cacheAttributes(cachePath, key, NO_SUCH_FILE, modCount);
+			throw e;
+		}
+	}
+
+	private void cacheAttributes(Path cachePath, AttributesKey key, Object value, long modCount) {
+		if (modifications.get() == modCount) {
+			attributes.asMap().computeIfAbsent(cachePath, p -> new ConcurrentHashMap<>()).put(key, value);
+		}
+	}
+
+	@Override
+	public void checkAccess(Path path, AccessMode... modes) throws IOException {
+		if (modes.length == 0) { // existence check
+			readAttributes(path, BasicFileAttributes.class);
+		} else {
+			super.checkAccess(path, modes);
+		}
+	}
+
+	@Override
+	public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException {
+		var cachePath = dir.toAbsolutePath();
+		var entries = listings.getIfPresent(cachePath);
+		if (entries != null) {
+			stats.hit();
+		} else {
+			stats.miss();
+			entries = list(cachePath);
+		}
+		var accepted = new ArrayList<Path>(entries.size());
+		for (var entry : entries) {
+			var child = dir.isAbsolute() ? entry : dir.resolve(entry.getFileName());
+			if (filter.accept(child)) {
+				accepted.add(child);
+			}
+		}
+		return new ListedDirectoryStream(Collections.unmodifiableList(accepted));
+	}
+
+	private List<Path> list(Path dir) throws IOException {
+		long modCount = modifications.get();
+		var entries = new ArrayList<Path>();
+		try (var stream = super.newDirectoryStream(dir, p -> true)) {
+			stream.forEach(entries::add);
+		} catch (DirectoryIteratorException e) {
+			throw e.getCause();
+		}
+		var result = List.copyOf(entries);
+		if (modifications.get() == modCount) {
+			listings.put(dir, result);
+		}
+		return result;
+	}
+
+	private static class ListedDirectoryStream implements DirectoryStream<Path> {
+
+		private final List<Path> entries;
+		private boolean iterated;
+		private boolean closed;
+
+		ListedDirectoryStream(List<Path> entries) {
+			this.entries = entries;
+		}
+
+		@Override
+		public synchronized Iterator<Path> iterator() {
+			if (closed) {
+				throw new IllegalStateException("Directory stream is closed.");
+			} else if (iterated) {
+				throw new IllegalStateException("Iterator already obtained.");
+			}
+			iterated = true;
+			return entries.iterator();
+		}
+
+		@Override
+		public synchronized void close() {
+			closed = true;
+		}
+	}
+
+	/* Invalidating writes */
+
+	@Override
+	public FileChannel newFileChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+		if (Collections.disjoint(options, MODIFYING_OPTIONS)) {
+			return super.newFileChannel(path, options, attrs);
+		}
+		try {
+			return new InvalidatingFileChannel(super.newFileChannel(path, options, attrs), path.toAbsolutePath());
+		} finally {
+			invalidateNode(path);
+		}
+	}
+
+	@Override
+	public void createDirectory(Path dir, FileAttribute<?>... attrs) throws IOException {
+		try {
+			super.createDirectory(dir, attrs);
+		} finally {
+			invalidateNode(dir);
+		}
+	}
+
+	@Override
+	public void createSymbolicLink(Path link, Path target, FileAttribute<?>... attrs) throws IOException {
+		try {
+			super.createSymbolicLink(link, target, attrs);
+		} finally {
+			invalidateNode(link);
+		}
+	}
+
+	@Override
+	public void createLink(Path link, Path existing) throws IOException {
+		try {
+			super.createLink(link, existing);
+		} finally {
+			invalidateNode(link);
+		}
+	}
+
+	@Override
+	public void delete(Path path) throws IOException {
+		try {
+			super.delete(path);
+		} finally {
+			invalidateNode(path);
+		}
+	}
+
+	@Override
+	public void copy(Path source, Path target, CopyOption... options) throws IOException {
+		try {
+			super.copy(source, target, options);
+		} finally {
+			invalidateTree(target);
+		}
+	}
+
+	@Override
+	public void move(Path source, Path target, CopyOption... options) throws IOException {
+		try {
+			super.move(source, target, options);
+		} finally {
+			invalidateTree(source);
+			invalidateTree(target);
+		}
+	}
+
+	@Override
+	public void setAttribute(Path path, String attribute, Object value, LinkOption... options) throws IOException {
+		try {
+			super.setAttribute(path, attribute, value, options);
+		} finally {
+			invalidateAttributes(path.toAbsolutePath());
+		}
+	}
+
+	/**
+	 * Attribute views can modify attributes, e.g. via {@link java.nio.file.attribute.BasicFileAttributeView#setTimes}.
+	 * The returned view therefore invalidates the cached attributes after each setter.
+	 */
+	@Override
+	public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
+		var view = super.getFileAttributeView(path, type, options);
+		if (view == null) {
+			return null;
+		}
+		var cachePath = path.toAbsolutePath();
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+			try {
+				return method.invoke(view, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			} finally {
+				if (method.getName().startsWith("set")) {
+					invalidateAttributes(cachePath);
+				}
+			}
+		}));
+	}
+
+	private void invalidateAttributes(Path cachePath) {
+		modifications.incrementAndGet();
+		attributes.invalidate(cachePath);
+	}
+
+	/**
+	 * Invalidates the given node and its parent, whose entries and modification time change when nodes get added or removed.
+	 */
+	private void invalidateNode(Path path) {
+		modifications.incrementAndGet();
+		var cachePath = path.toAbsolutePath();
+		attributes.invalidate(cachePath);
+		listings.invalidate(cachePath);
+		var parent = cachePath.getParent();
+		if (parent != null) {
+			attributes.invalidate(parent);
+			listings.invalidate(parent);
+		}
+	}
+
+	/**
+	 * Invalidates the given node, its parent and all its descendants.
+	 */
+	private void invalidateTree(Path path) {
+		invalidateNode(path);
+		var cachePath = path.toAbsolutePath();
+		attributes.asMap().keySet().removeIf(p -> p.startsWith(cachePath));
+		listings.asMap().keySet().removeIf(p -> p.startsWith(cachePath));
+	}
+
+	private class InvalidatingFileChannel extends DelegatingFileChannel {
+
+		private final Path cachePath;
+
+		InvalidatingFileChannel(FileChannel delegate, Path cachePath) {
+			super(delegate);
+			this.cachePath = cachePath;
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			try {
+				return delegate.write(src);
+			} finally {
+				invalidateAttributes(cachePath);
+			}
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+			try {
+				return delegate.write(srcs, offset, length);
+			} finally {
+				invalidateAttributes(cachePath);
+			}
+		}
+
+		@Override
+		public int write(ByteBuffer src, long position) throws IOException {
+			try {
+				return delegate.write(src, position);
+			} finally {
+				invalidateAttributes(cachePath);
+			}
+		}
+
+		@Override
+		public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+			try {
+				return delegate.transferFrom(src, position, count);
+			} finally {
+				invalidateAttributes(cachePath);
+			}
+		}
+
+		@Override
+		public FileChannel truncate(long size) throws IOException {
+			try {
+				return super.truncate(size);
+			} finally {
+				invalidateAttributes(cachePath);
+			}
+		}
+
+		@Override
+		protected void implCloseChannel() throws IOException {
+			try {
+				super.implCloseChannel();
+			} finally {
+				invalidateNode(cachePath); // e.g. DELETE_ON_CLOSE
+			}
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package org.cryptomator.common.fs;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * A number of chunk buffers shared by several file systems. Safe to use from any thread.
+ * <p>
+ * The capacity may be shrunk while chunks are in use. In this case, no chunks are handed out until enough of them got released.
+ */
+public class ChunkBudget {
+
+	private final ShrinkableSemaphore permits;
+
+	/**
+	 * @param capacity Initial number of chunks
+	 */
+	public ChunkBudget(int capacity) {
+		this.permits = new ShrinkableSemaphore(capacity);
+	}
+
+	/**
+	 * Adds the given number of chunks to the budget.
+	 *
+	 * @param chunks Number of chunks to add
+	 */
+	public void grow(int chunks) {
+		permits.release(chunks);
+	}
+
+	/**
+	 * Removes the given number of chunks from the budget, regardless of whether they are currently in use.
+	 *
+	 * @param chunks Number of chunks to remove
+	 */
+	public void shrink(int chunks) {
+		permits.reducePermits(chunks);
+	}
+
+	boolean tryAcquire() {
+		return permits.tryAcquire();
+	}
+
+	void release(int chunks) {
+		permits.release(chunks);
+	}
+
+	/**
+	 * @return Number of chunks that may currently be handed out, negative if more chunks are in use than the budget allows
+	 */
+	public int available() {
+		return permits.availablePermits();
+	}
+
+	private static class ShrinkableSemaphore extends Semaphore {
+
+		ShrinkableSemaphore(int permits) {
+			super(permits);
+		}
+
+		@Override
+		protected void reducePermits(int reduction) {
+			super.reducePermits(reduction);
+		}
+	}
+
+}
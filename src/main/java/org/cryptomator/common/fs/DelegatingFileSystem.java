@@ -0,0 +1,91 @@
+package org.cryptomator.common.fs;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.util.Set;
+import java.util.stream.StreamSupport;
+
+/**
+ * The file system of a {@link DelegatingFileSystemProvider}, forwarding to the decorated file system.
+ */
+final class DelegatingFileSystem extends FileSystem {
+
+	private final DelegatingFileSystemProvider provider;
+	private final FileSystem delegate;
+
+	DelegatingFileSystem(DelegatingFileSystemProvider provider, FileSystem delegate) {
+		this.provider = provider;
+		this.delegate = delegate;
+	}
+
+	Path wrap(Path path) {
+		return new DelegatingPath(this, path);
+	}
+
+	@Override
+	public DelegatingFileSystemProvider provider() {
+		return provider;
+	}
+
+	@Override
+	public void close() throws IOException {
+		delegate.close();
+	}
+
+	@Override
+	public boolean isOpen() {
+		return delegate.isOpen();
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return delegate.isReadOnly();
+	}
+
+	@Override
+	public String getSeparator() {
+		return delegate.getSeparator();
+	}
+
+	@Override
+	public Iterable<Path> getRootDirectories() {
+		return StreamSupport.stream(delegate.getRootDirectories().spliterator(), false).map(this::wrap).toList();
+	}
+
+	@Override
+	public Iterable<FileStore> getFileStores() {
+		return delegate.getFileStores();
+	}
+
+	@Override
+	public Set<String> supportedFileAttributeViews() {
+		return delegate.supportedFileAttributeViews();
+	}
+
+	@Override
+	public Path getPath(String first, String... more) {
+		return wrap(delegate.getPath(first, more));
+	}
+
+	@Override
+	public PathMatcher getPathMatcher(String syntaxAndPattern) {
+		var matcher = delegate.getPathMatcher(syntaxAndPattern);
+		return path -> path instanceof DelegatingPath p && p.getFileSystem() == this && matcher.matches(p.delegate());
+	}
+
+	@Override
+	public UserPrincipalLookupService getUserPrincipalLookupService() {
+		return delegate.getUserPrincipalLookupService();
+	}
+
+	@Override
+	public WatchService newWatchService() throws IOException {
+		return delegate.newWatchService();
+	}
+
+}
@@ -0,0 +1,198 @@
+package org.cryptomator.common.fs;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessMode;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decorates a file system, e.g. the one of an unlocked vault before handing it to the mount.
+ * <p>
+ * Each instance wraps exactly one file system. Its paths wrap the paths of the decorated file system and all operations are forwarded to it.
+ * Subclasses override the operations they want to intercept. Opening byte channels is routed through {@link #newFileChannel(Path, Set, FileAttribute[])},
+ * so this is the only method to override when wrapping channels. Decorators can be stacked by decorating the {@link #getRoot() root} of another one.
+ * <p>
+ * Paths are only obtained from the {@link #getRoot() root} of the decorated file system. Since the provider is not installed, URI based lookups are not supported.
+ */
+public abstract class DelegatingFileSystemProvider extends FileSystemProvider {
+
+	private final FileSystem delegate;
+	private final DelegatingFileSystem fileSystem;
+
+	protected DelegatingFileSystemProvider(Path delegateRoot) {
+		this.delegate = delegateRoot.getFileSystem();
+		this.fileSystem = new DelegatingFileSystem(this, delegate);
+	}
+
+	/**
+	 * @return The root directory of the decorated file system, as seen through this decorator
+	 */
+	public Path getRoot() {
+		return fileSystem.getRootDirectories().iterator().next();
+	}
+
+	protected Path wrap(Path delegatePath) {
+		return fileSystem.wrap(delegatePath);
+	}
+
+	protected Path unwrap(Path path) {
+		if (path instanceof DelegatingPath p && p.getFileSystem() == fileSystem) {
+			return p.delegate();
+		} else {
+			throw new ProviderMismatchException();
+		}
+	}
+
+	private FileSystemProvider delegateProvider() {
+		return delegate.provider();
+	}
+
+	@Override
+	public String getScheme() {
+		return delegateProvider().getScheme();
+	}
+
+	@Override
+	public FileSystem newFileSystem(URI uri, Map<String, ?> env) {
+		throw new UnsupportedOperationException("Decorated file systems can't be created by URI.");
+	}
+
+	@Override
+	public FileSystem getFileSystem(URI uri) {
+		throw new UnsupportedOperationException("Decorated file systems can't be looked up by URI.");
+	}
+
+	@Override
+	public Path getPath(URI uri) {
+		throw new UnsupportedOperationException("Decorated file systems can't be looked up by URI.");
+	}
+
+	@Override
+	public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+		return newFileChannel(path, options, attrs);
+	}
+
+	@Override
+	public FileChannel newFileChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+		return delegateProvider().newFileChannel(unwrap(path), options, attrs);
+	}
+
+	@Override
+	public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException {
+		var stream = delegateProvider().newDirectoryStream(unwrap(dir), p -> filter.accept(wrap(p)));
+		return new DirectoryStream<>() {
+			@Override
+			public Iterator<Path> iterator() {
+				var iterator = stream.iterator();
+				return new Iterator<>() {
+					@Override
+					public boolean hasNext() {
+						return iterator.hasNext();
+					}
+
+					@Override
+					public Path next() {
+						return wrap(iterator.next());
+					}
+				};
+			}
+
+			@Override
+			public void close() throws IOException {
+				stream.close();
+			}
+		};
+	}
+
+	@Override
+	public void createDirectory(Path dir, FileAttribute<?>... attrs) throws IOException {
+		delegateProvider().createDirectory(unwrap(dir), attrs);
+	}
+
+	@Override
+	public void createSymbolicLink(Path link, Path target, FileAttribute<?>... attrs) throws IOException {
+		delegateProvider().createSymbolicLink(unwrap(link), unwrap(target), attrs);
+	}
+
+	@Override
+	public Path readSymbolicLink(Path link) throws IOException {
+		return wrap(delegateProvider().readSymbolicLink(unwrap(link)));
+	}
+
+	@Override
+	public void createLink(Path link, Path existing) throws IOException {
+		delegateProvider().createLink(unwrap(link), unwrap(existing));
+	}
+
+	@Override
+	public void delete(Path path) throws IOException {
+		delegateProvider().delete(unwrap(path));
+	}
+
+	@Override
+	public void copy(Path source, Path target, CopyOption... options) throws IOException {
+		delegateProvider().copy(unwrap(source), unwrap(target), options);
+	}
+
+	@Override
+	public void move(Path source, Path target, CopyOption... options) throws IOException {
+		delegateProvider().move(unwrap(source), unwrap(target), options);
+	}
+
+	@Override
+	public boolean isSameFile(Path path, Path path2) throws IOException {
+		return delegateProvider().isSameFile(unwrap(path), unwrap(path2));
+	}
+
+	@Override
+	public boolean isHidden(Path path) throws IOException {
+		return delegateProvider().isHidden(unwrap(path));
+	}
+
+	@Override
+	public FileStore getFileStore(Path path) throws IOException {
+		return delegateProvider().getFileStore(unwrap(path));
+	}
+
+	@Override
+	public void checkAccess(Path path, AccessMode... modes) throws IOException {
+		delegateProvider().checkAccess(unwrap(path), modes);
+	}
+
+	@Override
+	public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
+		return delegateProvider().getFileAttributeView(unwrap(path), type, options);
+	}
+
+	@Override
+	public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException {
+		return delegateProvider().readAttributes(unwrap(path), type, options);
+	}
+
+	@Override
+	public Map<String, Object> readAttributes(Path path, String attributes, LinkOption... options) throws IOException {
+		return delegateProvider().readAttributes(unwrap(path), attributes, options);
+	}
+
+	@Override
+	public void setAttribute(Path path, String attribute, Object value, LinkOption... options) throws IOException {
+		delegateProvider().setAttribute(unwrap(path), attribute, value, options);
+	}
+
+}
@@ -0,0 +1,146 @@
+package org.cryptomator.common.fs;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * A path of a {@link DelegatingFileSystem}, backed by a path of the decorated file system.
+ */
+final class DelegatingPath implements Path {
+
+	private final DelegatingFileSystem fileSystem;
+	private final Path delegate;
+
+	DelegatingPath(DelegatingFileSystem fileSystem, Path delegate) {
+		this.fileSystem = fileSystem;
+		this.delegate = delegate;
+	}
+
+	Path delegate() {
+		return delegate;
+	}
+
+	private Path wrap(Path path) {
+		return path == null ? null : new DelegatingPath(fileSystem, path);
+	}
+
+	private Path unwrap(Path path) {
+		if (path instanceof DelegatingPath p && p.fileSystem == fileSystem) {
+			return p.delegate;
+		} else {
+			throw new ProviderMismatchException();
+		}
+	}
+
+	@Override
+	public DelegatingFileSystem getFileSystem() {
+		return fileSystem;
+	}
+
+	@Override
+	public boolean isAbsolute() {
+		return delegate.isAbsolute();
+	}
+
+	@Override
+	public Path getRoot() {
+		return wrap(delegate.getRoot());
+	}
+
+	@Override
+	public Path getFileName() {
+		return wrap(delegate.getFileName());
+	}
+
+	@Override
+	public Path getParent() {
+		return wrap(delegate.getParent());
+	}
+
+	@Override
+	public int getNameCount() {
+		return delegate.getNameCount();
+	}
+
+	@Override
+	public Path getName(int index) {
+		return wrap(delegate.getName(index));
+	}
+
+	@Override
+	public Path subpath(int beginIndex, int endIndex) {
+		return wrap(delegate.subpath(beginIndex, endIndex));
+	}
+
+	@Override
+	public boolean startsWith(Path other) {
+		return other instanceof DelegatingPath p && p.fileSystem == fileSystem && delegate.startsWith(p.delegate);
+	}
+
+	@Override
+	public boolean endsWith(Path other) {
+		return other instanceof DelegatingPath p && p.fileSystem == fileSystem && delegate.endsWith(p.delegate);
+	}
+
+	@Override
+	public Path normalize() {
+		return wrap(delegate.normalize());
+	}
+
+	@Override
+	public Path resolve(Path other) {
+		return wrap(delegate.resolve(unwrap(other)));
+	}
+
+	@Override
+	public Path relativize(Path other) {
+		return wrap(delegate.relativize(unwrap(other)));
+	}
+
+	@Override
+	public URI toUri() {
+		return delegate.toUri();
+	}
+
+	@Override
+	public Path toAbsolutePath() {
+		return wrap(delegate.toAbsolutePath());
+	}
+
+	@Override
+	public Path toRealPath(LinkOption... options) throws IOException {
+		return wrap(delegate.toRealPath(options));
+	}
+
+	@Override
+	public WatchKey register(WatchService watcher, WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers) throws IOException {
+		return delegate.register(watcher, events, modifiers);
+	}
+
+	@Override
+	public int compareTo(Path other) {
+		return delegate.compareTo(unwrap(other));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof DelegatingPath other && other.fileSystem == fileSystem && other.delegate.equals(delegate);
+	}
+
+	@Override
+	public int hashCode() {
+		return delegate.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return delegate.toString();
+	}
+
+}
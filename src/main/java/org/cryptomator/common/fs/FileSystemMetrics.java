@@ -0,0 +1,105 @@
+package org.cryptomator.common.fs;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts file system operations and records their latencies. Safe to use from any thread.
+ * <p>
+ * Latencies are recorded in a histogram with power-of-two buckets, so percentiles are approximate (within a factor of two),
+ * but recording an operation takes a few additions only.
+ */
+public class FileSystemMetrics {
+
+	public enum Operation {
+		READ_ATTRIBUTES,
+		NEW_BYTE_CHANNEL,
+		READ,
+		WRITE,
+		LIST_DIRECTORY,
+		MOVE,
+		DELETE
+	}
+
+	private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+
+	public FileSystemMetrics() {
+		for (var op : Operation.values()) {
+			histograms.put(op, new Histogram());
+		}
+	}
+
+	/**
+	 * @param op The finished operation
+	 * @param startNanos {@link System#nanoTime()} when the operation started
+	 */
+	void record(Operation op, long startNanos) {
+		histograms.get(op).add(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * @return The statistics of each operation recorded so far
+	 */
+	public Map<Operation, OperationStats> snapshot() {
+		var result = new EnumMap<Operation, OperationStats>(Operation.class);
+		histograms.forEach((op, histogram) -> result.put(op, histogram.snapshot()));
+		return result;
+	}
+
+	/**
+	 * @param count Number of completed operations, including failed ones
+	 * @param total Sum of the latencies
+	 * @param p50 Approximate median latency (the upper bound of the bucket containing it)
+	 * @param p99 Approximate 99th percentile latency (the upper bound of the bucket containing it)
+	 */
+	public record OperationStats(long count, Duration total, Duration p50, Duration p99) {
+
+		public Duration mean() {
+			return count == 0 ? Duration.ZERO : total.dividedBy(count);
+		}
+	}
+
+	private static class Histogram {
+
+		private static final int BUCKETS = Long.SIZE; // bucket i holds latencies in [2^i, 2^(i+1)) ns, bucket 0 also holds 0 ns
+
+		private final LongAdder[] buckets = new LongAdder[BUCKETS];
+		private final LongAdder totalNanos = new LongAdder();
+
+		Histogram() {
+			Arrays.setAll(buckets, i -> new LongAdder());
+		}
+
+		void add(long nanos) {
+			long n = Math.max(nanos, 1L);
+			buckets[BUCKETS - 1 - Long.numberOfLeadingZeros(n)].increment();
+			totalNanos.add(n);
+		}
+
+		OperationStats snapshot() {
+			long[] counts = new long[BUCKETS];
+			long count = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				counts[i] = buckets[i].sum();
+				count += counts[i];
+			}
+			return new OperationStats(count, Duration.ofNanos(totalNanos.sum()), percentile(counts, count, 0.5), percentile(counts, count, 0.99));
+		}
+
+		private static Duration percentile(long[] counts, long count, double p) {
+			long rank = (long) Math.ceil(count * p);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts[i];
+				if (seen >= rank && seen > 0) {
+					return Duration.ofNanos(i < BUCKETS - 2 ? (1L << (i + 1)) - 1 : Long.MAX_VALUE);
+				}
+			}
+			return Duration.ZERO;
+		}
+	}
+
+}
@@ -0,0 +1,211 @@
+package org.cryptomator.common.fs;
+
+import org.cryptomator.common.fs.FileSystemMetrics.Operation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the {@link FileSystemMetrics} of the operations issued against the decorated file system.
+ * <p>
+ * Directory listings are recorded when the stream is closed and only account for the time spent in the decorated file system,
+ * i.e. opening the stream and fetching the entries, not the time the caller spends processing them.
+ */
+public class InstrumentingFileSystemProvider extends DelegatingFileSystemProvider {
+
+	private final FileSystemMetrics metrics;
+
+	public InstrumentingFileSystemProvider(Path delegateRoot, FileSystemMetrics metrics) {
+		super(delegateRoot);
+		this.metrics = metrics;
+	}
+
+	@Override
+	public FileChannel newFileChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+		long start = System.nanoTime();
+		try {
+			return new InstrumentingFileChannel(super.newFileChannel(path, options, attrs));
+		} finally {
+			metrics.record(Operation.NEW_BYTE_CHANNEL, start);
+		}
+	}
+
+	@Override
+	public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException {
+		long start = System.nanoTime();
+		final DirectoryStream<Path> stream;
+		try {
+			stream = super.newDirectoryStream(dir, filter);
+		} catch (IOException | RuntimeException e) {
+			metrics.record(Operation.LIST_DIRECTORY, start);
+			throw e;
+		}
+		return new InstrumentingDirectoryStream(stream, System.nanoTime() - start);
+	}
+
+	@Override
+	public void delete(Path path) throws IOException {
+		long start = System.nanoTime();
+		try {
+			super.delete(path);
+		} finally {
+			metrics.record(Operation.DELETE, start);
+		}
+	}
+
+	@Override
+	public void move(Path source, Path target, CopyOption... options) throws IOException {
+		long start = System.nanoTime();
+		try {
+			super.move(source, target, options);
+		} finally {
+			metrics.record(Operation.MOVE, start);
+		}
+	}
+
+	@Override
+	public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException {
+		long start = System.nanoTime();
+		try {
+			return super.readAttributes(path, type, options);
+		} finally {
+			metrics.record(Operation.READ_ATTRIBUTES, start);
+		}
+	}
+
+	@Override
+	public Map<String, Object> readAttributes(Path path, String attributes, LinkOption... options) throws IOException {
+		long start = System.nanoTime();
+		try {
+			return super.readAttributes(path, attributes, options);
+		} finally {
+			metrics.record(Operation.READ_ATTRIBUTES, start);
+		}
+	}
+
+	private class InstrumentingDirectoryStream implements DirectoryStream<Path> {
+
+		private final DirectoryStream<Path> delegate;
+		private long elapsedNanos; // accessed by the iterating thread only
+
+		InstrumentingDirectoryStream(DirectoryStream<Path> delegate, long elapsedNanos) {
+			this.delegate = delegate;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		@Override
+		public Iterator<Path> iterator() {
+			var iterator = delegate.iterator();
+			return new Iterator<>() {
+				@Override
+				public boolean hasNext() {
+					long start = System.nanoTime();
+					try {
+						return iterator.hasNext();
+					} finally {
+						elapsedNanos += System.nanoTime() - start;
+					}
+				}
+
+				@Override
+				public Path next() {
+					long start = System.nanoTime();
+					try {
+						return iterator.next();
+					} finally {
+						elapsedNanos += System.nanoTime() - start;
+					}
+				}
+			};
+		}
+
+		@Override
+		public void close() throws IOException {
+			long start = System.nanoTime();
+			try {
+				delegate.close();
+			} finally {
+				metrics.record(Operation.LIST_DIRECTORY, start - elapsedNanos);
+			}
+		}
+	}
+
+	private class InstrumentingFileChannel extends DelegatingFileChannel {
+
+		InstrumentingFileChannel(FileChannel delegate) {
+			super(delegate);
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			long start = System.nanoTime();
+			try {
+				return delegate.read(dst);
+			} finally {
+				metrics.record(Operation.READ, start);
+			}
+		}
+
+		@Override
+		public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+			long start = System.nanoTime();
+			try {
+				return delegate.read(dsts, offset, length);
+			} finally {
+				metrics.record(Operation.READ, start);
+			}
+		}
+
+		@Override
+		public int read(ByteBuffer dst, long position) throws IOException {
+			long start = System.nanoTime();
+			try {
+				return delegate.read(dst, position);
+			} finally {
+				metrics.record(Operation.READ, start);
+			}
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			long start = System.nanoTime();
+			try {
+				return delegate.write(src);
+			} finally {
+				metrics.record(Operation.WRITE, start);
+			}
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+			long start = System.nanoTime();
+			try {
+				return delegate.write(srcs, offset, length);
+			} finally {
+				metrics.record(Operation.WRITE, start);
+			}
+		}
+
+		@Override
+		public int write(ByteBuffer src, long position) throws IOException {
+			long start = System.nanoTime();
+			try {
+				return delegate.write(src, position);
+			} finally {
+				metrics.record(Operation.WRITE, start);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,35 @@
+package org.cryptomator.common.fs;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit and miss counters of a {@link CachingFileSystemProvider}. Safe to use from any thread.
+ */
+public class MetadataCacheStats {
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	void hit() {
+		hits.increment();
+	}
+
+	void miss() {
+		misses.increment();
+	}
+
+	/**
+	 * @return Number of attribute and directory lookups served from the cache
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return Number of attribute and directory lookups forwarded to the decorated file system
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+}
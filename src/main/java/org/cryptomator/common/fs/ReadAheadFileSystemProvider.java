@@ -0,0 +1,307 @@
+package org.cryptomator.common.fs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Prefetches the following chunks of files that are read sequentially, so their decryption overlaps with the caller processing the previous ones.
+ * <p>
+ * Each channel opened for reading watches the positions it is read from. After {@value #MIN_SEQUENTIAL_READS} consecutive reads continuing where the
+ * previous one ended, it starts reading ahead {@value #INITIAL_WINDOW} chunks on the given executor. The window doubles whenever the reader proceeds to the
+ * next chunk, up to the maximum. Any non-sequential read drops the prefetched chunks and resets the window.
+ * <p>
+ * Prefetched chunks of all channels count against a {@link ChunkBudget}, which may be shared with other file systems, and no more chunks get
+ * prefetched while it is exhausted. Chunks are released as soon as the reader has passed them. If the reader needs a chunk before the executor got to
+ * it, the reader reads it itself.
+ * <p>
+ * Writing to a file through this file system, including through the reading channel itself, discards chunks prefetched for it before the write
+ * completed. Therefore, channels opened for both reading and writing, as done by most mounts, benefit from read-ahead as well.
+ */
+public class ReadAheadFileSystemProvider extends DelegatingFileSystemProvider {
+
+	static final int MIN_SEQUENTIAL_READS = 2;
+	static final int INITIAL_WINDOW = 2;
+	private static final int VERSION_STRIPES = 1024;
+	private static final Set<StandardOpenOption> WRITING_OPTIONS = EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+	private final Executor executor;
+	private final int chunkSize;
+	private final int maxWindow;
+	private final ChunkBudget budget;
+	private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES); // incremented after writes, by path hash
+
+	/**
+	 * @param delegateRoot Root of the file system to decorate
+	 * @param executor Where to read chunks ahead
+	 * @param chunkSize Size of a cleartext chunk of the decorated file system, in bytes
+	 * @param maxWindow Maximum number of chunks to read ahead of a single reader
+	 * @param budget Limits the number of chunks held in memory for all open files together
+	 */
+	public ReadAheadFileSystemProvider(Path delegateRoot, Executor executor, int chunkSize, int maxWindow, ChunkBudget budget) {
+		super(delegateRoot);
+		this.executor = executor;
+		this.chunkSize = chunkSize;
+		this.maxWindow = maxWindow;
+		this.budget = budget;
+	}
+
+	/**
+	 * @return Number of chunks that may currently be prefetched
+	 */
+	int availableChunks() {
+		return budget.available();
+	}
+
+	private int versionStripe(Path path) {
+		return Math.floorMod(path.toAbsolutePath().hashCode(), VERSION_STRIPES);
+	}
+
+	@Override
+	public FileChannel newFileChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+		var channel = super.newFileChannel(path, options, attrs);
+		if (options.contains(StandardOpenOption.READ) || Collections.disjoint(options, WRITING_OPTIONS)) {
+			return new ReadAheadFileChannel(channel, versionStripe(path));
+		} else {
+			return new VersioningFileChannel(channel, versionStripe(path));
+		}
+	}
+
+	/**
+	 * A chunk being read ahead. Whoever starts reading it first (the executor or the reader) completes it.
+	 *
+	 * @param version The file's version when the prefetch was scheduled
+	 */
+	private record Prefetch(long index, long version, AtomicBoolean started, CompletableFuture<ByteBuffer> data) {
+
+		Prefetch(long index, long version) {
+			this(index, version, new AtomicBoolean(), new CompletableFuture<>());
+		}
+	}
+
+	private class ReadAheadFileChannel extends VersioningFileChannel {
+
+		private final TreeMap<Long, Prefetch> prefetched = new TreeMap<>(); // guarded by this
+		private long expectedPosition = -1; // guarded by this
+		private int sequentialReads; // guarded by this
+		private int window; // guarded by this
+
+		ReadAheadFileChannel(FileChannel delegate, int versionStripe) {
+			super(delegate, versionStripe);
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			synchronized (delegate) { // implicit position
+				long position = delegate.position();
+				int read = read(dst, position);
+				if (read > 0) {
+					delegate.position(position + read);
+				}
+				return read;
+			}
+		}
+
+		@Override
+		public int read(ByteBuffer dst, long position) throws IOException {
+			if (position < 0) {
+				throw new IllegalArgumentException("Negative position");
+			}
+			int served = readPrefetched(dst, position);
+			int read = dst.hasRemaining() ? delegate.read(dst, position + served) : 0;
+			int total = served + Math.max(read, 0);
+			readCompleted(position, total);
+			return total == 0 && read < 0 ? -1 : total;
+		}
+
+		private int readPrefetched(ByteBuffer dst, long position) throws IOException {
+			int served = 0;
+			while (dst.hasRemaining()) {
+				long pos = position + served;
+				long index = pos / chunkSize;
+				Prefetch prefetch;
+				synchronized (this) {
+					prefetch = prefetched.get(index);
+				}
+				if (prefetch == null) {
+					break;
+				}
+				ByteBuffer data;
+				try {
+					if (prefetch.started().compareAndSet(false, true)) {
+						prefetch.data().complete(readChunk(index)); // executor didn't get to it yet
+					}
+					data = prefetch.data().join();
+				} catch (IOException | CompletionException e) {
+					discard(index); // fall back to a direct read, which reports the error if it persists
+					break;
+				}
+				if (prefetch.version() != versions.get(versionStripe)) {
+					discardAll(); // written in the meantime
+					break;
+				}
+				int offset = (int) (pos - index * chunkSize);
+				if (offset >= data.limit()) {
+					break; // EOF
+				}
+				int n = Math.min(dst.remaining(), data.limit() - offset);
+				dst.put(dst.position(), data, offset, n);
+				dst.position(dst.position() + n);
+				served += n;
+			}
+			return served;
+		}
+
+		private ByteBuffer readChunk(long index) throws IOException {
+			var buf = ByteBuffer.allocate(chunkSize);
+			long start = index * chunkSize;
+			while (buf.hasRemaining()) {
+				if (delegate.read(buf, start + buf.position()) < 0) {
+					break;
+				}
+			}
+			return buf.flip();
+		}
+
+		private synchronized void readCompleted(long position, int bytesRead) throws IOException {
+			long end = position + bytesRead;
+			if (position != expectedPosition) { // random access
+				sequentialReads = 0;
+				window = 0;
+				discardAll();
+			} else if (++sequentialReads >= MIN_SEQUENTIAL_READS && bytesRead > 0) {
+				boolean nextChunk = position / chunkSize != end / chunkSize;
+				window = window == 0 ? INITIAL_WINDOW : nextChunk ? Math.min(window * 2, maxWindow) : window;
+				release(end / chunkSize); // passed
+				prefetch(end / chunkSize, Math.min(window, maxWindow));
+			}
+			expectedPosition = end;
+		}
+
+		private void prefetch(long firstIndex, int count) throws IOException {
+			assert Thread.holdsLock(this);
+			long size = delegate.size();
+			long version = versions.get(versionStripe);
+			for (long index = firstIndex; index < firstIndex + count && index * chunkSize < size; index++) {
+				if (prefetched.containsKey(index)) {
+					continue;
+				} else if (!budget.tryAcquire()) {
+					break;
+				}
+				var prefetch = new Prefetch(index, version);
+				prefetched.put(index, prefetch);
+				try {
+					executor.execute(() -> {
+						if (prefetch.started().compareAndSet(false, true)) {
+							try {
+								prefetch.data().complete(readChunk(prefetch.index()));
+							} catch (IOException | RuntimeException e) {
+								prefetch.data().completeExceptionally(e);
+							}
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					discard(index);
+					break;
+				}
+			}
+		}
+
+		private synchronized void release(long beforeIndex) {
+			var passed = prefetched.headMap(beforeIndex);
+			budget.release(passed.size());
+			passed.clear();
+		}
+
+		private synchronized void discard(long index) {
+			if (prefetched.remove(index) != null) {
+				budget.release(1);
+			}
+		}
+
+		private synchronized void discardAll() {
+			budget.release(prefetched.size());
+			prefetched.clear();
+		}
+
+		@Override
+		protected void implCloseChannel() throws IOException {
+			try {
+				discardAll();
+			} finally {
+				super.implCloseChannel();
+			}
+		}
+	}
+
+	private class VersioningFileChannel extends DelegatingFileChannel {
+
+		protected final int versionStripe;
+
+		VersioningFileChannel(FileChannel delegate, int versionStripe) {
+			super(delegate);
+			this.versionStripe = versionStripe;
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			try {
+				return delegate.write(src);
+			} finally {
+				versions.incrementAndGet(versionStripe);
+			}
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+			try {
+				return delegate.write(srcs, offset, length);
+			} finally {
+				versions.incrementAndGet(versionStripe);
+			}
+		}
+
+		@Override
+		public int write(ByteBuffer src, long position) throws IOException {
+			try {
+				return delegate.write(src, position);
+			} finally {
+				versions.incrementAndGet(versionStripe);
+			}
+		}
+
+		@Override
+		public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+			try {
+				return delegate.transferFrom(src, position, count);
+			} finally {
+				versions.incrementAndGet(versionStripe);
+			}
+		}
+
+		@Override
+		public FileChannel truncate(long size) throws IOException {
+			try {
+				return super.truncate(size);
+			} finally {
+				versions.incrementAndGet(versionStripe);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,572 @@
+package org.cryptomator.common.fs;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.CopyOption;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects small writes to files in memory and passes them to the decorated file system in large contiguous writes, so each chunk gets encrypted and
+ * written to the vault storage once instead of once per write. This keeps sync clients watching the vault storage from uploading the same chunks over and over.
+ * <p>
+ * Each channel opened for writing buffers a single contiguous range of up to {@value #MAX_CHUNKS_PER_FILE} chunks. Writes extending or overlapping the range
+ * are absorbed. A write elsewhere flushes the buffer first. When the buffer is full, all complete chunks are flushed at once, while the incomplete last
+ * chunk stays buffered. Whatever is left is flushed {@value #FLUSH_DELAY_MILLIS} ms after the first absorbed write at the latest.
+ * <p>
+ * {@link FileChannel#force(boolean) Forcing} or closing a channel flushes its buffer before returning. Reading, writing or truncating a file through any
+ * channel, setting its attributes or moving, copying or deleting it flushes the buffers of all other channels writing to it first, so buffered writes are never
+ * observable through this file system and are never applied out of order. Reading attributes doesn't flush, as mounts query them after almost every write.
+ * Instead, size and modification time are adjusted to the buffered writes.
+ * Buffers of all channels count against a common limit of chunks. While it is exhausted, writes pass through unbuffered.
+ * <p>
+ * If a delayed flush fails, the data stays buffered and the error is thrown by the next write, force or close of the channel.
+ * <p>
+ * Before the decorated file system gets closed, {@link #flushAll()} must be invoked, as channels still open at that point (e.g. after a forced unmount)
+ * would otherwise lose their buffered writes, and errors thrown while closing a channel may have been ignored by whoever closed it.
+ */
+public class WriteCoalescingFileSystemProvider extends DelegatingFileSystemProvider {
+
+	static final int MAX_CHUNKS_PER_FILE = 32;
+	static final long FLUSH_DELAY_MILLIS = 2000;
+
+	private final ScheduledExecutorService scheduler;
+	private final int chunkSize;
+	private final int chunksPerFile;
+	private final Semaphore budget; // in chunks
+	private final WriteCoalescingStats stats;
+	private final Map<Path, Set<CoalescingFileChannel>> writers = new ConcurrentHashMap<>(); // absolute path -> open channels buffering writes to it
+
+	/**
+	 * @param delegateRoot Root of the file system to decorate
+	 * @param scheduler Where to flush buffers after {@value #FLUSH_DELAY_MILLIS} ms. Flushes encrypt and write data, hence this shouldn't be a scheduler shared with unrelated tasks.
+	 * @param chunkSize Size of a cleartext chunk of the decorated file system, in bytes
+	 * @param maxChunks Maximum number of chunks to buffer for all open files together
+	 * @param stats Where to count absorbed and flushed writes
+	 */
+	public WriteCoalescingFileSystemProvider(Path delegateRoot, ScheduledExecutorService scheduler, int chunkSize, int maxChunks, WriteCoalescingStats stats) {
+		super(delegateRoot);
+		this.scheduler = scheduler;
+		this.chunkSize = chunkSize;
+		this.chunksPerFile = Math.min(maxChunks, MAX_CHUNKS_PER_FILE);
+		this.budget = new Semaphore(maxChunks);
+		this.stats = stats;
+	}
+
+	/**
+	 * @return Number of chunks that may currently be buffered
+	 */
+	int availableChunks() {
+		return budget.availablePermits();
+	}
+
+	/**
+	 * Flushes the buffers of all open channels. Channels keep writing through this file system afterwards, so this needs to be repeated once all of them
+	 * are closed, if writes may have been issued in between.
+	 *
+	 * @throws IOException If any buffer couldn't be flushed, including pending errors of earlier delayed flushes. The buffers of all other channels are flushed regardless.
+	 */
+	public void flushAll() throws IOException {
+		IOException error = null;
+		for (var channels : writers.values()) {
+			for (var channel : channels) {
+				try {
+					channel.flushChecked();
+				} catch (IOException e) {
+					if (error == null) {
+						error = e;
+					} else {
+						error.addSuppressed(e);
+					}
+				}
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	/**
+	 * Flushes the buffers of all channels writing to the given file.
+	 */
+	private void flushWriters(Path path) throws IOException {
+		if (writers.isEmpty()) {
+			return;
+		}
+		var channels = writers.get(path.toAbsolutePath());
+		if (channels != null) {
+			for (var channel : channels) {
+				channel.flushAll();
+			}
+		}
+	}
+
+	/**
+	 * @return The end and time of the buffered writes to the given file, <code>null</code> if there are none
+	 */
+	private Pending pendingWrites(Path path) {
+		if (writers.isEmpty()) {
+			return null;
+		}
+		var channels = writers.get(path.toAbsolutePath());
+		if (channels == null) {
+			return null;
+		}
+		Pending result = null;
+		for (var channel : channels) {
+			result = Pending.max(result, channel.pending());
+		}
+		return result;
+	}
+
+	private record Pending(long end, FileTime lastModified) {
+
+		static Pending max(Pending a, Pending b) {
+			if (a == null || b == null) {
+				return a == null ? b : a;
+			}
+			return new Pending(Math.max(a.end, b.end), a.lastModified.compareTo(b.lastModified) >= 0 ? a.lastModified : b.lastModified);
+		}
+
+		long size(long flushedSize) {
+			return Math.max(flushedSize, end);
+		}
+
+		FileTime lastModifiedTime(FileTime flushedTime) {
+			return flushedTime == null || flushedTime.compareTo(lastModified) < 0 ? lastModified : flushedTime;
+		}
+	}
+
+	/**
+	 * Flushes the buffers of all channels writing to the given file or, if it is a directory, to any file below it.
+	 */
+	private void flushWritersBelow(Path path) throws IOException {
+		if (writers.isEmpty()) {
+			return;
+		}
+		var absPath = path.toAbsolutePath();
+		for (var entry : writers.entrySet()) {
+			if (entry.getKey().startsWith(absPath)) {
+				for (var channel : entry.getValue()) {
+					channel.flushAll();
+				}
+			}
+		}
+	}
+
+	@Override
+	public FileChannel newFileChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+		flushWriters(path);
+		var channel = super.newFileChannel(path, options, attrs);
+		boolean coalescing = options.contains(StandardOpenOption.WRITE) && !options.contains(StandardOpenOption.APPEND) && chunksPerFile > 0;
+		return new CoalescingFileChannel(channel, path.toAbsolutePath(), coalescing);
+	}
+
+	/**
+	 * Answers size and modification time as if the buffered writes had been flushed. They are looked up before and after reading the flushed attributes,
+	 * in case a buffer gets flushed in between.
+	 */
+	@Override
+	public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException {
+		var pendingBefore = pendingWrites(path);
+		var attrs = super.readAttributes(path, type, options);
+		var pending = Pending.max(pendingBefore, pendingWrites(path));
+		if (pending == null) {
+			return attrs;
+		}
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+			if (method.getParameterCount() == 0 && method.getName().equals("size")) {
+				return pending.size(attrs.size());
+			} else if (method.getParameterCount() == 0 && method.getName().equals("lastModifiedTime")) {
+				return pending.lastModifiedTime(attrs.lastModifiedTime());
+			}
+			try {
+				return method.invoke(attrs, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}));
+	}
+
+	@Override
+	public Map<String, Object> readAttributes(Path path, String attributes, LinkOption... options) throws IOException {
+		var pendingBefore = pendingWrites(path);
+		var attrs = super.readAttributes(path, attributes, options);
+		var pending = Pending.max(pendingBefore, pendingWrites(path));
+		if (pending == null) {
+			return attrs;
+		}
+		var result = new HashMap<>(attrs);
+		result.computeIfPresent("size", (k, size) -> pending.size((Long) size));
+		result.computeIfPresent("lastModifiedTime", (k, time) -> pending.lastModifiedTime((FileTime) time));
+		return result;
+	}
+
+	@Override
+	public void setAttribute(Path path, String attribute, Object value, LinkOption... options) throws IOException {
+		flushWriters(path);
+		super.setAttribute(path, attribute, value, options);
+	}
+
+	/**
+	 * The returned view flushes the buffers of the file before each operation, so a later flush can't override times set via the view.
+	 */
+	@Override
+	public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
+		var view = super.getFileAttributeView(path, type, options);
+		if (view == null) {
+			return null;
+		}
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+			if (!method.getName().equals("name")) {
+				flushWriters(path);
+			}
+			try {
+				return method.invoke(view, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}));
+	}
+
+	@Override
+	public void delete(Path path) throws IOException {
+		flushWritersBelow(path);
+		super.delete(path);
+	}
+
+	@Override
+	public void copy(Path source, Path target, CopyOption... options) throws IOException {
+		flushWritersBelow(source);
+		flushWritersBelow(target);
+		super.copy(source, target, options);
+	}
+
+	@Override
+	public void move(Path source, Path target, CopyOption... options) throws IOException {
+		flushWritersBelow(source);
+		flushWritersBelow(target);
+		super.move(source, target, options);
+	}
+
+	/**
+	 * Reads, writes and truncation flush the buffers of all other channels writing to the same file first. Channels opened for writing (but not appending)
+	 * additionally buffer their own writes.
+	 */
+	private class CoalescingFileChannel extends DelegatingFileChannel {
+
+		private final Path path;
+		private final boolean coalescing;
+		private ByteBuffer buffer; // guarded by this; data from position 0 to buffer.position(), null while nothing is buffered
+		private long bufferStart; // guarded by this; file position of the buffer's first byte
+		private ScheduledFuture<?> scheduledFlush; // guarded by this
+		private IOException deferredError; // guarded by this
+		private FileTime lastAbsorbed; // guarded by this
+
+		CoalescingFileChannel(FileChannel delegate, Path path, boolean coalescing) {
+			super(delegate);
+			this.path = path;
+			this.coalescing = coalescing;
+			if (coalescing) {
+				writers.compute(path, (p, channels) -> {
+					var result = channels == null ? ConcurrentHashMap.<CoalescingFileChannel>newKeySet() : channels;
+					result.add(this);
+					return result;
+				});
+			}
+		}
+
+		/* Reads */
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			flushWriters(path);
+			return delegate.read(dst);
+		}
+
+		@Override
+		public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+			flushWriters(path);
+			return delegate.read(dsts, offset, length);
+		}
+
+		@Override
+		public int read(ByteBuffer dst, long position) throws IOException {
+			flushWriters(path);
+			return delegate.read(dst, position);
+		}
+
+		@Override
+		public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+			flushWriters(path);
+			return delegate.transferTo(position, count, target);
+		}
+
+		@Override
+		public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+			flushWriters(path);
+			return delegate.map(mode, position, size);
+		}
+
+		@Override
+		public synchronized long size() throws IOException {
+			long size = delegate.size();
+			return buffer == null ? size : Math.max(size, bufferStart + buffer.position());
+		}
+
+		/* Writes */
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			flushOtherWriters();
+			if (!coalescing) {
+				return passThrough(() -> delegate.write(src));
+			}
+			synchronized (this) { // implicit position
+				long position = delegate.position();
+				int written = absorb(src, position);
+				delegate.position(position + written);
+				return written;
+			}
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+			flushWriters(path);
+			return passThrough(() -> delegate.write(srcs, offset, length));
+		}
+
+		@Override
+		public int write(ByteBuffer src, long position) throws IOException {
+			if (position < 0) {
+				throw new IllegalArgumentException("Negative position");
+			}
+			flushOtherWriters();
+			if (!coalescing) {
+				return passThrough(() -> delegate.write(src, position));
+			}
+			return absorb(src, position);
+		}
+
+		/**
+		 * Buffers the given write, if possible, otherwise passes it through. Other writers must have been flushed before.
+		 */
+		private synchronized int absorb(ByteBuffer src, long position) throws IOException {
+			throwDeferredError();
+			int length = src.remaining();
+			if (buffer != null && (position < bufferStart || position > bufferStart + buffer.position())) {
+				flushAll(); // not contiguous
+			}
+			if (buffer != null && position + length > bufferStart + buffer.capacity()) {
+				flushFullChunks();
+			}
+			if (buffer != null && (position < bufferStart || position + length > bufferStart + buffer.capacity())) {
+				flushAll(); // still doesn't fit
+			}
+			if (buffer == null && (length > chunksPerFile * chunkSize || !allocate(position))) {
+				return passThrough(() -> delegate.write(src, position));
+			}
+			int offset = (int) (position - bufferStart);
+			buffer.put(offset, src, src.position(), length);
+			buffer.position(Math.max(buffer.position(), offset + length));
+			src.position(src.position() + length);
+			stats.absorbed();
+			lastAbsorbed = FileTime.fromMillis(System.currentTimeMillis());
+			if (!buffer.hasRemaining()) {
+				flushFullChunks();
+			}
+			scheduleFlush();
+			return length;
+		}
+
+		@Override
+		public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+			flushWriters(path);
+			return passThrough(() -> delegate.transferFrom(src, position, count));
+		}
+
+		@Override
+		public FileChannel truncate(long size) throws IOException {
+			flushWriters(path);
+			delegate.truncate(size);
+			return this;
+		}
+
+		@Override
+		public void force(boolean metaData) throws IOException {
+			flushChecked();
+			delegate.force(metaData);
+		}
+
+		private interface Write<T> {
+
+			T write() throws IOException;
+		}
+
+		private <T> T passThrough(Write<T> write) throws IOException {
+			stats.flushed();
+			return write.write();
+		}
+
+		/* Buffer management */
+
+		/**
+		 * Must not be invoked while holding the lock of this channel, as other channels may concurrently flush this one while holding theirs.
+		 */
+		private void flushOtherWriters() throws IOException {
+			assert !Thread.holdsLock(this);
+			if (writers.isEmpty()) {
+				return;
+			}
+			var channels = writers.get(path);
+			if (channels != null) {
+				for (var channel : channels) {
+					if (channel != this) {
+						channel.flushAll();
+					}
+				}
+			}
+		}
+
+		synchronized Pending pending() {
+			return buffer == null ? null : new Pending(bufferStart + buffer.position(), lastAbsorbed);
+		}
+
+		private boolean allocate(long position) {
+			assert Thread.holdsLock(this);
+			if (!budget.tryAcquire(chunksPerFile)) {
+				return false;
+			}
+			buffer = ByteBuffer.allocate(chunksPerFile * chunkSize);
+			bufferStart = position;
+			return true;
+		}
+
+		private void scheduleFlush() {
+			assert Thread.holdsLock(this);
+			if (buffer == null || scheduledFlush != null) {
+				return;
+			}
+			try {
+				scheduledFlush = scheduler.schedule(this::delayedFlush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				// flushed on force or close
+			}
+		}
+
+		private synchronized void delayedFlush() {
+			scheduledFlush = null;
+			try {
+				flushAll();
+			} catch (IOException e) {
+				deferredError = e;
+			}
+		}
+
+		/**
+		 * Flushes the buffer up to the last chunk boundary it contains, keeping the incomplete last chunk.
+		 */
+		private synchronized void flushFullChunks() throws IOException {
+			if (buffer != null) {
+				long end = bufferStart + buffer.position();
+				flush((int) (end - end % chunkSize - bufferStart));
+			}
+		}
+
+		synchronized void flushAll() throws IOException {
+			if (buffer != null) {
+				flush(buffer.position());
+			}
+		}
+
+		/**
+		 * Like {@link #flushAll()}, but throws the error of a failed delayed flush first, so it isn't lost.
+		 */
+		synchronized void flushChecked() throws IOException {
+			throwDeferredError();
+			flushAll();
+		}
+
+		private void flush(int length) throws IOException {
+			assert Thread.holdsLock(this);
+			if (length <= 0) {
+				return;
+			}
+			var data = buffer.slice(0, length);
+			while (data.hasRemaining()) {
+				delegate.write(data, bufferStart + data.position());
+			}
+			stats.flushed();
+			buffer.flip().position(length);
+			buffer.compact();
+			bufferStart += length;
+			if (buffer.position() == 0) {
+				release();
+			}
+		}
+
+		private void release() {
+			assert Thread.holdsLock(this);
+			if (buffer != null) {
+				buffer = null;
+				budget.release(chunksPerFile);
+			}
+			if (scheduledFlush != null) {
+				scheduledFlush.cancel(false);
+				scheduledFlush = null;
+			}
+		}
+
+		private void throwDeferredError() throws IOException {
+			assert Thread.holdsLock(this);
+			if (deferredError != null) {
+				var e = deferredError;
+				deferredError = null;
+				throw e;
+			}
+		}
+
+		@Override
+		protected void implCloseChannel() throws IOException {
+			try {
+				synchronized (this) {
+					try {
+						flushChecked();
+					} finally {
+						release();
+					}
+				}
+			} finally {
+				if (coalescing) {
+					writers.computeIfPresent(path, (p, channels) -> {
+						channels.remove(this);
+						return channels.isEmpty() ? null : channels;
+					});
+				}
+				super.implCloseChannel();
+			}
+		}
+	}
+
+}
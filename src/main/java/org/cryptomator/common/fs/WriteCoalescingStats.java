@@ -0,0 +1,35 @@
+package org.cryptomator.common.fs;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a {@link WriteCoalescingFileSystemProvider}. Safe to use from any thread.
+ */
+public class WriteCoalescingStats {
+
+	private final LongAdder absorbed = new LongAdder();
+	private final LongAdder flushed = new LongAdder();
+
+	void absorbed() {
+		absorbed.increment();
+	}
+
+	void flushed() {
+		flushed.increment();
+	}
+
+	/**
+	 * @return Number of writes that went into a buffer instead of the decorated file system
+	 */
+	public long getWritesAbsorbed() {
+		return absorbed.sum();
+	}
+
+	/**
+	 * @return Number of writes issued to the decorated file system, either flushing a buffer or passing through
+	 */
+	public long getWritesFlushed() {
+		return flushed.sum();
+	}
+
+}
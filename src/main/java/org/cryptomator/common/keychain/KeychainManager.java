@@ -3,12 +3,12 @@ package org.cryptomator.common.keychain;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import org.cryptomator.common.ApplicationThread;
 import org.cryptomator.integrations.keychain.KeychainAccessException;
 import org.cryptomator.integrations.keychain.KeychainAccessProvider;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import javafx.application.Platform;
 import javafx.beans.binding.ObjectExpression;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ReadOnlyBooleanProperty;
@@ -104,10 +104,10 @@ public class KeychainManager implements KeychainAccessProvider {
 	private void setPassphraseStored(String key, boolean value) {
 		BooleanProperty property = passphraseStoredProperties.getIfPresent(key);
 		if (property != null) {
-			if (Platform.isFxApplicationThread()) {
+			if (ApplicationThread.isCurrent()) {
 				property.set(value);
 			} else {
-				Platform.runLater(() -> property.set(value));
+				ApplicationThread.runLater(() -> property.set(value));
 			}
 		}
 	}
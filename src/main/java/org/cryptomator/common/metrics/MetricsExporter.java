@@ -0,0 +1,99 @@
+package org.cryptomator.common.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.cryptomator.common.vaults.Vault;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Exposes vault metrics via HTTP on the loopback interface, so they can be scraped by Prometheus or any other OpenMetrics-compatible collector.
+ * <p>
+ * Requests are served by the HTTP server's own dispatcher thread. Metrics are read from the values recorded by the
+ * {@link org.cryptomator.common.vaults.VaultStatsSampler}, hence scraping neither polls the file systems nor involves the JavaFX application thread.
+ */
+@Singleton
+public class MetricsExporter implements AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MetricsExporter.class);
+	private static final String PATH = "/metrics";
+
+	private final OpenMetricsWriter writer = new OpenMetricsWriter();
+	private volatile List<Vault> vaults;
+	private HttpServer server; // guarded by this
+
+	@Inject
+	public MetricsExporter(ObservableList<Vault> vaultList) {
+		this.vaults = List.copyOf(vaultList);
+		vaultList.addListener((ListChangeListener<Vault>) change -> {
+			while (change.next()) {
+				if (!change.wasUpdated()) {
+					vaults = List.copyOf(change.getList());
+					return;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Starts serving metrics at <code>http://127.0.0.1:{port}/metrics</code>. Does nothing, if already started.
+	 *
+	 * @param port The TCP port to listen on, <code>0</code> for a random port
+	 * @throws IOException If the server can't be bound to the given port
+	 */
+	public synchronized void start(int port) throws IOException {
+		if (server != null) {
+			return;
+		}
+		var s = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		s.createContext(PATH, this::handle);
+		s.start();
+		server = s;
+		LOG.info("Serving metrics at http://{}:{}{}", s.getAddress().getHostString(), s.getAddress().getPort(), PATH);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			var method = exchange.getRequestMethod();
+			if (!"GET".equals(method) && !"HEAD".equals(method)) {
+				exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			var body = new StringWriter();
+			writer.write(vaults, body);
+			var bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", OpenMetricsWriter.CONTENT_TYPE);
+			if ("HEAD".equals(method)) {
+				exchange.sendResponseHeaders(200, -1);
+			} else {
+				exchange.sendResponseHeaders(200, bytes.length);
+				exchange.getResponseBody().write(bytes);
+			}
+		} catch (RuntimeException e) {
+			LOG.warn("Failed to serve metrics", e);
+			throw e;
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		if (server != null) {
+			server.stop(0);
+			server = null;
+			LOG.debug("Stopped metrics server");
+		}
+	}
+
+}
@@ -0,0 +1,113 @@
+package org.cryptomator.common.metrics;
+
+import org.cryptomator.common.vaults.Vault;
+import org.cryptomator.common.vaults.VaultState;
+import org.cryptomator.common.vaults.VaultStats;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Renders the state and sampled I/O statistics of vaults in the <a href="https://github.com/OpenObservability/OpenMetrics/blob/main/specification/OpenMetrics.md">OpenMetrics</a> text format.
+ * <p>
+ * Only reads thread-safe values, i.e. {@link Vault#getState()} and {@link VaultStats#snapshot()}, so it can be invoked from any thread.
+ */
+class OpenMetricsWriter {
+
+	static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+	private static final String STATE_METRIC = "cryptomator_vault_state";
+	private static final List<Family> IO_METRICS = List.of( //
+			Family.counter("cryptomator_vault_read_bytes", "Cleartext bytes read since unlock.", VaultStats.Snapshot::totalBytesRead), //
+			Family.counter("cryptomator_vault_written_bytes", "Cleartext bytes written since unlock.", VaultStats.Snapshot::totalBytesWritten), //
+			Family.counter("cryptomator_vault_decrypted_bytes", "Bytes decrypted since unlock.", VaultStats.Snapshot::totalBytesDecrypted), //
+			Family.counter("cryptomator_vault_encrypted_bytes", "Bytes encrypted since unlock.", VaultStats.Snapshot::totalBytesEncrypted), //
+			Family.counter("cryptomator_vault_file_accesses", "File accesses since unlock.", VaultStats.Snapshot::totalFilesAccessed), //
+			Family.gauge("cryptomator_vault_file_read_accesses", "File accesses for reading during the last sampling period.", VaultStats.Snapshot::filesRead), //
+			Family.gauge("cryptomator_vault_file_write_accesses", "File accesses for writing during the last sampling period.", VaultStats.Snapshot::filesWritten), //
+			Family.counter("cryptomator_vault_metadata_cache_hits", "Attribute and directory lookups served from the metadata cache since unlock.", VaultStats.Snapshot::metadataCacheHits), //
+			Family.counter("cryptomator_vault_metadata_cache_misses", "Attribute and directory lookups missing the metadata cache since unlock.", VaultStats.Snapshot::metadataCacheMisses), //
+			Family.counter("cryptomator_vault_writes_absorbed", "Cleartext writes buffered for write coalescing since unlock.", VaultStats.Snapshot::writesAbsorbed), //
+			Family.counter("cryptomator_vault_writes_flushed", "Cleartext writes passed on to encryption by write coalescing since unlock.", VaultStats.Snapshot::writesFlushed), //
+			Family.gauge("cryptomator_vault_chunk_cache_hit_ratio", "Chunk cache hit ratio during the last sampling period.", VaultStats.Snapshot::cacheHitRate), //
+			Family.gauge("cryptomator_vault_last_activity_seconds", "Time of the last I/O activity in seconds since epoch.", s -> s.lastActivity() == null ? Double.NaN : s.lastActivity().toEpochMilli() / 1000.0) //
+	);
+
+	private record Family(String name, String type, String help, ToDoubleFunction<VaultStats.Snapshot> value) {
+
+		static Family counter(String name, String help, ToDoubleFunction<VaultStats.Snapshot> value) {
+			return new Family(name, "counter", help, value);
+		}
+
+		static Family gauge(String name, String help, ToDoubleFunction<VaultStats.Snapshot> value) {
+			return new Family(name, "gauge", help, value);
+		}
+
+		String sampleName() {
+			return "counter".equals(type) ? name + "_total" : name;
+		}
+	}
+
+	private record Row(String labels, VaultStats.Snapshot stats) {}
+
+	/**
+	 * Writes one metric family per statistic, each containing one sample per vault. I/O statistics are only written for unlocked vaults.
+	 *
+	 * @param vaults The vaults to export
+	 * @param out Where to write the exposition to
+	 * @throws IOException If writing to <code>out</code> fails
+	 */
+	void write(Collection<Vault> vaults, Appendable out) throws IOException {
+		out.append("# TYPE ").append(STATE_METRIC).append(" stateset\n");
+		out.append("# HELP ").append(STATE_METRIC).append(" Current state of the vault.\n");
+		var unlocked = new ArrayList<Row>(vaults.size());
+		for (var vault : vaults) {
+			var labels = labels(vault);
+			var state = vault.getState();
+			for (var value : VaultState.Value.values()) {
+				out.append(STATE_METRIC).append('{').append(labels).append(',').append(STATE_METRIC).append("=\"").append(value.name()).append("\"} ");
+				out.append(value == state ? '1' : '0').append('\n');
+			}
+			if (state == VaultState.Value.UNLOCKED) {
+				unlocked.add(new Row(labels, vault.getStats().snapshot()));
+			}
+		}
+
+		for (var family : IO_METRICS) {
+			out.append("# TYPE ").append(family.name()).append(' ').append(family.type()).append('\n');
+			out.append("# HELP ").append(family.name()).append(' ').append(family.help()).append('\n');
+			for (var row : unlocked) {
+				double value = family.value().applyAsDouble(row.stats());
+				if (!Double.isNaN(value)) {
+					out.append(family.sampleName()).append('{').append(row.labels()).append("} ").append(format(value)).append('\n');
+				}
+			}
+		}
+		out.append("# EOF\n");
+	}
+
+	private static String labels(Vault vault) {
+		return "vault=\"" + escape(vault.getId()) + "\",name=\"" + escape(vault.getDisplayName()) + "\"";
+	}
+
+	@VisibleForTesting
+	static String escape(String labelValue) {
+		if (labelValue == null) {
+			return "";
+		}
+		return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	private static String format(double value) {
+		if (value == Math.rint(value) && Math.abs(value) < 0x1p53) {
+			return Long.toString((long) value);
+		} else {
+			return Double.toString(value);
+		}
+	}
+
+}
@@ -40,6 +40,11 @@ public class Settings {
 	static final boolean DEFAULT_USE_QUICKACCESS = true;
 	static final int DEFAULT_PORT = 42427;
 	static final int DEFAULT_NUM_TRAY_NOTIFICATIONS = 3;
+	static final int DEFAULT_AUTO_UNLOCK_CONCURRENCY = 4;
+	static final int DEFAULT_HEALTH_CHECK_CONCURRENCY = 4;
+	static final int DEFAULT_INTEGRITY_SCAN_INTERVAL_HOURS = 0;
+	static final int DEFAULT_INTEGRITY_SCAN_NODES_PER_SECOND = 200;
+	static final int DEFAULT_WARM_UP_DIRECTORIES_PER_SECOND = 100;
 	static final boolean DEFAULT_DEBUG_MODE = false;
 	static final UiTheme DEFAULT_THEME = UiTheme.LIGHT;
 	@Deprecated // to be changed to "whatever is available" eventually
@@ -76,6 +81,11 @@ public class Settings {
 	public final StringProperty language;
 	public final StringProperty mountService;
 	public final ObjectProperty<Instant> lastSuccessfulUpdateCheck;
+	public final IntegerProperty autoUnlockConcurrency;
+	public final IntegerProperty healthCheckConcurrency;
+	public final IntegerProperty integrityScanIntervalHours;
+	public final IntegerProperty integrityScanNodesPerSecond;
+	public final IntegerProperty warmUpDirectoriesPerSecond;
 
 	private Consumer<Settings> saveCmd;
 
@@ -115,6 +125,11 @@ public class Settings {
 		this.mountService = new SimpleStringProperty(this, "mountService", json.mountService);
 		this.quickAccessService = new SimpleStringProperty(this, "quickAccessService", json.quickAccessService);
 		this.lastSuccessfulUpdateCheck = new SimpleObjectProperty<>(this, "lastSuccessfulUpdateCheck", json.lastSuccessfulUpdateCheck);
+		this.autoUnlockConcurrency = new SimpleIntegerProperty(this, "autoUnlockConcurrency", json.autoUnlockConcurrency);
+		this.healthCheckConcurrency = new SimpleIntegerProperty(this, "healthCheckConcurrency", json.healthCheckConcurrency);
+		this.integrityScanIntervalHours = new SimpleIntegerProperty(this, "integrityScanIntervalHours", json.integrityScanIntervalHours);
+		this.integrityScanNodesPerSecond = new SimpleIntegerProperty(this, "integrityScanNodesPerSecond", json.integrityScanNodesPerSecond);
+		this.warmUpDirectoriesPerSecond = new SimpleIntegerProperty(this, "warmUpDirectoriesPerSecond", json.warmUpDirectoriesPerSecond);
 
 		this.directories.addAll(json.directories.stream().map(VaultSettings::new).toList());
 
@@ -144,6 +159,11 @@ public class Settings {
 		mountService.addListener(this::somethingChanged);
 		quickAccessService.addListener(this::somethingChanged);
 		lastSuccessfulUpdateCheck.addListener(this::somethingChanged);
+		autoUnlockConcurrency.addListener(this::somethingChanged);
+		healthCheckConcurrency.addListener(this::somethingChanged);
+		integrityScanIntervalHours.addListener(this::somethingChanged);
+		integrityScanNodesPerSecond.addListener(this::somethingChanged);
+		warmUpDirectoriesPerSecond.addListener(this::somethingChanged);
 	}
 
 	@SuppressWarnings("deprecation")
@@ -175,8 +195,18 @@ public class Settings {
 	}
 
 	SettingsJson serialized() {
-		var json = new SettingsJson();
+		var json = serializedWithoutDirectories();
 		json.directories = directories.stream().map(VaultSettings::serialized).toList();
+		return json;
+	}
+
+	/**
+	 * Same as {@link #serialized()} but leaves {@link SettingsJson#directories} empty, which saves serializing all vault settings if only global settings are of interest.
+	 *
+	 * @return json object containing all settings except for the vault settings
+	 */
+	SettingsJson serializedWithoutDirectories() {
+		var json = new SettingsJson();
 		json.askedForUpdateCheck = askedForUpdateCheck.get();
 		json.checkForUpdatesEnabled = checkForUpdates.get();
 		json.startHidden = startHidden.get();
@@ -200,6 +230,11 @@ public class Settings {
 		json.mountService = mountService.get();
 		json.quickAccessService = quickAccessService.get();
 		json.lastSuccessfulUpdateCheck = lastSuccessfulUpdateCheck.get();
+		json.autoUnlockConcurrency = autoUnlockConcurrency.get();
+		json.healthCheckConcurrency = healthCheckConcurrency.get();
+		json.integrityScanIntervalHours = integrityScanIntervalHours.get();
+		json.integrityScanNodesPerSecond = integrityScanNodesPerSecond.get();
+		json.warmUpDirectoriesPerSecond = warmUpDirectoriesPerSecond.get();
 		return json;
 	}
 
@@ -0,0 +1,310 @@
+package org.cryptomator.common.settings;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.cryptomator.common.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javafx.collections.ListChangeListener;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Persists {@link Settings} as a snapshot (the well-known <code>settings.json</code>) plus an append-only journal of changed values.
+ * <p>
+ * Changing a single property only appends a small record to the journal instead of rewriting all settings. The journal is compacted into a new
+ * snapshot when vaults are added, removed or reordered and after {@value MAX_JOURNAL_RECORDS} records.
+ * <p>
+ * The journal starts with a header containing a generation number, which must match the {@link SettingsJson#journalGeneration generation of the snapshot}.
+ * This way, a journal that outlived a crash during compaction is ignored instead of overwriting newer values. A torn record at the end of the journal is
+ * ignored as well. After loading a non-empty journal, or one that new records can't safely be appended to (e.g. because it ends with a torn record), the
+ * first change leads to a compaction.
+ */
+class SettingsJournal {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SettingsJournal.class);
+	static final int MAX_JOURNAL_RECORDS = 1000;
+	private static final String JOURNAL_SUFFIX = ".journal";
+	private static final String GENERATION_FIELD = "generation";
+	private static final String VAULT_FIELD = "vault";
+	private static final String KEY_FIELD = "key";
+	private static final String VALUE_FIELD = "value";
+	private static final Set<String> UNJOURNALED_FIELDS = Set.of("directories", "writtenByVersion", "journalGeneration");
+
+	private final ObjectMapper json;
+	private final Settings settings;
+	private final Path snapshotPath;
+	private final Path journalPath;
+	private final Supplier<String> writtenByVersion;
+	private final Set<VaultSettings> dirtyVaults = ConcurrentHashMap.newKeySet();
+	private final AtomicBoolean structureChanged = new AtomicBoolean();
+
+	// guarded by this:
+	private long generation;
+	private int journalRecords;
+	private boolean compactionRequired;
+	private ObjectNode lastGlobals;
+	private final Map<String, ObjectNode> lastVaults = new HashMap<>();
+
+	/**
+	 * @param json The object mapper used to (de)serialize settings
+	 * @param settings The settings to persist
+	 * @param snapshotPath Where to save the settings
+	 * @param loaded The state of the <code>snapshotPath</code> when the settings were loaded from there or <code>null</code> if loaded from elsewhere
+	 * @param writtenByVersion The app version to note in the snapshot
+	 */
+	SettingsJournal(ObjectMapper json, Settings settings, Path snapshotPath, @Nullable Loaded loaded, Supplier<String> writtenByVersion) {
+		this.json = json;
+		this.settings = settings;
+		this.snapshotPath = snapshotPath;
+		this.journalPath = journalPath(snapshotPath);
+		this.writtenByVersion = writtenByVersion;
+		if (loaded != null) {
+			this.generation = loaded.generation();
+			this.journalRecords = loaded.journalRecords();
+			this.compactionRequired = loaded.journalRecords() > 0 || !loaded.journalAppendable(); // fold the replayed journal into the snapshot with the first change, which also gets rid of torn records
+		} else {
+			this.compactionRequired = true;
+		}
+		this.lastGlobals = globalsTree(settings.serializedWithoutDirectories());
+		settings.directories.forEach(vaultSettings -> lastVaults.put(vaultSettings.id, json.valueToTree(vaultSettings.serialized())));
+		settings.directories.addListener(this::directoriesChanged);
+	}
+
+	private void directoriesChanged(ListChangeListener.Change<? extends VaultSettings> change) {
+		while (change.next()) {
+			if (change.wasUpdated()) {
+				dirtyVaults.addAll(change.getList().subList(change.getFrom(), change.getTo()));
+			} else {
+				structureChanged.set(true);
+			}
+		}
+	}
+
+	/**
+	 * Persists all changes since the last invocation, either by appending them to the journal or by writing a new snapshot.
+	 */
+	synchronized void flush() {
+		try {
+			if (compactionRequired || structureChanged.getAndSet(false)) {
+				compact();
+			} else {
+				appendChanges();
+			}
+		} catch (IOException e) {
+			LOG.error("Failed to save settings.", e);
+		}
+	}
+
+	/**
+	 * Writes all settings to a new snapshot and starts a new, empty journal.
+	 *
+	 * @throws IOException If writing fails
+	 */
+	synchronized void compact() throws IOException {
+		dirtyVaults.clear();
+		structureChanged.set(false);
+		var jsonObj = settings.serialized();
+		jsonObj.writtenByVersion = writtenByVersion.get();
+		jsonObj.journalGeneration = generation + 1;
+
+		LOG.debug("Attempting to save settings to {}", snapshotPath);
+		Files.createDirectories(snapshotPath.getParent());
+		Path tmpPath = snapshotPath.resolveSibling(snapshotPath.getFileName().toString() + ".tmp");
+		try (OutputStream out = Files.newOutputStream(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			json.writerWithDefaultPrettyPrinter().writeValue(out, jsonObj);
+		}
+		Files.move(tmpPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+		generation = jsonObj.journalGeneration;
+
+		// from here on, the old journal will be ignored due to its outdated generation, even if replacing it fails:
+		Path tmpJournalPath = journalPath.resolveSibling(journalPath.getFileName().toString() + ".tmp");
+		Files.writeString(tmpJournalPath, header(generation), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		Files.move(tmpJournalPath, journalPath, StandardCopyOption.REPLACE_EXISTING);
+		journalRecords = 0;
+		compactionRequired = false;
+
+		lastGlobals = globalsTree(jsonObj);
+		lastVaults.clear();
+		jsonObj.directories.forEach(vaultJson -> lastVaults.put(vaultJson.id, json.valueToTree(vaultJson)));
+		LOG.info("Settings saved to {}", snapshotPath);
+	}
+
+	private void appendChanges() throws IOException {
+		var records = new StringBuilder();
+		int count = 0;
+
+		var globals = globalsTree(settings.serializedWithoutDirectories());
+		count += diff(lastGlobals, globals, null, records);
+		lastGlobals = globals;
+
+		for (var it = dirtyVaults.iterator(); it.hasNext(); ) {
+			var vaultSettings = it.next();
+			it.remove();
+			var previous = lastVaults.get(vaultSettings.id);
+			if (previous == null) {
+				compact(); // unknown vault, should have been signalled as a structural change
+				return;
+			}
+			ObjectNode current = json.valueToTree(vaultSettings.serialized());
+			count += diff(previous, current, vaultSettings.id, records);
+			lastVaults.put(vaultSettings.id, current);
+		}
+
+		if (count == 0) {
+			return;
+		}
+		try (var ch = FileChannel.open(journalPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			ch.write(ByteBuffer.wrap(records.toString().getBytes(StandardCharsets.UTF_8)));
+			ch.force(false);
+		} catch (NoSuchFileException e) {
+			compact(); // journal got lost, start over
+			return;
+		}
+		journalRecords += count;
+		LOG.debug("Appended {} changes to {}", count, journalPath);
+		if (journalRecords >= MAX_JOURNAL_RECORDS) {
+			compact();
+		}
+	}
+
+	private int diff(ObjectNode previous, ObjectNode current, String vaultId, StringBuilder records) throws IOException {
+		var keys = new LinkedHashSet<String>();
+		current.fieldNames().forEachRemaining(keys::add);
+		previous.fieldNames().forEachRemaining(keys::add);
+		int count = 0;
+		for (var key : keys) {
+			var oldValue = previous.get(key);
+			var newValue = current.get(key);
+			if (newValue == null) {
+				newValue = NullNode.getInstance(); // omitted due to JsonInclude.Include.NON_NULL
+			}
+			if (!newValue.equals(oldValue)) {
+				var rec = json.createObjectNode();
+				if (vaultId != null) {
+					rec.put(VAULT_FIELD, vaultId);
+				}
+				rec.put(KEY_FIELD, key);
+				rec.set(VALUE_FIELD, newValue);
+				records.append(json.writeValueAsString(rec)).append('\n');
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private ObjectNode globalsTree(SettingsJson jsonObj) {
+		ObjectNode tree = json.valueToTree(jsonObj);
+		tree.remove(UNJOURNALED_FIELDS);
+		return tree;
+	}
+
+	private String header(long generation) {
+		return json.createObjectNode().put(GENERATION_FIELD, generation).toString() + '\n';
+	}
+
+	/* Loading */
+
+	/**
+	 * State of the settings file on disk.
+	 *
+	 * @param settings The settings, including all changes from the journal
+	 * @param generation The generation of the snapshot
+	 * @param journalRecords Number of records replayed from the journal
+	 * @param journalAppendable Whether the journal belongs to the snapshot and ends with a complete record, i.e. new records can be appended to it
+	 */
+	record Loaded(SettingsJson settings, long generation, int journalRecords, boolean journalAppendable) {}
+
+	private record Replayed(int records, boolean appendable) {}
+
+	static Path journalPath(Path snapshotPath) {
+		return snapshotPath.resolveSibling(snapshotPath.getFileName().toString() + JOURNAL_SUFFIX);
+	}
+
+	/**
+	 * Reads the snapshot and applies all valid records of the corresponding journal.
+	 *
+	 * @param json The object mapper used to (de)serialize settings
+	 * @param snapshotPath The path of the snapshot
+	 * @return The loaded settings
+	 * @throws IOException If the snapshot can't be read or parsed
+	 */
+	static Loaded load(ObjectMapper json, Path snapshotPath) throws IOException {
+		JsonNode root;
+		try (var in = Files.newInputStream(snapshotPath, StandardOpenOption.READ)) {
+			root = json.readTree(in);
+		}
+		if (!(root instanceof ObjectNode snapshot)) {
+			throw new IOException("Settings are not a json object");
+		}
+		long generation = snapshot.path("journalGeneration").asLong(0);
+		var replayed = replay(json, snapshot, generation, journalPath(snapshotPath));
+		var settingsJson = json.treeToValue(snapshot, SettingsJson.class);
+		return new Loaded(settingsJson, generation, replayed.records(), replayed.appendable());
+	}
+
+	private static Replayed replay(ObjectMapper json, ObjectNode snapshot, long generation, Path journalPath) throws IOException {
+		String journal;
+		try {
+			journal = Files.readString(journalPath, StandardCharsets.UTF_8);
+		} catch (NoSuchFileException e) {
+			return new Replayed(0, false);
+		}
+		var lines = journal.split("\n", -1); // the last element is empty if the journal ends with a complete record
+		var header = parseLine(json, lines[0]);
+		if (header == null || header.path(GENERATION_FIELD).asLong(-1) != generation) {
+			LOG.debug("Ignoring outdated settings journal {}", journalPath);
+			return new Replayed(0, false);
+		}
+		var vaultsById = new HashMap<String, ObjectNode>();
+		for (var vault : snapshot.withArray("directories")) {
+			if (vault instanceof ObjectNode vaultNode) {
+				vaultsById.put(vaultNode.path("id").asText(), vaultNode);
+			}
+		}
+		int count = 0;
+		ObjectNode rec;
+		while (count + 1 < lines.length && (rec = parseLine(json, lines[count + 1])) != null) {
+			var target = rec.has(VAULT_FIELD) ? vaultsById.get(rec.path(VAULT_FIELD).asText()) : snapshot;
+			if (target != null && rec.hasNonNull(KEY_FIELD) && rec.has(VALUE_FIELD)) {
+				target.set(rec.get(KEY_FIELD).asText(), rec.get(VALUE_FIELD));
+			}
+			count++;
+		}
+		boolean appendable = count + 2 == lines.length && lines[count + 1].isEmpty(); // stopped at the end and not at a torn or unparseable record
+		LOG.debug("Replayed {} changes from {}", count, journalPath);
+		return new Replayed(count, appendable);
+	}
+
+	private static ObjectNode parseLine(ObjectMapper json, String line) {
+		if (line == null || line.isBlank()) {
+			return null;
+		}
+		try {
+			return json.readTree(line) instanceof ObjectNode node ? node : null;
+		} catch (JacksonException e) {
+			LOG.warn("Ignoring incomplete record in settings journal.");
+			return null; // torn write, stop replaying here
+		}
+	}
+
+}
@@ -18,15 +18,33 @@ class SettingsJson {
 	@JsonProperty("writtenByVersion")
 	String writtenByVersion;
 
+	@JsonProperty("journalGeneration")
+	long journalGeneration;
+
 	@JsonProperty("askedForUpdateCheck")
 	boolean askedForUpdateCheck = Settings.DEFAULT_ASKED_FOR_UPDATE_CHECK;
 
 	@JsonProperty("autoCloseVaults")
 	boolean autoCloseVaults = Settings.DEFAULT_AUTO_CLOSE_VAULTS;
 
+	@JsonProperty("autoUnlockConcurrency")
+	int autoUnlockConcurrency = Settings.DEFAULT_AUTO_UNLOCK_CONCURRENCY;
+
 	@JsonProperty("checkForUpdatesEnabled")
 	boolean checkForUpdatesEnabled = Settings.DEFAULT_CHECK_FOR_UPDATES;
 
+	@JsonProperty("healthCheckConcurrency")
+	int healthCheckConcurrency = Settings.DEFAULT_HEALTH_CHECK_CONCURRENCY;
+
+	@JsonProperty("integrityScanIntervalHours")
+	int integrityScanIntervalHours = Settings.DEFAULT_INTEGRITY_SCAN_INTERVAL_HOURS;
+
+	@JsonProperty("integrityScanNodesPerSecond")
+	int integrityScanNodesPerSecond = Settings.DEFAULT_INTEGRITY_SCAN_NODES_PER_SECOND;
+
+	@JsonProperty("warmUpDirectoriesPerSecond")
+	int warmUpDirectoriesPerSecond = Settings.DEFAULT_WARM_UP_DIRECTORIES_PER_SECOND;
+
 	@JsonProperty("debugMode")
 	boolean debugMode = Settings.DEFAULT_DEBUG_MODE;
 
@@ -40,6 +40,11 @@ public class VaultSettings {
 	static final boolean DEFAULT_AUTOLOCK_WHEN_IDLE = false;
 	static final int DEFAULT_AUTOLOCK_IDLE_SECONDS = 30 * 60;
 	static final int DEFAULT_PORT = 42427;
+	static final int DEFAULT_READ_AHEAD_CHUNKS = 0;
+	static final int DEFAULT_WRITE_BACK_CHUNKS = 0;
+	static final boolean DEFAULT_INSTRUMENT_FILE_SYSTEM = false;
+	static final boolean DEFAULT_CACHE_METADATA = false;
+	static final boolean DEFAULT_WARM_UP_AFTER_UNLOCK = false;
 
 	private static final Random RNG = new Random();
 
@@ -58,6 +63,11 @@ public class VaultSettings {
 	public final StringExpression mountName;
 	public final StringProperty mountService;
 	public final IntegerProperty port;
+	public final IntegerProperty readAheadChunks; // 0 = disabled
+	public final IntegerProperty writeBackChunks; // 0 = write-through
+	public final BooleanProperty instrumentFileSystem; // applied on unlock
+	public final BooleanProperty cacheMetadata; // applied on unlock
+	public final BooleanProperty warmUpAfterUnlock;
 
 	VaultSettings(VaultSettingsJson json) {
 		this.id = json.id;
@@ -74,6 +84,11 @@ public class VaultSettings {
 		this.mountPoint = new SimpleObjectProperty<>(this, "mountPoint", json.mountPoint == null ? null : Path.of(json.mountPoint));
 		this.mountService = new SimpleStringProperty(this, "mountService", json.mountService);
 		this.port = new SimpleIntegerProperty(this, "port", json.port);
+		this.readAheadChunks = new SimpleIntegerProperty(this, "readAheadChunks", json.readAheadChunks);
+		this.writeBackChunks = new SimpleIntegerProperty(this, "writeBackChunks", json.writeBackChunks);
+		this.instrumentFileSystem = new SimpleBooleanProperty(this, "instrumentFileSystem", json.instrumentFileSystem);
+		this.cacheMetadata = new SimpleBooleanProperty(this, "cacheMetadata", json.cacheMetadata);
+		this.warmUpAfterUnlock = new SimpleBooleanProperty(this, "warmUpAfterUnlock", json.warmUpAfterUnlock);
 		// mount name is no longer an explicit setting, see https://github.com/cryptomator/cryptomator/pull/1318
 		this.mountName = StringExpression.stringExpression(Bindings.createStringBinding(() -> {
 			final String name;
@@ -99,7 +114,7 @@ public class VaultSettings {
 	}
 
 	Observable[] observables() {
-		return new Observable[]{actionAfterUnlock, autoLockIdleSeconds, autoLockWhenIdle, displayName, maxCleartextFilenameLength, mountFlags, mountPoint, path, revealAfterMount, unlockAfterStartup, usesReadOnlyMode, port, mountService};
+		return new Observable[]{actionAfterUnlock, autoLockIdleSeconds, autoLockWhenIdle, displayName, maxCleartextFilenameLength, mountFlags, mountPoint, path, revealAfterMount, unlockAfterStartup, usesReadOnlyMode, port, mountService, readAheadChunks, writeBackChunks, instrumentFileSystem, cacheMetadata, warmUpAfterUnlock};
 	}
 
 	public static VaultSettings withRandomId() {
@@ -130,6 +145,11 @@ public class VaultSettings {
 		json.mountPoint = mountPoint.map(Path::toString).getValue();
 		json.mountService = mountService.get();
 		json.port = port.get();
+		json.readAheadChunks = readAheadChunks.get();
+		json.writeBackChunks = writeBackChunks.get();
+		json.instrumentFileSystem = instrumentFileSystem.get();
+		json.cacheMetadata = cacheMetadata.get();
+		json.warmUpAfterUnlock = warmUpAfterUnlock.get();
 		return json;
 	}
 
@@ -51,6 +51,21 @@ class VaultSettingsJson {
 	@JsonProperty("port")
 	int port = VaultSettings.DEFAULT_PORT;
 
+	@JsonProperty("readAheadChunks")
+	int readAheadChunks = VaultSettings.DEFAULT_READ_AHEAD_CHUNKS;
+
+	@JsonProperty("writeBackChunks")
+	int writeBackChunks = VaultSettings.DEFAULT_WRITE_BACK_CHUNKS;
+
+	@JsonProperty("instrumentFileSystem")
+	boolean instrumentFileSystem = VaultSettings.DEFAULT_INSTRUMENT_FILE_SYSTEM;
+
+	@JsonProperty("cacheMetadata")
+	boolean cacheMetadata = VaultSettings.DEFAULT_CACHE_METADATA;
+
+	@JsonProperty("warmUpAfterUnlock")
+	boolean warmUpAfterUnlock = VaultSettings.DEFAULT_WARM_UP_AFTER_UNLOCK;
+
 	@Deprecated(since = "1.7.0")
 	@JsonProperty(value = "winDriveLetter", access = JsonProperty.Access.WRITE_ONLY) // WRITE_ONLY means value is "written" into the java object during deserialization. Upvote this: https://github.com/FasterXML/jackson-annotations/issues/233
 	String winDriveLetter;
@@ -1,63 +1,137 @@
 package org.cryptomator.common.vaults;
 
+import org.cryptomator.common.ApplicationThread;
 import org.cryptomator.integrations.mount.UnmountFailedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Locks vaults that have been idle for longer than their configured timeout.
+ * <p>
+ * Instead of periodically visiting all vaults, each unlocked vault with auto-lock enabled gets a single timer armed for its idle deadline. When the
+ * timer fires, it compares the deadline with the most recent activity: if there was activity in the meantime, the timer is re-armed for the new
+ * deadline, otherwise the vault gets locked. Since activity is sampled once per second, vaults are locked with second precision. Locking itself
+ * happens on the general purpose executor, so that multiple idle vaults are locked concurrently.
+ */
 @Singleton
 public class AutoLocker {
 
 	private static final Logger LOG = LoggerFactory.getLogger(AutoLocker.class);
+	private static final long RETRY_DELAY_SECONDS = 60;
 
 	private final ScheduledExecutorService scheduler;
+	private final ExecutorService executor;
 	private final ObservableList<Vault> vaultList;
+	private final Map<Vault, ScheduledFuture<?>> timers = new ConcurrentHashMap<>();
+	private final Map<Vault, InvalidationListener> settingsListeners = new ConcurrentHashMap<>();
 
 	@Inject
-	public AutoLocker(ScheduledExecutorService scheduler, ObservableList<Vault> vaultList) {
+	public AutoLocker(ScheduledExecutorService scheduler, ExecutorService executor, ObservableList<Vault> vaultList) {
 		this.scheduler = scheduler;
+		this.executor = executor;
 		this.vaultList = vaultList;
 	}
 
 	public void init() {
-		scheduler.scheduleAtFixedRate(this::tick, 0, 1, TimeUnit.MINUTES);
+		vaultList.forEach(this::observe);
+		vaultList.addListener(this::vaultListChanged);
 	}
 
-	private void tick() {
-		vaultList.stream() // all vaults
-				.filter(Vault::isUnlocked) // unlocked vaults
-				.filter(this::exceedsIdleTime) // idle vaults
-				.forEach(this::autolock);
+	private void vaultListChanged(ListChangeListener.Change<? extends Vault> c) {
+		while (c.next()) {
+			if (c.wasUpdated()) { // the vault list fires updates on state changes
+				c.getList().subList(c.getFrom(), c.getTo()).forEach(this::rearm);
+			} else {
+				c.getRemoved().forEach(this::disarm);
+				c.getAddedSubList().forEach(this::observe);
+			}
+		}
+	}
+
+	private void observe(Vault vault) {
+		var settings = vault.getVaultSettings();
+		InvalidationListener listener = observable -> rearm(vault);
+		settingsListeners.put(vault, listener);
+		settings.autoLockWhenIdle.addListener(listener);
+		settings.autoLockIdleSeconds.addListener(listener);
+		rearm(vault);
+	}
+
+	/**
+	 * Cancels the vault's current timer, if any, and arms a new one if the vault is unlocked and auto-lock is enabled.
+	 */
+	private void rearm(Vault vault) {
+		timers.compute(vault, (v, timer) -> {
+			if (timer != null) {
+				timer.cancel(false);
+			}
+			if (!isAutoLockEnabled(v)) {
+				return null;
+			}
+			long delayMillis = Math.max(0, Duration.between(Instant.now(), deadline(v)).toMillis());
+			return scheduler.schedule(() -> deadlineReached(v), delayMillis, TimeUnit.MILLISECONDS);
+		});
+	}
+
+	private void disarm(Vault vault) {
+		var listener = settingsListeners.remove(vault);
+		if (listener != null) {
+			var settings = vault.getVaultSettings();
+			settings.autoLockWhenIdle.removeListener(listener);
+			settings.autoLockIdleSeconds.removeListener(listener);
+		}
+		var timer = timers.remove(vault);
+		if (timer != null) {
+			timer.cancel(false);
+		}
+	}
+
+	private void deadlineReached(Vault vault) {
+		if (!isAutoLockEnabled(vault)) {
+			timers.remove(vault);
+		} else if (deadline(vault).isAfter(Instant.now())) {
+			rearm(vault); // there has been activity since arming the timer
+		} else {
+			timers.remove(vault);
+			executor.execute(() -> autolock(vault));
+		}
 	}
 
 	private void autolock(Vault vault) {
 		try {
 			vault.lock(false);
-			Platform.runLater(() -> vault.stateProperty().set(VaultState.Value.LOCKED));
+			ApplicationThread.runLater(() -> vault.stateProperty().set(VaultState.Value.LOCKED));
 			LOG.info("Autolocked {} after idle timeout", vault.getDisplayName());
 		} catch (UnmountFailedException | IOException e) {
 			LOG.error("Autolocking failed.", e);
+			timers.computeIfAbsent(vault, v -> scheduler.schedule(() -> deadlineReached(v), RETRY_DELAY_SECONDS, TimeUnit.SECONDS));
 		}
 	}
 
-	private boolean exceedsIdleTime(Vault vault) {
-		assert vault.isUnlocked();
-		if (vault.getVaultSettings().autoLockWhenIdle.get()) {
-			int maxIdleSeconds = vault.getVaultSettings().autoLockIdleSeconds.get();
-			var deadline = vault.getStats().getLastActivity().plusSeconds(maxIdleSeconds);
-			return deadline.isBefore(Instant.now());
-		} else {
-			return false;
-		}
+	private boolean isAutoLockEnabled(Vault vault) {
+		return vault.isUnlocked() && vault.getVaultSettings().autoLockWhenIdle.get();
 	}
 
+	private Instant deadline(Vault vault) {
+		int maxIdleSeconds = vault.getVaultSettings().autoLockIdleSeconds.get();
+		var lastActivity = Objects.requireNonNullElseGet(vault.getStats().getLastActivity(), Instant::now); // not yet sampled
+		return lastActivity.plusSeconds(maxIdleSeconds);
+	}
 
 }
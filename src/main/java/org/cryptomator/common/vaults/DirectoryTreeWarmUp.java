@@ -0,0 +1,142 @@
+package org.cryptomator.common.vaults;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.cryptomator.common.ApplicationThread;
+import org.cryptomator.common.settings.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Walks the cleartext directory tree of a freshly unlocked vault breadth-first, so the crypto file system has resolved directory IDs and decrypted
+ * names into its caches before the user or an indexer lists the directories for the first time.
+ * <p>
+ * These caches are bounded, hence only the first {@value #MAX_DIRECTORIES} directories, i.e. the top levels of the tree, are warmed up. Walking
+ * any further would merely evict the entries of the levels most likely to be listed.
+ * <p>
+ * Warm-ups run one at a time on a single low-priority thread. They are paced to at most {@link Settings#warmUpDirectoriesPerSecond} listed directories
+ * and pause while the vault's {@link VaultStats} show foreground I/O. Progress is announced via {@link Vault#warmUpProgressProperty()}.
+ * The returned {@link Future} is cancelled when the vault gets locked.
+ */
+@Singleton
+public class DirectoryTreeWarmUp {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DirectoryTreeWarmUp.class);
+	private static final long YIELD_MILLIS = 1000;
+	private static final int PROGRESS_INTERVAL = 100; // directories
+	static final int MAX_DIRECTORIES = 5000; // capacity of the crypto file system's directory cache
+
+	private final Settings settings;
+	private final ExecutorService warmUpExecutor;
+
+	@Inject
+	public DirectoryTreeWarmUp(Settings settings) {
+		this.settings = settings;
+		this.warmUpExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("warm-up-%d").setDaemon(true).setPriority(Thread.MIN_PRIORITY).build());
+	}
+
+	/**
+	 * Progress of a running warm-up. As the tree is walked breadth-first, the number of discovered directories grows until the last level or
+	 * {@value #MAX_DIRECTORIES} is reached.
+	 *
+	 * @param directoriesVisited Directories listed so far
+	 * @param directoriesDiscovered Directories found so far, including the visited ones
+	 */
+	public record Progress(long directoriesVisited, long directoriesDiscovered) {}
+
+	/**
+	 * Schedules a warm-up of the directory tree below the given root.
+	 *
+	 * @param vault The unlocked vault
+	 * @param root The cleartext root directory of the vault's file system
+	 * @return A future to cancel the warm-up
+	 */
+	Future<?> start(Vault vault, Path root) {
+		return warmUpExecutor.submit(() -> warmUp(vault, root));
+	}
+
+	private void warmUp(Vault vault, Path root) {
+		LOG.debug("Warming up directory tree of {}", vault.getDisplayName());
+		var started = Instant.now();
+		var pacer = RateLimiter.create(Math.max(1, settings.warmUpDirectoriesPerSecond.get()));
+		var queue = new ArrayDeque<Path>();
+		queue.add(root);
+		long visited = 0;
+		long discovered = 1;
+		publish(vault, new Progress(visited, discovered));
+		try {
+			while (!queue.isEmpty()) {
+				throttle(vault, pacer);
+				var dir = queue.poll();
+				try (var stream = Files.newDirectoryStream(dir)) {
+					for (var child : stream) {
+						if (discovered < MAX_DIRECTORIES && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+							queue.add(child);
+							discovered++;
+						}
+					}
+				} catch (IOException | DirectoryIteratorException e) {
+					LOG.debug("Skipping {} during warm-up.", dir, e); // e.g. deleted in the meantime
+				}
+				if (++visited % PROGRESS_INTERVAL == 0) {
+					publish(vault, new Progress(visited, discovered));
+				}
+			}
+			LOG.info("Warmed up {} directories of {} in {}s.", visited, vault.getDisplayName(), Duration.between(started, Instant.now()).toSeconds());
+			if (discovered >= MAX_DIRECTORIES) {
+				LOG.debug("Skipped deeper levels of {}, as they exceed the cache capacity.", vault.getDisplayName());
+			}
+		} catch (CancellationException | ClosedFileSystemException e) {
+			LOG.debug("Warm-up of {} aborted after {} directories.", vault.getDisplayName(), visited);
+		} catch (RuntimeException e) {
+			LOG.warn("Warm-up of {} failed.", vault.getDisplayName(), e);
+		} finally {
+			publish(vault, null);
+		}
+	}
+
+	/**
+	 * Invoked before each listed directory. Blocks while the vault is used in the foreground and otherwise paces the warm-up.
+	 *
+	 * @throws CancellationException if the warm-up got cancelled
+	 */
+	private void throttle(Vault vault, RateLimiter pacer) {
+		try {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			while (isBusy(vault)) {
+				Thread.sleep(YIELD_MILLIS);
+			}
+		} catch (InterruptedException e) {
+			throw new CancellationException("Interrupted");
+		}
+		pacer.acquire();
+	}
+
+	private boolean isBusy(Vault vault) {
+		var stats = vault.getStats().snapshot();
+		return stats.bytesPerSecondRead() + stats.bytesPerSecondWritten() > 0; // most recent one-second sample
+	}
+
+	private void publish(Vault vault, Progress progress) {
+		ApplicationThread.runLater(() -> vault.warmUpProgressProperty().set(progress));
+	}
+
+}
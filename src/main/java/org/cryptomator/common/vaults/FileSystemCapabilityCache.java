@@ -0,0 +1,173 @@
+package org.cryptomator.common.vaults;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.cryptomator.common.Environment;
+import org.cryptomator.common.Nullable;
+import org.cryptomator.cryptofs.common.FileSystemCapabilityChecker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the results of the {@link FileSystemCapabilityChecker} per file store, so that probing the file name limits of slow
+ * (e.g. network or cloud-synced) storage only happens once per store and {@link #TTL}.
+ * <p>
+ * Since a probe may also fail due to the total path length (e.g. on Windows), results are only reused for paths no longer than the
+ * probed one. Paths of very different lengths are cached separately, so that vaults on the same store don't evict each other's entry.
+ * <p>
+ * Results are persisted next to the settings file.
+ */
+@Singleton
+public class FileSystemCapabilityCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FileSystemCapabilityCache.class);
+	private static final ObjectMapper JSON = new ObjectMapper().setDefaultLeniency(true).registerModule(new JavaTimeModule());
+	private static final TypeReference<Map<String, Entry>> ENTRIES_TYPE = new TypeReference<>() {};
+	private static final String CACHE_FILENAME = "fileSystemCapabilities.json";
+	static final Duration TTL = Duration.ofDays(7);
+	static final int PATH_LENGTH_BUCKET_SIZE = 32;
+
+	private final Optional<Path> cacheFile;
+	private final FileSystemCapabilityChecker checker;
+	private final Clock clock;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * @param pathLength Length of the probed path. The limits are only valid for paths no longer than this.
+	 */
+	record Entry(@Nullable Integer ciphertextLimit, @Nullable Integer cleartextLimit, Instant probed, int pathLength) {}
+
+	@Inject
+	public FileSystemCapabilityCache(Environment env) {
+		this(env.getSettingsPath().findFirst().map(p -> p.resolveSibling(CACHE_FILENAME)), new FileSystemCapabilityChecker(), Clock.systemUTC());
+	}
+
+	FileSystemCapabilityCache(Optional<Path> cacheFile, FileSystemCapabilityChecker checker, Clock clock) {
+		this.cacheFile = cacheFile;
+		this.checker = checker;
+		this.clock = clock;
+		cacheFile.ifPresent(this::load);
+	}
+
+	/**
+	 * @param path A directory on the file store in question
+	 * @return The supported ciphertext file name length
+	 * @throws IOException If probing fails
+	 * @see FileSystemCapabilityChecker#determineSupportedCiphertextFileNameLength(Path)
+	 */
+	public int determineSupportedCiphertextFileNameLength(Path path) throws IOException {
+		int pathLength = pathLength(path);
+		var key = fileStoreKey(path);
+		var entry = getValidEntry(key, pathLength);
+		if (entry != null && entry.ciphertextLimit() != null) {
+			LOG.debug("Using cached ciphertext file name length limit of {}", key);
+			return entry.ciphertextLimit();
+		}
+		int limit = checker.determineSupportedCiphertextFileNameLength(path);
+		update(key, new Entry(limit, null, clock.instant(), pathLength));
+		return limit;
+	}
+
+	/**
+	 * @param path A directory on the file store in question
+	 * @return The supported cleartext file name length
+	 * @throws IOException If probing fails
+	 * @see FileSystemCapabilityChecker#determineSupportedCleartextFileNameLength(Path)
+	 */
+	public int determineSupportedCleartextFileNameLength(Path path) throws IOException {
+		int pathLength = pathLength(path);
+		var key = fileStoreKey(path);
+		var entry = getValidEntry(key, pathLength);
+		if (entry != null && entry.cleartextLimit() != null) {
+			LOG.debug("Using cached cleartext file name length limit of {}", key);
+			return entry.cleartextLimit();
+		}
+		int limit = checker.determineSupportedCleartextFileNameLength(path);
+		var updated = entry != null ? new Entry(entry.ciphertextLimit(), limit, entry.probed(), pathLength) : new Entry(null, limit, clock.instant(), pathLength);
+		update(key, updated);
+		return limit;
+	}
+
+	private Entry getValidEntry(String key, int pathLength) {
+		var entry = entries.get(key);
+		if (entry == null || entry.probed().plus(TTL).isBefore(clock.instant()) || pathLength > entry.pathLength()) {
+			return null;
+		} else {
+			return entry;
+		}
+	}
+
+	private void update(String key, Entry entry) {
+		entries.put(key, entry);
+		cacheFile.ifPresent(this::save);
+	}
+
+	private static int pathLength(Path path) {
+		return path.toAbsolutePath().toString().length();
+	}
+
+	/**
+	 * Identifies the file store of the given path by its type, name and mount root, plus the {@link #PATH_LENGTH_BUCKET_SIZE bucket}
+	 * of the path's length. The type and name alone are not unique, e.g. for network shares or FUSE file systems.
+	 */
+	static String fileStoreKey(Path path) throws IOException {
+		var absPath = path.toAbsolutePath();
+		FileStore store = Files.getFileStore(absPath);
+		Path root = absPath;
+		try {
+			for (Path parent = root.getParent(); parent != null && store.equals(Files.getFileStore(parent)); parent = parent.getParent()) {
+				root = parent;
+			}
+		} catch (IOException e) {
+			LOG.trace("Can't access parent of {}. Assuming mount root.", root, e);
+		}
+		return store.type() + ":" + store.name() + ":" + root + ":" + pathLength(absPath) / PATH_LENGTH_BUCKET_SIZE;
+	}
+
+	private void load(Path path) {
+		try (InputStream in = Files.newInputStream(path, StandardOpenOption.READ)) {
+			entries.putAll(JSON.readValue(in, ENTRIES_TYPE));
+			LOG.debug("Loaded file system capabilities from {}", path);
+		} catch (NoSuchFileException e) {
+			// no-op
+		} catch (JacksonException e) {
+			LOG.warn("Failed to parse json file {}", path, e);
+		} catch (IOException e) {
+			LOG.warn("Failed to load json file {}", path, e);
+		}
+	}
+
+	private synchronized void save(Path path) {
+		try {
+			Files.createDirectories(path.getParent());
+			Path tmpPath = path.resolveSibling(path.getFileName().toString() + ".tmp");
+			try (OutputStream out = Files.newOutputStream(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				JSON.writerWithDefaultPrettyPrinter().writeValue(out, Map.copyOf(entries));
+			}
+			Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			LOG.warn("Failed to save file system capabilities.", e);
+		}
+	}
+
+}
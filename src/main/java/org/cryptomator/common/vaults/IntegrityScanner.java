@@ -0,0 +1,214 @@
+package org.cryptomator.common.vaults;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.cryptomator.common.ApplicationThread;
+import org.cryptomator.common.Environment;
+import org.cryptomator.common.settings.Settings;
+import org.cryptomator.cryptofs.health.api.DiagnosticResult;
+import org.cryptomator.cryptofs.health.api.HealthCheck;
+import org.cryptomator.cryptolib.api.CryptorProvider;
+import org.cryptomator.cryptolib.api.Masterkey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javafx.collections.ObservableList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically runs all {@link HealthCheck health checks} on unlocked vaults to detect ciphertext corruption, e.g. caused by sync clients, early.
+ * <p>
+ * Scans reuse the key retained by the {@link Vault} while it is unlocked and run one at a time on a single low-priority thread.
+ * <p>
+ * The checks offer no hook other than their diagnosis callback, hence pacing can only happen there: A scan handles at most
+ * {@link Settings#integrityScanNodesPerSecond} diagnoses per second and pauses while the vault's {@link VaultStats} show foreground I/O.
+ * Nodes a check visits without reporting a diagnosis for them are not paced, so I/O between two diagnoses runs at full speed.
+ * <p>
+ * Findings are written to a report in the log dir and announced via {@link Vault#integrityScanFindingsProperty()}, which the tray menu picks up
+ * to notify the user.
+ */
+@Singleton
+public class IntegrityScanner {
+
+	private static final Logger LOG = LoggerFactory.getLogger(IntegrityScanner.class);
+	private static final long TICK_MINUTES = 15;
+	private static final long YIELD_MILLIS = 1000;
+	private static final DateTimeFormatter TIME_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+	private static final String REPORT_HEADER = """
+			*******************************************
+			*  Cryptomator Background Integrity Scan  *
+			*******************************************
+			Analyzed vault: %s (Current name "%s")
+			Vault storage path: %s
+			Scan started: %s
+			""";
+	private static final String REPORT_CHECK_HEADER = """
+
+
+			Check %s
+			------------------------------
+			""";
+	private static final String REPORT_CHECK_RESULT = "%8s - %s\n";
+
+	private final ScheduledExecutorService scheduler;
+	private final ObservableList<Vault> vaultList;
+	private final Settings settings;
+	private final Environment env;
+	private final SecureRandom csprng;
+	private final ExecutorService scanExecutor;
+	private final Map<String, Instant> lastScans = new ConcurrentHashMap<>();
+
+	@Inject
+	public IntegrityScanner(ScheduledExecutorService scheduler, ObservableList<Vault> vaultList, Settings settings, Environment env, SecureRandom csprng) {
+		this.scheduler = scheduler;
+		this.vaultList = vaultList;
+		this.settings = settings;
+		this.env = env;
+		this.csprng = csprng;
+		this.scanExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("integrity-scan-%d").setDaemon(true).setPriority(Thread.MIN_PRIORITY).build());
+	}
+
+	public void init() {
+		scheduler.scheduleWithFixedDelay(this::tick, TICK_MINUTES, TICK_MINUTES, TimeUnit.MINUTES);
+	}
+
+	private void tick() {
+		int intervalHours = settings.integrityScanIntervalHours.get();
+		if (intervalHours <= 0) {
+			return;
+		}
+		var now = Instant.now();
+		vaultList.stream() //
+				.filter(Vault::isUnlocked) //
+				.filter(v -> isDue(v, now, Duration.ofHours(intervalHours))) //
+				.forEach(v -> {
+					lastScans.put(v.getId(), now); // also prevents queueing it again while the scan is pending
+					scanExecutor.execute(() -> scan(v));
+				});
+	}
+
+	private boolean isDue(Vault vault, Instant now, Duration interval) {
+		var lastScan = lastScans.get(vault.getId());
+		return lastScan == null || lastScan.plus(interval).isBefore(now);
+	}
+
+	private void scan(Vault vault) {
+		Optional<Masterkey> retainedKey;
+		try {
+			retainedKey = vault.copyMasterkey();
+		} catch (IllegalStateException e) {
+			LOG.info("Background integrity scan of {} aborted: Vault locked", vault.getDisplayName()); // retained key got destroyed while copying it
+			return;
+		}
+		if (retainedKey.isEmpty()) {
+			LOG.debug("No key retained for {}, skipping integrity scan. Relock the vault to enable scanning.", vault.getDisplayName());
+			return;
+		}
+		LOG.info("Starting background integrity scan of {}", vault.getDisplayName());
+		var started = Instant.now();
+		var pacer = RateLimiter.create(Math.max(1, settings.integrityScanNodesPerSecond.get()));
+		var findings = new AtomicLong();
+		Path tmpReport = null;
+		try (var masterkey = retainedKey.get()) {
+			var unverifiedCfg = vault.getVaultConfigCache().get();
+			var config = unverifiedCfg.verify(masterkey.getEncoded(), unverifiedCfg.allegedVaultVersion());
+			tmpReport = Files.createTempFile("integrityScan_", ".log");
+			try (var cryptor = CryptorProvider.forScheme(config.getCipherCombo()).provide(masterkey, csprng); //
+				 var writer = Files.newBufferedWriter(tmpReport, StandardCharsets.UTF_8)) {
+				writer.write(REPORT_HEADER.formatted(vault.getId(), vault.getDisplayName(), vault.getPath(), started));
+				for (var check : HealthCheck.allChecks()) {
+					writer.write(REPORT_CHECK_HEADER.formatted(check.name()));
+					check.check(vault.getPath(), config, masterkey, cryptor, diagnosis -> {
+						throttle(vault, pacer);
+						if (diagnosis.getSeverity() != DiagnosticResult.Severity.GOOD) {
+							findings.incrementAndGet();
+							try {
+								writer.write(REPORT_CHECK_RESULT.formatted(diagnosis.getSeverity(), diagnosis));
+							} catch (IOException e) {
+								throw new UncheckedIOException(e);
+							}
+						}
+					});
+				}
+			}
+			if (findings.get() == 0) {
+				LOG.info("Background integrity scan of {} finished without findings.", vault.getDisplayName());
+				ApplicationThread.runLater(() -> vault.integrityScanFindingsProperty().set(null));
+			} else {
+				var report = publishReport(vault, started, tmpReport);
+				LOG.warn("Background integrity scan of {} found {} issues. See {}", vault.getDisplayName(), findings.get(), report);
+				ApplicationThread.runLater(() -> vault.integrityScanFindingsProperty().set(report));
+			}
+		} catch (CancellationException e) {
+			LOG.info("Background integrity scan of {} aborted: {}", vault.getDisplayName(), e.getMessage());
+		} catch (Exception e) {
+			LOG.warn("Background integrity scan of {} failed.", vault.getDisplayName(), e);
+		} finally {
+			deleteQuietly(tmpReport);
+		}
+	}
+
+	/**
+	 * Invoked for each reported diagnosis. Blocks while the vault is used in the foreground and otherwise paces the scan.
+	 *
+	 * @throws CancellationException if the vault got locked or the application is shutting down
+	 */
+	private void throttle(Vault vault, RateLimiter pacer) {
+		try {
+			while (isBusy(vault)) {
+				Thread.sleep(YIELD_MILLIS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted");
+		}
+		pacer.acquire();
+	}
+
+	private boolean isBusy(Vault vault) {
+		if (!vault.isUnlocked()) {
+			throw new CancellationException("Vault locked");
+		}
+		var stats = vault.getStats().snapshot();
+		return stats.bytesPerSecondRead() + stats.bytesPerSecondWritten() > 0; // most recent one-second sample
+	}
+
+	private Path publishReport(Vault vault, Instant started, Path tmpReport) throws IOException {
+		var reportDir = env.getLogDir().orElse(Path.of(System.getProperty("user.home")));
+		var reportFile = reportDir.resolve("integrityScan_" + vault.getId() + "_" + TIME_STAMP.format(started) + ".log"); // display names may contain path separators
+		return Files.move(tmpReport, reportFile, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static void deleteQuietly(Path file) {
+		if (file == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			LOG.debug("Failed to delete {}", file, e);
+		}
+	}
+
+}
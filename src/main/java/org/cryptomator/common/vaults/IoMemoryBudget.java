@@ -0,0 +1,78 @@
+package org.cryptomator.common.vaults;
+
+import org.cryptomator.common.fs.ChunkBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Limits the heap memory used for cleartext I/O buffers, so that many unlocked vaults can't exhaust the heap.
+ * <p>
+ * Each vault may use at most {@value PER_VAULT_HEAP_DIVISOR}th of the max heap size, all vaults together at most {@value TOTAL_HEAP_DIVISOR}th.
+ * Requests exceeding the remaining budget get scaled down.
+ * <p>
+ * The read-ahead chunks granted to all vaults form a single {@link #getReadAheadBudget() shared budget}, so a vault that is read sequentially
+ * can make use of the read-ahead chunks of idle vaults.
+ */
+@Singleton
+public class IoMemoryBudget {
+
+	private static final Logger LOG = LoggerFactory.getLogger(IoMemoryBudget.class);
+	static final int TOTAL_HEAP_DIVISOR = 4;
+	static final int PER_VAULT_HEAP_DIVISOR = 16;
+
+	private final long totalBytes;
+	private final long perVaultBytes;
+	private final ChunkBudget readAheadBudget = new ChunkBudget(0);
+	private long reservedBytes; // guarded by this
+
+	@Inject
+	public IoMemoryBudget() {
+		this(Runtime.getRuntime().maxMemory());
+	}
+
+	IoMemoryBudget(long maxHeap) {
+		this.totalBytes = maxHeap / TOTAL_HEAP_DIVISOR;
+		this.perVaultBytes = maxHeap / PER_VAULT_HEAP_DIVISOR;
+	}
+
+	/**
+	 * Reserves memory for the given buffer sizes, reducing them if required.
+	 * Each successful reservation must be balanced by {@link #release(IoTuning) releasing} the returned value.
+	 *
+	 * @param requested The desired buffer sizes
+	 * @return The granted buffer sizes, which are less or equal to the requested ones
+	 */
+	public synchronized IoTuning reserve(IoTuning requested) {
+		var granted = requested.scaledTo(Math.min(perVaultBytes, totalBytes - reservedBytes));
+		if (!granted.equals(requested)) {
+			LOG.info("Reduced I/O buffers from {} to {} due to memory limits.", requested, granted);
+		}
+		reservedBytes += granted.bytes();
+		readAheadBudget.grow(granted.readAheadChunks());
+		return granted;
+	}
+
+	public synchronized void release(IoTuning granted) {
+		reservedBytes = Math.max(0, reservedBytes - granted.bytes());
+		readAheadBudget.shrink(granted.readAheadChunks());
+	}
+
+	/**
+	 * @return The read-ahead chunks granted to all vaults together
+	 */
+	public ChunkBudget getReadAheadBudget() {
+		return readAheadBudget;
+	}
+
+	public synchronized long getReservedBytes() {
+		return reservedBytes;
+	}
+
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+
+}
@@ -0,0 +1,46 @@
+package org.cryptomator.common.vaults;
+
+import org.cryptomator.common.settings.VaultSettings;
+
+/**
+ * Cleartext I/O buffer sizes of an unlocked vault, each measured in cleartext chunks.
+ *
+ * @param readAheadChunks Chunks to prefetch during sequential reads
+ * @param writeBackChunks Chunks an open file may buffer before writing them back
+ */
+public record IoTuning(int readAheadChunks, int writeBackChunks) {
+
+	/**
+	 * Size of a cleartext chunk in the current vault format.
+	 */
+	public static final int CHUNK_SIZE = 32 * 1024;
+
+	public static final IoTuning NONE = new IoTuning(0, 0);
+
+	public IoTuning {
+		if (readAheadChunks < 0 || writeBackChunks < 0) {
+			throw new IllegalArgumentException("Negative chunk count");
+		}
+	}
+
+	static IoTuning requestedBy(VaultSettings vaultSettings) {
+		return new IoTuning(Math.max(0, vaultSettings.readAheadChunks.get()), //
+				Math.max(0, vaultSettings.writeBackChunks.get()));
+	}
+
+	public long bytes() {
+		return ((long) readAheadChunks + writeBackChunks) * CHUNK_SIZE;
+	}
+
+	IoTuning scaledTo(long maxBytes) {
+		long bytes = bytes();
+		if (bytes <= maxBytes) {
+			return this;
+		} else if (maxBytes <= 0) {
+			return NONE;
+		}
+		double factor = maxBytes / (double) bytes;
+		return new IoTuning((int) (readAheadChunks * factor), (int) (writeBackChunks * factor));
+	}
+
+}
@@ -0,0 +1,74 @@
+package org.cryptomator.common.vaults;
+
+/**
+ * Fixed-size history of {@code long} samples.
+ * <p>
+ * Intended for a single writer thread. Readers don't block the writer, but may observe a sample that is just being overwritten.
+ */
+public final class LongRingBuffer {
+
+	private final long[] samples;
+	private volatile long count; // number of samples added so far
+
+	public LongRingBuffer(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		this.samples = new long[capacity];
+	}
+
+	public void add(long sample) {
+		long c = count;
+		samples[(int) (c % samples.length)] = sample;
+		count = c + 1;
+	}
+
+	public int capacity() {
+		return samples.length;
+	}
+
+	/**
+	 * @return the most recent sample or {@code 0}, if no sample has been added yet
+	 */
+	public long latest() {
+		long c = count;
+		return c == 0 ? 0L : samples[(int) ((c - 1) % samples.length)];
+	}
+
+	/**
+	 * @return the biggest sample within the retained history or {@code 0}, if no sample has been added yet
+	 */
+	public long max() {
+		long c = count;
+		int n = (int) Math.min(c, samples.length);
+		long max = 0L;
+		for (int i = 0; i < n; i++) {
+			max = Math.max(max, samples[i]);
+		}
+		return max;
+	}
+
+	/**
+	 * Copies the most recent samples into <code>dst</code>, oldest first, so that the latest sample ends up at the last index.
+	 * If fewer samples are available than fit into <code>dst</code>, the leading elements are set to {@code 0}.
+	 *
+	 * @param dst the destination array
+	 */
+	public void copyTo(long[] dst) {
+		long c = count;
+		int n = (int) Math.min(Math.min(c, samples.length), dst.length);
+		int padding = dst.length - n;
+		for (int i = 0; i < padding; i++) {
+			dst[i] = 0L;
+		}
+		for (int i = 0; i < n; i++) {
+			long index = c - n + i;
+			dst[padding + i] = samples[(int) (index % samples.length)];
+		}
+	}
+
+	public void clear() {
+		count = 0;
+	}
+
+}
@@ -8,8 +8,16 @@
  *******************************************************************************/
 package org.cryptomator.common.vaults;
 
+import dagger.Lazy;
 import org.apache.commons.lang3.SystemUtils;
 import org.cryptomator.common.Constants;
+import org.cryptomator.common.fs.CachingFileSystemProvider;
+import org.cryptomator.common.fs.FileSystemMetrics;
+import org.cryptomator.common.fs.InstrumentingFileSystemProvider;
+import org.cryptomator.common.fs.MetadataCacheStats;
+import org.cryptomator.common.fs.ReadAheadFileSystemProvider;
+import org.cryptomator.common.fs.WriteCoalescingFileSystemProvider;
+import org.cryptomator.common.fs.WriteCoalescingStats;
 import org.cryptomator.common.mount.Mounter;
 import org.cryptomator.common.settings.Settings;
 import org.cryptomator.common.settings.VaultSettings;
@@ -17,8 +25,8 @@ import org.cryptomator.cryptofs.CryptoFileSystem;
 import org.cryptomator.cryptofs.CryptoFileSystemProperties;
 import org.cryptomator.cryptofs.CryptoFileSystemProperties.FileSystemFlags;
 import org.cryptomator.cryptofs.CryptoFileSystemProvider;
-import org.cryptomator.cryptofs.common.FileSystemCapabilityChecker;
 import org.cryptomator.cryptolib.api.CryptoException;
+import org.cryptomator.cryptolib.api.Masterkey;
 import org.cryptomator.cryptolib.api.MasterkeyLoader;
 import org.cryptomator.cryptolib.api.MasterkeyLoadingFailedException;
 import org.cryptomator.integrations.mount.MountFailedException;
@@ -41,14 +49,25 @@ import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyStringProperty;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.EnumSet;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * A vault known to the application.
+ * <p>
+ * As there may be thousands of vaults, most of which are never unlocked during a session, only the state is set up eagerly.
+ * The {@link VaultStats} and the derived bindings get created on first use.
+ */
 @PerVault
 public class Vault {
 
@@ -62,20 +81,34 @@ public class Vault {
 	private final VaultState state;
 	private final ObjectProperty<Exception> lastKnownException;
 	private final VaultConfigCache configCache;
-	private final VaultStats stats;
-	private final StringBinding displayablePath;
-	private final BooleanBinding locked;
-	private final BooleanBinding processing;
-	private final BooleanBinding unlocked;
-	private final BooleanBinding missing;
-	private final BooleanBinding needsMigration;
-	private final BooleanBinding unknownError;
-	private final ObjectBinding<Mountpoint> mountPoint;
+	private final Lazy<VaultStats> stats;
 	private final Mounter mounter;
 	private final Settings settings;
 	private final BooleanProperty showingStats;
+	private final IoMemoryBudget ioMemoryBudget;
+	private final FileSystemCapabilityCache capabilityCache;
+	private final ExecutorService readAheadExecutor;
+	private final ScheduledExecutorService writeBackExecutor;
+	private final DirectoryTreeWarmUp directoryTreeWarmUp;
 
 	private final AtomicReference<Mounter.MountHandle> mountHandle = new AtomicReference<>(null);
+	private final AtomicReference<IoTuning> ioTuning = new AtomicReference<>(IoTuning.NONE);
+	private final AtomicReference<Masterkey> retainedMasterkey = new AtomicReference<>(null);
+	private final AtomicReference<VaultPathResolver> pathResolver = new AtomicReference<>(null);
+	private final AtomicReference<WriteCoalescingFileSystemProvider> writeCoalescing = new AtomicReference<>(null);
+	private final ObjectProperty<Path> integrityScanFindings = new SimpleObjectProperty<>(null);
+	private final ObjectProperty<DirectoryTreeWarmUp.Progress> warmUpProgress = new SimpleObjectProperty<>(null);
+	private final AtomicReference<Future<?>> warmUp = new AtomicReference<>(null);
+
+	// created on first use, accessed on the application thread only:
+	private StringBinding displayablePath;
+	private BooleanBinding locked;
+	private BooleanBinding processing;
+	private BooleanBinding unlocked;
+	private BooleanBinding missing;
+	private BooleanBinding needsMigration;
+	private BooleanBinding unknownError;
+	private ObjectBinding<Mountpoint> mountPoint;
 
 	@Inject
 	Vault(VaultSettings vaultSettings, //
@@ -83,26 +116,36 @@ public class Vault {
 		  AtomicReference<CryptoFileSystem> cryptoFileSystem, //
 		  VaultState state, //
 		  @Named("lastKnownException") ObjectProperty<Exception> lastKnownException, //
-		  VaultStats stats, //
-		  Mounter mounter, Settings settings) {
+		  Lazy<VaultStats> stats, //
+		  Mounter mounter, Settings settings, //
+		  IoMemoryBudget ioMemoryBudget, //
+		  FileSystemCapabilityCache capabilityCache, //
+		  @Named("readAheadExecutor") ExecutorService readAheadExecutor, //
+		  @Named("writeBackExecutor") ScheduledExecutorService writeBackExecutor, //
+		  DirectoryTreeWarmUp directoryTreeWarmUp) {
 		this.vaultSettings = vaultSettings;
 		this.configCache = configCache;
 		this.cryptoFileSystem = cryptoFileSystem;
 		this.state = state;
 		this.lastKnownException = lastKnownException;
 		this.stats = stats;
-		this.displayablePath = Bindings.createStringBinding(this::getDisplayablePath, vaultSettings.path);
-		this.locked = Bindings.createBooleanBinding(this::isLocked, state);
-		this.processing = Bindings.createBooleanBinding(this::isProcessing, state);
-		this.unlocked = Bindings.createBooleanBinding(this::isUnlocked, state);
-		this.missing = Bindings.createBooleanBinding(this::isMissing, state);
-		this.needsMigration = Bindings.createBooleanBinding(this::isNeedsMigration, state);
-		this.unknownError = Bindings.createBooleanBinding(this::isUnknownError, state);
-		this.mountPoint = Bindings.createObjectBinding(this::getMountPoint, state);
 		this.mounter = mounter;
 		this.settings = settings;
+		this.ioMemoryBudget = ioMemoryBudget;
+		this.capabilityCache = capabilityCache;
+		this.readAheadExecutor = readAheadExecutor;
+		this.writeBackExecutor = writeBackExecutor;
+		this.directoryTreeWarmUp = directoryTreeWarmUp;
 		this.showingStats = new SimpleBooleanProperty(false);
 		this.quickAccessEntry = new AtomicReference<>(null);
+
+		showingStats.addListener((observable, wasShowing, isShowing) -> {
+			if (isShowing) {
+				stats.get().startObserving();
+			} else {
+				stats.get().stopObserving();
+			}
+		});
 	}
 
 	// ******************************************************************************
@@ -115,11 +158,10 @@ public class Vault {
 			flags.add(FileSystemFlags.READONLY);
 		} else if (vaultSettings.maxCleartextFilenameLength.get() == -1) {
 			LOG.debug("Determining cleartext filename length limitations...");
-			var checker = new FileSystemCapabilityChecker();
 			int shorteningThreshold = configCache.get().allegedShorteningThreshold();
-			int ciphertextLimit = checker.determineSupportedCiphertextFileNameLength(getPath());
+			int ciphertextLimit = capabilityCache.determineSupportedCiphertextFileNameLength(getPath());
 			if (ciphertextLimit < shorteningThreshold) {
-				int cleartextLimit = checker.determineSupportedCleartextFileNameLength(getPath());
+				int cleartextLimit = capabilityCache.determineSupportedCleartextFileNameLength(getPath());
 				vaultSettings.maxCleartextFilenameLength.set(cleartextLimit);
 			} else {
 				vaultSettings.maxCleartextFilenameLength.setValue(UNLIMITED_FILENAME_LENGTH);
@@ -139,9 +181,37 @@ public class Vault {
 		return CryptoFileSystemProvider.newFileSystem(getPath(), fsProps);
 	}
 
+	/**
+	 * Wraps the given key loader, so that a copy of the loaded key is retained for background {@link IntegrityScanner integrity scans}
+	 * while the vault is unlocked. Keys are only retained if scans are enabled.
+	 */
+	private MasterkeyLoader retainingKeyLoader(MasterkeyLoader keyLoader) {
+		if (settings.integrityScanIntervalHours.get() <= 0) {
+			return keyLoader;
+		}
+		return keyId -> {
+			var key = keyLoader.loadKey(keyId);
+			Optional.ofNullable(retainedMasterkey.getAndSet(key.copy())).ifPresent(Masterkey::destroy);
+			return key;
+		};
+	}
+
+	private void destroyRetainedMasterkey() {
+		Optional.ofNullable(retainedMasterkey.getAndSet(null)).ifPresent(Masterkey::destroy);
+	}
+
 	private void destroyCryptoFileSystem() {
 		LOG.trace("Trying to close associated CryptoFS...");
+		destroyRetainedMasterkey();
+		cancelWarmUp();
 		CryptoFileSystem fs = cryptoFileSystem.getAndSet(null);
+		pathResolver.set(null);
+		writeCoalescing.set(null);
+		stats.get().stop();
+		stats.get().setFileSystemMetrics(null);
+		stats.get().setMetadataCacheStats(null);
+		stats.get().setWriteCoalescingStats(null);
+		ioMemoryBudget.release(ioTuning.getAndSet(IoTuning.NONE));
 		if (fs != null) {
 			try {
 				fs.close();
@@ -155,13 +225,27 @@ public class Vault {
 		if (cryptoFileSystem.get() != null) {
 			throw new IllegalStateException("Already unlocked.");
 		}
-		CryptoFileSystem fs = createCryptoFileSystem(keyLoader);
+		final CryptoFileSystem fs;
+		try {
+			fs = createCryptoFileSystem(retainingKeyLoader(keyLoader));
+		} catch (IOException | RuntimeException e) {
+			destroyRetainedMasterkey();
+			throw e;
+		}
 		boolean success = false;
 		try {
 			cryptoFileSystem.set(fs);
+			ioTuning.set(ioMemoryBudget.reserve(IoTuning.requestedBy(vaultSettings)));
+			LOG.debug("Cleartext I/O buffers of '{}': {}", getDisplayName(), ioTuning.get());
 			var rootPath = fs.getRootDirectories().iterator().next();
-			var mountHandle = mounter.mount(vaultSettings, rootPath);
+			var mountHandle = mounter.mount(vaultSettings, decorate(rootPath));
 			success = this.mountHandle.compareAndSet(null, mountHandle);
+			if (success) {
+				stats.get().start();
+			}
+			if (success && vaultSettings.warmUpAfterUnlock.get()) {
+				warmUp.set(directoryTreeWarmUp.start(this, rootPath)); // undecorated, to warm up the crypto file system's own caches
+			}
 			if (settings.useQuickAccess.getValue()) {
 				addToQuickAccess();
 			}
@@ -172,6 +256,36 @@ public class Vault {
 		}
 	}
 
+	/**
+	 * Stacks the optional decorators enabled in the vault settings onto the root of the crypto file system, before it is handed to the mount.
+	 */
+	private Path decorate(Path root) {
+		var decorated = root;
+		int writeBackChunks = ioTuning.get().writeBackChunks();
+		if (writeBackChunks > 0) { // innermost, so reads and attributes of any layer above see the buffered writes
+			var coalescingStats = new WriteCoalescingStats();
+			var provider = new WriteCoalescingFileSystemProvider(decorated, writeBackExecutor, IoTuning.CHUNK_SIZE, writeBackChunks, coalescingStats);
+			writeCoalescing.set(provider);
+			decorated = provider.getRoot();
+			stats.get().setWriteCoalescingStats(coalescingStats);
+		}
+		int readAheadChunks = ioTuning.get().readAheadChunks();
+		if (readAheadChunks > 0) {
+			decorated = new ReadAheadFileSystemProvider(decorated, readAheadExecutor, IoTuning.CHUNK_SIZE, readAheadChunks, ioMemoryBudget.getReadAheadBudget()).getRoot();
+		}
+		if (vaultSettings.cacheMetadata.get()) {
+			var cacheStats = new MetadataCacheStats();
+			decorated = new CachingFileSystemProvider(decorated, cacheStats).getRoot();
+			stats.get().setMetadataCacheStats(cacheStats);
+		}
+		if (vaultSettings.instrumentFileSystem.get()) { // outermost, to see the operations as issued by the mount
+			var metrics = new FileSystemMetrics();
+			decorated = new InstrumentingFileSystemProvider(decorated, metrics).getRoot();
+			stats.get().setFileSystemMetrics(metrics);
+		}
+		return decorated;
+	}
+
 	public synchronized void lock(boolean forced) throws UnmountFailedException, IOException {
 		var mountHandle = this.mountHandle.get();
 		if (mountHandle == null) {
@@ -179,6 +293,15 @@ public class Vault {
 			return;
 		}
 
+		cancelWarmUp();
+		try {
+			flushBufferedWrites(); // while still mounted, so a failing lock leaves the vault usable without losing data
+		} catch (IOException e) {
+			if (!forced) {
+				throw e;
+			}
+			LOG.error("Failed to write buffered data of vault '{}'. Locking anyway.", getDisplayName(), e);
+		}
 		if (forced && mountHandle.supportsUnmountForced()) {
 			mountHandle.mountObj().unmountForced();
 		} else {
@@ -190,6 +313,11 @@ public class Vault {
 			mountHandle.specialCleanup().run();
 		} finally {
 			removeFromQuickAccess();
+			try {
+				flushBufferedWrites(); // written while unmounting or through files a forced unmount left open
+			} catch (IOException e) {
+				LOG.error("Failed to write buffered data of vault '{}' after unmounting it.", getDisplayName(), e);
+			}
 			destroyCryptoFileSystem();
 		}
 
@@ -197,6 +325,21 @@ public class Vault {
 		LOG.info("Locked vault '{}'", getDisplayName());
 	}
 
+	/**
+	 * Passes writes buffered by the write coalescing decorator to the crypto file system. Required before closing it, as the mount may not close all files,
+	 * and errors on closing them don't reach us.
+	 */
+	private void flushBufferedWrites() throws IOException {
+		var provider = writeCoalescing.get();
+		if (provider != null) {
+			provider.flushAll();
+		}
+	}
+
+	private void cancelWarmUp() {
+		Optional.ofNullable(warmUp.getAndSet(null)).ifPresent(f -> f.cancel(true));
+	}
+
 	private synchronized void addToQuickAccess() {
 		if (quickAccessEntry.get() != null) {
 			//we don't throw an exception since we don't wanna block unlocking
@@ -268,6 +411,9 @@ public class Vault {
 	}
 
 	public BooleanBinding lockedProperty() {
+		if (locked == null) {
+			locked = Bindings.createBooleanBinding(this::isLocked, state);
+		}
 		return locked;
 	}
 
@@ -276,6 +422,9 @@ public class Vault {
 	}
 
 	public BooleanBinding processingProperty() {
+		if (processing == null) {
+			processing = Bindings.createBooleanBinding(this::isProcessing, state);
+		}
 		return processing;
 	}
 
@@ -284,6 +433,9 @@ public class Vault {
 	}
 
 	public BooleanBinding unlockedProperty() {
+		if (unlocked == null) {
+			unlocked = Bindings.createBooleanBinding(this::isUnlocked, state);
+		}
 		return unlocked;
 	}
 
@@ -292,6 +444,9 @@ public class Vault {
 	}
 
 	public BooleanBinding missingProperty() {
+		if (missing == null) {
+			missing = Bindings.createBooleanBinding(this::isMissing, state);
+		}
 		return missing;
 	}
 
@@ -300,6 +455,9 @@ public class Vault {
 	}
 
 	public BooleanBinding needsMigrationProperty() {
+		if (needsMigration == null) {
+			needsMigration = Bindings.createBooleanBinding(this::isNeedsMigration, state);
+		}
 		return needsMigration;
 	}
 
@@ -308,6 +466,9 @@ public class Vault {
 	}
 
 	public BooleanBinding unknownErrorProperty() {
+		if (unknownError == null) {
+			unknownError = Bindings.createBooleanBinding(this::isUnknownError, state);
+		}
 		return unknownError;
 	}
 
@@ -324,6 +485,9 @@ public class Vault {
 	}
 
 	public ObjectBinding<Mountpoint> mountPointProperty() {
+		if (mountPoint == null) {
+			mountPoint = Bindings.createObjectBinding(this::getMountPoint, state);
+		}
 		return mountPoint;
 	}
 
@@ -333,6 +497,9 @@ public class Vault {
 	}
 
 	public StringBinding displayablePathProperty() {
+		if (displayablePath == null) {
+			displayablePath = Bindings.createStringBinding(this::getDisplayablePath, vaultSettings.path);
+		}
 		return displayablePath;
 	}
 
@@ -352,7 +519,7 @@ public class Vault {
 	}
 
 	public boolean isShowingStats() {
-		return mountHandle.get() != null;
+		return showingStats.get();
 	}
 
 
@@ -360,8 +527,44 @@ public class Vault {
 	// Getter/Setter
 	// *******************************************************************************/
 
+	/**
+	 * @return The cleartext I/O buffer sizes granted to this vault while it is unlocked, {@link IoTuning#NONE} otherwise
+	 */
+	public IoTuning getIoTuning() {
+		return ioTuning.get();
+	}
+
 	public VaultStats getStats() {
-		return stats;
+		return stats.get();
+	}
+
+	/**
+	 * @return A copy of the key of this unlocked vault, which must be destroyed by the caller, or an empty optional if no key has been retained
+	 */
+	public Optional<Masterkey> copyMasterkey() {
+		return Optional.ofNullable(retainedMasterkey.get()).map(Masterkey::copy);
+	}
+
+	/**
+	 * @return The report of the most recent background integrity scan, if it had any findings
+	 */
+	public ObjectProperty<Path> integrityScanFindingsProperty() {
+		return integrityScanFindings;
+	}
+
+	public Path getIntegrityScanFindings() {
+		return integrityScanFindings.get();
+	}
+
+	/**
+	 * @return The progress of the {@link DirectoryTreeWarmUp directory tree warm-up} after unlocking, <code>null</code> if none is running
+	 */
+	public ObjectProperty<DirectoryTreeWarmUp.Progress> warmUpProgressProperty() {
+		return warmUpProgress;
+	}
+
+	public DirectoryTreeWarmUp.Progress getWarmUpProgress() {
+		return warmUpProgress.get();
 	}
 
 
@@ -389,21 +592,32 @@ public class Vault {
 			throw new IllegalStateException("Vault is not unlocked");
 		}
 		var fs = cryptoFileSystem.get();
-		var osPathSeparator = cleartextPath.getFileSystem().getSeparator();
-		var cryptoFsPathSeparator = fs.getSeparator();
-
 		if (getMountPoint() instanceof Mountpoint.WithPath mp) {
-			var absoluteCryptoFsPath = cryptoFsPathSeparator + mp.path().relativize(cleartextPath).toString();
-			if (!cryptoFsPathSeparator.equals(osPathSeparator)) {
-				absoluteCryptoFsPath = absoluteCryptoFsPath.replace(osPathSeparator, cryptoFsPathSeparator);
+			var cryptoPath = fs.getRootDirectories().iterator().next();
+			for (var name : mp.path().relativize(cleartextPath)) {
+				cryptoPath = cryptoPath.resolve(name.toString());
 			}
-			var cryptoPath = fs.getPath(absoluteCryptoFsPath);
 			return fs.getCiphertextPath(cryptoPath);
 		} else {
 			throw new UnsupportedOperationException("URI mount points not supported.");
 		}
 	}
 
+	/**
+	 * Gets a resolver for translating many paths between cleartext and ciphertext at once. The resolver caches directory mappings
+	 * until the vault gets locked.
+	 *
+	 * @return The resolver for the current unlock session
+	 * @throws IllegalStateException if the vault is not unlocked
+	 */
+	public VaultPathResolver getPathResolver() {
+		var fs = cryptoFileSystem.get();
+		if (fs == null) {
+			throw new IllegalStateException("Vault is not unlocked");
+		}
+		return pathResolver.updateAndGet(r -> r != null && r.isFor(fs) ? r : new VaultPathResolver(fs));
+	}
+
 	public VaultConfigCache getVaultConfigCache() {
 		return configCache;
 	}
@@ -4,11 +4,15 @@ import org.cryptomator.common.settings.VaultSettings;
 
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 /**
  * This listener makes sure to reflect any changes to the vault list back to the settings.
+ * <p>
+ * Each change of the vault list results in a single modification of the settings, regardless of how many vaults have been added or removed.
  */
 class VaultListChangeListener implements ListChangeListener<Vault> {
 
@@ -20,14 +24,31 @@ class VaultListChangeListener implements ListChangeListener<Vault> {
 
 	@Override
 	public void onChanged(Change<? extends Vault> c) {
+		Set<VaultSettings> removedSettings = new HashSet<>();
+		List<VaultSettings> addedSettings = new ArrayList<>();
+		int addedFrom = -1;
+		int additions = 0;
+		boolean permutated = false;
 		while (c.next()) {
-			if (c.wasAdded()) {
-				List<VaultSettings> addedSettings = c.getAddedSubList().stream().map(Vault::getVaultSettings).toList();
-				vaultSettingsList.addAll(c.getFrom(), addedSettings);
-			} else if (c.wasRemoved()) {
-				List<VaultSettings> removedSettings = c.getRemoved().stream().map(Vault::getVaultSettings).toList();
-				vaultSettingsList.removeAll(removedSettings);
+			if (c.wasPermutated()) {
+				permutated = true;
+			} else if (c.wasAdded() || c.wasRemoved()) {
+				c.getRemoved().forEach(v -> removedSettings.add(v.getVaultSettings()));
+				if (c.wasAdded()) {
+					c.getAddedSubList().forEach(v -> addedSettings.add(v.getVaultSettings()));
+					addedFrom = c.getFrom();
+					additions++;
+				}
 			}
 		}
+
+		if (permutated || additions > 1 || (additions == 1 && !removedSettings.isEmpty())) {
+			// mixed or scattered modifications: replace everything at once
+			vaultSettingsList.setAll(c.getList().stream().map(Vault::getVaultSettings).toList());
+		} else if (additions == 1) {
+			vaultSettingsList.addAll(addedFrom, addedSettings);
+		} else if (!removedSettings.isEmpty()) {
+			vaultSettingsList.removeAll(removedSettings);
+		}
 	}
 }
@@ -8,7 +8,9 @@
  *******************************************************************************/
 package org.cryptomator.common.vaults;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.lang3.SystemUtils;
+import org.cryptomator.common.ApplicationThread;
 import org.cryptomator.common.settings.Settings;
 import org.cryptomator.common.settings.VaultSettings;
 import org.cryptomator.cryptofs.CryptoFileSystemProvider;
@@ -20,48 +22,87 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.cryptomator.common.Constants.MASTERKEY_FILENAME;
 import static org.cryptomator.common.Constants.VAULTCONFIG_FILENAME;
 import static org.cryptomator.common.vaults.VaultState.Value.ERROR;
 import static org.cryptomator.common.vaults.VaultState.Value.LOCKED;
+import static org.cryptomator.common.vaults.VaultState.Value.PROCESSING;
 
+/**
+ * Manages the list of known vaults and keeps it in sync with {@link Settings#directories}.
+ * <p>
+ * Vaults are indexed by path and id, so lookups don't depend on the number of vaults. Both the indices and the {@link #getAll() snapshot} of
+ * the vault list are safe to read from any thread, unlike the vault list itself. Adding many vaults at once via {@link #addAll(Collection)}
+ * results in a single modification of the vault list and hence a single settings update.
+ */
 @Singleton
 public class VaultListManager {
 
 	private static final Logger LOG = LoggerFactory.getLogger(VaultListManager.class);
+	private static final int MAX_STATE_DETECTION_THREADS = 8;
+	private static final long STATE_DETECTION_TIMEOUT_SECONDS = 10;
 
 	private final AutoLocker autoLocker;
+	private final IntegrityScanner integrityScanner;
+	private final VaultPresenceMonitor presenceMonitor;
 	private final List<MountService> mountServices;
 	private final VaultComponent.Factory vaultComponentFactory;
 	private final ObservableList<Vault> vaultList;
 	private final String defaultVaultName;
+	private final CompletionStage<Void> initialStates;
+	private final Map<Path, Vault> vaultsByPath = new ConcurrentHashMap<>();
+	private final Map<String, Vault> vaultsById = new ConcurrentHashMap<>();
+	private volatile List<Vault> snapshot = List.of();
+	private final ChangeListener<Path> pathListener = this::vaultPathChanged;
 
 	@Inject
 	public VaultListManager(ObservableList<Vault> vaultList, //
 							AutoLocker autoLocker, //
+							IntegrityScanner integrityScanner, //
+							VaultPresenceMonitor presenceMonitor, //
 							List<MountService> mountServices,
 							VaultComponent.Factory vaultComponentFactory,
 							ResourceBundle resourceBundle,
 							Settings settings) {
 		this.vaultList = vaultList;
 		this.autoLocker = autoLocker;
+		this.integrityScanner = integrityScanner;
+		this.presenceMonitor = presenceMonitor;
 		this.mountServices = mountServices;
 		this.vaultComponentFactory = vaultComponentFactory;
 		this.defaultVaultName = resourceBundle.getString("defaults.vault.vaultName");
 
-		addAll(settings.directories);
+		vaultList.addListener(this::updateIndex);
+		this.initialStates = restore(settings.directories);
 		vaultList.addListener(new VaultListChangeListener(settings.directories));
 		autoLocker.init();
+		integrityScanner.init();
+		presenceMonitor.init();
 	}
 
 	public Vault add(Path pathToVault) throws IOException {
@@ -78,6 +119,54 @@ public class VaultListManager {
 				});
 	}
 
+	/**
+	 * Adds all given vaults with a single modification of the vault list. Paths of already known vaults or of directories that don't contain a vault are skipped.
+	 *
+	 * @param pathsToVaults The vault directories
+	 * @return The vaults that have been added
+	 */
+	public List<Vault> addAll(Collection<Path> pathsToVaults) {
+		var newPaths = new HashSet<Path>();
+		var newVaults = new ArrayList<Vault>();
+		for (var pathToVault : pathsToVaults) {
+			Path normalizedPathToVault = pathToVault.normalize().toAbsolutePath();
+			if (get(normalizedPathToVault).isPresent() || !newPaths.add(normalizedPathToVault)) {
+				continue;
+			}
+			try {
+				if (CryptoFileSystemProvider.checkDirStructureForVault(normalizedPathToVault, VAULTCONFIG_FILENAME, MASTERKEY_FILENAME) == DirStructure.UNRELATED) {
+					LOG.debug("Not a vault: {}", normalizedPathToVault);
+					continue;
+				}
+			} catch (IOException e) {
+				LOG.debug("Not a vault: {}", normalizedPathToVault, e);
+				continue;
+			}
+			newVaults.add(create(newVaultSettings(normalizedPathToVault)));
+		}
+		vaultList.addAll(newVaults);
+		return newVaults;
+	}
+
+	/**
+	 * Looks up a vault by its id. Safe to call from any thread.
+	 *
+	 * @param vaultId The vault's id
+	 * @return The vault, if it is known
+	 */
+	public Optional<Vault> getById(String vaultId) {
+		return Optional.ofNullable(vaultsById.get(vaultId));
+	}
+
+	/**
+	 * Returns the vaults as of the most recent modification of the vault list. Safe to call from any thread.
+	 *
+	 * @return An immutable snapshot of all known vaults
+	 */
+	public List<Vault> getAll() {
+		return snapshot;
+	}
+
 	private VaultSettings newVaultSettings(Path path) {
 		VaultSettings vaultSettings = VaultSettings.withRandomId();
 		vaultSettings.path.set(path);
@@ -98,17 +187,121 @@ public class VaultListManager {
 		return vaultSettings;
 	}
 
-	private void addAll(Collection<VaultSettings> vaultSettings) {
-		Collection<Vault> vaults = vaultSettings.stream().map(this::create).toList();
+	/**
+	 * The state of vaults known at startup is determined in the background. Until then, they remain {@link VaultState.Value#PROCESSING processing}.
+	 *
+	 * @return A stage that completes on the {@link ApplicationThread application thread} as soon as all these vaults left the processing state
+	 */
+	public CompletionStage<Void> initialStatesDetermined() {
+		return initialStates;
+	}
+
+	private CompletionStage<Void> restore(Collection<VaultSettings> vaultSettings) {
+		List<Vault> vaults = vaultSettings.stream().map(this::createPlaceholder).toList();
 		vaultList.addAll(vaults);
+		if (vaults.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		var executor = Executors.newFixedThreadPool(Math.min(vaults.size(), MAX_STATE_DETECTION_THREADS), new ThreadFactoryBuilder().setNameFormat("Vault State Detection %d").setDaemon(true).build());
+		var detections = vaults.stream().map(vault -> determineInitialState(vault, executor)).toArray(CompletableFuture[]::new);
+		executor.shutdown(); // submitted detections still run, but threads hanging on unreachable storage don't prevent the executor from terminating eventually
+		return CompletableFuture.allOf(detections);
+	}
+
+	private Vault createPlaceholder(VaultSettings vaultSettings) {
+		return vaultComponentFactory.create(vaultSettings, new VaultConfigCache(vaultSettings), PROCESSING, null).vault();
+	}
+
+	/**
+	 * Determines the state of the given vault in the background. If this takes too long, the vault goes into the {@link VaultState.Value#ERROR error} state,
+	 * but is still updated once the state is known.
+	 *
+	 * @param vault A vault in processing state
+	 * @param executor The executor running the detection
+	 * @return A future that completes on the {@link ApplicationThread application thread} when either the state has been determined or the detection timed out
+	 */
+	private CompletableFuture<Void> determineInitialState(Vault vault, Executor executor) {
+		var resolved = new CompletableFuture<Void>();
+		var detection = CompletableFuture.supplyAsync(() -> {
+			try {
+				var vaultState = determineVaultState(vault.getPath());
+				if (vaultState == LOCKED) { //for legacy reasons: pre v8 vault do not have a config, but they are in the NEEDS_MIGRATION state
+					vault.getVaultConfigCache().reloadConfig();
+				}
+				return vaultState;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, executor);
+		detection.whenComplete((vaultState, exception) -> ApplicationThread.runLater(() -> {
+			applyInitialState(vault, vaultState, exception);
+			resolved.complete(null);
+		}));
+		// the timer is cancelled as soon as the detection completes, so it doesn't retain the vault any longer than necessary:
+		detection.copy().orTimeout(STATE_DETECTION_TIMEOUT_SECONDS, TimeUnit.SECONDS).exceptionally(exception -> {
+			if (exception instanceof TimeoutException) {
+				ApplicationThread.runLater(() -> {
+					if (!resolved.isDone()) {
+						LOG.warn("Determining vault state for {} timed out.", vault.getPath());
+						vault.setLastKnownException(new TimeoutException("Failed to determine vault state within " + STATE_DETECTION_TIMEOUT_SECONDS + "s"));
+						vault.stateProperty().set(ERROR);
+						resolved.complete(null);
+					}
+				});
+			}
+			return null;
+		});
+		return resolved;
+	}
+
+	private void applyInitialState(Vault vault, VaultState.Value vaultState, Throwable exception) {
+		var state = vault.stateProperty();
+		boolean timedOut = state.getValue() == ERROR && vault.getLastKnownException() instanceof TimeoutException;
+		if (state.getValue() != PROCESSING && !timedOut) {
+			return; // state changed in the meantime, e.g. vault has been removed and re-added
+		}
+		if (exception != null) {
+			var cause = exception instanceof CompletionException ? exception.getCause() : exception;
+			LOG.warn("Failed to determine vault state for " + vault.getPath(), cause);
+			vault.setLastKnownException(cause instanceof UncheckedIOException e ? e.getCause() : new IllegalStateException(cause));
+			state.set(ERROR);
+		} else {
+			vault.setLastKnownException(null);
+			state.set(vaultState);
+		}
 	}
 
 	private Optional<Vault> get(Path vaultPath) {
 		assert vaultPath.isAbsolute();
 		assert vaultPath.normalize().equals(vaultPath);
-		return vaultList.stream() //
-				.filter(v -> vaultPath.equals(v.getPath())) //
-				.findAny();
+		return Optional.ofNullable(vaultsByPath.get(vaultPath));
+	}
+
+	private void updateIndex(ListChangeListener.Change<? extends Vault> c) {
+		boolean structural = false;
+		while (c.next()) {
+			structural |= c.wasAdded() || c.wasRemoved() || c.wasPermutated(); // not updates of a vault's properties, which are frequent and don't affect the snapshot
+			for (var vault : c.getRemoved()) {
+				vault.getVaultSettings().path.removeListener(pathListener);
+				vaultsByPath.remove(vault.getPath(), vault);
+				vaultsById.remove(vault.getId(), vault);
+			}
+			for (var vault : c.getAddedSubList()) {
+				vault.getVaultSettings().path.addListener(pathListener);
+				vaultsByPath.put(vault.getPath(), vault);
+				vaultsById.put(vault.getId(), vault);
+			}
+		}
+		if (structural) {
+			snapshot = List.copyOf(c.getList()); // taken on the application thread, which modifies the list
+		}
+	}
+
+	private void vaultPathChanged(@SuppressWarnings("unused") ObservableValue<? extends Path> observable, Path oldPath, Path newPath) {
+		var vault = vaultsByPath.remove(oldPath);
+		if (vault != null) {
+			vaultsByPath.put(newPath, vault);
+		}
 	}
 
 	private Vault create(VaultSettings vaultSettings) {
@@ -131,10 +324,7 @@ public class VaultListManager {
 		return switch (previousState) {
 			case LOCKED, NEEDS_MIGRATION, MISSING -> {
 				try {
-					var determinedState = determineVaultState(vault.getPath());
-					if (determinedState == LOCKED) {
-						vault.getVaultConfigCache().reloadConfig();
-					}
+					var determinedState = probeVaultState(vault);
 					state.set(determinedState);
 					yield determinedState;
 				} catch (IOException e) {
@@ -148,6 +338,22 @@ public class VaultListManager {
 		};
 	}
 
+	/**
+	 * Determines the state of the given vault from its storage location and reloads its config if it is a regular vault. Doesn't modify the vault's state.
+	 * May be called from any thread.
+	 *
+	 * @param vault The vault to inspect
+	 * @return The vault's state according to its storage location
+	 * @throws IOException If the storage location can't be inspected
+	 */
+	static VaultState.Value probeVaultState(Vault vault) throws IOException {
+		var determinedState = determineVaultState(vault.getPath());
+		if (determinedState == LOCKED) { //for legacy reasons: pre v8 vault do not have a config, but they are in the NEEDS_MIGRATION state
+			vault.getVaultConfigCache().reloadConfig();
+		}
+		return determinedState;
+	}
+
 	private static VaultState.Value determineVaultState(Path pathToVault) throws IOException {
 		if (!Files.exists(pathToVault)) {
 			return VaultState.Value.MISSING;
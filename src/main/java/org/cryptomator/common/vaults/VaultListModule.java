@@ -1,19 +1,50 @@
 package org.cryptomator.common.vaults;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import dagger.Module;
 import dagger.Provides;
 
+import javax.inject.Named;
 import javax.inject.Singleton;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 @Module
 public class VaultListModule {
 
+	private static final int READ_AHEAD_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+	private static final int WRITE_BACK_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
 	@Provides
 	@Singleton
 	public ObservableList<Vault> provideVaultList() {
 		return FXCollections.observableArrayList(Vault::observables);
 	}
 
+	/**
+	 * Shared by all unlocked vaults, so the number of threads decrypting ahead doesn't grow with the number of vaults or open files.
+	 */
+	@Provides
+	@Singleton
+	@Named("readAheadExecutor")
+	public ExecutorService provideReadAheadExecutor() {
+		return Executors.newFixedThreadPool(READ_AHEAD_THREADS, new ThreadFactoryBuilder().setNameFormat("Read-Ahead %d").setDaemon(true).build());
+	}
+
+	/**
+	 * Shared by all unlocked vaults to flush coalesced writes. Kept apart from the application-wide scheduler, as flushes encrypt and write data.
+	 */
+	@Provides
+	@Singleton
+	@Named("writeBackExecutor")
+	public ScheduledExecutorService provideWriteBackExecutor() {
+		var executor = new ScheduledThreadPoolExecutor(WRITE_BACK_THREADS, new ThreadFactoryBuilder().setNameFormat("Write-Back %d").setDaemon(true).build());
+		executor.setRemoveOnCancelPolicy(true); // most delayed flushes get cancelled, as the buffer is flushed earlier
+		return executor;
+	}
+
 }
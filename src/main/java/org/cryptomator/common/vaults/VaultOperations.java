@@ -0,0 +1,147 @@
+package org.cryptomator.common.vaults;
+
+import org.cryptomator.common.Nullable;
+import org.cryptomator.common.Passphrase;
+import org.cryptomator.common.keychain.KeychainManager;
+import org.cryptomator.cryptolib.api.CryptoException;
+import org.cryptomator.cryptolib.api.MasterkeyLoadingFailedException;
+import org.cryptomator.cryptolib.common.MasterkeyFileAccess;
+import org.cryptomator.integrations.keychain.KeychainAccessException;
+import org.cryptomator.integrations.mount.MountFailedException;
+import org.cryptomator.integrations.mount.UnmountFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.cryptomator.common.vaults.VaultState.Value.LOCKED;
+import static org.cryptomator.common.vaults.VaultState.Value.PROCESSING;
+import static org.cryptomator.common.vaults.VaultState.Value.UNLOCKED;
+
+/**
+ * Unlocks and locks vaults without any user interaction, e.g. on behalf of scripts controlling the application via IPC.
+ * <p>
+ * Only vaults using a masterkey file can be unlocked this way.
+ */
+@Singleton
+public class VaultOperations {
+
+	private static final Logger LOG = LoggerFactory.getLogger(VaultOperations.class);
+	private static final String MASTERKEY_SCHEME = "masterkeyfile";
+
+	private final VaultListManager vaultListManager;
+	private final KeychainManager keychain;
+	private final MasterkeyFileAccess masterkeyFileAccess;
+
+	@Inject
+	VaultOperations(VaultListManager vaultListManager, KeychainManager keychain, MasterkeyFileAccess masterkeyFileAccess) {
+		this.vaultListManager = vaultListManager;
+		this.keychain = keychain;
+		this.masterkeyFileAccess = masterkeyFileAccess;
+	}
+
+	/**
+	 * @return A snapshot of all known vaults. Unlike the observable vault list, safe to use from any thread.
+	 */
+	public List<Vault> list() {
+		return vaultListManager.getAll();
+	}
+
+	/**
+	 * Looks up a vault by its id, its display name or its path (in this order).
+	 *
+	 * @param query The vault's id, name or path
+	 * @return The vault, if exactly one vault matches
+	 */
+	public Optional<Vault> find(String query) {
+		var byId = vaultListManager.getById(query);
+		if (byId.isPresent()) {
+			return byId;
+		}
+		var snapshot = list();
+		var byName = snapshot.stream().filter(v -> v.getDisplayName().equals(query)).toList();
+		if (byName.size() == 1) {
+			return Optional.of(byName.getFirst());
+		} else if (byName.size() > 1) {
+			LOG.debug("Vault name {} is ambiguous.", query);
+			return Optional.empty();
+		}
+		try {
+			var path = Path.of(query).toAbsolutePath().normalize();
+			return snapshot.stream().filter(v -> v.getPath().toAbsolutePath().normalize().equals(path)).findAny();
+		} catch (InvalidPathException e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Unlocks the given vault.
+	 *
+	 * @param vault A locked vault
+	 * @param passphrase The passphrase or <code>null</code> to use the one stored in the system keychain. Gets copied, the caller remains responsible for destroying it.
+	 * @throws IllegalStateException If the vault is not locked
+	 * @throws MasterkeyLoadingFailedException If the vault doesn't use a masterkey file, no passphrase is available or the passphrase is wrong
+	 */
+	public void unlock(Vault vault, @Nullable CharSequence passphrase) throws CryptoException, IOException, MountFailedException {
+		if (!vault.stateProperty().transition(LOCKED, PROCESSING)) {
+			throw new IllegalStateException("Vault is not locked.");
+		}
+		boolean success = false;
+		try {
+			var pw = passphrase != null ? Passphrase.copyOf(passphrase) : loadStoredPassphrase(vault);
+			try {
+				vault.unlock(keyId -> {
+					if (!MASTERKEY_SCHEME.equalsIgnoreCase(keyId.getScheme())) {
+						throw new MasterkeyLoadingFailedException("Vault requires interactive unlock: " + keyId.getScheme());
+					}
+					return masterkeyFileAccess.load(vault.getPath().resolve(keyId.getSchemeSpecificPart()), pw);
+				});
+			} finally {
+				pw.destroy();
+			}
+			success = true;
+			LOG.info("Unlocked vault '{}' non-interactively.", vault.getDisplayName());
+		} finally {
+			vault.stateProperty().transition(PROCESSING, success ? UNLOCKED : LOCKED);
+		}
+	}
+
+	/**
+	 * Locks the given vault.
+	 *
+	 * @param vault An unlocked vault
+	 * @param forced Whether to lock the vault even if files are still in use
+	 * @throws IllegalStateException If the vault is not unlocked
+	 */
+	public void lock(Vault vault, boolean forced) throws UnmountFailedException, IOException {
+		if (!vault.stateProperty().transition(UNLOCKED, PROCESSING)) {
+			throw new IllegalStateException("Vault is not unlocked.");
+		}
+		boolean success = false;
+		try {
+			vault.lock(forced);
+			success = true;
+		} finally {
+			vault.stateProperty().transition(PROCESSING, success ? LOCKED : UNLOCKED);
+		}
+	}
+
+	private Passphrase loadStoredPassphrase(Vault vault) throws MasterkeyLoadingFailedException {
+		try {
+			var chars = keychain.isSupported() ? keychain.loadPassphrase(vault.getId()) : null;
+			if (chars == null) {
+				throw new MasterkeyLoadingFailedException("No passphrase stored in system keychain.");
+			}
+			return new Passphrase(chars);
+		} catch (KeychainAccessException e) {
+			throw new MasterkeyLoadingFailedException("Failed to load passphrase from system keychain.", e);
+		}
+	}
+
+}
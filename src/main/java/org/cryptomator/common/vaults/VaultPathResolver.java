@@ -0,0 +1,298 @@
+package org.cryptomator.common.vaults;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.cryptomator.cryptofs.CryptoFileSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Translates between cleartext paths of an unlocked vault and the corresponding ciphertext paths in its storage location, many at a time.
+ * <p>
+ * Cleartext paths are absolute paths within the vault, e.g. <code>/docs/file.txt</code>, regardless of where the vault is mounted.
+ * Resolving ciphertext paths requires knowing which cleartext directory is stored in which ciphertext directory. These mappings are learned by
+ * walking the cleartext directory tree and are cached while the vault is unlocked. Since directories may get moved in the meantime, a cached
+ * mapping is checked whenever it is used and learned anew if it turns out to be outdated.
+ * <p>
+ * The {@link CryptoFileSystem#getCiphertextPath(Path) ciphertext path} of a file is its node, or a file within its node if the name is shortened
+ * (<code>contents.c9r</code>) or if it is a symlink (<code>symlink.c9r</code>). For a directory, it is the ciphertext directory storing its
+ * children, which doesn't reveal the directory's node in its parent. Hence, a directory node can only be attributed to a cleartext directory
+ * by elimination, i.e. if it is the only directory node of its parent not attributed otherwise.
+ * <p>
+ * The walk is resumed by subsequent batches instead of starting over, until it is older than {@value MAX_WALK_AGE_SECONDS} seconds or a cached
+ * mapping turned out to be outdated. Ciphertext directories not found by a complete walk are remembered as unresolvable, so unrelated files in the
+ * storage location don't lead to walking the whole tree again and again.
+ * <p>
+ * Paths are processed grouped by their parent directory, so the ciphertext directory of each parent is looked up only once per batch when
+ * resolving cleartext paths, and each ciphertext directory is listed at most once per batch when resolving ciphertext paths.
+ */
+public class VaultPathResolver {
+
+	private static final Logger LOG = LoggerFactory.getLogger(VaultPathResolver.class);
+	private static final String DATA_DIR_NAME = "d";
+	private static final String CONTENTS_FILE_NAME = "contents.c9r";
+	private static final String SYMLINK_FILE_NAME = "symlink.c9r";
+	private static final String DIR_FILE_NAME = "dir.c9r";
+	private static final int MAX_CACHED_DIRECTORIES = 100_000;
+	static final long MAX_WALK_AGE_SECONDS = 60;
+
+	private final CryptoFileSystem fs;
+	private final Path vaultPath;
+	private final Path dataDir;
+	private final Cache<Path, Path> cleartextDirs = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_DIRECTORIES).build(); // ciphertext dir -> cleartext dir
+	private final Cache<Path, Boolean> unresolvableDirs = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_DIRECTORIES).build(); // not found by the current walk
+
+	// guarded by this:
+	private ArrayDeque<Path> walkQueue; // cleartext directories not yet visited by the current walk
+	private long walkStarted;
+
+	VaultPathResolver(CryptoFileSystem fs) {
+		this.fs = fs;
+		this.vaultPath = fs.getPathToVault().toAbsolutePath().normalize();
+		this.dataDir = vaultPath.resolve(DATA_DIR_NAME);
+	}
+
+	boolean isFor(CryptoFileSystem fs) {
+		return this.fs == fs;
+	}
+
+	/**
+	 * Resolves the ciphertext paths of the given cleartext paths.
+	 *
+	 * @param cleartextPaths Absolute paths within the vault
+	 * @return The ciphertext path for each of the given paths (in the same order) or an empty optional, if it can't be resolved, e.g. because a parent directory doesn't exist
+	 */
+	public List<Optional<Path>> toCiphertext(List<String> cleartextPaths) {
+		var results = new ArrayList<Optional<Path>>(Collections.nCopies(cleartextPaths.size(), Optional.empty()));
+		var parsedPaths = new Path[cleartextPaths.size()];
+		var byParent = new LinkedHashMap<Path, List<Integer>>();
+		for (int i = 0; i < cleartextPaths.size(); i++) {
+			try {
+				var cleartextPath = fs.getPath(cleartextPaths.get(i)).normalize();
+				if (!cleartextPath.isAbsolute()) {
+					continue;
+				} else if (cleartextPath.getParent() == null) {
+					results.set(i, Optional.of(vaultPath)); // the root directory isn't stored in a node of its own
+					continue;
+				}
+				parsedPaths[i] = cleartextPath;
+				byParent.computeIfAbsent(cleartextPath.getParent(), p -> new ArrayList<>()).add(i);
+			} catch (InvalidPathException e) {
+				LOG.debug("Invalid cleartext path {}", cleartextPaths.get(i));
+			}
+		}
+		for (var group : byParent.entrySet()) {
+			try {
+				cleartextDirs.put(fs.getCiphertextPath(group.getKey()), group.getKey());
+			} catch (IOException e) {
+				LOG.debug("Failed to resolve ciphertext directory of {}", group.getKey(), e);
+				continue; // children can't be resolved either
+			}
+			for (int i : group.getValue()) {
+				var cleartextPath = parsedPaths[i];
+				try {
+					results.set(i, Optional.of(fs.getCiphertextPath(cleartextPath)));
+				} catch (IOException e) {
+					LOG.debug("Failed to resolve ciphertext path of {}", cleartextPath, e);
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Resolves the cleartext paths of the given ciphertext paths. Files stored within a ciphertext node, such as the <code>dir.c9r</code> of a
+	 * directory or the <code>contents.c9r</code> of a file with a shortened name, resolve to the node's cleartext path. A ciphertext directory
+	 * resolves to the cleartext directory whose children it stores.
+	 *
+	 * @param ciphertextPaths Paths within the vault's storage location, either absolute or relative to the vault's storage location
+	 * @return The cleartext path for each of the given paths (in the same order) or an empty optional, if it can't be resolved, e.g. because it doesn't belong to any existing cleartext node
+	 */
+	public List<Optional<String>> toCleartext(List<String> ciphertextPaths) {
+		var results = new ArrayList<Optional<String>>(Collections.nCopies(ciphertextPaths.size(), Optional.empty()));
+		var nodes = new HashMap<Integer, Path>();
+		var byDir = new LinkedHashMap<Path, List<Integer>>();
+		for (int i = 0; i < ciphertextPaths.size(); i++) {
+			try {
+				var path = vaultPath.resolve(ciphertextPaths.get(i)).toAbsolutePath().normalize();
+				if (!path.startsWith(dataDir) || path.getNameCount() < dataDir.getNameCount() + 2) {
+					continue; // not inside a ciphertext directory
+				}
+				var relativePath = dataDir.relativize(path);
+				var dir = dataDir.resolve(relativePath.subpath(0, 2));
+				if (relativePath.getNameCount() > 2) {
+					nodes.put(i, dir.resolve(relativePath.getName(2)));
+				}
+				byDir.computeIfAbsent(dir, d -> new ArrayList<>()).add(i);
+			} catch (InvalidPathException e) {
+				LOG.debug("Invalid ciphertext path {}", ciphertextPaths.get(i));
+			}
+		}
+		var children = listChildren(byDir.keySet());
+		for (var group : byDir.entrySet()) {
+			var listing = children.get(group.getKey());
+			if (listing == null) {
+				continue;
+			}
+			for (int i : group.getValue()) {
+				var node = nodes.get(i);
+				var cleartextPath = node == null ? listing.dir() : listing.children().get(node);
+				results.set(i, Optional.ofNullable(cleartextPath).map(Path::toString));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Lists the children of the cleartext directories stored in the given ciphertext directories, using cached mappings where possible.
+	 * For all other ciphertext directories, the cleartext tree is walked until all of them have been found.
+	 */
+	private Map<Path, Listing> listChildren(Set<Path> ciphertextDirs) {
+		var result = new HashMap<Path, Listing>();
+		var unknown = new HashSet<Path>();
+		boolean outdated = false;
+		for (var ciphertextDir : ciphertextDirs) {
+			var cleartextDir = cleartextDirs.getIfPresent(ciphertextDir);
+			var listing = cleartextDir == null ? null : list(cleartextDir, d -> true, false);
+			if (listing != null && ciphertextDir.equals(listing.ciphertextDir())) {
+				result.put(ciphertextDir, listing);
+			} else if (cleartextDir != null) {
+				cleartextDirs.invalidate(ciphertextDir);
+				unknown.add(ciphertextDir); // moved in the meantime
+				outdated = true;
+			} else if (unresolvableDirs.getIfPresent(ciphertextDir) == null) {
+				unknown.add(ciphertextDir); // not known yet
+			}
+		}
+		if (!unknown.isEmpty()) {
+			LOG.debug("Searching {} ciphertext directories in cleartext tree", unknown.size());
+			walk(unknown, result, outdated);
+		}
+		return result;
+	}
+
+	/**
+	 * Continues the current walk of the cleartext tree until all wanted ciphertext directories are found or the walk is complete.
+	 *
+	 * @param wanted The ciphertext directories to search
+	 * @param found Where to put the listings of the found directories
+	 * @param restart Whether to start a new walk, as the tree changed since the current one started
+	 */
+	private synchronized void walk(Set<Path> wanted, Map<Path, Listing> found, boolean restart) {
+		if (restart || walkQueue == null || System.nanoTime() - walkStarted > TimeUnit.SECONDS.toNanos(MAX_WALK_AGE_SECONDS)) {
+			walkQueue = new ArrayDeque<>();
+			walkQueue.add(fs.getRootDirectories().iterator().next());
+			walkStarted = System.nanoTime();
+			unresolvableDirs.invalidateAll();
+		}
+		while (!walkQueue.isEmpty() && !wanted.isEmpty()) {
+			var listing = list(walkQueue.poll(), wanted::contains, true);
+			if (listing == null) {
+				continue;
+			}
+			cleartextDirs.put(listing.ciphertextDir(), listing.dir());
+			if (wanted.remove(listing.ciphertextDir())) {
+				found.put(listing.ciphertextDir(), listing);
+			}
+			walkQueue.addAll(listing.subdirs());
+		}
+		wanted.forEach(dir -> unresolvableDirs.put(dir, Boolean.TRUE)); // non-empty only if the walk is complete
+	}
+
+	/**
+	 * Lists the given directory. Resolving the ciphertext node of each child is only done if the ciphertext directory is of interest.
+	 *
+	 * @param cleartextDir The directory to list
+	 * @param isWanted Whether to resolve all children of the ciphertext directory passed to this predicate
+	 * @param withSubdirs Whether to collect subdirectories
+	 * @return The listing or <code>null</code> if the directory can't be listed
+	 */
+	private Listing list(Path cleartextDir, Predicate<Path> isWanted, boolean withSubdirs) {
+		var children = new HashMap<Path, Path>();
+		var subdirs = new ArrayList<Path>();
+		var unattributedSubdirs = new ArrayList<Path>();
+		try {
+			var ciphertextDir = fs.getCiphertextPath(cleartextDir);
+			boolean resolveChildren = isWanted.test(ciphertextDir);
+			try (var stream = Files.newDirectoryStream(cleartextDir)) {
+				for (var child : stream) {
+					boolean isDir = Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS);
+					if (withSubdirs && isDir) {
+						subdirs.add(child);
+					}
+					if (!resolveChildren) {
+						continue;
+					} else if (isDir) {
+						cleartextDirs.put(fs.getCiphertextPath(child), child); // its own ciphertext dir, not its node
+						unattributedSubdirs.add(child);
+					} else {
+						children.put(nodeOf(fs.getCiphertextPath(child)), child);
+					}
+				}
+			}
+			if (resolveChildren && unattributedSubdirs.size() == 1) {
+				attributeDirNode(ciphertextDir, children.keySet()).ifPresent(node -> children.put(node, unattributedSubdirs.getFirst()));
+			}
+			return new Listing(cleartextDir, ciphertextDir, children, subdirs);
+		} catch (IOException | DirectoryIteratorException e) {
+			LOG.debug("Failed to list {}", cleartextDir, e);
+			return null;
+		}
+	}
+
+	/**
+	 * @param ciphertextPath The ciphertext path of a file or symlink
+	 * @return The node storing it
+	 */
+	private static Path nodeOf(Path ciphertextPath) {
+		var fileName = ciphertextPath.getFileName().toString();
+		if (CONTENTS_FILE_NAME.equals(fileName) || SYMLINK_FILE_NAME.equals(fileName)) {
+			return ciphertextPath.getParent();
+		} else {
+			return ciphertextPath;
+		}
+	}
+
+	/**
+	 * Looks for the only directory node of the given ciphertext directory that isn't attributed yet.
+	 *
+	 * @param ciphertextDir The ciphertext directory of a cleartext directory with exactly one subdirectory
+	 * @param attributedNodes Nodes of the other children
+	 * @return The subdirectory's node, if there is exactly one candidate
+	 */
+	private static Optional<Path> attributeDirNode(Path ciphertextDir, Set<Path> attributedNodes) throws IOException {
+		try (var stream = Files.newDirectoryStream(ciphertextDir, node -> !attributedNodes.contains(node) && Files.exists(node.resolve(DIR_FILE_NAME)))) {
+			var candidates = new ArrayList<Path>();
+			stream.forEach(candidates::add);
+			return candidates.size() == 1 ? Optional.of(candidates.getFirst()) : Optional.empty();
+		}
+	}
+
+	/**
+	 * @param dir A cleartext directory
+	 * @param ciphertextDir The ciphertext directory storing its children
+	 * @param children Cleartext paths of the children by their ciphertext nodes, only complete if the ciphertext directory was wanted
+	 * @param subdirs Children that are directories
+	 */
+	private record Listing(Path dir, Path ciphertextDir, Map<Path, Path> children, List<Path> subdirs) {}
+
+}
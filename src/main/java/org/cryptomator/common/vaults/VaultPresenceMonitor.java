@@ -0,0 +1,213 @@
+package org.cryptomator.common.vaults;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.cryptomator.common.ApplicationThread;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notices vaults appearing or disappearing, e.g. when removable or network storage gets attached or detached.
+ * <p>
+ * For each {@link VaultState.Value#MISSING missing} vault, the closest existing ancestor of its path is watched. For each locked vault, its
+ * parent directory is watched. Whenever an entry on the way to a vault is created or deleted, the vault's {@link VaultStateRefresher state is
+ * refreshed}. Thus, {@link VaultState.Value#MISSING} and {@link VaultState.Value#LOCKED} flip as soon as the OS reports the change.
+ * <p>
+ * Storage mounted onto an already existing directory doesn't generate any such event on most platforms, and a missing drive on Windows has no
+ * existing ancestor at all. Therefore, missing vaults as well as vaults whose location can't be watched are additionally polled every
+ * {@value POLL_INTERVAL_SECONDS} seconds.
+ */
+@Singleton
+public class VaultPresenceMonitor {
+
+	private static final Logger LOG = LoggerFactory.getLogger(VaultPresenceMonitor.class);
+	static final long POLL_INTERVAL_SECONDS = 10;
+
+	private final ObservableList<Vault> vaultList;
+	private final VaultStateRefresher stateRefresher;
+	private final ScheduledExecutorService executor; // all registrations are managed on this thread
+	private final Map<Vault, WatchKey> registrations = new HashMap<>();
+	private final Map<WatchKey, Set<Vault>> watchedVaults = new HashMap<>();
+	private final Set<Vault> polledVaults = new HashSet<>();
+	private WatchService watchService;
+
+	@Inject
+	public VaultPresenceMonitor(ObservableList<Vault> vaultList, VaultStateRefresher stateRefresher) {
+		this.vaultList = vaultList;
+		this.stateRefresher = stateRefresher;
+		this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("Vault Presence Monitor").setDaemon(true).build());
+	}
+
+	/**
+	 * Starts monitoring. Must be called on the {@link ApplicationThread application thread}.
+	 */
+	public void init() {
+		try {
+			watchService = FileSystems.getDefault().newWatchService();
+			Thread.ofPlatform().name("Vault Presence Watcher").daemon().start(this::watch);
+		} catch (IOException | UnsupportedOperationException e) {
+			LOG.warn("Unable to watch vault locations. Falling back to polling.", e);
+		}
+		executor.scheduleWithFixedDelay(this::poll, POLL_INTERVAL_SECONDS, POLL_INTERVAL_SECONDS, TimeUnit.SECONDS);
+		vaultList.forEach(this::update);
+		vaultList.addListener(this::vaultListChanged);
+	}
+
+	private void vaultListChanged(ListChangeListener.Change<? extends Vault> c) {
+		while (c.next()) {
+			if (c.wasUpdated()) { // the vault list fires updates on state changes
+				c.getList().subList(c.getFrom(), c.getTo()).forEach(this::update);
+			} else {
+				c.getRemoved().forEach(v -> executor.execute(() -> unregister(v)));
+				c.getAddedSubList().forEach(this::update);
+			}
+		}
+	}
+
+	private void update(Vault vault) {
+		var state = vault.getState();
+		var path = vault.getPath();
+		executor.execute(() -> register(vault, state, path));
+	}
+
+	private void watch() {
+		try {
+			while (true) {
+				var key = watchService.take();
+				var events = key.pollEvents();
+				executor.execute(() -> handle(key, events));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e) {
+			// stopped
+		}
+	}
+
+	private void handle(WatchKey key, List<WatchEvent<?>> events) {
+		var vaults = List.copyOf(watchedVaults.getOrDefault(key, Set.of()));
+		var dir = (Path) key.watchable();
+		for (var vault : vaults) {
+			if (events.stream().anyMatch(e -> affects(e, dir, vault.getPath()))) {
+				LOG.debug("Change detected on the way to {}", vault.getPath());
+				ApplicationThread.runLater(() -> {
+					stateRefresher.invalidate(vault);
+					stateRefresher.refreshIfStale(vault);
+					update(vault); // the closest existing ancestor might have changed
+				});
+			}
+		}
+		if (!key.reset()) { // watched dir is gone, watch a different one
+			vaults.forEach(this::unregister);
+			vaults.forEach(v -> ApplicationThread.runLater(() -> update(v)));
+		}
+	}
+
+	private void poll() {
+		for (var vault : polledVaults) {
+			ApplicationThread.runLater(() -> {
+				stateRefresher.invalidate(vault);
+				stateRefresher.refreshIfStale(vault);
+			});
+		}
+	}
+
+	private static boolean affects(WatchEvent<?> event, Path dir, Path vaultPath) {
+		if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+			return true;
+		}
+		var relativePath = dir.relativize(vaultPath);
+		return relativePath.getNameCount() > 0 && relativePath.getName(0).equals(event.context());
+	}
+
+	private void register(Vault vault, VaultState.Value state, Path vaultPath) {
+		unregister(vault);
+		var dir = switch (state) {
+			case MISSING -> closestExistingAncestor(vaultPath);
+			case LOCKED, NEEDS_MIGRATION -> vaultPath.getParent();
+			default -> null; // unlocked vaults can't disappear unnoticed, all other states require user interaction anyway
+		};
+		boolean watched = dir != null && watch(vault, dir, vaultPath);
+		if (state == VaultState.Value.MISSING || (dir != null && !watched)) {
+			polledVaults.add(vault); // its storage might get mounted onto an existing directory without any event
+		}
+	}
+
+	private boolean watch(Vault vault, Path dir, Path vaultPath) {
+		if (watchService == null) {
+			return false;
+		}
+		try {
+			var key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+			registrations.put(vault, key);
+			watchedVaults.computeIfAbsent(key, k -> new HashSet<>()).add(vault);
+			LOG.trace("Watching {} for {}", dir, vaultPath);
+			return true;
+		} catch (IOException | ClosedWatchServiceException | UnsupportedOperationException e) {
+			LOG.debug("Unable to watch {} for {}", dir, vaultPath, e);
+			return false;
+		}
+	}
+
+	private void unregister(Vault vault) {
+		polledVaults.remove(vault);
+		var key = registrations.remove(vault);
+		if (key == null) {
+			return;
+		}
+		var vaults = watchedVaults.get(key);
+		vaults.remove(vault);
+		if (vaults.isEmpty()) {
+			watchedVaults.remove(key);
+			key.cancel();
+		}
+	}
+
+	@VisibleForTesting
+	boolean isWatched(Vault vault) throws InterruptedException, ExecutionException {
+		return onMonitorThread(() -> registrations.containsKey(vault));
+	}
+
+	@VisibleForTesting
+	boolean isPolled(Vault vault) throws InterruptedException, ExecutionException {
+		return onMonitorThread(() -> polledVaults.contains(vault));
+	}
+
+	private <T> T onMonitorThread(Callable<T> callable) throws InterruptedException, ExecutionException {
+		return executor.submit(callable).get(); // also waits for all pending registrations
+	}
+
+	private static Path closestExistingAncestor(Path path) {
+		for (var p = path.getParent(); p != null; p = p.getParent()) {
+			if (Files.isDirectory(p)) {
+				return p;
+			}
+		}
+		return null;
+	}
+
+}
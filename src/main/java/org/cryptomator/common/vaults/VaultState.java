@@ -1,11 +1,11 @@
 package org.cryptomator.common.vaults;
 
 import com.google.common.base.Preconditions;
+import org.cryptomator.common.ApplicationThread;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
-import javafx.application.Platform;
 import javafx.beans.value.ObservableObjectValue;
 import javafx.beans.value.ObservableValueBase;
 import java.util.concurrent.TimeUnit;
@@ -132,10 +132,10 @@ public class VaultState extends ObservableValueBase<VaultState.Value> implements
 	@Override
 	protected void fireValueChangedEvent() {
 		signal();
-		if (Platform.isFxApplicationThread()) {
+		if (ApplicationThread.isCurrent()) {
 			super.fireValueChangedEvent();
 		} else {
-			Platform.runLater(super::fireValueChangedEvent);
+			ApplicationThread.runLater(super::fireValueChangedEvent);
 		}
 	}
 }
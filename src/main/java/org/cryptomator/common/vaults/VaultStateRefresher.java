@@ -0,0 +1,105 @@
+package org.cryptomator.common.vaults;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.cryptomator.common.ApplicationThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javafx.collections.ObservableList;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the state of vaults that are not in use up to date without blocking the caller.
+ * <p>
+ * Unlike {@link VaultListManager#redetermineVaultState(Vault)}, which inspects the storage location synchronously, this refreshes the state in the
+ * background and only if the last inspection is older than {@value #MAX_AGE_SECONDS} seconds. Until then, the cached state, i.e. the vault's current
+ * {@link VaultState}, is used. Vaults on slow or sleeping storage therefore neither delay the caller nor get inspected repeatedly.
+ */
+@Singleton
+public class VaultStateRefresher {
+
+	private static final Logger LOG = LoggerFactory.getLogger(VaultStateRefresher.class);
+	private static final long MAX_AGE_SECONDS = 30;
+	private static final int MAX_REFRESH_THREADS = 4;
+	private static final Set<VaultState.Value> REFRESHABLE_STATES = EnumSet.of(VaultState.Value.LOCKED, VaultState.Value.NEEDS_MIGRATION, VaultState.Value.MISSING);
+
+	private final ObservableList<Vault> vaultList;
+	private final ExecutorService executor;
+	private final Map<Vault, Long> lastRefreshed = new ConcurrentHashMap<>();
+	private final Set<Vault> refreshing = ConcurrentHashMap.newKeySet();
+
+	@Inject
+	public VaultStateRefresher(ObservableList<Vault> vaultList) {
+		this.vaultList = vaultList;
+		this.executor = Executors.newFixedThreadPool(MAX_REFRESH_THREADS, new ThreadFactoryBuilder().setNameFormat("Vault State Refresh %d").setDaemon(true).build());
+	}
+
+	/**
+	 * Refreshes the state of all vaults whose state is outdated. Returns immediately. Must be called on the {@link ApplicationThread application thread}.
+	 */
+	public void refreshAllIfStale() {
+		vaultList.forEach(this::refreshIfStale);
+	}
+
+	/**
+	 * Refreshes the state of the given vault in the background if it is outdated. Returns immediately.
+	 *
+	 * @param vault The vault to refresh
+	 */
+	public void refreshIfStale(Vault vault) {
+		long now = System.nanoTime();
+		var last = lastRefreshed.get(vault);
+		if (last != null && now - last < TimeUnit.SECONDS.toNanos(MAX_AGE_SECONDS)) {
+			return; // still fresh
+		}
+		if (!REFRESHABLE_STATES.contains(vault.getState()) || !refreshing.add(vault)) {
+			return; // in use or already being refreshed
+		}
+		executor.execute(() -> refresh(vault));
+	}
+
+	/**
+	 * Marks the state of the given vault as outdated, so that the next {@link #refreshIfStale(Vault) refresh} inspects its storage location again.
+	 *
+	 * @param vault The vault whose state may have changed
+	 */
+	public void invalidate(Vault vault) {
+		lastRefreshed.remove(vault);
+	}
+
+	private void refresh(Vault vault) {
+		try {
+			var determinedState = VaultListManager.probeVaultState(vault);
+			ApplicationThread.runLater(() -> apply(vault, determinedState, null));
+		} catch (IOException e) {
+			ApplicationThread.runLater(() -> apply(vault, VaultState.Value.ERROR, e));
+		} finally {
+			lastRefreshed.put(vault, System.nanoTime());
+			refreshing.remove(vault);
+		}
+	}
+
+	private void apply(Vault vault, VaultState.Value determinedState, IOException exception) {
+		var state = vault.stateProperty();
+		if (!REFRESHABLE_STATES.contains(state.getValue())) {
+			return; // vault got used in the meantime
+		}
+		if (exception != null) {
+			LOG.warn("Failed to determine vault state for " + vault.getPath(), exception);
+			vault.setLastKnownException(exception);
+		}
+		if (state.getValue() != determinedState) {
+			state.set(determinedState);
+		}
+	}
+
+}
@@ -1,35 +1,69 @@
 package org.cryptomator.common.vaults;
 
+import org.cryptomator.common.ApplicationThread;
+import org.cryptomator.common.fs.FileSystemMetrics;
+import org.cryptomator.common.fs.MetadataCacheStats;
+import org.cryptomator.common.fs.WriteCoalescingStats;
 import org.cryptomator.cryptofs.CryptoFileSystem;
 import org.cryptomator.cryptofs.CryptoFileSystemStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
-import javafx.application.Platform;
-import javafx.beans.Observable;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.LongProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleObjectProperty;
-import javafx.concurrent.ScheduledService;
-import javafx.concurrent.Task;
-import javafx.util.Duration;
 import java.time.Instant;
 import java.util.Optional;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * I/O statistics of a vault.
+ * <p>
+ * While the vault is unlocked, i.e. between {@link #start()} and {@link #stop()}, the {@link VaultStatsSampler} periodically records the file system statistics into primitive fields and histories.
+ * These are readable from any thread. The JavaFX properties, however, only get updated while at least one observer is registered
+ * via {@link #startObserving()}.
+ */
 @PerVault
 public class VaultStats {
 
 	private static final Logger LOG = LoggerFactory.getLogger(VaultStats.class);
+	public static final int HISTORY_SIZE = 60; // in samples, i.e. seconds
 
 	private final AtomicReference<CryptoFileSystem> fs;
-	private final VaultState state;
-	private final ScheduledService<Optional<CryptoFileSystemStats>> updateService;
+	private final VaultStatsSampler sampler;
+	private final AtomicInteger observers = new AtomicInteger();
+	private final AtomicBoolean publishPending = new AtomicBoolean();
+	private final Runnable publishCmd = this::publish;
+
+	// written by the sampler only:
+	private final LongRingBuffer bytesReadHistory = new LongRingBuffer(HISTORY_SIZE);
+	private final LongRingBuffer bytesWrittenHistory = new LongRingBuffer(HISTORY_SIZE);
+	private final LongRingBuffer filesAccessedHistory = new LongRingBuffer(HISTORY_SIZE);
+	private volatile long sampledBytesPerSecondEncrypted;
+	private volatile long sampledBytesPerSecondDecrypted;
+	private volatile double sampledCacheHitRate;
+	private volatile long sampledTotalBytesRead;
+	private volatile long sampledTotalBytesWritten;
+	private volatile long sampledTotalBytesEncrypted;
+	private volatile long sampledTotalBytesDecrypted;
+	private volatile long sampledFilesRead;
+	private volatile long sampledFilesWritten;
+	private volatile long sampledTotalFilesAccessed;
+	private volatile long sampledMetadataCacheHits;
+	private volatile long sampledMetadataCacheMisses;
+	private volatile long sampledWritesAbsorbed;
+	private volatile long sampledWritesFlushed;
+	private volatile long sampledLastActivity; // epoch millis, 0 if never unlocked
+	private volatile FileSystemMetrics fileSystemMetrics; // null unless instrumented
+	private volatile MetadataCacheStats metadataCacheStats; // null unless metadata is cached
+	private volatile WriteCoalescingStats writeCoalescingStats; // null unless writes are coalesced
+
 	private final LongProperty bytesPerSecondRead = new SimpleLongProperty();
 	private final LongProperty bytesPerSecondWritten = new SimpleLongProperty();
 	private final LongProperty bytesPerSecondEncrypted = new SimpleLongProperty();
@@ -46,52 +80,77 @@ public class VaultStats {
 	private final ObjectProperty<Instant> lastActivity = new SimpleObjectProperty<>();
 
 	@Inject
-	VaultStats(AtomicReference<CryptoFileSystem> fs, VaultState state, ExecutorService executor) {
+	VaultStats(AtomicReference<CryptoFileSystem> fs, VaultStatsSampler sampler) {
 		this.fs = fs;
-		this.state = state;
-		this.updateService = new UpdateStatsService();
-		updateService.setExecutor(executor);
-		updateService.setPeriod(Duration.seconds(1));
-
-		state.addListener(this::vaultStateChanged);
-	}
-
-	private void vaultStateChanged(@SuppressWarnings("unused") Observable observable) {
-		if (VaultState.Value.UNLOCKED == state.get()) {
-			assert fs.get() != null;
-			LOG.debug("start recording stats");
-			Platform.runLater(() -> {
-				lastActivity.set(Instant.now());
-				updateService.restart();
-			});
-		} else {
-			LOG.debug("stop recording stats");
-			Platform.runLater(() -> updateService.cancel());
-		}
+		this.sampler = sampler;
+	}
+
+	/**
+	 * Starts recording. Invoked by the vault once it got unlocked, on whatever thread unlocked it.
+	 */
+	void start() {
+		assert fs.get() != null;
+		LOG.debug("start recording stats");
+		sampledLastActivity = System.currentTimeMillis();
+		sampler.register(this);
+		schedulePublish();
 	}
 
-	private void updateStats(Optional<CryptoFileSystemStats> stats) {
-		assert Platform.isFxApplicationThread();
-		bytesPerSecondRead.set(stats.map(CryptoFileSystemStats::pollBytesRead).orElse(0L));
-		bytesPerSecondWritten.set(stats.map(CryptoFileSystemStats::pollBytesWritten).orElse(0L));
-		cacheHitRate.set(stats.map(this::getCacheHitRate).orElse(0.0));
-		bytesPerSecondDecrypted.set(stats.map(CryptoFileSystemStats::pollBytesDecrypted).orElse(0L));
-		bytesPerSecondEncrypted.set(stats.map(CryptoFileSystemStats::pollBytesEncrypted).orElse(0L));
-		totalBytesRead.set(stats.map(CryptoFileSystemStats::pollTotalBytesRead).orElse(0L));
-		totalBytesWritten.set(stats.map(CryptoFileSystemStats::pollTotalBytesWritten).orElse(0L));
-		totalBytesEncrypted.set(stats.map(CryptoFileSystemStats::pollTotalBytesEncrypted).orElse(0L));
-		totalBytesDecrypted.set(stats.map(CryptoFileSystemStats::pollTotalBytesDecrypted).orElse(0L));
-		var oldAccessCount = filesRead.get() + filesWritten.get();
-		filesRead.set(stats.map(CryptoFileSystemStats::pollAmountOfAccessesRead).orElse(0L));
-		filesWritten.set(stats.map(CryptoFileSystemStats::pollAmountOfAccessesWritten).orElse(0L));
-		filesAccessed.set(stats.map(CryptoFileSystemStats::pollAmountOfAccesses).orElse(0L));
-		totalFilesAccessed.set(stats.map(CryptoFileSystemStats::pollTotalAmountOfAccesses).orElse(0L));
-		var newAccessCount = filesRead.get() + filesWritten.get();
+	/**
+	 * Stops recording and resets the per-second values. Invoked by the vault when its file system gets closed.
+	 */
+	void stop() {
+		LOG.debug("stop recording stats");
+		sampler.unregister(this);
+		reset();
+		schedulePublish();
+	}
+
+	/**
+	 * Records the current file system statistics. Invoked by the {@link VaultStatsSampler} once per sampling period.
+	 *
+	 * @param now current time in milliseconds since epoch
+	 */
+	void sample(long now) {
+		var cryptoFs = fs.get();
+		if (cryptoFs == null) {
+			return;
+		}
+		CryptoFileSystemStats stats = cryptoFs.getStats();
+		long bytesRead = stats.pollBytesRead();
+		long bytesWritten = stats.pollBytesWritten();
+		long accessesRead = stats.pollAmountOfAccessesRead();
+		long accessesWritten = stats.pollAmountOfAccessesWritten();
+		bytesReadHistory.add(bytesRead);
+		bytesWrittenHistory.add(bytesWritten);
+		filesAccessedHistory.add(stats.pollAmountOfAccesses());
+		sampledBytesPerSecondEncrypted = stats.pollBytesEncrypted();
+		sampledBytesPerSecondDecrypted = stats.pollBytesDecrypted();
+		sampledCacheHitRate = getCacheHitRate(stats);
+		sampledTotalBytesRead = stats.pollTotalBytesRead();
+		sampledTotalBytesWritten = stats.pollTotalBytesWritten();
+		sampledTotalBytesEncrypted = stats.pollTotalBytesEncrypted();
+		sampledTotalBytesDecrypted = stats.pollTotalBytesDecrypted();
+		sampledFilesRead = accessesRead;
+		sampledFilesWritten = accessesWritten;
+		sampledTotalFilesAccessed = stats.pollTotalAmountOfAccesses();
+		var cacheStats = metadataCacheStats;
+		if (cacheStats != null) {
+			sampledMetadataCacheHits = cacheStats.getHits();
+			sampledMetadataCacheMisses = cacheStats.getMisses();
+		}
+		var coalescingStats = writeCoalescingStats;
+		if (coalescingStats != null) {
+			sampledWritesAbsorbed = coalescingStats.getWritesAbsorbed();
+			sampledWritesFlushed = coalescingStats.getWritesFlushed();
+		}
 
 		// check for any I/O activity
-		if (newAccessCount > oldAccessCount) {
-			lastActivity.set(Instant.now());
+		if (accessesRead + accessesWritten > 0 || bytesRead + bytesWritten > 0) {
+			sampledLastActivity = now;
 		}
+
+		schedulePublish();
 	}
 
 	private double getCacheHitRate(CryptoFileSystemStats stats) {
@@ -104,30 +163,145 @@ public class VaultStats {
 		}
 	}
 
-	private class UpdateStatsService extends ScheduledService<Optional<CryptoFileSystemStats>> {
+	private void reset() {
+		bytesReadHistory.clear();
+		bytesWrittenHistory.clear();
+		filesAccessedHistory.clear();
+		sampledBytesPerSecondEncrypted = 0L;
+		sampledBytesPerSecondDecrypted = 0L;
+		sampledCacheHitRate = 0.0;
+		sampledFilesRead = 0L;
+		sampledFilesWritten = 0L;
+		sampledMetadataCacheHits = 0L;
+		sampledMetadataCacheMisses = 0L;
+		sampledWritesAbsorbed = 0L;
+		sampledWritesFlushed = 0L;
+	}
 
-		private UpdateStatsService() {
-			setOnFailed(event -> LOG.error("Error in UpdateStateService.", getException()));
+	private void schedulePublish() {
+		if (observers.get() > 0 && publishPending.compareAndSet(false, true)) {
+			ApplicationThread.runLater(publishCmd);
 		}
+	}
 
-		@Override
-		protected Task<Optional<CryptoFileSystemStats>> createTask() {
-			return new Task<>() {
-				@Override
-				protected Optional<CryptoFileSystemStats> call() {
-					return Optional.ofNullable(fs.get()).map(CryptoFileSystem::getStats);
-				}
-			};
+	private void publish() {
+		assert ApplicationThread.isCurrent();
+		publishPending.set(false);
+		bytesPerSecondRead.set(bytesReadHistory.latest());
+		bytesPerSecondWritten.set(bytesWrittenHistory.latest());
+		bytesPerSecondEncrypted.set(sampledBytesPerSecondEncrypted);
+		bytesPerSecondDecrypted.set(sampledBytesPerSecondDecrypted);
+		cacheHitRate.set(sampledCacheHitRate);
+		totalBytesRead.set(sampledTotalBytesRead);
+		totalBytesWritten.set(sampledTotalBytesWritten);
+		totalBytesEncrypted.set(sampledTotalBytesEncrypted);
+		totalBytesDecrypted.set(sampledTotalBytesDecrypted);
+		filesRead.set(sampledFilesRead);
+		filesWritten.set(sampledFilesWritten);
+		filesAccessed.set(filesAccessedHistory.latest());
+		totalFilesAccessed.set(sampledTotalFilesAccessed);
+		var lastActivityInstant = getLastActivity();
+		if (lastActivityInstant != null && !lastActivityInstant.equals(lastActivity.get())) {
+			lastActivity.set(lastActivityInstant);
 		}
+	}
 
-		@Override
-		protected void succeeded() {
-			assert getValue() != null;
-			updateStats(getValue());
-			super.succeeded();
+	/**
+	 * Registers an observer, causing the JavaFX properties to be updated after each sample.
+	 * Each invocation must be balanced by an invocation of {@link #stopObserving()}.
+	 */
+	public void startObserving() {
+		if (observers.getAndIncrement() == 0) {
+			schedulePublish(); // catch up immediately
 		}
 	}
 
+	public void stopObserving() {
+		observers.updateAndGet(n -> Math.max(0, n - 1));
+	}
+
+	public boolean isObserved() {
+		return observers.get() > 0;
+	}
+
+	/**
+	 * Safe to call from any thread.
+	 *
+	 * @return the values recorded during the most recent sample
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(bytesReadHistory.latest(), //
+				bytesWrittenHistory.latest(), //
+				sampledBytesPerSecondEncrypted, //
+				sampledBytesPerSecondDecrypted, //
+				sampledCacheHitRate, //
+				sampledTotalBytesRead, //
+				sampledTotalBytesWritten, //
+				sampledTotalBytesEncrypted, //
+				sampledTotalBytesDecrypted, //
+				sampledFilesRead, //
+				sampledFilesWritten, //
+				filesAccessedHistory.latest(), //
+				sampledTotalFilesAccessed, //
+				sampledMetadataCacheHits, //
+				sampledMetadataCacheMisses, //
+				sampledWritesAbsorbed, //
+				sampledWritesFlushed, //
+				getLastActivity());
+	}
+
+	public record Snapshot(long bytesPerSecondRead, long bytesPerSecondWritten, long bytesPerSecondEncrypted, long bytesPerSecondDecrypted, //
+						   double cacheHitRate, //
+						   long totalBytesRead, long totalBytesWritten, long totalBytesEncrypted, long totalBytesDecrypted, //
+						   long filesRead, long filesWritten, long filesAccessed, long totalFilesAccessed, //
+						   long metadataCacheHits, long metadataCacheMisses, //
+						   long writesAbsorbed, long writesFlushed, //
+						   Instant lastActivity) {}
+
+	void setFileSystemMetrics(FileSystemMetrics metrics) {
+		this.fileSystemMetrics = metrics;
+	}
+
+	/**
+	 * Safe to call from any thread.
+	 *
+	 * @return counts and latencies of the file system operations issued by the mount, if {@link org.cryptomator.common.settings.VaultSettings#instrumentFileSystem enabled} for the current unlock session
+	 */
+	public Optional<FileSystemMetrics> getFileSystemMetrics() {
+		return Optional.ofNullable(fileSystemMetrics);
+	}
+
+	void setMetadataCacheStats(MetadataCacheStats stats) {
+		this.metadataCacheStats = stats;
+	}
+
+	void setWriteCoalescingStats(WriteCoalescingStats stats) {
+		this.writeCoalescingStats = stats;
+	}
+
+	/* Sampled Histories */
+
+	/**
+	 * @return bytes read per second during the last {@value HISTORY_SIZE} samples
+	 */
+	public LongRingBuffer bytesReadHistory() {
+		return bytesReadHistory;
+	}
+
+	/**
+	 * @return bytes written per second during the last {@value HISTORY_SIZE} samples
+	 */
+	public LongRingBuffer bytesWrittenHistory() {
+		return bytesWrittenHistory;
+	}
+
+	/**
+	 * @return file accesses per second during the last {@value HISTORY_SIZE} samples
+	 */
+	public LongRingBuffer filesAccessedHistory() {
+		return filesAccessedHistory;
+	}
+
 	/* Observables */
 
 	public LongProperty bytesPerSecondReadProperty() {
@@ -205,11 +379,22 @@ public class VaultStats {
 		return totalFilesAccessed.get();
 	}
 
+	/**
+	 * Only updated while {@link #isObserved() observed}. Use {@link #getLastActivity()} for an always up-to-date value.
+	 *
+	 * @return the time of the last I/O activity
+	 */
 	public ObjectProperty<Instant> lastActivityProperty() {
 		return lastActivity;
 	}
 
+	/**
+	 * Safe to call from any thread.
+	 *
+	 * @return the time of the last recorded I/O activity or <code>null</code> if the vault has not been unlocked yet
+	 */
 	public Instant getLastActivity() {
-		return lastActivity.get();
+		long millis = sampledLastActivity;
+		return millis == 0L ? null : Instant.ofEpochMilli(millis);
 	}
 }
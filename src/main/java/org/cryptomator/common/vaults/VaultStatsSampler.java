@@ -0,0 +1,75 @@
+package org.cryptomator.common.vaults;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Polls the file system statistics of all unlocked vaults in a single periodic tick.
+ * <p>
+ * Sampling happens on the app's scheduler and does not involve the JavaFX application thread. The sampled {@link VaultStats} decide
+ * themselves whether their samples need to be published to the UI.
+ */
+@Singleton
+public class VaultStatsSampler {
+
+	private static final Logger LOG = LoggerFactory.getLogger(VaultStatsSampler.class);
+	static final long SAMPLING_PERIOD_MILLIS = 1000;
+
+	private final ScheduledExecutorService scheduler;
+	private final AtomicBoolean ticking = new AtomicBoolean();
+	private volatile VaultStats[] sampled = new VaultStats[0]; // copy-on-write, guarded by this for writes
+	private ScheduledFuture<?> samplingTask; // guarded by this
+
+	@Inject
+	public VaultStatsSampler(ScheduledExecutorService scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	synchronized void register(VaultStats stats) {
+		var current = sampled;
+		if (Arrays.asList(current).contains(stats)) {
+			return;
+		}
+		var updated = Arrays.copyOf(current, current.length + 1);
+		updated[current.length] = stats;
+		sampled = updated;
+		if (samplingTask == null) {
+			LOG.debug("Start sampling vault stats");
+			samplingTask = scheduler.scheduleAtFixedRate(this::tick, SAMPLING_PERIOD_MILLIS, SAMPLING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	synchronized void unregister(VaultStats stats) {
+		var updated = Arrays.stream(sampled).filter(s -> s != stats).toArray(VaultStats[]::new);
+		sampled = updated;
+		if (updated.length == 0 && samplingTask != null) {
+			LOG.debug("Stop sampling vault stats");
+			samplingTask.cancel(false);
+			samplingTask = null;
+		}
+	}
+
+	private void tick() {
+		if (!ticking.compareAndSet(false, true)) {
+			LOG.trace("Skipping tick, previous one still running.");
+			return; // keeps VaultStats single-writer, even if the scheduler runs late ticks concurrently
+		}
+		try {
+			long now = System.currentTimeMillis();
+			for (var stats : sampled) {
+				stats.sample(now);
+			}
+		} finally {
+			ticking.set(false);
+		}
+	}
+
+}
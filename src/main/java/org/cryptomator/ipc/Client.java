@@ -3,19 +3,40 @@ package org.cryptomator.ipc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SocketChannel;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Connection to a running {@link Server}.
+ * <p>
+ * Requests may be issued concurrently from multiple threads. A single reader thread dispatches each reply to the pending request with
+ * the same id. Messages without an id are passed to the {@link #listen(IpcMessageListener, Executor) listener}, if any.
+ */
 class Client implements IpcCommunicator {
 
 	private static final Logger LOG = LoggerFactory.getLogger(Client.class);
 
 	private final SocketChannel socketChannel;
+	private final Lock writeLock = new ReentrantLock();
+	private final AtomicInteger lastRequestId = new AtomicInteger(IpcMessage.UNCORRELATED);
+	private final Map<Integer, CompletableFuture<IpcMessage>> pendingRequests = new ConcurrentHashMap<>();
+	private volatile IOException readFailure;
+	private volatile IpcMessageListener listener;
+	private volatile Executor listenerExecutor;
 
 	private Client(SocketChannel socketChannel) {
 		this.socketChannel = socketChannel;
@@ -24,8 +45,17 @@ class Client implements IpcCommunicator {
 	public static Client create(Path socketPath) throws IOException {
 		var address = UnixDomainSocketAddress.of(socketPath);
 		var socketChannel = SocketChannel.open(address);
+		try {
+			IpcMessage.sendHandshake(socketChannel);
+			IpcMessage.receiveHandshake(socketChannel);
+		} catch (IOException e) {
+			socketChannel.close();
+			throw e;
+		}
 		LOG.info("Connected to IPC server on socket {}", socketPath);
-		return new Client(socketChannel);
+		var client = new Client(socketChannel);
+		Thread.ofVirtual().name("IPC-client-reader").start(client::readMessages);
+		return client;
 	}
 
 	@Override
@@ -35,29 +65,86 @@ class Client implements IpcCommunicator {
 
 	@Override
 	public void listen(IpcMessageListener listener, Executor executor) {
-		executor.execute(() -> {
-			try {
-				while (socketChannel.isConnected()) {
-					var msg = IpcMessage.receive(socketChannel);
-					listener.handleMessage(msg);
+		this.listenerExecutor = executor;
+		this.listener = listener;
+	}
+
+	private void readMessages() {
+		IOException failure;
+		try {
+			while (socketChannel.isConnected()) {
+				var frame = IpcMessage.receiveFrame(socketChannel);
+				var pendingRequest = pendingRequests.remove(frame.id());
+				var currentListener = listener;
+				if (pendingRequest != null) {
+					pendingRequest.complete(frame.message());
+				} else if (frame.id() == IpcMessage.UNCORRELATED && currentListener != null) {
+					listenerExecutor.execute(() -> currentListener.handleMessage(frame.message()));
+				} else {
+					LOG.debug("Dropping unexpected IPC message {} with id {}", frame.message().getMessageType(), frame.id());
 				}
-			} catch (IOException e) {
-				LOG.error("Failed to read IPC message", e);
 			}
-		});
+			failure = new ClosedChannelException();
+		} catch (AsynchronousCloseException | EOFException e) {
+			failure = e; // closed by either side
+		} catch (IOException e) {
+			LOG.error("Failed to read IPC message", e);
+			failure = e;
+		}
+		readFailure = failure;
+		for (var id : pendingRequests.keySet()) {
+			var pendingRequest = pendingRequests.remove(id);
+			if (pendingRequest != null) {
+				pendingRequest.completeExceptionally(failure);
+			}
+		}
 	}
 
 	@Override
 	public void send(IpcMessage message, Executor executor) {
 		executor.execute(() -> {
 			try {
-				message.send(socketChannel);
+				write(message, IpcMessage.UNCORRELATED);
 			} catch (IOException e) {
 				LOG.error("Failed to send IPC message", e);
 			}
 		});
 	}
 
+	@Override
+	public CommandResultMessage request(IpcMessage message) throws IOException {
+		int id = lastRequestId.updateAndGet(i -> i == Integer.MAX_VALUE ? 1 : i + 1);
+		var reply = new CompletableFuture<IpcMessage>();
+		pendingRequests.put(id, reply);
+		if (readFailure != null) {
+			reply.completeExceptionally(readFailure); // reader already gone, nobody will complete this request
+		}
+		try {
+			write(message, id);
+			if (reply.get() instanceof CommandResultMessage result) {
+				return result;
+			} else {
+				throw new IOException("Unexpected reply: " + reply.get().getMessageType());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for reply");
+		} catch (ExecutionException e) {
+			throw new IOException("Connection lost while waiting for reply", e.getCause());
+		} finally {
+			pendingRequests.remove(id);
+		}
+	}
+
+	private void write(IpcMessage message, int id) throws IOException {
+		writeLock.lock();
+		try {
+			message.send(socketChannel, id);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
 	@Override
 	public void close() throws IOException {
 		socketChannel.close();
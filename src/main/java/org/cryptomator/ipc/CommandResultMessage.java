@@ -0,0 +1,59 @@
+package org.cryptomator.ipc;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Reply to a vault command.
+ *
+ * @param success Whether the command succeeded
+ * @param lines Human-readable output, tab-separated where tabular
+ */
+public record CommandResultMessage(boolean success, List<String> lines) implements IpcMessage {
+
+	private static final char DELIMITER = '\n';
+
+	public static CommandResultMessage success(List<String> lines) {
+		return new CommandResultMessage(true, lines);
+	}
+
+	/**
+	 * Creates a successful result with as many of the given lines as fit into a single message. Requests whose results may exceed
+	 * {@link IpcMessage#MAX_PAYLOAD_SIZE} must be repeated by the client for the remaining lines.
+	 *
+	 * @param lines All lines of the result
+	 * @return A result with the leading lines that fit
+	 */
+	public static CommandResultMessage successFitting(List<String> lines) {
+		return success(lines.subList(0, IpcMessage.countFitting(lines, IpcMessage.MAX_PAYLOAD_SIZE - 1)));
+	}
+
+	public static CommandResultMessage failure(String message) {
+		return new CommandResultMessage(false, List.of(message));
+	}
+
+	static CommandResultMessage decode(ByteBuffer encoded) {
+		boolean success = encoded.get() != 0;
+		var str = StandardCharsets.UTF_8.decode(encoded).toString();
+		var lines = Splitter.on(DELIMITER).omitEmptyStrings().splitToList(str);
+		return new CommandResultMessage(success, lines);
+	}
+
+	@Override
+	public MessageType getMessageType() {
+		return MessageType.COMMAND_RESULT;
+	}
+
+	@Override
+	public ByteBuffer encodePayload() {
+		var encodedLines = StandardCharsets.UTF_8.encode(Joiner.on(DELIMITER).join(lines));
+		var buf = ByteBuffer.allocate(1 + encodedLines.remaining());
+		buf.put((byte) (success ? 1 : 0));
+		buf.put(encodedLines);
+		return buf.flip();
+	}
+}
@@ -0,0 +1,14 @@
+package org.cryptomator.ipc;
+
+import java.io.IOException;
+
+/**
+ * Thrown if the other end of an IPC connection speaks a different protocol version, e.g. a running instance of an older app version.
+ */
+class IncompatibleProtocolException extends IOException {
+
+	IncompatibleProtocolException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,55 @@
+package org.cryptomator.ipc;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A small pool of direct buffers used to frame IPC messages.
+ * <p>
+ * Messages that don't fit into a pooled buffer get a dedicated heap buffer. Since payloads may contain passphrases,
+ * buffers are zeroed before they are returned to the pool.
+ */
+final class IpcBufferPool {
+
+	static final int BUFFER_SIZE = 8 * 1024;
+	private static final int MAX_POOLED_BUFFERS = 16;
+	private static final BlockingQueue<ByteBuffer> POOL = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+
+	private IpcBufferPool() {}
+
+	/**
+	 * @param size The required number of bytes
+	 * @return A buffer with position <code>0</code> and limit <code>size</code>. Must be {@link #release(ByteBuffer) released} after use.
+	 */
+	static ByteBuffer acquire(int size) {
+		if (size > BUFFER_SIZE) {
+			return ByteBuffer.allocate(size);
+		}
+		var buf = POOL.poll();
+		if (buf == null) {
+			buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		}
+		return buf.clear().limit(size);
+	}
+
+	/**
+	 * Zeroes the given buffer and makes it available for reuse.
+	 *
+	 * @param buf A buffer previously obtained via {@link #acquire(int)}
+	 */
+	static void release(ByteBuffer buf) {
+		int used = buf.limit();
+		buf.clear();
+		while (buf.position() + Long.BYTES <= used) {
+			buf.putLong(0L);
+		}
+		while (buf.position() < used) {
+			buf.put((byte) 0);
+		}
+		if (buf.isDirect() && buf.capacity() == BUFFER_SIZE) {
+			POOL.offer(buf.clear());
+		}
+	}
+
+}
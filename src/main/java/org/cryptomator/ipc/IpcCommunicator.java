@@ -2,15 +2,19 @@ package org.cryptomator.ipc;
 
 import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.MoreExecutors;
+import org.cryptomator.common.Nullable;
+import org.cryptomator.common.Passphrase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
@@ -25,7 +29,10 @@ public interface IpcCommunicator extends Closeable {
 	 * If no connection to an existing sockets can be established, a new socket is created for the first given path.
 	 * <p>
 	 * If this fails as well, a fallback communicator is returned that allows process-internal communication mocking the API
-	 * that would have been used for IPC.
+	 * that would have been used for IPC. The same applies if the running instance speaks a different protocol version, as
+	 * its socket must not be taken over.
+	 * <p>
+	 * Connecting to a running instance waits for its handshake, which is sent once the instance {@link #listen(IpcMessageListener, Executor) listens}.
 	 *
 	 * @param socketPaths The socket path(s)
 	 * @return A communicator object that allows sending and receiving messages
@@ -38,6 +45,9 @@ public interface IpcCommunicator extends Closeable {
 				if (attr.isOther()) {
 					return Client.create(p);
 				}
+			} catch (IncompatibleProtocolException e) {
+				LOG.warn("Can't communicate with running instance on socket {}: {}", p, e.getMessage());
+				return new LoopbackCommunicator();
 			} catch (IOException e) {
 				// attempt next socket path
 			}
@@ -71,6 +81,18 @@ public interface IpcCommunicator extends Closeable {
 	 */
 	void send(IpcMessage message, Executor executor);
 
+	/**
+	 * Sends the given request and waits for the reply.
+	 *
+	 * @param message The request
+	 * @return The reply
+	 * @throws IOException In case of I/O errors
+	 * @throws UnsupportedOperationException If this communicator is not {@link #isClient() connected} to a running instance
+	 */
+	default CommandResultMessage request(IpcMessage message) throws IOException {
+		throw new UnsupportedOperationException("Not connected to a running instance");
+	}
+
 	default void sendRevealRunningApp() {
 		send(new RevealRunningAppMessage(), MoreExecutors.directExecutor());
 	}
@@ -79,6 +101,62 @@ public interface IpcCommunicator extends Closeable {
 		send(new HandleLaunchArgsMessage(args), MoreExecutors.directExecutor());
 	}
 
+	default CommandResultMessage sendUnlockVault(String vault, @Nullable Passphrase passphrase) throws IOException {
+		return request(new UnlockVaultMessage(vault, passphrase));
+	}
+
+	default CommandResultMessage sendLockVault(String vault, boolean forced) throws IOException {
+		return request(new LockVaultMessage(vault, forced));
+	}
+
+	/**
+	 * Requests all vaults, page by page, as they may not fit into a single message.
+	 *
+	 * @return The result, listing one vault per line
+	 * @throws IOException In case of I/O errors
+	 */
+	default CommandResultMessage sendListVaults() throws IOException {
+		var lines = new ArrayList<String>();
+		while (true) {
+			var page = request(new ListVaultsMessage(lines.size()));
+			if (!page.success()) {
+				return page;
+			} else if (page.lines().isEmpty()) {
+				return CommandResultMessage.success(lines);
+			}
+			lines.addAll(page.lines());
+		}
+	}
+
+	default CommandResultMessage sendQueryVault(String vault) throws IOException {
+		return request(new QueryVaultMessage(vault));
+	}
+
+	/**
+	 * Requests translating the given paths, in as many requests as needed to keep both requests and replies within {@link IpcMessage#MAX_PAYLOAD_SIZE}.
+	 *
+	 * @return The result, listing each given path along with its translation
+	 * @throws IOException In case of I/O errors
+	 */
+	default CommandResultMessage sendResolvePaths(String vault, boolean toCiphertext, List<String> paths) throws IOException {
+		int maxPathsSize = IpcMessage.MAX_PAYLOAD_SIZE - 1 - vault.getBytes(StandardCharsets.UTF_8).length; // flag, vault and paths, each preceded by a delimiter
+		var lines = new ArrayList<String>(paths.size());
+		while (lines.size() < paths.size()) {
+			var remaining = paths.subList(lines.size(), paths.size());
+			int count = IpcMessage.countFitting(remaining, maxPathsSize);
+			if (count == 0) {
+				lines.add("Path too long: " + remaining.getFirst());
+				return new CommandResultMessage(false, lines);
+			}
+			var result = request(new ResolvePathsMessage(vault, toCiphertext, remaining.subList(0, count))); // answers as many paths as fit into the reply
+			lines.addAll(result.lines());
+			if (!result.success() || result.lines().isEmpty()) {
+				return new CommandResultMessage(false, lines);
+			}
+		}
+		return CommandResultMessage.success(lines);
+	}
+
 	/**
 	 * Clean up resources.
 	 *
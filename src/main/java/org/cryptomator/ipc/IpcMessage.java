@@ -7,14 +7,23 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.Function;
 
 //TODO can the enum be removed?
-sealed interface IpcMessage permits HandleLaunchArgsMessage, RevealRunningAppMessage {
+sealed interface IpcMessage permits HandleLaunchArgsMessage, RevealRunningAppMessage, UnlockVaultMessage, LockVaultMessage, ListVaultsMessage, QueryVaultMessage, CommandResultMessage, ResolvePathsMessage {
 
 	enum MessageType {
 		REVEAL_RUNNING_APP(RevealRunningAppMessage::decode),
-		HANDLE_LAUNCH_ARGS(HandleLaunchArgsMessage::decode);
+		HANDLE_LAUNCH_ARGS(HandleLaunchArgsMessage::decode),
+		UNLOCK_VAULT(UnlockVaultMessage::decode),
+		LOCK_VAULT(LockVaultMessage::decode),
+		LIST_VAULTS(ListVaultsMessage::decode),
+		QUERY_VAULT(QueryVaultMessage::decode),
+		COMMAND_RESULT(CommandResultMessage::decode),
+		RESOLVE_PATHS(ResolvePathsMessage::decode);
 
 		private final Function<ByteBuffer, IpcMessage> decoder;
 
@@ -35,34 +44,158 @@ sealed interface IpcMessage permits HandleLaunchArgsMessage, RevealRunningAppMes
 		}
 	}
 
+	/**
+	 * Id of messages that don't expect a reply.
+	 */
+	int UNCORRELATED = 0;
+
+	/**
+	 * Marks the handshake both ends send before any message. Its first int must not be a valid message type, so peers of older
+	 * versions, which don't expect a handshake, reject it.
+	 */
+	int PROTOCOL_MAGIC = 0xC1A9_0C00; // negative
+
+	/**
+	 * Version of the frame layout. Must be incremented whenever the header or any payload encoding changes incompatibly.
+	 * Version 1 was the unversioned protocol without message ids.
+	 */
+	int PROTOCOL_VERSION = 2;
+
+	/**
+	 * Handshake consisting of {@link #PROTOCOL_MAGIC} and {@link #PROTOCOL_VERSION}.
+	 */
+	int HANDSHAKE_SIZE = 2 * Integer.BYTES;
+
+	/**
+	 * Header consisting of message type, message id and payload length.
+	 */
+	int HEADER_SIZE = 3 * Integer.BYTES;
+
+	/**
+	 * Upper bound for payload lengths, protecting against corrupt or malicious headers. Messages of variable length must be split by the sender
+	 * to stay within this bound.
+	 */
+	int MAX_PAYLOAD_SIZE = 1024 * 1024;
+
 	MessageType getMessageType();
 
 	ByteBuffer encodePayload();
 
-	static IpcMessage receive(ReadableByteChannel channel) throws IOException {
-		var header = ByteBuffer.allocate(2 * Integer.BYTES);
-		if (ByteBuffers.fill(channel, header) < header.capacity()) {
-			throw new EOFException();
+	/**
+	 * A message along with the id used to correlate requests and replies.
+	 *
+	 * @param id The request id, which is echoed in the reply, or {@value #UNCORRELATED}
+	 * @param message The message
+	 */
+	record Frame(int id, IpcMessage message) {}
+
+	/**
+	 * Counts how many of the given lines fit into the given number of bytes, each encoded in UTF-8 along with a delimiter.
+	 *
+	 * @param lines The lines to encode
+	 * @param maxBytes The space available for the lines
+	 * @return The number of leading lines fitting into <code>maxBytes</code>
+	 */
+	static int countFitting(List<String> lines, int maxBytes) {
+		long size = 0;
+		for (int i = 0; i < lines.size(); i++) {
+			size += lines.get(i).getBytes(StandardCharsets.UTF_8).length + 1L;
+			if (size > maxBytes) {
+				return i;
+			}
 		}
-		header.flip();
-		int typeNo = header.getInt();
-		int length = header.getInt();
-		MessageType type = MessageType.forOrdinal(typeNo);
-		var payload = ByteBuffer.allocate(length);
-		ByteBuffers.fill(channel, payload);
-		payload.flip();
-		return type.decodePayload(payload);
+		return lines.size();
 	}
 
-	default void send(WritableByteChannel channel) throws IOException {
-		var payload = encodePayload();
-		var buf = ByteBuffer.allocate(2 * Integer.BYTES + payload.remaining());
-		buf.putInt(getMessageType().ordinal()); // message type
-		buf.putInt(payload.remaining()); // message length
-		buf.put(payload); // message
+	static void sendHandshake(WritableByteChannel channel) throws IOException {
+		var buf = ByteBuffer.allocate(HANDSHAKE_SIZE);
+		buf.putInt(PROTOCOL_MAGIC);
+		buf.putInt(PROTOCOL_VERSION);
 		buf.flip();
 		while (buf.hasRemaining()) {
 			channel.write(buf);
 		}
 	}
+
+	/**
+	 * Reads the handshake of the other end.
+	 *
+	 * @param channel The channel to read from
+	 * @throws IncompatibleProtocolException If the other end hung up or speaks a different protocol version
+	 * @throws IOException In case of I/O errors
+	 */
+	static void receiveHandshake(ReadableByteChannel channel) throws IOException {
+		var buf = ByteBuffer.allocate(HANDSHAKE_SIZE);
+		if (ByteBuffers.fill(channel, buf) < HANDSHAKE_SIZE) {
+			throw new IncompatibleProtocolException("Connection closed during handshake"); // peers of older versions hang up on the unexpected handshake
+		}
+		int magic = buf.getInt(0);
+		int version = buf.getInt(Integer.BYTES);
+		if (magic != PROTOCOL_MAGIC) {
+			throw new IncompatibleProtocolException("Peer does not send a handshake, probably an older version");
+		} else if (version != PROTOCOL_VERSION) {
+			throw new IncompatibleProtocolException("Unsupported protocol version " + version + ", expected " + PROTOCOL_VERSION);
+		}
+	}
+
+	static IpcMessage receive(ReadableByteChannel channel) throws IOException {
+		return receiveFrame(channel).message();
+	}
+
+	static Frame receiveFrame(ReadableByteChannel channel) throws IOException {
+		var buf = IpcBufferPool.acquire(HEADER_SIZE);
+		try {
+			if (ByteBuffers.fill(channel, buf) < HEADER_SIZE) {
+				throw new EOFException();
+			}
+			int typeNo = buf.getInt(0);
+			int id = buf.getInt(Integer.BYTES);
+			int length = buf.getInt(2 * Integer.BYTES);
+			if (length < 0 || length > MAX_PAYLOAD_SIZE) {
+				throw new IOException("Invalid message length: " + length);
+			}
+			MessageType type = MessageType.forOrdinal(typeNo);
+			if (HEADER_SIZE + length > buf.capacity()) {
+				IpcBufferPool.release(buf);
+				buf = IpcBufferPool.acquire(HEADER_SIZE + length);
+			}
+			var payload = buf.clear().position(HEADER_SIZE).limit(HEADER_SIZE + length).slice();
+			if (ByteBuffers.fill(channel, payload) < length) {
+				throw new EOFException();
+			}
+			return new Frame(id, type.decodePayload(payload.flip()));
+		} finally {
+			IpcBufferPool.release(buf);
+		}
+	}
+
+	default void send(WritableByteChannel channel) throws IOException {
+		send(channel, UNCORRELATED);
+	}
+
+	default void send(WritableByteChannel channel, int id) throws IOException {
+		var payload = encodePayload();
+		if (payload.remaining() > MAX_PAYLOAD_SIZE) {
+			if (payload.hasArray()) {
+				Arrays.fill(payload.array(), (byte) 0);
+			}
+			throw new IOException("Message of " + payload.remaining() + " bytes exceeds maximum length " + MAX_PAYLOAD_SIZE); // would be rejected by the receiver
+		}
+		var buf = IpcBufferPool.acquire(HEADER_SIZE + payload.remaining());
+		try {
+			buf.putInt(getMessageType().ordinal()); // message type
+			buf.putInt(id); // message id
+			buf.putInt(payload.remaining()); // message length
+			buf.put(payload); // message
+			buf.flip();
+			while (buf.hasRemaining()) {
+				channel.write(buf);
+			}
+		} finally {
+			IpcBufferPool.release(buf);
+			if (payload.hasArray()) { // payloads may contain passphrases
+				Arrays.fill(payload.array(), (byte) 0);
+			}
+		}
+	}
 }
@@ -1,18 +1,84 @@
 package org.cryptomator.ipc;
 
+import org.cryptomator.common.Nullable;
+import org.cryptomator.common.Passphrase;
+
 import java.util.List;
+import java.util.Optional;
 
 public interface IpcMessageListener {
 
-	default void handleMessage(IpcMessage message) {
-		switch (message) {
-			case RevealRunningAppMessage m -> revealRunningApp(); // TODO: rename to _ with JEP 443
-			case HandleLaunchArgsMessage m -> handleLaunchArgs(m.args());
-		}
+	/**
+	 * Dispatches the given message to the corresponding handler method.
+	 *
+	 * @param message The received message
+	 * @return The reply to send back to the client, if the message is a request
+	 */
+	default Optional<IpcMessage> handleMessage(IpcMessage message) {
+		return switch (message) {
+			case RevealRunningAppMessage m -> { // TODO: rename to _ with JEP 443
+				revealRunningApp();
+				yield Optional.empty();
+			}
+			case HandleLaunchArgsMessage m -> {
+				handleLaunchArgs(m.args());
+				yield Optional.empty();
+			}
+			case UnlockVaultMessage m -> Optional.of(unlockVault(m.vault(), m.passphrase()));
+			case LockVaultMessage m -> Optional.of(lockVault(m.vault(), m.forced()));
+			case ListVaultsMessage m -> Optional.of(listVaults(m.offset()));
+			case QueryVaultMessage m -> Optional.of(queryVault(m.vault()));
+			case ResolvePathsMessage m -> Optional.of(resolvePaths(m.vault(), m.toCiphertext(), m.paths()));
+			case CommandResultMessage m -> Optional.empty(); // replies are consumed by the requesting client
+		};
 	}
 
 	void revealRunningApp();
 
 	void handleLaunchArgs(List<String> args);
 
+	/**
+	 * @param vault The vault's id, name or path
+	 * @param passphrase The passphrase or <code>null</code> to use the one stored in the system keychain. Should be destroyed after use.
+	 * @return The result
+	 */
+	default CommandResultMessage unlockVault(String vault, @Nullable Passphrase passphrase) {
+		return CommandResultMessage.failure("Unlocking vaults is not supported.");
+	}
+
+	/**
+	 * @param vault The vault's id, name or path
+	 * @param forced Whether to lock the vault even if files are still in use
+	 * @return The result
+	 */
+	default CommandResultMessage lockVault(String vault, boolean forced) {
+		return CommandResultMessage.failure("Locking vaults is not supported.");
+	}
+
+	/**
+	 * @param offset Number of vaults to skip, as the client already received them
+	 * @return The result, listing one vault per line, starting at <code>offset</code>. Contains as many vaults as fit into a single message, none if there are no more.
+	 */
+	default CommandResultMessage listVaults(int offset) {
+		return CommandResultMessage.failure("Listing vaults is not supported.");
+	}
+
+	/**
+	 * @param vault The vault's id, name or path
+	 * @return The result, listing the vault's state and statistics
+	 */
+	default CommandResultMessage queryVault(String vault) {
+		return CommandResultMessage.failure("Querying vaults is not supported.");
+	}
+
+	/**
+	 * @param vault The vault's id, name or path
+	 * @param toCiphertext Whether to translate cleartext paths to ciphertext paths or vice versa
+	 * @param paths The paths to translate
+	 * @return The result, listing each given path along with its translation (or nothing, if it can't be translated). Contains as many leading paths as fit into a single message.
+	 */
+	default CommandResultMessage resolvePaths(String vault, boolean toCiphertext, List<String> paths) {
+		return CommandResultMessage.failure("Resolving paths is not supported.");
+	}
+
 }
@@ -0,0 +1,25 @@
+package org.cryptomator.ipc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Requests a page of the list of all vaults.
+ *
+ * @param offset Number of vaults to skip, i.e. the number of vaults received with previous pages
+ */
+record ListVaultsMessage(int offset) implements IpcMessage {
+
+	static ListVaultsMessage decode(ByteBuffer encoded) {
+		return new ListVaultsMessage(encoded.getInt());
+	}
+
+	@Override
+	public MessageType getMessageType() {
+		return MessageType.LIST_VAULTS;
+	}
+
+	@Override
+	public ByteBuffer encodePayload() {
+		return ByteBuffer.allocate(Integer.BYTES).putInt(offset).flip();
+	}
+}
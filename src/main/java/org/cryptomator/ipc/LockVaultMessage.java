@@ -0,0 +1,33 @@
+package org.cryptomator.ipc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Requests locking a vault.
+ *
+ * @param vault The vault's id, name or path
+ * @param forced Whether to lock the vault even if files are still in use
+ */
+record LockVaultMessage(String vault, boolean forced) implements IpcMessage {
+
+	public static LockVaultMessage decode(ByteBuffer encoded) {
+		boolean forced = encoded.get() != 0;
+		var vault = StandardCharsets.UTF_8.decode(encoded).toString();
+		return new LockVaultMessage(vault, forced);
+	}
+
+	@Override
+	public MessageType getMessageType() {
+		return MessageType.LOCK_VAULT;
+	}
+
+	@Override
+	public ByteBuffer encodePayload() {
+		var encodedVault = StandardCharsets.UTF_8.encode(vault);
+		var buf = ByteBuffer.allocate(1 + encodedVault.remaining());
+		buf.put((byte) (forced ? 1 : 0));
+		buf.put(encodedVault);
+		return buf.flip();
+	}
+}
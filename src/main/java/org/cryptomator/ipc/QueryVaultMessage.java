@@ -0,0 +1,26 @@
+package org.cryptomator.ipc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Requests the state and statistics of a vault.
+ *
+ * @param vault The vault's id, name or path
+ */
+record QueryVaultMessage(String vault) implements IpcMessage {
+
+	public static QueryVaultMessage decode(ByteBuffer encoded) {
+		return new QueryVaultMessage(StandardCharsets.UTF_8.decode(encoded).toString());
+	}
+
+	@Override
+	public MessageType getMessageType() {
+		return MessageType.QUERY_VAULT;
+	}
+
+	@Override
+	public ByteBuffer encodePayload() {
+		return StandardCharsets.UTF_8.encode(vault);
+	}
+}
@@ -0,0 +1,42 @@
+package org.cryptomator.ipc;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Requests translating paths of an unlocked vault between cleartext and ciphertext.
+ *
+ * @param vault The vault's id, name or path
+ * @param toCiphertext Whether to translate cleartext paths to ciphertext paths or vice versa
+ * @param paths The paths to translate
+ */
+record ResolvePathsMessage(String vault, boolean toCiphertext, List<String> paths) implements IpcMessage {
+
+	private static final char DELIMITER = '\n';
+
+	public static ResolvePathsMessage decode(ByteBuffer encoded) {
+		boolean toCiphertext = encoded.get() != 0;
+		var str = StandardCharsets.UTF_8.decode(encoded).toString();
+		var lines = Splitter.on(DELIMITER).splitToList(str);
+		return new ResolvePathsMessage(lines.getFirst(), toCiphertext, lines.subList(1, lines.size()));
+	}
+
+	@Override
+	public MessageType getMessageType() {
+		return MessageType.RESOLVE_PATHS;
+	}
+
+	@Override
+	public ByteBuffer encodePayload() {
+		var encodedLines = StandardCharsets.UTF_8.encode(Joiner.on(DELIMITER).join(Stream.concat(Stream.of(vault), paths.stream()).iterator()));
+		var buf = ByteBuffer.allocate(1 + encodedLines.remaining());
+		buf.put((byte) (toCiphertext ? 1 : 0));
+		buf.put(encodedLines);
+		return buf.flip();
+	}
+}
@@ -3,6 +3,7 @@ package org.cryptomator.ipc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.net.StandardProtocolFamily;
@@ -11,17 +12,32 @@ import java.nio.channels.AlreadyBoundException;
 import java.nio.channels.AsynchronousCloseException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.channels.UnsupportedAddressTypeException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Accepts any number of concurrent clients, each served by its own virtual thread.
+ * <p>
+ * Messages without an id are handled in the order they arrive on a connection. Requests carrying an id are handled concurrently
+ * and the reply is sent with the same id, allowing the client to correlate it.
+ */
 class Server implements IpcCommunicator {
 
 	private static final Logger LOG = LoggerFactory.getLogger(Server.class);
 
 	private final ServerSocketChannel serverSocketChannel;
 	private final Path socketPath;
+	private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+	private final ExecutorService connectionExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("IPC-connection-", 0).factory());
 
 	private Server(ServerSocketChannel serverSocketChannel, Path socketPath) {
 		this.serverSocketChannel = serverSocketChannel;
@@ -54,29 +70,70 @@ class Server implements IpcCommunicator {
 	public void listen(IpcMessageListener listener, Executor executor) {
 		executor.execute(() -> {
 			while (serverSocketChannel.isOpen()) {
-				try (var ch = serverSocketChannel.accept()) {
-					while (ch.isConnected()) {
-						var msg = IpcMessage.receive(ch);
-						listener.handleMessage(msg);
-					}
+				try {
+					var connection = new Connection(serverSocketChannel.accept());
+					connections.add(connection);
+					connectionExecutor.execute(() -> serve(connection, listener));
 				} catch (AsynchronousCloseException e) {
 					return; // serverSocketChannel closed or listener interrupted
-				} catch (EOFException | ClosedChannelException e) {
-					// continue with next connected client
 				} catch (IOException e) {
-					LOG.error("Failed to read IPC message", e);
+					LOG.error("Failed to accept IPC connection", e);
 				}
 			}
 		});
 	}
 
+	private void serve(Connection connection, IpcMessageListener listener) {
+		try (connection) {
+			IpcMessage.receiveHandshake(connection.channel);
+			IpcMessage.sendHandshake(connection.channel);
+			while (connection.channel.isConnected()) {
+				var frame = IpcMessage.receiveFrame(connection.channel);
+				if (frame.id() == IpcMessage.UNCORRELATED) {
+					handle(connection, frame, listener);
+				} else {
+					connectionExecutor.execute(() -> handle(connection, frame, listener));
+				}
+			}
+		} catch (EOFException | ClosedChannelException e) {
+			// client disconnected
+		} catch (IncompatibleProtocolException e) {
+			LOG.warn("Rejected IPC client: {}", e.getMessage());
+		} catch (IOException | IllegalArgumentException e) {
+			LOG.error("Failed to read IPC message", e);
+		} finally {
+			connections.remove(connection);
+		}
+	}
+
+	private void handle(Connection connection, IpcMessage.Frame frame, IpcMessageListener listener) {
+		var reply = listener.handleMessage(frame.message());
+		if (reply.isPresent()) {
+			try {
+				connection.send(reply.get(), frame.id());
+			} catch (IOException e) {
+				LOG.warn("Failed to reply to IPC message {}", frame.message().getMessageType(), e);
+				try {
+					connection.send(CommandResultMessage.failure("Failed to reply: " + e.getMessage()), frame.id()); // the client is still waiting for a reply
+				} catch (IOException e2) {
+					// connection lost
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sends the given message to all currently connected clients.
+	 */
 	@Override
 	public void send(IpcMessage message, Executor executor) {
 		executor.execute(() -> {
-			try (var ch = serverSocketChannel.accept()) {
-				message.send(ch);
-			} catch (IOException e) {
-				LOG.error("Failed to send IPC message", e);
+			for (var connection : connections) {
+				try {
+					connection.send(message, IpcMessage.UNCORRELATED);
+				} catch (IOException e) {
+					LOG.error("Failed to send IPC message", e);
+				}
 			}
 		});
 	}
@@ -85,9 +142,37 @@ class Server implements IpcCommunicator {
 	public void close() throws IOException {
 		try {
 			serverSocketChannel.close();
+			for (var connection : connections) {
+				connection.close();
+			}
+			connectionExecutor.shutdownNow();
 		} finally {
 			Files.deleteIfExists(socketPath);
 			LOG.debug("IPC server closed");
 		}
 	}
+
+	private static class Connection implements Closeable {
+
+		private final SocketChannel channel;
+		private final Lock writeLock = new ReentrantLock(); // not synchronized, as this would pin the virtual thread during I/O
+
+		Connection(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		void send(IpcMessage message, int id) throws IOException {
+			writeLock.lock(); // replies to concurrent requests must not interleave
+			try {
+				message.send(channel, id);
+			} finally {
+				writeLock.unlock();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
 }
@@ -0,0 +1,55 @@
+package org.cryptomator.ipc;
+
+import org.cryptomator.common.Nullable;
+import org.cryptomator.common.Passphrase;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Requests unlocking a vault.
+ *
+ * @param vault The vault's id, name or path
+ * @param passphrase The passphrase or <code>null</code> to use the one stored in the system keychain
+ */
+record UnlockVaultMessage(String vault, @Nullable Passphrase passphrase) implements IpcMessage {
+
+	private static final char DELIMITER = '\0';
+
+	public static UnlockVaultMessage decode(ByteBuffer encoded) {
+		var chars = StandardCharsets.UTF_8.decode(encoded);
+		try {
+			for (int i = 0; i < chars.limit(); i++) {
+				if (chars.get(i) == DELIMITER) {
+					var passphrase = new char[chars.limit() - i - 1];
+					chars.get(i + 1, passphrase);
+					return new UnlockVaultMessage(chars.slice(0, i).toString(), new Passphrase(passphrase));
+				}
+			}
+			return new UnlockVaultMessage(chars.toString(), null);
+		} finally {
+			Arrays.fill(chars.array(), '\0'); // overwrite decoded passphrase
+		}
+	}
+
+	@Override
+	public MessageType getMessageType() {
+		return MessageType.UNLOCK_VAULT;
+	}
+
+	@Override
+	public ByteBuffer encodePayload() {
+		if (passphrase == null) {
+			return StandardCharsets.UTF_8.encode(vault);
+		}
+		var chars = CharBuffer.allocate(vault.length() + 1 + passphrase.length());
+		chars.append(vault).append(DELIMITER).append(passphrase).flip();
+		try {
+			return StandardCharsets.UTF_8.encode(chars);
+		} finally {
+			Arrays.fill(chars.array(), '\0'); // overwrite passphrase copy
+		}
+	}
+}
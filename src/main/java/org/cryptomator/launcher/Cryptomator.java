@@ -8,9 +8,15 @@ package org.cryptomator.launcher;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import dagger.Lazy;
 import org.apache.commons.lang3.SystemUtils;
+import org.cryptomator.common.ApplicationThread;
 import org.cryptomator.common.Environment;
 import org.cryptomator.common.SubstitutingProperties;
 import org.cryptomator.common.ShutdownHook;
+import org.cryptomator.common.metrics.MetricsExporter;
+import org.cryptomator.common.vaults.Vault;
+import org.cryptomator.common.vaults.VaultListManager;
+import org.cryptomator.common.vaults.VaultOperations;
+import org.cryptomator.integrations.mount.UnmountFailedException;
 import org.cryptomator.ipc.IpcCommunicator;
 import org.cryptomator.logging.DebugMode;
 import org.cryptomator.ui.fxapp.FxApplicationComponent;
@@ -21,15 +27,18 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 import javafx.application.Application;
 import javafx.stage.Stage;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 
 @Singleton
 public class Cryptomator {
 
 	private static final long STARTUP_TIME = System.currentTimeMillis();
+	private static final String HEADLESS_OPTION = "--headless";
 
 	static {
 		var lazyProcessedProps = new SubstitutingProperties(System.getProperties(), System.getenv());
@@ -48,14 +57,20 @@ public class Cryptomator {
 	private final Environment env;
 	private final Lazy<IpcMessageHandler> ipcMessageHandler;
 	private final ShutdownHook shutdownHook;
+	private final Lazy<MetricsExporter> metricsExporter;
+	private final Lazy<VaultListManager> vaultListManager;
+	private final Lazy<VaultOperations> vaultOperations;
 
 	@Inject
-	Cryptomator(DebugMode debugMode, SupportedLanguages supportedLanguages, Environment env, Lazy<IpcMessageHandler> ipcMessageHandler, ShutdownHook shutdownHook) {
+	Cryptomator(DebugMode debugMode, SupportedLanguages supportedLanguages, Environment env, Lazy<IpcMessageHandler> ipcMessageHandler, ShutdownHook shutdownHook, Lazy<MetricsExporter> metricsExporter, Lazy<VaultListManager> vaultListManager, Lazy<VaultOperations> vaultOperations) {
 		this.debugMode = debugMode;
 		this.supportedLanguages = supportedLanguages;
 		this.env = env;
 		this.ipcMessageHandler = ipcMessageHandler;
 		this.shutdownHook = shutdownHook;
+		this.metricsExporter = metricsExporter;
+		this.vaultListManager = vaultListManager;
+		this.vaultOperations = vaultOperations;
 	}
 
 	public static void main(String[] args) {
@@ -90,24 +105,50 @@ public class Cryptomator {
 		debugMode.initialize();
 		supportedLanguages.applyPreferred();
 
+		var argList = List.of(args);
+		var headless = argList.contains(HEADLESS_OPTION);
+		final Optional<VaultCommand> command;
+		try {
+			command = VaultCommand.parse(argList);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			return 2;
+		}
+		if (headless) {
+			ApplicationThread.startHeadless();
+		}
+
 		/*
 		 * Attempts to create an IPC connection to a running Cryptomator instance and sends it the given args.
 		 * If no external process could be reached, the args will be handled by the loopback IPC endpoint.
 		 */
 		try (var communicator = IpcCommunicator.create(env.getIpcSocketPath().toList())) {
-			if (communicator.isClient()) {
-				communicator.sendHandleLaunchargs(List.of(args));
+			if (communicator.isClient() && command.isPresent()) {
+				return command.get().execute(communicator, System.in, System.out);
+			} else if (communicator.isClient()) {
+				communicator.sendHandleLaunchargs(argList);
 				communicator.sendRevealRunningApp();
 				LOG.info("Found running application instance. Shutting down...");
 				return 0;
+			} else if (command.isPresent()) {
+				System.err.println("No running application instance found.");
+				return 1;
 			} else {
 				shutdownHook.runOnShutdown(communicator::closeUnchecked);
 				var executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("IPC-%d").build());
 				var msgHandler = ipcMessageHandler.get();
-				msgHandler.handleLaunchArgs(List.of(args));
+				if (!headless) {
+					msgHandler.handleLaunchArgs(argList);
+				}
 				communicator.listen(msgHandler, executor);
-				LOG.debug("Did not find running application instance. Launching GUI...");
-				return runGuiApplication();
+				env.getMetricsPort().ifPresent(this::startMetricsExporter);
+				if (headless) {
+					LOG.debug("Did not find running application instance. Running headless...");
+					return runHeadless();
+				} else {
+					LOG.debug("Did not find running application instance. Launching GUI...");
+					return runGuiApplication();
+				}
 			}
 		} catch (Throwable e) {
 			LOG.error("Running application failed", e);
@@ -115,6 +156,50 @@ public class Cryptomator {
 		}
 	}
 
+	private void startMetricsExporter(int port) {
+		try {
+			var exporter = metricsExporter.get();
+			exporter.start(port);
+			shutdownHook.runOnShutdown(exporter::close);
+		} catch (IOException e) {
+			LOG.error("Failed to start metrics exporter on port {}", port, e);
+		}
+	}
+
+	/**
+	 * Loads the vault list without launching the JavaFX application, blocking the main thread until the JVM shuts down.
+	 * Vaults are controlled via IPC (see {@link VaultCommand}) and get locked during shutdown.
+	 *
+	 * @return Nonzero exit code in case of an error.
+	 */
+	private int runHeadless() {
+		var vaultList = vaultListManager.get();
+		var shutdown = new CountDownLatch(1);
+		shutdownHook.runOnShutdown(ShutdownHook.PRIO_FIRST, this::lockAllVaults);
+		shutdownHook.runOnShutdown(shutdown::countDown);
+		vaultList.initialStatesDetermined().thenRun(() -> LOG.info("Headless application ready after {}ms", System.currentTimeMillis() - STARTUP_TIME));
+		try {
+			shutdown.await();
+			return 0;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return 1;
+		}
+	}
+
+	private void lockAllVaults() {
+		var ops = vaultOperations.get();
+		for (Vault vault : ops.list()) {
+			if (vault.isUnlocked()) {
+				try {
+					ops.lock(vault, true);
+				} catch (IllegalStateException | UnmountFailedException | IOException e) {
+					LOG.error("Failed to lock vault {} during shutdown.", vault.getDisplayName(), e);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Launches the JavaFX application, blocking the main thread until shuts down.
 	 *
@@ -1,5 +1,14 @@
 package org.cryptomator.launcher;
 
+import dagger.Lazy;
+import org.cryptomator.common.Nullable;
+import org.cryptomator.common.Passphrase;
+import org.cryptomator.common.vaults.Vault;
+import org.cryptomator.common.vaults.VaultOperations;
+import org.cryptomator.cryptolib.api.CryptoException;
+import org.cryptomator.integrations.mount.MountFailedException;
+import org.cryptomator.integrations.mount.UnmountFailedException;
+import org.cryptomator.ipc.CommandResultMessage;
 import org.cryptomator.ipc.IpcMessageListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -7,6 +16,9 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
@@ -18,11 +30,13 @@ class IpcMessageHandler implements IpcMessageListener {
 
 	private final FileOpenRequestHandler fileOpenRequestHandler;
 	private final BlockingQueue<AppLaunchEvent> launchEventQueue;
+	private final Lazy<VaultOperations> vaultOperations;
 
 	@Inject
-	public IpcMessageHandler(FileOpenRequestHandler fileOpenRequestHandler, @Named("launchEventQueue") BlockingQueue<AppLaunchEvent> launchEventQueue) {
+	public IpcMessageHandler(FileOpenRequestHandler fileOpenRequestHandler, @Named("launchEventQueue") BlockingQueue<AppLaunchEvent> launchEventQueue, Lazy<VaultOperations> vaultOperations) {
 		this.fileOpenRequestHandler = fileOpenRequestHandler;
 		this.launchEventQueue = launchEventQueue;
+		this.vaultOperations = vaultOperations;
 	}
 
 	@Override
@@ -36,4 +50,105 @@ class IpcMessageHandler implements IpcMessageListener {
 		fileOpenRequestHandler.handleLaunchArgs(args);
 	}
 
+	@Override
+	public CommandResultMessage unlockVault(String query, @Nullable Passphrase passphrase) {
+		try {
+			var vault = vaultOperations.get().find(query);
+			if (vault.isEmpty()) {
+				return CommandResultMessage.failure("Unknown vault: " + query);
+			}
+			vaultOperations.get().unlock(vault.get(), passphrase);
+			return CommandResultMessage.success(List.of(describe(vault.get())));
+		} catch (IllegalStateException | CryptoException | IOException | MountFailedException e) {
+			LOG.warn("Unlocking vault {} via IPC failed.", query, e);
+			return CommandResultMessage.failure("Unlock failed: " + e.getMessage());
+		} finally {
+			if (passphrase != null) {
+				passphrase.destroy();
+			}
+		}
+	}
+
+	@Override
+	public CommandResultMessage lockVault(String query, boolean forced) {
+		try {
+			var vault = vaultOperations.get().find(query);
+			if (vault.isEmpty()) {
+				return CommandResultMessage.failure("Unknown vault: " + query);
+			}
+			vaultOperations.get().lock(vault.get(), forced);
+			return CommandResultMessage.success(List.of(describe(vault.get())));
+		} catch (IllegalStateException | UnmountFailedException | IOException e) {
+			LOG.warn("Locking vault {} via IPC failed.", query, e);
+			return CommandResultMessage.failure("Lock failed: " + e.getMessage());
+		}
+	}
+
+	@Override
+	public CommandResultMessage listVaults(int offset) {
+		return CommandResultMessage.successFitting(vaultOperations.get().list().stream().skip(offset).map(this::describe).toList());
+	}
+
+	@Override
+	public CommandResultMessage queryVault(String query) {
+		var vault = vaultOperations.get().find(query);
+		if (vault.isEmpty()) {
+			return CommandResultMessage.failure("Unknown vault: " + query);
+		}
+		var v = vault.get();
+		var stats = v.getStats().snapshot();
+		var mountPoint = v.getMountPoint();
+		var lines = new ArrayList<>(List.of( //
+				"id\t" + v.getId(), //
+				"name\t" + v.getDisplayName(), //
+				"path\t" + v.getPath(), //
+				"state\t" + v.getState(), //
+				"mountPoint\t" + (mountPoint != null ? mountPoint.uri() : ""), //
+				"bytesPerSecondRead\t" + stats.bytesPerSecondRead(), //
+				"bytesPerSecondWritten\t" + stats.bytesPerSecondWritten(), //
+				"totalBytesRead\t" + stats.totalBytesRead(), //
+				"totalBytesWritten\t" + stats.totalBytesWritten(), //
+				"totalFilesAccessed\t" + stats.totalFilesAccessed(), //
+				"cacheHitRate\t" + stats.cacheHitRate(), //
+				"metadataCacheHits\t" + stats.metadataCacheHits(), //
+				"metadataCacheMisses\t" + stats.metadataCacheMisses(), //
+				"writesAbsorbed\t" + stats.writesAbsorbed(), //
+				"writesFlushed\t" + stats.writesFlushed(), //
+				"lastActivity\t" + stats.lastActivity()));
+		v.getStats().getFileSystemMetrics().ifPresent(metrics -> metrics.snapshot().forEach((op, opStats) -> //
+				lines.add("fs." + op + "\tcount=" + opStats.count() + " mean=" + opStats.mean() + " p50=" + opStats.p50() + " p99=" + opStats.p99())));
+		return CommandResultMessage.success(lines);
+	}
+
+	@Override
+	public CommandResultMessage resolvePaths(String query, boolean toCiphertext, List<String> paths) {
+		var vault = vaultOperations.get().find(query);
+		if (vault.isEmpty()) {
+			return CommandResultMessage.failure("Unknown vault: " + query);
+		} else if (!vault.get().isUnlocked()) {
+			return CommandResultMessage.failure("Vault is not unlocked: " + query);
+		}
+		try {
+			var resolver = vault.get().getPathResolver();
+			var resolved = toCiphertext //
+					? resolver.toCiphertext(paths).stream().map(p -> p.map(Path::toString)).toList() //
+					: resolver.toCleartext(paths);
+			var lines = new ArrayList<String>(paths.size());
+			for (int i = 0; i < paths.size(); i++) {
+				lines.add(paths.get(i) + '\t' + resolved.get(i).orElse(""));
+			}
+			var reply = CommandResultMessage.successFitting(lines);
+			if (reply.lines().isEmpty() && !lines.isEmpty()) {
+				return CommandResultMessage.failure("Translation too long: " + paths.getFirst());
+			}
+			return reply;
+		} catch (IllegalStateException e) {
+			return CommandResultMessage.failure("Vault is not unlocked: " + query);
+		}
+	}
+
+	private String describe(Vault vault) {
+		return vault.getId() + '\t' + vault.getState() + '\t' + vault.getDisplayName() + '\t' + vault.getPath();
+	}
+
 }
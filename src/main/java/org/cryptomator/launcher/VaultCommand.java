@@ -0,0 +1,165 @@
+package org.cryptomator.launcher;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.cryptomator.common.Nullable;
+import org.cryptomator.common.Passphrase;
+import org.cryptomator.ipc.CommandResultMessage;
+import org.cryptomator.ipc.IpcCommunicator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A command passed via launch args, which gets executed by the running application instance.
+ * <ul>
+ *     <li><code>--unlock &lt;vault&gt; [--passphrase-stdin]</code></li>
+ *     <li><code>--lock &lt;vault&gt; [--force]</code></li>
+ *     <li><code>--list-vaults</code></li>
+ *     <li><code>--query &lt;vault&gt;</code></li>
+ *     <li><code>--to-ciphertext &lt;vault&gt;</code></li>
+ *     <li><code>--to-cleartext &lt;vault&gt;</code></li>
+ * </ul>
+ * Vaults are identified by their id, name or path. Without <code>--passphrase-stdin</code>, the passphrase stored in the system keychain is used.
+ * <code>--to-ciphertext</code> and <code>--to-cleartext</code> translate the paths read from stdin, one per line, and print each path along with its translation.
+ *
+ * @param type The command
+ * @param vault The vault's id, name or path, if applicable
+ * @param forced Whether to lock the vault even if files are still in use
+ * @param passphraseFromStdin Whether to read the passphrase from the first line of stdin
+ */
+record VaultCommand(Type type, @Nullable String vault, boolean forced, boolean passphraseFromStdin) {
+
+	enum Type {
+		UNLOCK("--unlock"),
+		LOCK("--lock"),
+		LIST_VAULTS("--list-vaults"),
+		QUERY("--query"),
+		TO_CIPHERTEXT("--to-ciphertext"),
+		TO_CLEARTEXT("--to-cleartext");
+
+		private final String option;
+
+		Type(String option) {
+			this.option = option;
+		}
+
+		boolean requiresVault() {
+			return this != LIST_VAULTS;
+		}
+	}
+
+	private static final String FORCE_OPTION = "--force";
+	private static final String PASSPHRASE_STDIN_OPTION = "--passphrase-stdin";
+	private static final int PATHS_PER_BATCH = 1000; // paths read from stdin per batch, split further by IpcCommunicator as needed to fit into IPC messages
+
+	/**
+	 * Parses the launch args.
+	 *
+	 * @param args The launch args
+	 * @return The command or an empty optional, if the args don't contain any command
+	 * @throws IllegalArgumentException If the args contain an incomplete command or multiple commands
+	 */
+	static Optional<VaultCommand> parse(List<String> args) {
+		VaultCommand result = null;
+		for (int i = 0; i < args.size(); i++) {
+			var arg = args.get(i);
+			var type = Arrays.stream(Type.values()).filter(t -> t.option.equals(arg)).findAny();
+			if (type.isEmpty()) {
+				continue;
+			} else if (result != null) {
+				throw new IllegalArgumentException("Only one command allowed, got " + result.type.option + " and " + arg);
+			}
+			String vault = null;
+			if (type.get().requiresVault()) {
+				if (i + 1 >= args.size()) {
+					throw new IllegalArgumentException("Missing vault after " + arg);
+				}
+				vault = args.get(++i);
+			}
+			result = new VaultCommand(type.get(), vault, args.contains(FORCE_OPTION), args.contains(PASSPHRASE_STDIN_OPTION));
+		}
+		return Optional.ofNullable(result);
+	}
+
+	/**
+	 * Sends this command to the running application instance and prints its reply.
+	 *
+	 * @param communicator A communicator {@link IpcCommunicator#isClient() connected} to the running instance
+	 * @param in The stream to read the passphrase from, if required
+	 * @param out The stream to print the reply to
+	 * @return The process exit code
+	 * @throws IOException In case of I/O errors
+	 */
+	int execute(IpcCommunicator communicator, InputStream in, PrintStream out) throws IOException {
+		if (type == Type.TO_CIPHERTEXT || type == Type.TO_CLEARTEXT) {
+			return resolvePaths(communicator, new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), out);
+		}
+		CommandResultMessage result = switch (type) {
+			case UNLOCK -> {
+				var passphrase = passphraseFromStdin ? readPassphrase(new InputStreamReader(in, StandardCharsets.UTF_8)) : null;
+				try {
+					yield communicator.sendUnlockVault(vault, passphrase);
+				} finally {
+					if (passphrase != null) {
+						passphrase.destroy();
+					}
+				}
+			}
+			case LOCK -> communicator.sendLockVault(vault, forced);
+			case LIST_VAULTS -> communicator.sendListVaults();
+			case QUERY -> communicator.sendQueryVault(vault);
+			case TO_CIPHERTEXT, TO_CLEARTEXT -> throw new IllegalStateException("handled above");
+		};
+		result.lines().forEach(out::println);
+		return result.success() ? 0 : 1;
+	}
+
+	private int resolvePaths(IpcCommunicator communicator, BufferedReader in, PrintStream out) throws IOException {
+		var batch = new ArrayList<String>(PATHS_PER_BATCH);
+		String line;
+		do {
+			line = in.readLine();
+			if (line != null && !line.isBlank()) {
+				batch.add(line);
+			}
+			if (batch.size() == PATHS_PER_BATCH || (line == null && !batch.isEmpty())) {
+				var result = communicator.sendResolvePaths(vault, type == Type.TO_CIPHERTEXT, batch);
+				result.lines().forEach(out::println);
+				if (!result.success()) {
+					return 1;
+				}
+				batch.clear();
+			}
+		} while (line != null);
+		return 0;
+	}
+
+	@VisibleForTesting
+	static Passphrase readPassphrase(Reader reader) throws IOException {
+		char[] buf = new char[64];
+		int len = 0;
+		int c;
+		while ((c = reader.read()) != -1 && c != '\n') {
+			if (len == buf.length) {
+				var grown = Arrays.copyOf(buf, buf.length * 2);
+				Arrays.fill(buf, '\0');
+				buf = grown;
+			}
+			buf[len++] = (char) c;
+		}
+		if (len > 0 && buf[len - 1] == '\r') {
+			buf[--len] = '\0';
+		}
+		return new Passphrase(buf, 0, len);
+	}
+
+}
@@ -1,19 +1,29 @@
 package org.cryptomator.ui.fxapp;
 
+import org.cryptomator.common.keychain.KeychainManager;
+import org.cryptomator.common.settings.Settings;
 import org.cryptomator.common.vaults.Vault;
 import org.cryptomator.common.vaults.VaultListManager;
+import org.cryptomator.ui.keyloading.masterkeyfile.MasterkeyFileLoadingStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @FxApplicationScoped
@@ -23,58 +33,125 @@ public class AutoUnlocker {
 
 	private final ObservableList<Vault> vaults;
 	private final FxApplicationWindows appWindows;
-	private final ScheduledExecutorService scheduler;
-	private ScheduledFuture<?> unlockMissingFuture;
-	private ScheduledFuture<?> timeoutFuture;
+	private final KeychainManager keychain;
+	private final Settings settings;
+	private final VaultListManager vaultListManager;
+	private final ExecutorService executor;
+	private final Set<Vault> awaitedVaults = new HashSet<>(); // accessed on FX thread only
+	private final ListChangeListener<Vault> awaitedVaultsListener = this::vaultsChanged;
 
 	@Inject
-	public AutoUnlocker(ObservableList<Vault> vaults, FxApplicationWindows appWindows, ScheduledExecutorService scheduler) {
+	public AutoUnlocker(ObservableList<Vault> vaults, FxApplicationWindows appWindows, KeychainManager keychain, Settings settings, VaultListManager vaultListManager, ExecutorService executor) {
 		this.vaults = vaults;
 		this.appWindows = appWindows;
-		this.scheduler = scheduler;
+		this.keychain = keychain;
+		this.settings = settings;
+		this.vaultListManager = vaultListManager;
+		this.executor = executor;
 	}
 
-	public void tryUnlockForTimespan(int timespan, TimeUnit timeUnit) {
-		// Unlock all available auto unlock vaults
+	/**
+	 * Unlocks all auto unlock vaults as soon as their state is known. Missing auto unlock vaults are unlocked as soon as they appear.
+	 */
+	public void tryUnlock() {
 		Predicate<Vault> shouldAutoUnlock = v -> v.getVaultSettings().unlockAfterStartup.get();
-		unlockSequentially(vaults.stream().filter(shouldAutoUnlock)).thenRun(() -> startUnlockMissing(timespan, timeUnit));
+		vaultListManager.initialStatesDetermined().thenCompose(unused -> { // completes on the FX thread
+			awaitMissing();
+			return unlock(vaults.stream().filter(shouldAutoUnlock));
+		});
+	}
+
+	/**
+	 * Unlocks the given vaults. Vaults that can be unlocked without user interaction are unlocked in parallel, limited by {@link Settings#autoUnlockConcurrency}.
+	 * All other vaults are unlocked one after another, so that the user only faces one dialog at a time.
+	 * <p>
+	 * Telling them apart requires reading each vault's config and querying the keychain, which is done in the background.
+	 *
+	 * @param vaultStream the vaults to unlock
+	 * @return a stage completing after all unlock workflows finished
+	 */
+	private CompletionStage<Void> unlock(Stream<Vault> vaultStream) {
+		var lockedVaults = vaultStream.filter(Vault::isLocked).toList(); // still on the FX thread, which modifies the state
+		return CompletableFuture.supplyAsync(() -> lockedVaults.stream().collect(Collectors.partitioningBy(this::canUnlockNonInteractively)), executor) //
+				.thenComposeAsync(vaultsByInteractivity -> {
+					var nonInteractive = vaultsByInteractivity.get(true).stream().filter(Vault::isLocked).toList(); // unless unlocked manually in the meantime
+					var interactive = vaultsByInteractivity.get(false).stream().filter(Vault::isLocked).toList();
+					LOG.debug("Auto-unlocking {} vaults in parallel and {} vaults sequentially", nonInteractive.size(), interactive.size());
+					var parallelUnlocks = unlockInParallel(nonInteractive);
+					var sequentialUnlocks = unlockSequentially(interactive.stream());
+					return CompletableFuture.allOf(parallelUnlocks.toCompletableFuture(), sequentialUnlocks.toCompletableFuture());
+				}, Platform::runLater);
 	}
 
 	private CompletionStage<Void> unlockSequentially(Stream<Vault> vaultStream) {
 		// this is an attempt to run all the unlock workflows sequentially, i.e. start the next workflow only after completing/failing the previous workflow.
-		return vaultStream.filter(Vault::isLocked).reduce(CompletableFuture.completedFuture(null),
+		return vaultStream.reduce(CompletableFuture.completedFuture(null),
 				(prevUnlock, nextVault) -> prevUnlock.thenCompose(unused -> appWindows.startUnlockWorkflow(nextVault, null)),
 				(prevUnlock, nextUnlock) -> nextUnlock.exceptionally(e -> null) // we don't care here about the exception, logged elsewhere
 				);
 	}
 
-	private void startUnlockMissing(int timespan, TimeUnit timeUnit) {
-		// Start a temporary service if there are missing auto unlock vaults
-		if (getMissingAutoUnlockVaults().findAny().isPresent()) {
-			LOG.info("Found MISSING vaults, starting periodic check");
-			unlockMissingFuture = scheduler.scheduleWithFixedDelay(this::unlockMissing, 0, 1, TimeUnit.SECONDS);
-			timeoutFuture = scheduler.schedule(this::timeout, timespan, timeUnit);
+	private CompletionStage<Void> unlockInParallel(List<Vault> vaultList) {
+		// each lane unlocks vaults from the shared queue one after another, so no more than `concurrency` workflows run at the same time
+		int concurrency = Math.max(1, settings.autoUnlockConcurrency.get());
+		var queue = new ConcurrentLinkedQueue<>(vaultList);
+		var lanes = Stream.generate(() -> unlockNext(queue)) //
+				.limit(Math.min(concurrency, vaultList.size())) //
+				.toArray(CompletableFuture[]::new);
+		return CompletableFuture.allOf(lanes);
+	}
+
+	private CompletableFuture<Void> unlockNext(Queue<Vault> queue) {
+		var vault = queue.poll();
+		if (vault == null) {
+			return CompletableFuture.completedFuture(null);
 		}
+		return appWindows.startUnlockWorkflow(vault, null).toCompletableFuture() //
+				.exceptionally(e -> null) // we don't care here about the exception, logged elsewhere
+				.thenCompose(unused -> unlockNext(queue));
 	}
 
-	private void unlockMissing() {
-		List<Vault> missingAutoUnlockVaults = getMissingAutoUnlockVaults().toList();
-		missingAutoUnlockVaults.forEach(VaultListManager::redetermineVaultState);
-		unlockSequentially(missingAutoUnlockVaults.stream()).thenRun(this::stopUnlockMissing);
+	// performs I/O, hence not to be invoked on the FX thread
+	private boolean canUnlockNonInteractively(Vault vault) {
+		try {
+			var keyId = vault.getVaultConfigCache().get().getKeyId();
+			return MasterkeyFileLoadingStrategy.SCHEME.equalsIgnoreCase(keyId.getScheme()) //
+					&& Files.exists(vault.getPath().resolve(keyId.getSchemeSpecificPart())) //
+					&& keychain.isSupported() //
+					&& !keychain.isLocked() //
+					&& keychain.getPassphraseStoredProperty(vault.getId()).get();
+		} catch (IOException e) {
+			LOG.debug("Unable to read vault config of {}", vault.getDisplayName(), e);
+			return false;
+		}
 	}
 
-	private void stopUnlockMissing() {
-		// Stop checking if there are no more missing vaults
-		if (getMissingAutoUnlockVaults().findAny().isEmpty()) {
-			LOG.info("No more MISSING vaults, stopping periodic check");
-			unlockMissingFuture.cancel(false);
-			timeoutFuture.cancel(false);
+	private void awaitMissing() {
+		// the presence monitor flips missing vaults to locked as soon as their storage appears, or at the latest with its next poll
+		getMissingAutoUnlockVaults().forEach(awaitedVaults::add);
+		if (!awaitedVaults.isEmpty()) {
+			LOG.info("Found {} MISSING vaults, unlocking them as soon as they appear", awaitedVaults.size());
+			vaults.addListener(awaitedVaultsListener);
 		}
 	}
 
-	private void timeout() {
-		LOG.info("MISSING vaults periodic check timed out");
-		unlockMissingFuture.cancel(false);
+	private void vaultsChanged(ListChangeListener.Change<? extends Vault> c) {
+		var appeared = new HashSet<Vault>();
+		while (c.next()) {
+			if (c.wasUpdated()) { // the vault list fires updates on state changes
+				c.getList().subList(c.getFrom(), c.getTo()).stream().filter(Vault::isLocked).filter(awaitedVaults::remove).forEach(appeared::add);
+			} else {
+				c.getRemoved().forEach(awaitedVaults::remove);
+			}
+		}
+		if (!appeared.isEmpty()) {
+			LOG.info("{} MISSING vaults appeared", appeared.size());
+			unlock(appeared.stream());
+		}
+		if (awaitedVaults.isEmpty()) {
+			LOG.info("No more MISSING vaults");
+			vaults.removeListener(awaitedVaultsListener);
+		}
 	}
 
 	private Stream<Vault> getMissingAutoUnlockVaults() {
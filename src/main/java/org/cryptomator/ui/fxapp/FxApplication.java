@@ -11,7 +11,6 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javafx.application.Platform;
-import java.util.concurrent.TimeUnit;
 
 @FxApplicationScoped
 public class FxApplication {
@@ -79,7 +78,7 @@ public class FxApplication {
 		migrateAndInformDokanyRemoval();
 
 		launchEventHandler.startHandlingLaunchEvents();
-		autoUnlocker.tryUnlockForTimespan(2, TimeUnit.MINUTES);
+		autoUnlocker.tryUnlock();
 	}
 
 	private void migrateAndInformDokanyRemoval() {
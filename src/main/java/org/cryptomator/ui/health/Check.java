@@ -6,11 +6,20 @@ import org.cryptomator.cryptofs.health.api.HealthCheck;
 import javafx.beans.Observable;
 import javafx.beans.binding.BooleanBinding;
 import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.LongProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class Check {
 
@@ -21,6 +30,11 @@ public class Check {
 	private final ObservableList<Result> results = FXCollections.observableArrayList(Result::observables);
 	private final ObjectProperty<DiagnosticResult.Severity> highestResultSeverity = new SimpleObjectProperty<>(null);
 	private final ObjectProperty<Throwable> error = new SimpleObjectProperty<>(null);
+	private final LongProperty diagnosisCount = new SimpleLongProperty(0);
+	private final Map<DiagnosticResult.Severity, LongProperty> severityCounts = Arrays.stream(DiagnosticResult.Severity.values()) //
+			.collect(Collectors.toMap(Function.identity(), s -> new SimpleLongProperty(0), (a, b) -> a, () -> new EnumMap<>(DiagnosticResult.Severity.class)));
+	private volatile Path reportFile;
+	private final ObjectProperty<Instant> unchangedSince = new SimpleObjectProperty<>(null);
 	private final BooleanBinding isInReRunState = state.isNotEqualTo(CheckState.RUNNING).or(state.isNotEqualTo(CheckState.SCHEDULED));
 
 	Check(HealthCheck check) {
@@ -79,6 +93,59 @@ public class Check {
 		highestResultSeverity.set(severity);
 	}
 
+	/**
+	 * @return The number of diagnoses reported by this check so far, serving as progress indicator while it is running
+	 */
+	LongProperty diagnosisCountProperty() {
+		return diagnosisCount;
+	}
+
+	long getDiagnosisCount() {
+		return diagnosisCount.get();
+	}
+
+	void setDiagnosisCount(long count) {
+		diagnosisCount.set(count);
+	}
+
+	/**
+	 * @param severity A severity
+	 * @return The number of diagnoses of the given severity reported by this check so far, including those not retained in {@link #getResults()}
+	 */
+	LongProperty severityCountProperty(DiagnosticResult.Severity severity) {
+		return severityCounts.get(severity);
+	}
+
+	long getSeverityCount(DiagnosticResult.Severity severity) {
+		return severityCounts.get(severity).get();
+	}
+
+	/**
+	 * @return The file containing all diagnoses of this check in report format or <code>null</code>, if the check didn't run yet
+	 */
+	Path getReportFile() {
+		return reportFile;
+	}
+
+	void setReportFile(Path reportFile) {
+		this.reportFile = reportFile;
+	}
+
+	/**
+	 * @return The time of the last clean pass, if this check didn't run because the vault is unchanged since then, otherwise <code>null</code>
+	 */
+	ObjectProperty<Instant> unchangedSinceProperty() {
+		return unchangedSince;
+	}
+
+	Instant getUnchangedSince() {
+		return unchangedSince.get();
+	}
+
+	void setUnchangedSince(Instant instant) {
+		unchangedSince.set(instant);
+	}
+
 	boolean isInReRunState() {
 		return isInReRunState.get();
 	}
@@ -23,11 +23,14 @@ import javafx.scene.control.ListView;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
 import javafx.util.StringConverter;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.ResourceBundle;
-import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Stream;
 
 import static org.cryptomator.cryptofs.health.api.DiagnosticResult.Severity;
 import static org.cryptomator.ui.health.Result.FixState.FIXABLE;
@@ -43,6 +46,9 @@ public class CheckDetailController implements FxController {
 	private final ObjectProperty<Check> check;
 	private final ObservableValue<Check.CheckState> checkState;
 	private final ObservableValue<String> checkName;
+	private final ObservableValue<Number> diagnosisCount;
+	private final ObservableValue<String> unchangedSince;
+	private final BooleanExpression checkUnchanged;
 	private final BooleanExpression checkRunning;
 	private final BooleanExpression checkScheduled;
 	private final BooleanExpression checkFinished;
@@ -50,15 +56,20 @@ public class CheckDetailController implements FxController {
 	private final BooleanExpression checkSucceeded;
 	private final BooleanExpression checkFailed;
 	private final BooleanExpression checkCancelled;
-	private final Binding<Number> countOfWarnSeverity;
-	private final Binding<Number> countOfCritSeverity;
+	private final ObservableValue<Number> countOfWarnSeverity;
+	private final ObservableValue<Number> countOfCritSeverity;
+	private final BooleanBinding resultsTruncated;
 	private final Binding<Boolean> warnOrCritsExist;
 	private final ResultListCellFactory resultListCellFactory;
 	private final ResultFixApplier resultFixApplier;
+	private final CheckExecutor checkExecutor;
 	private final ResourceBundle resourceBundle;
 
 	private final BooleanProperty fixAllInfoResultsExecuted;
 	private final BooleanBinding fixAllInfoResultsPossible;
+	private final BooleanBinding fixAllResultsPossible;
+	private final BooleanBinding bulkFixRunning;
+	private final BooleanBinding bulkFixFinished;
 	private final ObjectProperty<Predicate<Result>> resultsFilter;
 
 	public ListView<Result> resultsListView;
@@ -67,14 +78,20 @@ public class CheckDetailController implements FxController {
 	private Subscription resultSubscription;
 
 	@Inject
-	public CheckDetailController(ObjectProperty<Check> selectedTask, ResultListCellFactory resultListCellFactory, ResultFixApplier resultFixApplier, ResourceBundle resourceBundle) {
+	public CheckDetailController(ObjectProperty<Check> selectedTask, ResultListCellFactory resultListCellFactory, ResultFixApplier resultFixApplier, CheckExecutor checkExecutor, ResourceBundle resourceBundle) {
 		this.resultListCellFactory = resultListCellFactory;
 		this.resultFixApplier = resultFixApplier;
+		this.checkExecutor = checkExecutor;
 		this.resourceBundle = resourceBundle;
 		this.results = EasyBind.wrapList(FXCollections.observableArrayList());
 		this.check = selectedTask;
 		this.checkState = selectedTask.flatMap(Check::stateProperty);
 		this.checkName = selectedTask.map(Check::getName).orElse("");
+		this.diagnosisCount = selectedTask.flatMap(Check::diagnosisCountProperty).orElse(0L);
+		var unchangedSinceInstant = selectedTask.flatMap(Check::unchangedSinceProperty);
+		var formatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM).withLocale(Locale.getDefault()).withZone(ZoneId.systemDefault());
+		this.unchangedSince = unchangedSinceInstant.map(formatter::format).orElse("");
+		this.checkUnchanged = BooleanExpression.booleanExpression(unchangedSinceInstant.map(i -> true).orElse(false));
 		this.checkRunning = BooleanExpression.booleanExpression(checkState.map(Check.CheckState.RUNNING::equals).orElse(false));
 		this.checkScheduled = BooleanExpression.booleanExpression(checkState.map(Check.CheckState.SCHEDULED::equals).orElse(false));
 		this.checkSkipped = BooleanExpression.booleanExpression(checkState.map(Check.CheckState.SKIPPED::equals).orElse(false));
@@ -82,12 +99,17 @@ public class CheckDetailController implements FxController {
 		this.checkFailed = BooleanExpression.booleanExpression(checkState.map(Check.CheckState.ERROR::equals).orElse(false));
 		this.checkCancelled = BooleanExpression.booleanExpression(checkState.map(Check.CheckState.CANCELLED::equals).orElse(false));
 		this.checkFinished = checkSucceeded.or(checkFailed).or(checkCancelled);
-		this.countOfWarnSeverity = results.reduce(countSeverity(Severity.WARN));
-		this.countOfCritSeverity = results.reduce(countSeverity(Severity.CRITICAL));
+		this.countOfWarnSeverity = selectedTask.flatMap(c -> c.severityCountProperty(Severity.WARN)).orElse(0L);
+		this.countOfCritSeverity = selectedTask.flatMap(c -> c.severityCountProperty(Severity.CRITICAL)).orElse(0L);
+		this.resultsTruncated = Bindings.createBooleanBinding(() -> diagnosisCount.getValue().longValue() > results.size(), diagnosisCount, results);
 		this.warnOrCritsExist = EasyBind.combine(checkSucceeded, countOfWarnSeverity, countOfCritSeverity, (suceeded, warns, crits) -> suceeded && (warns.longValue() > 0 || crits.longValue() > 0));
 		this.fixAllInfoResultsExecuted = new SimpleBooleanProperty(false);
 		this.fixAllInfoResultsPossible = Bindings.createBooleanBinding(() -> results.stream().anyMatch(this::isFixableInfoResult), results) //
-				.and(fixAllInfoResultsExecuted.not());
+				.and(fixAllInfoResultsExecuted.not()).and(resultFixApplier.bulkFixRunningProperty().not());
+		this.fixAllResultsPossible = Bindings.createBooleanBinding(() -> results.stream().anyMatch(r -> r.getState() == FIXABLE), results) //
+				.and(resultFixApplier.bulkFixRunningProperty().not());
+		this.bulkFixRunning = Bindings.createBooleanBinding(resultFixApplier::isBulkFixRunning, resultFixApplier.bulkFixRunningProperty());
+		this.bulkFixFinished = resultFixApplier.bulkFixRunningProperty().not().and(resultFixApplier.bulkFixTotalProperty().greaterThan(0));
 		this.resultsFilter = new SimpleObjectProperty<>(r -> true);
 		selectedTask.addListener(this::selectedTaskChanged);
 	}
@@ -107,10 +129,6 @@ public class CheckDetailController implements FxController {
 		fixStateChoiceBox.setValue(null);
 	}
 
-	private Function<Stream<? extends Result>, Long> countSeverity(DiagnosticResult.Severity severity) {
-		return stream -> stream.filter(item -> severity.equals(item.diagnosis().getSeverity())).count();
-	}
-
 	@FXML
 	public void initialize() {
 		resultsListView.setItems(results.filtered(resultsFilter));
@@ -138,10 +156,20 @@ public class CheckDetailController implements FxController {
 	@FXML
 	public void fixAllInfoResults() {
 		fixAllInfoResultsExecuted.setValue(true);
-		results.stream().filter(this::isFixableInfoResult).forEach(resultFixApplier::fix);
+		resultFixApplier.fixAll(results.stream().filter(this::isFixableInfoResult).toList());
+	}
+
+	@FXML
+	public void fixAllResults() {
+		resultFixApplier.fixAll(List.copyOf(results));
 	}
 
 
+	@FXML
+	public void runFullCheck() {
+		checkExecutor.executeBatch(List.of(check.get()), true);
+	}
+
 	@FXML
 	public void copyResultDetails() {
 		var result = resultsListView.getSelectionModel().getSelectedItem();
@@ -233,7 +261,7 @@ public class CheckDetailController implements FxController {
 		return countOfWarnSeverity.getValue().longValue();
 	}
 
-	public Binding<Number> countOfWarnSeverityProperty() {
+	public ObservableValue<Number> countOfWarnSeverityProperty() {
 		return countOfWarnSeverity;
 	}
 
@@ -241,10 +269,46 @@ public class CheckDetailController implements FxController {
 		return countOfCritSeverity.getValue().longValue();
 	}
 
-	public Binding<Number> countOfCritSeverityProperty() {
+	public ObservableValue<Number> countOfCritSeverityProperty() {
 		return countOfCritSeverity;
 	}
 
+	public ObservableValue<Number> diagnosisCountProperty() {
+		return diagnosisCount;
+	}
+
+	public Number getDiagnosisCount() {
+		return diagnosisCount.getValue();
+	}
+
+	public ObservableValue<String> unchangedSinceProperty() {
+		return unchangedSince;
+	}
+
+	public String getUnchangedSince() {
+		return unchangedSince.getValue();
+	}
+
+	public BooleanExpression checkUnchangedProperty() {
+		return checkUnchanged;
+	}
+
+	public boolean isCheckUnchanged() {
+		return checkUnchanged.get();
+	}
+
+	public BooleanBinding resultsTruncatedProperty() {
+		return resultsTruncated;
+	}
+
+	public boolean isResultsTruncated() {
+		return resultsTruncated.get();
+	}
+
+	public int getMaxResultsShown() {
+		return ResultCollector.MAX_RESULTS_IN_MEMORY;
+	}
+
 	public boolean isCheckRunning() {
 		return checkRunning.getValue();
 	}
@@ -324,4 +388,52 @@ public class CheckDetailController implements FxController {
 	public boolean getFixAllInfoResultsPossible() {
 		return fixAllInfoResultsPossible.getValue();
 	}
+
+	public BooleanBinding fixAllResultsPossibleProperty() {
+		return fixAllResultsPossible;
+	}
+
+	public boolean isFixAllResultsPossible() {
+		return fixAllResultsPossible.get();
+	}
+
+	public BooleanBinding bulkFixRunningProperty() {
+		return bulkFixRunning;
+	}
+
+	public boolean isBulkFixRunning() {
+		return bulkFixRunning.get();
+	}
+
+	public BooleanBinding bulkFixFinishedProperty() {
+		return bulkFixFinished;
+	}
+
+	public boolean isBulkFixFinished() {
+		return bulkFixFinished.get();
+	}
+
+	public ObservableValue<Number> bulkFixTotalProperty() {
+		return resultFixApplier.bulkFixTotalProperty();
+	}
+
+	public long getBulkFixTotal() {
+		return resultFixApplier.bulkFixTotalProperty().get();
+	}
+
+	public ObservableValue<Number> bulkFixFixedProperty() {
+		return resultFixApplier.bulkFixFixedProperty();
+	}
+
+	public long getBulkFixFixed() {
+		return resultFixApplier.bulkFixFixedProperty().get();
+	}
+
+	public ObservableValue<Number> bulkFixFailedProperty() {
+		return resultFixApplier.bulkFixFailedProperty();
+	}
+
+	public long getBulkFixFailed() {
+		return resultFixApplier.bulkFixFailedProperty().get();
+	}
 }
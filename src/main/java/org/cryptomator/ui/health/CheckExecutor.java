@@ -1,52 +1,87 @@
 package org.cryptomator.ui.health;
 
-import com.google.common.collect.Comparators;
+import com.google.common.base.Suppliers;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.cryptomator.common.settings.Settings;
 import org.cryptomator.common.vaults.Vault;
 import org.cryptomator.cryptofs.VaultConfig;
 import org.cryptomator.cryptofs.health.api.DiagnosticResult;
 import org.cryptomator.cryptolib.api.CryptorProvider;
 import org.cryptomator.cryptolib.api.Masterkey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
-import javafx.application.Platform;
 import javafx.concurrent.Task;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.SecureRandom;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
-
+import java.util.function.Supplier;
+
+/**
+ * Runs the selected checks on a pool bounded by {@link Settings#healthCheckConcurrency}.
+ * <p>
+ * The checks are independent of each other, each task works on its own copy of the masterkey and its own cryptor.
+ * A single check cannot be split further, as the {@link org.cryptomator.cryptofs.health.api.HealthCheck} API traverses the whole vault internally.
+ * <p>
+ * Unless a full check is requested, checks that already passed cleanly on the current state of the vault are not run again, see {@link CheckpointIndex}.
+ */
 @HealthCheckScoped
 public class CheckExecutor {
 
+	private static final Logger LOG = LoggerFactory.getLogger(CheckExecutor.class);
+	private static final long IDLE_THREAD_TIMEOUT_SECONDS = 10;
+
 	private final Path vaultPath;
 	private final SecureRandom csprng;
 	private final Masterkey masterkey;
 	private final VaultConfig vaultConfig;
-	private final ExecutorService sequentialExecutor;
+	private final ExecutorService checkExecutor;
 	private final BlockingDeque<CheckTask> tasksToExecute;
+	private final CheckpointIndex checkpointIndex;
 
 
 	@Inject
-	public CheckExecutor(@HealthCheckWindow Vault vault, AtomicReference<Masterkey> masterkeyRef, AtomicReference<VaultConfig> vaultConfigRef, SecureRandom csprng) {
+	public CheckExecutor(@HealthCheckWindow Vault vault, AtomicReference<Masterkey> masterkeyRef, AtomicReference<VaultConfig> vaultConfigRef, SecureRandom csprng, Settings settings, CheckpointIndex checkpointIndex) {
 		this.vaultPath = vault.getPath();
 		this.masterkey = masterkeyRef.get();
 		this.vaultConfig = vaultConfigRef.get();
 		this.csprng = csprng;
+		this.checkpointIndex = checkpointIndex;
 		this.tasksToExecute = new LinkedBlockingDeque<>();
-		this.sequentialExecutor = Executors.newSingleThreadExecutor();
+		int concurrency = Math.clamp(settings.healthCheckConcurrency.get(), 1, Runtime.getRuntime().availableProcessors());
+		var pool = new ThreadPoolExecutor(concurrency, concurrency, IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setNameFormat("health-check-%d").setDaemon(true).build());
+		pool.allowCoreThreadTimeOut(true); // this executor lives as long as its health check window, don't keep idle threads around after closing it
+		this.checkExecutor = pool;
 	}
 
-	public synchronized void executeBatch(List<Check> checks) {
+	/**
+	 * Schedules the given checks.
+	 *
+	 * @param checks The checks to run
+	 * @param fullCheck Whether to run also those checks that already passed cleanly on the unchanged vault
+	 */
+	public synchronized void executeBatch(List<Check> checks, boolean fullCheck) {
+		var fingerprint = Suppliers.memoize(this::computeFingerprint); // shared by all checks of this batch
 		checks.stream().map(c -> {
 			c.setState(Check.CheckState.SCHEDULED);
-			var task = new CheckTask(c);
+			c.setDiagnosisCount(0);
+			c.setUnchangedSince(null);
+			var task = new CheckTask(c, fingerprint, fullCheck);
 			tasksToExecute.addLast(task);
 			return task;
-		}).forEach(sequentialExecutor::submit);
+		}).forEach(checkExecutor::submit);
 	}
 
 	public synchronized void cancel() {
@@ -56,23 +91,49 @@ public class CheckExecutor {
 		}
 	}
 
+	private Optional<CheckpointIndex.Fingerprint> computeFingerprint() {
+		try {
+			var fingerprint = CheckpointIndex.fingerprint(vaultPath);
+			LOG.debug("Listed {} directories to fingerprint {}", fingerprint.directories(), vaultPath);
+			return Optional.of(fingerprint);
+		} catch (IOException e) {
+			LOG.warn("Failed to compute fingerprint of {}. Running all checks.", vaultPath, e);
+			return Optional.empty();
+		}
+	}
+
 	private class CheckTask extends Task<Void> {
 
 		private final Check c;
-		private DiagnosticResult.Severity highestResultSeverity = DiagnosticResult.Severity.GOOD;
+		private final Supplier<Optional<CheckpointIndex.Fingerprint>> fingerprint;
+		private final boolean fullCheck;
+		private volatile DiagnosticResult.Severity highestResultSeverity = DiagnosticResult.Severity.GOOD;
+		private volatile Instant unchangedSince;
 
-		CheckTask(Check c) {
+		CheckTask(Check c, Supplier<Optional<CheckpointIndex.Fingerprint>> fingerprint, boolean fullCheck) {
 			this.c = c;
+			this.fingerprint = fingerprint;
+			this.fullCheck = fullCheck;
 		}
 
 		@Override
 		protected Void call() throws Exception {
+			var currentFingerprint = fingerprint.get();
+			var lastCleanPass = fullCheck ? Optional.<Instant>empty() : currentFingerprint.flatMap(f -> checkpointIndex.lastCleanPass(c.getName(), f));
+			if (lastCleanPass.isPresent()) {
+				LOG.info("Skipping {}, as the vault is unchanged since its last clean pass at {}.", c.getName(), lastCleanPass.get());
+				unchangedSince = lastCleanPass.get();
+				return null;
+			}
+			var reportFile = Files.createTempFile("healthCheck_", ".log");
 			try (var masterkeyClone = masterkey.copy(); //
-				 var cryptor = CryptorProvider.forScheme(vaultConfig.getCipherCombo()).provide(masterkeyClone, csprng)) {
-				c.getHealthCheck().check(vaultPath, vaultConfig, masterkeyClone, cryptor, diagnosis -> {
-					Platform.runLater(() -> c.getResults().add(Result.create(diagnosis, vaultPath, vaultConfig, masterkeyClone, cryptor)));
-					highestResultSeverity = Comparators.max(highestResultSeverity, diagnosis.getSeverity());
-				});
+				 var cryptor = CryptorProvider.forScheme(vaultConfig.getCipherCombo()).provide(masterkeyClone, csprng); //
+				 var collector = new ResultCollector(c, reportFile, diagnosis -> Result.create(diagnosis, vaultPath, vaultConfig, masterkeyClone, cryptor))) {
+				c.getHealthCheck().check(vaultPath, vaultConfig, masterkeyClone, cryptor, collector);
+				highestResultSeverity = collector.getHighestSeverity();
+			}
+			if (currentFingerprint.isPresent() && !isCancelled()) {
+				checkpointIndex.record(c.getName(), currentFingerprint.get(), highestResultSeverity == DiagnosticResult.Severity.GOOD);
 			}
 			return null;
 		}
@@ -91,6 +152,7 @@ public class CheckExecutor {
 		protected void succeeded() {
 			c.setState(Check.CheckState.SUCCEEDED);
 			c.setHighestResultSeverity(highestResultSeverity);
+			c.setUnchangedSince(unchangedSince);
 		}
 
 		@Override
@@ -15,6 +15,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ListView;
 import javafx.scene.control.SelectionMode;
 import javafx.stage.Stage;
@@ -41,6 +42,7 @@ public class CheckListController implements FxController {
 
 	/* FXML */
 	public ListView<Check> checksListView;
+	public CheckBox fullCheckCheckbox;
 
 	@Inject
 	public CheckListController(@HealthCheckWindow Stage window, List<Check> checks, CheckExecutor checkExecutor, ReportWriter reportWriteTask, ObjectProperty<Check> selectedCheck, FxApplicationWindows appWindows, CheckListCellFactory listCellFactory) {
@@ -83,7 +85,7 @@ public class CheckListController implements FxController {
 		Preconditions.checkState(!chosenChecks.isEmpty());
 
 		checks.filtered(c -> !c.isChosenForExecution()).forEach(c -> c.setState(Check.CheckState.SKIPPED));
-		checkExecutor.executeBatch(chosenChecks);
+		checkExecutor.executeBatch(chosenChecks, fullCheckCheckbox.isSelected());
 		checksListView.getSelectionModel().select(chosenChecks.get(0));
 		checksListView.refresh();
 		window.sizeToScene();
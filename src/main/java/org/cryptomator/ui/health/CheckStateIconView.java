@@ -12,24 +12,28 @@ import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableObjectValue;
+import java.time.Instant;
 import java.util.List;
 
 /**
  * A {@link FontAwesome5IconView} that automatically sets the glyph depending on
- * the {@link Check#stateProperty() state} and {@link Check#highestResultSeverityProperty() severity} of a HealthCheck.
+ * the {@link Check#stateProperty() state} and {@link Check#highestResultSeverityProperty() severity} of a HealthCheck. Checks that were not run again,
+ * as the vault is {@link Check#unchangedSinceProperty() unchanged} since they last passed, are marked distinctly.
  */
 public class CheckStateIconView extends FontAwesome5IconView {
 
 	private final ObjectProperty<Check> check = new SimpleObjectProperty<>();
 	private final ObservableObjectValue<Check.CheckState> state;
 	private final ObservableObjectValue<DiagnosticResult.Severity> severity;
+	private final ObservableObjectValue<Instant> unchangedSince;
 	private final List<Subscription> subscriptions;
 	private final AutoAnimator onRunningRotator;
 
 	public CheckStateIconView() {
 		this.state = EasyBind.wrapNullable(check).mapObservable(Check::stateProperty).asOrdinary();
 		this.severity = EasyBind.wrapNullable(check).mapObservable(Check::highestResultSeverityProperty).asOrdinary();
-		this.glyph.bind(Bindings.createObjectBinding(this::glyphForState, state, severity));
+		this.unchangedSince = EasyBind.wrapNullable(check).mapObservable(Check::unchangedSinceProperty).asOrdinary();
+		this.glyph.bind(Bindings.createObjectBinding(this::glyphForState, state, severity, unchangedSince));
 		this.subscriptions = List.of( //
 				EasyBind.includeWhen(getStyleClass(), "glyph-icon-muted", Bindings.equal(state, Check.CheckState.SKIPPED).or(Bindings.equal(state, Check.CheckState.CANCELLED)).or(Bindings.equal(severity, DiagnosticResult.Severity.INFO))), //
 				EasyBind.includeWhen(getStyleClass(), "glyph-icon-primary", Bindings.equal(severity, DiagnosticResult.Severity.GOOD)), //
@@ -54,7 +58,7 @@ public class CheckStateIconView extends FontAwesome5IconView {
 			case RUNNING -> FontAwesome5Icon.SPINNER;
 			case ERROR -> FontAwesome5Icon.TIMES;
 			case CANCELLED -> FontAwesome5Icon.BAN;
-			case SUCCEEDED -> glyphIconForSeverity();
+			case SUCCEEDED -> unchangedSince.getValue() != null ? FontAwesome5Icon.FAST_FORWARD : glyphIconForSeverity();
 		};
 	}
 
@@ -0,0 +1,176 @@
+package org.cryptomator.ui.health;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.BaseEncoding;
+import com.google.common.primitives.Longs;
+import org.cryptomator.common.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Remembers which checks passed without findings on which state of the vault, so that a subsequent run can skip them as long as the vault is unchanged.
+ * <p>
+ * The state of the vault is captured by a {@link Fingerprint} over the names, sizes and modification times of all ciphertext nodes. Computing it
+ * only requires listing the directories, which is much cheaper than decrypting and verifying their contents. As a cancelled batch still records all
+ * checks that completed, a re-run effectively resumes where the previous run stopped.
+ * <p>
+ * Note that skipping unchanged checks is not free: every run still lists the whole <code>d/</code> tree of the vault to compute the fingerprint,
+ * even if all checks end up skipped. Its cost grows with the number of ciphertext nodes, and for vaults on network storage, listing may dominate.
+ */
+class CheckpointIndex {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CheckpointIndex.class);
+	private static final ObjectMapper JSON = new ObjectMapper();
+	private static final TypeReference<Map<String, Entry>> ENTRIES_TYPE = new TypeReference<>() {};
+	private static final String DATA_DIR_NAME = "d";
+	private static final int DATA_DIR_DEPTH = 4; // d/XX/YYYY/name.c9r/contents
+
+	private final Path indexFile;
+	private final Map<String, Entry> entries;
+
+	/**
+	 * @param indexFile The file to persist the index to or <code>null</code> to keep it in memory only
+	 */
+	CheckpointIndex(@Nullable Path indexFile) {
+		this.indexFile = indexFile;
+		this.entries = new ConcurrentHashMap<>(load(indexFile));
+	}
+
+	private static Map<String, Entry> load(@Nullable Path indexFile) {
+		if (indexFile == null) {
+			return Map.of();
+		}
+		try (var in = Files.newInputStream(indexFile)) {
+			return JSON.readValue(in, ENTRIES_TYPE);
+		} catch (NoSuchFileException e) {
+			return Map.of();
+		} catch (IOException e) {
+			LOG.warn("Failed to read health check index {}. Starting from scratch.", indexFile, e);
+			return Map.of();
+		}
+	}
+
+	/**
+	 * @param checkName The name of the check
+	 * @param fingerprint The current fingerprint of the vault
+	 * @return The time of the last clean pass of the given check, if the vault didn't change since then
+	 */
+	Optional<Instant> lastCleanPass(String checkName, Fingerprint fingerprint) {
+		return Optional.ofNullable(entries.get(checkName)) //
+				.filter(e -> e.fingerprint.equals(fingerprint.digest())) //
+				.map(e -> Instant.ofEpochMilli(e.timestamp));
+	}
+
+	/**
+	 * Records a run of the given check.
+	 *
+	 * @param checkName The name of the check
+	 * @param fingerprint The fingerprint of the vault taken before running the check
+	 * @param clean Whether the check passed without any findings other than {@link org.cryptomator.cryptofs.health.api.DiagnosticResult.Severity#GOOD good} ones
+	 */
+	synchronized void record(String checkName, Fingerprint fingerprint, boolean clean) {
+		if (clean) {
+			entries.put(checkName, new Entry(fingerprint.digest(), Instant.now().toEpochMilli()));
+		} else {
+			entries.remove(checkName);
+		}
+		persist();
+	}
+
+	private void persist() {
+		if (indexFile == null) {
+			return;
+		}
+		try {
+			Files.createDirectories(indexFile.getParent());
+			var tmpFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+			try (var out = Files.newOutputStream(tmpFile)) {
+				JSON.writeValue(out, Map.copyOf(entries));
+			}
+			Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOG.warn("Failed to write health check index {}", indexFile, e);
+		}
+	}
+
+	/**
+	 * Computes the current fingerprint of the vault, visiting the nodes of each directory in a stable order.
+	 *
+	 * @param vaultPath The vault's storage location
+	 * @return The fingerprint
+	 * @throws IOException If the vault structure can't be listed
+	 */
+	static Fingerprint fingerprint(Path vaultPath) throws IOException {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Every implementation of the Java platform is required to support SHA-256.", e);
+		}
+		long directories = 0;
+		for (var node : sortedChildren(vaultPath)) {
+			var attrs = Files.readAttributes(node, BasicFileAttributes.class);
+			if (attrs.isDirectory() && DATA_DIR_NAME.equals(node.getFileName().toString())) {
+				update(digest, vaultPath.relativize(node), attrs);
+				directories += fingerprintDataDir(vaultPath, node, 1, digest);
+			} else if (attrs.isRegularFile()) {
+				update(digest, vaultPath.relativize(node), attrs); // e.g. vault config and masterkey file
+			}
+		}
+		return new Fingerprint(BaseEncoding.base16().encode(digest.digest()), directories);
+	}
+
+	private static long fingerprintDataDir(Path vaultPath, Path dir, int depth, MessageDigest digest) throws IOException {
+		long directories = 1;
+		for (var node : sortedChildren(dir)) {
+			var attrs = Files.readAttributes(node, BasicFileAttributes.class);
+			update(digest, vaultPath.relativize(node), attrs);
+			if (attrs.isDirectory() && depth < DATA_DIR_DEPTH) {
+				directories += fingerprintDataDir(vaultPath, node, depth + 1, digest);
+			}
+		}
+		return directories;
+	}
+
+	private static List<Path> sortedChildren(Path dir) throws IOException {
+		try (Stream<Path> children = Files.list(dir)) {
+			return children.sorted(Comparator.comparing(p -> p.getFileName().toString())).toList();
+		}
+	}
+
+	private static void update(MessageDigest digest, Path relativePath, BasicFileAttributes attrs) {
+		digest.update(relativePath.toString().getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(Longs.toByteArray(attrs.isDirectory() ? -1L : attrs.size()));
+		digest.update(Longs.toByteArray(attrs.lastModifiedTime().toMillis()));
+	}
+
+	/**
+	 * @param digest Hex-encoded digest over all ciphertext nodes
+	 * @param directories Number of directories listed to compute the digest, including the data dir itself
+	 */
+	record Fingerprint(String digest, long directories) {}
+
+	record Entry(@JsonProperty("fingerprint") String fingerprint, //
+				 @JsonProperty("timestamp") long timestamp) {}
+
+}
@@ -4,6 +4,7 @@ import dagger.Binds;
 import dagger.Module;
 import dagger.Provides;
 import dagger.multibindings.IntoMap;
+import org.cryptomator.common.Environment;
 import org.cryptomator.common.vaults.Vault;
 import org.cryptomator.cryptofs.VaultConfig;
 import org.cryptomator.cryptofs.health.api.HealthCheck;
@@ -17,6 +18,8 @@ import org.cryptomator.ui.common.FxmlScene;
 import org.cryptomator.ui.common.StageFactory;
 import org.cryptomator.ui.keyloading.KeyLoadingComponent;
 import org.cryptomator.ui.keyloading.KeyLoadingStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -27,8 +30,11 @@ import javafx.scene.Scene;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.ResourceBundle;
 import java.util.concurrent.atomic.AtomicReference;
@@ -36,6 +42,8 @@ import java.util.concurrent.atomic.AtomicReference;
 @Module(subcomponents = {KeyLoadingComponent.class})
 abstract class HealthCheckModule {
 
+	private static final Logger LOG = LoggerFactory.getLogger(HealthCheckModule.class);
+
 	@Provides
 	@HealthCheckScoped
 	static AtomicReference<Masterkey> provideMasterkeyRef() {
@@ -54,6 +62,13 @@ abstract class HealthCheckModule {
 		return new SimpleObjectProperty<>();
 	}
 
+	@Provides
+	@HealthCheckScoped
+	static CheckpointIndex provideCheckpointIndex(Environment env, @HealthCheckWindow Vault vault) {
+		var indexFile = env.getSettingsPath().findFirst().map(settingsPath -> settingsPath.resolveSibling("healthChecks").resolve(vault.getId() + ".json"));
+		return new CheckpointIndex(indexFile.orElse(null));
+	}
+
 	@Provides
 	@HealthCheckScoped
 	static List<Check> provideAvailableChecks() {
@@ -101,14 +116,23 @@ abstract class HealthCheckModule {
 
 	@Provides
 	@HealthCheckScoped
-	static ChangeListener<Boolean> provideWindowShowingChangeListener(AtomicReference<Masterkey> masterkey) {
+	static ChangeListener<Boolean> provideWindowShowingChangeListener(AtomicReference<Masterkey> masterkey, List<Check> checks) {
 		return (observable, wasShowing, isShowing) -> {
 			if (!isShowing) {
 				Optional.ofNullable(masterkey.getAndSet(null)).ifPresent(Masterkey::destroy);
+				checks.stream().map(Check::getReportFile).filter(Objects::nonNull).forEach(HealthCheckModule::deleteReportFile);
 			}
 		};
 	}
 
+	private static void deleteReportFile(Path reportFile) {
+		try {
+			Files.deleteIfExists(reportFile);
+		} catch (IOException e) {
+			LOG.warn("Failed to delete {}", reportFile, e);
+		}
+	}
+
 	@Provides
 	@FxmlScene(FxmlFile.HEALTH_START)
 	@HealthCheckScoped
@@ -10,6 +10,7 @@ import javafx.application.Application;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -38,7 +39,7 @@ public class ReportWriter {
 			Check %s
 			------------------------------
 			""";
-	private static final String REPORT_CHECK_RESULT = "%8s - %s\n";
+	static final String REPORT_CHECK_RESULT = "%8s - %s\n";
 	private static final DateTimeFormatter TIME_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
 
 	private final Vault vault;
@@ -62,9 +63,11 @@ public class ReportWriter {
 				writer.write(REPORT_CHECK_HEADER.formatted(check.getHealthCheck().name()));
 				switch (check.getState()) {
 					case SUCCEEDED -> {
-						writer.write("STATUS: SUCCESS\nRESULTS:\n");
-						for (var result : check.getResults()) {
-							writer.write(REPORT_CHECK_RESULT.formatted(result.diagnosis().getSeverity(), result.getDescription()));
+						if (check.getUnchangedSince() != null) {
+							writer.write("STATUS: SUCCESS\nNOT RUN: Vault unchanged since last clean pass at %s\n".formatted(check.getUnchangedSince()));
+						} else {
+							writer.write("STATUS: SUCCESS\nRESULTS:\n");
+							writeResults(check, writer);
 						}
 					}
 					case CANCELLED -> writer.write("STATUS: CANCELED\n");
@@ -80,6 +83,15 @@ public class ReportWriter {
 		reveal();
 	}
 
+	private void writeResults(Check check, Writer writer) throws IOException {
+		var reportFile = check.getReportFile();
+		if (reportFile != null) {
+			try (var reader = Files.newBufferedReader(reportFile, StandardCharsets.UTF_8)) {
+				reader.transferTo(writer); // streamed, as the results kept in memory might be incomplete
+			}
+		}
+	}
+
 	private String prepareFailureMsg(Check check) {
 		if (check.getError() != null) {
 			return Throwables.getStackTraceAsString(check.getError()) //
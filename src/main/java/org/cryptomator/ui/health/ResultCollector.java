@@ -0,0 +1,100 @@
+package org.cryptomator.ui.health;
+
+import com.google.common.collect.Comparators;
+import org.cryptomator.cryptofs.health.api.DiagnosticResult;
+
+import javafx.application.Platform;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Collects the diagnoses of a single check run.
+ * <p>
+ * Every diagnosis is appended to the check's {@link Check#getReportFile() report file} right away. In memory, only the per-severity counts and
+ * the first {@value #MAX_RESULTS_IN_MEMORY} results are kept. These are published to the FX application thread in batches, with at most one
+ * batch pending at any time, so that even checks producing huge numbers of diagnoses don't flood the FX event queue.
+ */
+class ResultCollector implements Consumer<DiagnosticResult>, Closeable {
+
+	static final int MAX_RESULTS_IN_MEMORY = 10_000;
+	private static final DiagnosticResult.Severity[] SEVERITIES = DiagnosticResult.Severity.values();
+
+	private final Check check;
+	private final Function<DiagnosticResult, Result> resultFactory;
+	private final BufferedWriter reportWriter;
+	private final Queue<Result> pendingResults = new ConcurrentLinkedQueue<>();
+	private final AtomicLongArray severityCounts = new AtomicLongArray(SEVERITIES.length);
+	private final AtomicInteger retainedResults = new AtomicInteger();
+	private final AtomicBoolean publishPending = new AtomicBoolean();
+	private volatile DiagnosticResult.Severity highestSeverity = DiagnosticResult.Severity.GOOD;
+
+	/**
+	 * @param check The check whose diagnoses to collect
+	 * @param reportFile The file to write all diagnoses to
+	 * @param resultFactory Creates the in-memory representation of a diagnosis, invoked on the checking thread
+	 * @throws IOException If the report file can't be opened
+	 */
+	ResultCollector(Check check, Path reportFile, Function<DiagnosticResult, Result> resultFactory) throws IOException {
+		this.check = check;
+		this.resultFactory = resultFactory;
+		this.reportWriter = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8);
+		check.setReportFile(reportFile);
+	}
+
+	@Override
+	public void accept(DiagnosticResult diagnosis) {
+		try {
+			reportWriter.write(ReportWriter.REPORT_CHECK_RESULT.formatted(diagnosis.getSeverity(), diagnosis));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		severityCounts.incrementAndGet(diagnosis.getSeverity().ordinal());
+		highestSeverity = Comparators.max(highestSeverity, diagnosis.getSeverity());
+		if (retainedResults.getAndUpdate(n -> Math.min(n + 1, MAX_RESULTS_IN_MEMORY)) < MAX_RESULTS_IN_MEMORY) {
+			pendingResults.add(resultFactory.apply(diagnosis));
+		}
+		if (publishPending.compareAndSet(false, true)) {
+			Platform.runLater(this::publish);
+		}
+	}
+
+	private void publish() {
+		publishPending.set(false);
+		var batch = new ArrayList<Result>();
+		Result result;
+		while ((result = pendingResults.poll()) != null) {
+			batch.add(result);
+		}
+		check.getResults().addAll(batch);
+		long total = 0;
+		for (var severity : SEVERITIES) {
+			long count = severityCounts.get(severity.ordinal());
+			check.severityCountProperty(severity).set(count);
+			total += count;
+		}
+		check.setDiagnosisCount(total);
+	}
+
+	DiagnosticResult.Severity getHighestSeverity() {
+		return highestSeverity;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reportWriter.close();
+	}
+
+}
@@ -1,9 +1,12 @@
 package org.cryptomator.ui.health;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.cryptomator.common.settings.Settings;
 import org.cryptomator.common.vaults.Vault;
 import org.cryptomator.cryptofs.VaultConfig;
 import org.cryptomator.cryptofs.health.api.DiagnosticResult;
+import org.cryptomator.cryptolib.api.Cryptor;
 import org.cryptomator.cryptolib.api.CryptorProvider;
 import org.cryptomator.cryptolib.api.Masterkey;
 import org.slf4j.Logger;
@@ -11,33 +14,73 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javafx.application.Platform;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.SimpleLongProperty;
 import java.nio.file.Path;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Applies the fixes of {@link Result results}, either one at a time or {@link #fixAll(Collection) in bulk}.
+ * <p>
+ * A bulk fix groups the results by diagnosis type and processes the groups one after another. Only fixes of the {@link #PARALLEL_FIX_TYPES types}
+ * known to touch nothing but their own node of the vault are spread across a pool bounded by {@link Settings#healthCheckConcurrency}, each worker
+ * reusing a single cryptor. All other fixes, e.g. those moving orphaned files into a shared recovery directory, are applied one after another.
+ * Failed fixes are not retried, as not all of them are idempotent.
+ */
 @HealthCheckScoped
 class ResultFixApplier {
 
 	private static final Logger LOG = LoggerFactory.getLogger(ResultFixApplier.class);
+	private static final Set<String> PARALLEL_FIX_TYPES = Set.of("MissingDirIdBackup", "TrailingBytesInNameFile"); // simple names of diagnosis classes
+	private static final long IDLE_THREAD_TIMEOUT_SECONDS = 10;
 
 	private final Path vaultPath;
 	private final SecureRandom csprng;
 	private final Masterkey masterkey;
 	private final VaultConfig vaultConfig;
 	private final ExecutorService sequentialExecutor;
+	private final ExecutorService bulkExecutor;
+	private final int bulkConcurrency;
+	private final ReadOnlyBooleanWrapper bulkFixRunning = new ReadOnlyBooleanWrapper();
+	private final LongProperty bulkFixTotal = new SimpleLongProperty();
+	private final LongProperty bulkFixFixed = new SimpleLongProperty();
+	private final LongProperty bulkFixFailed = new SimpleLongProperty();
 
 	@Inject
-	public ResultFixApplier(@HealthCheckWindow Vault vault, AtomicReference<Masterkey> masterkeyRef, AtomicReference<VaultConfig> vaultConfigRef, SecureRandom csprng) {
+	public ResultFixApplier(@HealthCheckWindow Vault vault, AtomicReference<Masterkey> masterkeyRef, AtomicReference<VaultConfig> vaultConfigRef, SecureRandom csprng, Settings settings) {
 		this.vaultPath = vault.getPath();
 		this.masterkey = masterkeyRef.get();
 		this.vaultConfig = vaultConfigRef.get();
 		this.csprng = csprng;
 		this.sequentialExecutor = Executors.newSingleThreadExecutor();
+		this.bulkConcurrency = Math.clamp(settings.healthCheckConcurrency.get(), 1, Runtime.getRuntime().availableProcessors());
+		var pool = new ThreadPoolExecutor(bulkConcurrency + 1, bulkConcurrency + 1, IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setNameFormat("health-fix-%d").setDaemon(true).build()); // +1 for the coordinating task
+		pool.allowCoreThreadTimeOut(true); // this executor lives as long as its health check window, don't keep idle threads around after closing it
+		this.bulkExecutor = pool;
 	}
 
 	public CompletionStage<Void> fix(Result result) {
@@ -57,17 +100,161 @@ class ResultFixApplier {
 				}, Platform::runLater);
 	}
 
+	/**
+	 * Applies the fixes of all given results that are still {@link Result.FixState#FIXABLE fixable}. Must be called on the FX application thread.
+	 * <p>
+	 * Progress is published via {@link #bulkFixFixedProperty()} and {@link #bulkFixFailedProperty()}.
+	 *
+	 * @param results The results to fix
+	 * @return A stage completing on the FX application thread after all fixes have been attempted
+	 */
+	public CompletionStage<Void> fixAll(Collection<Result> results) {
+		Preconditions.checkState(!bulkFixRunning.get(), "Bulk fix already running.");
+		var groups = new LinkedHashMap<Class<?>, List<Result>>();
+		for (var result : results) {
+			if (result.getState() == Result.FixState.FIXABLE) {
+				result.setState(Result.FixState.FIXING);
+				groups.computeIfAbsent(result.diagnosis().getClass(), k -> new ArrayList<>()).add(result);
+			}
+		}
+		long total = groups.values().stream().mapToLong(List::size).sum();
+		bulkFixTotal.set(total);
+		bulkFixFixed.set(0);
+		bulkFixFailed.set(0);
+		bulkFixRunning.set(true);
+		var progress = new BulkFixProgress();
+		return CompletableFuture.runAsync(() -> {
+			for (var group : groups.entrySet()) {
+				LOG.debug("Applying {} fixes for {}", group.getValue().size(), group.getKey().getName());
+				if (PARALLEL_FIX_TYPES.contains(group.getKey().getSimpleName())) {
+					fixInParallel(group.getValue(), progress);
+				} else {
+					fixSequentially(group.getValue(), progress);
+				}
+			}
+		}, bulkExecutor).whenCompleteAsync((unused, throwable) -> {
+			progress.publish();
+			bulkFixRunning.set(false);
+			if (throwable != null) {
+				LOG.error("Bulk fix aborted", throwable);
+				groups.values().stream().flatMap(List::stream).filter(r -> r.getState() == Result.FixState.FIXING).forEach(r -> r.setState(Result.FixState.FIX_FAILED));
+			} else {
+				LOG.info("Bulk fix finished: {} of {} fixes applied, {} failed.", bulkFixFixed.get(), total, bulkFixFailed.get());
+			}
+		}, Platform::runLater);
+	}
+
+	private void fixInParallel(List<Result> group, BulkFixProgress progress) {
+		int workers = Math.min(bulkConcurrency, group.size());
+		var tasks = new ArrayList<Callable<Void>>(workers);
+		for (int w = 0; w < workers; w++) {
+			var partition = new ArrayList<Result>();
+			for (int i = w; i < group.size(); i += workers) {
+				partition.add(group.get(i));
+			}
+			tasks.add(() -> fixSequentially(partition, progress));
+		}
+		try {
+			for (Future<Void> future : bulkExecutor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CompletionException(e);
+		} catch (ExecutionException e) {
+			throw new CompletionException(e.getCause());
+		}
+	}
+
+	/**
+	 * @param results The results to fix with a single cryptor
+	 * @param progress Progress to report outcomes to
+	 * @return <code>null</code>
+	 */
+	private Void fixSequentially(Collection<Result> results, BulkFixProgress progress) {
+		try (var masterkeyClone = masterkey.copy(); //
+			 var cryptor = CryptorProvider.forScheme(vaultConfig.getCipherCombo()).provide(masterkeyClone, csprng)) {
+			for (var result : results) {
+				try {
+					fix(result.diagnosis(), masterkeyClone, cryptor);
+					progress.completed(result, Result.FixState.FIXED);
+				} catch (Exception e) {
+					LOG.error("Failed to apply fix for {}", result.diagnosis().getClass().getName(), e);
+					progress.completed(result, Result.FixState.FIX_FAILED);
+				}
+			}
+		}
+		return null;
+	}
+
 	private void fix(DiagnosticResult diagnosis) {
 		try (var masterkeyClone = masterkey.copy(); //
 			 var cryptor = CryptorProvider.forScheme(vaultConfig.getCipherCombo()).provide(masterkeyClone, csprng)) {
-			diagnosis.getFix(vaultPath, vaultConfig, masterkeyClone, cryptor) //
-					.orElseThrow(() -> new IllegalStateException("No fix for diagnosis " + diagnosis.getClass().getName() + " implemented.")) //
-					.apply();
+			fix(diagnosis, masterkeyClone, cryptor);
 		} catch (Exception e) {
 			throw new FixFailedException(e);
 		}
 	}
 
+	private void fix(DiagnosticResult diagnosis, Masterkey masterkey, Cryptor cryptor) throws Exception {
+		diagnosis.getFix(vaultPath, vaultConfig, masterkey, cryptor) //
+				.orElseThrow(() -> new IllegalStateException("No fix for diagnosis " + diagnosis.getClass().getName() + " implemented.")) //
+				.apply();
+	}
+
+	/* Getter */
+
+	public ReadOnlyBooleanProperty bulkFixRunningProperty() {
+		return bulkFixRunning.getReadOnlyProperty();
+	}
+
+	public boolean isBulkFixRunning() {
+		return bulkFixRunning.get();
+	}
+
+	public ReadOnlyLongProperty bulkFixTotalProperty() {
+		return bulkFixTotal;
+	}
+
+	public ReadOnlyLongProperty bulkFixFixedProperty() {
+		return bulkFixFixed;
+	}
+
+	public ReadOnlyLongProperty bulkFixFailedProperty() {
+		return bulkFixFailed;
+	}
+
+	/**
+	 * Collects the outcomes of a bulk fix and publishes them to the FX application thread in batches.
+	 */
+	private class BulkFixProgress {
+
+		private final Queue<Outcome> pendingOutcomes = new ConcurrentLinkedQueue<>();
+		private final AtomicLong fixed = new AtomicLong();
+		private final AtomicLong failed = new AtomicLong();
+		private final AtomicBoolean publishPending = new AtomicBoolean();
+
+		void completed(Result result, Result.FixState state) {
+			(state == Result.FixState.FIXED ? fixed : failed).incrementAndGet();
+			pendingOutcomes.add(new Outcome(result, state));
+			if (publishPending.compareAndSet(false, true)) {
+				Platform.runLater(this::publish);
+			}
+		}
+
+		void publish() {
+			publishPending.set(false);
+			Outcome outcome;
+			while ((outcome = pendingOutcomes.poll()) != null) {
+				outcome.result.setState(outcome.state);
+			}
+			bulkFixFixed.set(fixed.get());
+			bulkFixFailed.set(failed.get());
+		}
+
+		private record Outcome(Result result, Result.FixState state) {}
+	}
+
 	public static class FixFailedException extends CompletionException {
 
 		private FixFailedException(Throwable cause) {
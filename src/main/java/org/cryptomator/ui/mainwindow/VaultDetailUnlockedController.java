@@ -62,6 +62,10 @@ public class VaultDetailUnlockedController implements FxController {
 	private final ObservableValue<Boolean> accessibleViaPath;
 	private final ObservableValue<Boolean> accessibleViaUri;
 	private final ObservableValue<String> mountPoint;
+	private final ObservableValue<Boolean> integrityScanFindings;
+	private final ObservableValue<Boolean> warmingUp;
+	private final ObservableValue<String> warmUpStatus;
+	private final ObservableValue<Vault> observedVault; // the selected vault, while it is unlocked and the main window is showing
 	private final BooleanProperty draggingOver = new SimpleBooleanProperty();
 	private final BooleanProperty ciphertextPathsCopied = new SimpleBooleanProperty();
 
@@ -89,6 +93,27 @@ public class VaultDetailUnlockedController implements FxController {
 				return m.uri().toASCIIString();
 			}
 		});
+
+		this.integrityScanFindings = vault.flatMap(Vault::integrityScanFindingsProperty).map(p -> true).orElse(false);
+		var warmUpProgress = vault.flatMap(Vault::warmUpProgressProperty);
+		this.warmingUp = warmUpProgress.map(p -> true).orElse(false);
+		this.warmUpStatus = warmUpProgress.map(p -> String.format(resourceBundle.getString("main.vaultDetail.warmUpProgress"), p.directoriesVisited(), p.directoriesDiscovered())).orElse("");
+
+		// the throughput labels are bound to the selected vault's stats, hence keep them updated while they are visible:
+		this.observedVault = mainWindow.showingProperty() //
+				.flatMap(showing -> showing ? vault : null) //
+				.flatMap(v -> v.unlockedProperty().map(unlocked -> unlocked ? v : null));
+		observedVault.addListener((observable, oldVault, newVault) -> {
+			if (oldVault != null) {
+				oldVault.getStats().stopObserving();
+			}
+			if (newVault != null) {
+				newVault.getStats().startObserving();
+			}
+		});
+		if (observedVault.getValue() != null) {
+			observedVault.getValue().getStats().startObserving();
+		}
 	}
 
 	public void initialize() {
@@ -138,6 +163,14 @@ public class VaultDetailUnlockedController implements FxController {
 		Clipboard.getSystemClipboard().setContent(clipboardContent);
 	}
 
+	@FXML
+	public void revealIntegrityScanReport() {
+		var report = vault.get().getIntegrityScanFindings();
+		if (report != null) {
+			revealOrCopyPaths(List.of(report));
+		}
+	}
+
 	@FXML
 	public void lock() {
 		appWindows.startLockWorkflow(vault.get(), mainWindow);
@@ -240,6 +273,30 @@ public class VaultDetailUnlockedController implements FxController {
 		return mountPoint.getValue();
 	}
 
+	public ObservableValue<Boolean> integrityScanFindingsProperty() {
+		return integrityScanFindings;
+	}
+
+	public boolean isIntegrityScanFindings() {
+		return integrityScanFindings.getValue();
+	}
+
+	public ObservableValue<Boolean> warmingUpProperty() {
+		return warmingUp;
+	}
+
+	public boolean isWarmingUp() {
+		return warmingUp.getValue();
+	}
+
+	public ObservableValue<String> warmUpStatusProperty() {
+		return warmUpStatus;
+	}
+
+	public String getWarmUpStatus() {
+		return warmUpStatus.getValue();
+	}
+
 	public BooleanProperty ciphertextPathsCopiedProperty() {
 		return ciphertextPathsCopied;
 	}
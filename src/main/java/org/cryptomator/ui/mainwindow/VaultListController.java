@@ -10,8 +10,6 @@ import org.cryptomator.ui.common.FxController;
 import org.cryptomator.ui.common.VaultService;
 import org.cryptomator.ui.fxapp.FxApplicationWindows;
 import org.cryptomator.ui.removevault.RemoveVaultComponent;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javafx.beans.binding.Bindings;
@@ -55,8 +53,6 @@ import static org.cryptomator.common.vaults.VaultState.Value.NEEDS_MIGRATION;
 @MainWindowScoped
 public class VaultListController implements FxController {
 
-	private static final Logger LOG = LoggerFactory.getLogger(VaultListController.class);
-
 	private final Stage mainWindow;
 	private final ObservableList<Vault> vaults;
 	private final VaultService vaultService;
@@ -215,7 +211,7 @@ public class VaultListController implements FxController {
 		} else if (DragEvent.DRAG_DROPPED.equals(event.getEventType()) && event.getGestureSource() == null && event.getDragboard().hasFiles()) {
 			Set<Path> vaultPaths = event.getDragboard().getFiles().stream().map(File::toPath).filter(this::containsVault).collect(Collectors.toSet());
 			if (!vaultPaths.isEmpty()) {
-				vaultPaths.forEach(this::addVault);
+				vaultListManager.addAll(vaultPaths.stream().map(this::vaultDirectory).toList());
 			}
 			event.setDropCompleted(!vaultPaths.isEmpty());
 			event.consume();
@@ -235,15 +231,11 @@ public class VaultListController implements FxController {
 		}
 	}
 
-	private void addVault(Path pathToVault) {
-		try {
-			if (pathToVault.getFileName().toString().endsWith(CRYPTOMATOR_FILENAME_EXT)) {
-				vaultListManager.add(pathToVault.getParent());
-			} else {
-				vaultListManager.add(pathToVault);
-			}
-		} catch (IOException e) {
-			LOG.debug("Not a vault: {}", pathToVault);
+	private Path vaultDirectory(Path pathToVault) {
+		if (pathToVault.getFileName().toString().endsWith(CRYPTOMATOR_FILENAME_EXT)) {
+			return pathToVault.getParent();
+		} else {
+			return pathToVault;
 		}
 	}
 
@@ -119,11 +119,19 @@ public class VaultStatisticsController implements FxController {
 			this.encryptedBytesWrite = writeData;
 			this.accessedFiles = accessData;
 
-			// initialize data once and change value of data points later:
+			// initialize data once from the recorded history and change value of data points later:
+			long[] readHistory = new long[IO_SAMPLING_STEPS];
+			long[] writeHistory = new long[IO_SAMPLING_STEPS];
+			long[] accessHistory = new long[IO_SAMPLING_STEPS];
+			stats.bytesReadHistory().copyTo(readHistory);
+			stats.bytesWrittenHistory().copyTo(writeHistory);
+			stats.filesAccessedHistory().copyTo(accessHistory);
 			for (int i = 0; i < IO_SAMPLING_STEPS; i++) {
-				decryptedBytesRead.getData().add(new Data<>(i, 0));
-				encryptedBytesWrite.getData().add(new Data<>(i, 0));
-				accessedFiles.getData().add(new Data<>(i, 0));
+				decryptedBytesRead.getData().add(new Data<>(i, readHistory[i]));
+				encryptedBytesWrite.getData().add(new Data<>(i, writeHistory[i]));
+				accessedFiles.getData().add(new Data<>(i, accessHistory[i]));
+				maxBuf[i] = Math.max(readHistory[i], writeHistory[i]);
+				maxAccessBuf[i] = accessHistory[i];
 			}
 		}
 
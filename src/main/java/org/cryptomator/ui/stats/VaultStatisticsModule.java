@@ -53,7 +53,7 @@ abstract class VaultStatisticsModule {
 				}
 			}
 		});
-		stage.setOnCloseRequest(windowEvent -> vault.showingStatsProperty().setValue(false));
+		stage.showingProperty().addListener((observable, wasShowing, isShowing) -> vault.showingStatsProperty().setValue(isShowing));
 		return stage;
 	}
 
@@ -100,6 +100,18 @@ public class AwtTrayMenuController implements TrayMenuController {
 		});
 	}
 
+	/**
+	 * Shows a notification balloon next to the tray icon. Not part of the {@link TrayMenuController} API, hence only available with this implementation.
+	 *
+	 * @param caption The notification's caption
+	 * @param text The notification's text
+	 */
+	void showWarning(String caption, String text) {
+		if (trayIcon != null) {
+			trayIcon.displayMessage(caption, text, TrayIcon.MessageType.WARNING);
+		}
+	}
+
 	private void addChildren(Menu menu, List<TrayMenuItem> items) {
 		for (var item : items) {
 			switch (item) {
@@ -3,7 +3,8 @@ package org.cryptomator.ui.traymenu;
 import com.google.common.base.Preconditions;
 import org.apache.commons.lang3.SystemUtils;
 import org.cryptomator.common.vaults.Vault;
-import org.cryptomator.common.vaults.VaultListManager;
+import org.cryptomator.common.vaults.VaultState;
+import org.cryptomator.common.vaults.VaultStateRefresher;
 import org.cryptomator.integrations.tray.ActionItem;
 import org.cryptomator.integrations.tray.SeparatorItem;
 import org.cryptomator.integrations.tray.SubMenuItem;
@@ -20,12 +21,16 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
 import javafx.beans.Observable;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
@@ -43,41 +48,55 @@ public class TrayMenuBuilder {
 	private final FxApplicationWindows appWindows;
 	private final FxApplicationTerminator appTerminator;
 	private final ObservableList<Vault> vaults;
+	private final VaultStateRefresher vaultStateRefresher;
 	private final TrayMenuController trayMenu;
+	private final InvalidationListener vaultChangedListener = this::vaultChanged;
+	private final Map<Vault, VaultMenuEntry> vaultMenuEntries = new HashMap<>(); // accessed on FX thread only
+	private final TrayMenuItem showMainWindowItem;
+	private final TrayMenuItem showPreferencesItem;
+	private final TrayMenuItem lockAllVaultsItem;
+	private final TrayMenuItem lockAllVaultsDisabledItem;
+	private final TrayMenuItem quitItem;
+	private final TrayMenuItem separator = new SeparatorItem();
+	private List<TrayMenuItem> currentMenu = List.of();
+	private boolean menuUpdatePending;
+	private boolean trayIconShowsUnlocked;
 
 	private volatile boolean initialized;
 
 	@Inject
-	TrayMenuBuilder(ResourceBundle resourceBundle, VaultService vaultService, FxApplicationWindows appWindows, FxApplicationTerminator appTerminator, ObservableList<Vault> vaults, Optional<TrayMenuController> trayMenu) {
+	TrayMenuBuilder(ResourceBundle resourceBundle, VaultService vaultService, FxApplicationWindows appWindows, FxApplicationTerminator appTerminator, ObservableList<Vault> vaults, VaultStateRefresher vaultStateRefresher, Optional<TrayMenuController> trayMenu) {
 		this.resourceBundle = resourceBundle;
 		this.vaultService = vaultService;
 		this.appWindows = appWindows;
 		this.appTerminator = appTerminator;
 		this.vaults = vaults;
+		this.vaultStateRefresher = vaultStateRefresher;
 		this.trayMenu = trayMenu.orElse(null);
+		this.showMainWindowItem = new ActionItem(resourceBundle.getString("traymenu.showMainWindow"), this::showMainWindow);
+		this.showPreferencesItem = new ActionItem(resourceBundle.getString("traymenu.showPreferencesWindow"), this::showPreferencesWindow);
+		this.lockAllVaultsItem = new ActionItem(resourceBundle.getString("traymenu.lockAllVaults"), this::lockAllVaults, true);
+		this.lockAllVaultsDisabledItem = new ActionItem(resourceBundle.getString("traymenu.lockAllVaults"), this::lockAllVaults, false);
+		this.quitItem = new ActionItem(resourceBundle.getString("traymenu.quitApplication"), this::quitApplication);
 	}
 
 	public synchronized void initTrayMenu() {
 		Preconditions.checkState(!initialized, "tray icon already initialized");
 
 		vaults.addListener(this::vaultListChanged);
-		vaults.forEach(v -> {
-			v.displayNameProperty().addListener(this::vaultListChanged);
-		});
+		vaults.forEach(v -> v.displayNameProperty().addListener(vaultChangedListener));
+		vaults.forEach(v -> v.integrityScanFindingsProperty().addListener(vaultChangedListener));
 
 		try {
+			trayIconShowsUnlocked = isAnyVaultUnlocked();
 			trayMenu.showTrayIcon(loader -> {
 				switch (loader) {
 					case TrayIconLoader.PngData l -> l.loadPng(getAppropriateTrayIconImage());
 					case TrayIconLoader.FreedesktopIconName l -> l.lookupByName(getAppropriateFreedesktopIconName());
 				}
 			}, this::showMainWindow, "Cryptomator");
-			trayMenu.onBeforeOpenMenu(() -> {
-				for (Vault vault : vaults) {
-					VaultListManager.redetermineVaultState(vault);
-				}
-			});
-			rebuildMenu();
+			trayMenu.onBeforeOpenMenu(() -> Platform.runLater(vaultStateRefresher::refreshAllIfStale)); // don't block opening the menu, changes are applied as they are detected
+			updateMenu();
 			initialized = true;
 		} catch (TrayMenuException e) {
 			LOG.error("Adding tray icon failed", e);
@@ -88,44 +107,117 @@ public class TrayMenuBuilder {
 		return initialized;
 	}
 
-	private void vaultListChanged(@SuppressWarnings("unused") Observable observable) {
-		assert Platform.isFxApplicationThread();
-		trayMenu.updateTrayIcon(loader -> {
-			switch (loader) {
-				case TrayIconLoader.PngData l -> l.loadPng(getAppropriateTrayIconImage());
-				case TrayIconLoader.FreedesktopIconName l -> l.lookupByName(getAppropriateFreedesktopIconName());
+	private void vaultListChanged(ListChangeListener.Change<? extends Vault> c) {
+		while (c.next()) {
+			for (var removed : c.getRemoved()) {
+				removed.displayNameProperty().removeListener(vaultChangedListener);
+				removed.integrityScanFindingsProperty().removeListener(vaultChangedListener);
+				vaultMenuEntries.remove(removed);
+			}
+			for (var added : c.getAddedSubList()) {
+				added.displayNameProperty().addListener(vaultChangedListener);
+				added.integrityScanFindingsProperty().addListener(vaultChangedListener);
 			}
-		});
-		rebuildMenu();
+		}
+		scheduleMenuUpdate();
+	}
+
+	private void vaultChanged(@SuppressWarnings("unused") Observable observable) {
+		scheduleMenuUpdate();
 	}
 
-	private void rebuildMenu() {
-		List<TrayMenuItem> menu = new ArrayList<>();
+	/**
+	 * Coalesces all changes occurring within the same pulse into a single menu update.
+	 */
+	private void scheduleMenuUpdate() {
+		assert Platform.isFxApplicationThread();
+		if (!menuUpdatePending) {
+			menuUpdatePending = true;
+			Platform.runLater(this::updateMenu);
+		}
+	}
 
-		menu.add(new ActionItem(resourceBundle.getString("traymenu.showMainWindow"), this::showMainWindow));
-		menu.add(new ActionItem(resourceBundle.getString("traymenu.showPreferencesWindow"), this::showPreferencesWindow));
-		menu.add(new SeparatorItem());
+	/**
+	 * Updates the tray icon and menu, reusing the items of all vaults whose name, state and integrity scan findings didn't change. The tray menu
+	 * is only replaced if any item actually changed.
+	 */
+	private void updateMenu() {
+		menuUpdatePending = false;
+		boolean anyVaultUnlocked = isAnyVaultUnlocked();
+		if (anyVaultUnlocked != trayIconShowsUnlocked) {
+			trayIconShowsUnlocked = anyVaultUnlocked;
+			trayMenu.updateTrayIcon(loader -> {
+				switch (loader) {
+					case TrayIconLoader.PngData l -> l.loadPng(getAppropriateTrayIconImage());
+					case TrayIconLoader.FreedesktopIconName l -> l.lookupByName(getAppropriateFreedesktopIconName());
+				}
+			});
+		}
+
+		List<TrayMenuItem> menu = new ArrayList<>(vaults.size() + 6);
+		menu.add(showMainWindowItem);
+		menu.add(showPreferencesItem);
+		menu.add(separator);
 		for (Vault vault : vaults) {
-			List<TrayMenuItem> submenu = buildSubmenu(vault);
-			var label = vault.isUnlocked() ? "* ".concat(vault.getDisplayName()) : vault.getDisplayName();
-			menu.add(new SubMenuItem(label, submenu));
+			menu.add(getVaultMenuItem(vault));
 		}
-		menu.add(new SeparatorItem());
-		menu.add(new ActionItem(resourceBundle.getString("traymenu.lockAllVaults"), this::lockAllVaults, vaults.stream().anyMatch(Vault::isUnlocked)));
-		menu.add(new ActionItem(resourceBundle.getString("traymenu.quitApplication"), this::quitApplication));
+		menu.add(separator);
+		menu.add(anyVaultUnlocked ? lockAllVaultsItem : lockAllVaultsDisabledItem);
+		menu.add(quitItem);
 
+		if (menu.equals(currentMenu)) {
+			return;
+		}
 		try {
 			trayMenu.updateTrayMenu(menu);
+			currentMenu = menu;
 		} catch (TrayMenuException e) {
 			LOG.error("Updating tray menu failed", e);
 		}
 	}
 
+	private TrayMenuItem getVaultMenuItem(Vault vault) {
+		var displayName = vault.getDisplayName();
+		var state = vault.getState();
+		var integrityIssues = vault.getIntegrityScanFindings() != null;
+		var entry = vaultMenuEntries.get(vault);
+		if (entry == null || entry.state() != state || !entry.displayName().equals(displayName) || entry.integrityIssues() != integrityIssues) {
+			if (integrityIssues && (entry == null || !entry.integrityIssues())) {
+				notifyIntegrityIssues(vault);
+			}
+			var label = vault.isUnlocked() ? "* ".concat(displayName) : displayName;
+			label = integrityIssues ? "\u26A0 ".concat(label) : label;
+			entry = new VaultMenuEntry(displayName, state, integrityIssues, new SubMenuItem(label, buildSubmenu(vault)));
+			vaultMenuEntries.put(vault, entry);
+		}
+		return entry.item();
+	}
+
+	/**
+	 * Raises a system notification, if supported by the tray implementation. In any case, the vault's menu entry gets marked.
+	 */
+	private void notifyIntegrityIssues(Vault vault) {
+		if (trayMenu instanceof AwtTrayMenuController awtTrayMenu) {
+			var message = String.format(resourceBundle.getString("traymenu.integrityScanFindings.message"), vault.getDisplayName());
+			awtTrayMenu.showWarning(resourceBundle.getString("traymenu.integrityScanFindings.title"), message);
+		}
+	}
+
+	private boolean isAnyVaultUnlocked() {
+		return vaults.stream().anyMatch(Vault::isUnlocked);
+	}
+
 	private List<TrayMenuItem> buildSubmenu(Vault vault) {
 		if (vault.isLocked()) {
 			return List.of( //
 					new ActionItem(resourceBundle.getString("traymenu.vault.unlock"), () -> this.unlockVault(vault)) //
 			);
+		} else if (vault.isUnlocked() && vault.getIntegrityScanFindings() != null) {
+			return List.of( //
+					new ActionItem(resourceBundle.getString("traymenu.vault.lock"), () -> this.lockVault(vault)), //
+					new ActionItem(resourceBundle.getString("traymenu.vault.reveal"), () -> this.revealVault(vault)), //
+					new ActionItem(resourceBundle.getString("traymenu.vault.integrityScanFindings"), this::showMainWindow) //
+			);
 		} else if (vault.isUnlocked()) {
 			return List.of( //
 					new ActionItem(resourceBundle.getString("traymenu.vault.lock"), () -> this.lockVault(vault)), //
@@ -167,7 +259,7 @@ public class TrayMenuBuilder {
 	}
 
 	private byte[] getAppropriateTrayIconImage() {
-		boolean isAnyVaultUnlocked = vaults.stream().anyMatch(Vault::isUnlocked);
+		boolean isAnyVaultUnlocked = isAnyVaultUnlocked();
 
 		String resourceName;
 		if (SystemUtils.IS_OS_MAC_OSX) {
@@ -185,7 +277,9 @@ public class TrayMenuBuilder {
 	}
 
 	private String getAppropriateFreedesktopIconName() {
-		boolean isAnyVaultUnlocked = vaults.stream().anyMatch(Vault::isUnlocked);
+		boolean isAnyVaultUnlocked = isAnyVaultUnlocked();
 		return isAnyVaultUnlocked ? "org.cryptomator.Cryptomator.tray-unlocked-symbolic" : "org.cryptomator.Cryptomator.tray-symbolic";
 	}
+
+	private record VaultMenuEntry(String displayName, VaultState.Value state, boolean integrityIssues, TrayMenuItem item) {}
 }
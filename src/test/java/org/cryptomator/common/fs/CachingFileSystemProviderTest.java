@@ -0,0 +1,122 @@
+package org.cryptomator.common.fs;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CachingFileSystemProviderTest {
+
+	@TempDir
+	Path tmpDir;
+	private MetadataCacheStats stats;
+	private Path dir;
+
+	@BeforeEach
+	public void setup() {
+		stats = new MetadataCacheStats();
+		var root = new CachingFileSystemProvider(tmpDir.getRoot(), stats).getRoot();
+		dir = root.getFileSystem().getPath(tmpDir.toString());
+	}
+
+	private static List<String> list(Path dir) throws IOException {
+		var names = new ArrayList<String>();
+		try (var stream = Files.newDirectoryStream(dir)) {
+			stream.forEach(p -> names.add(p.getFileName().toString()));
+		}
+		names.sort(null);
+		return names;
+	}
+
+	@Test
+	public void testRepeatedReadsAreServedFromCache() throws IOException {
+		var file = dir.resolve("file.txt");
+		Files.writeString(file, "hello");
+
+		var attrs1 = Files.readAttributes(file, BasicFileAttributes.class);
+		var attrs2 = Files.readAttributes(file, BasicFileAttributes.class);
+		var list1 = list(dir);
+		var list2 = list(dir);
+
+		Assertions.assertSame(attrs1, attrs2);
+		Assertions.assertEquals(List.of("file.txt"), list1);
+		Assertions.assertEquals(list1, list2);
+		Assertions.assertEquals(2, stats.getHits());
+		Assertions.assertEquals(2, stats.getMisses());
+	}
+
+	@Test
+	public void testAbsentFilesAreCached() {
+		var file = dir.resolve("nonexistent");
+
+		Assertions.assertFalse(Files.exists(file));
+		Assertions.assertFalse(Files.exists(file));
+
+		Assertions.assertEquals(1, stats.getHits());
+		Assertions.assertEquals(1, stats.getMisses());
+	}
+
+	@Test
+	public void testCreateAndDeleteInvalidate() throws IOException {
+		var file = dir.resolve("file.txt");
+		Assertions.assertFalse(Files.exists(file));
+		Assertions.assertEquals(List.of(), list(dir));
+
+		Files.writeString(file, "hello");
+		Assertions.assertTrue(Files.exists(file));
+		Assertions.assertEquals(List.of("file.txt"), list(dir));
+
+		Files.delete(file);
+		Assertions.assertThrows(NoSuchFileException.class, () -> Files.readAttributes(file, BasicFileAttributes.class));
+		Assertions.assertEquals(List.of(), list(dir));
+	}
+
+	@Test
+	public void testWriteInvalidatesAttributes() throws IOException {
+		var file = dir.resolve("file.txt");
+		Files.writeString(file, "hello");
+		Assertions.assertEquals(5, Files.size(file));
+
+		Files.writeString(file, "hello world");
+
+		Assertions.assertEquals(11, Files.size(file));
+	}
+
+	@Test
+	public void testMoveInvalidatesDescendants() throws IOException {
+		var src = Files.createDirectory(dir.resolve("src"));
+		Files.writeString(src.resolve("file.txt"), "hello");
+		var dst = dir.resolve("dst");
+		Assertions.assertTrue(Files.exists(src.resolve("file.txt")));
+		Assertions.assertFalse(Files.exists(dst.resolve("file.txt")));
+
+		Files.move(src, dst);
+
+		Assertions.assertFalse(Files.exists(src.resolve("file.txt")));
+		Assertions.assertTrue(Files.exists(dst.resolve("file.txt")));
+		Assertions.assertEquals(List.of("dst"), list(dir));
+	}
+
+	@Test
+	public void testSettingTimesViaViewInvalidatesAttributes() throws IOException {
+		var file = dir.resolve("file.txt");
+		Files.writeString(file, "hello");
+		Files.readAttributes(file, BasicFileAttributes.class);
+		var time = FileTime.fromMillis(1_000_000_000_000L);
+
+		Files.getFileAttributeView(file, BasicFileAttributeView.class).setTimes(time, null, null);
+
+		Assertions.assertEquals(time, Files.getLastModifiedTime(file));
+	}
+
+}
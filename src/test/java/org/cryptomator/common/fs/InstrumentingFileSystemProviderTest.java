@@ -0,0 +1,87 @@
+package org.cryptomator.common.fs;
+
+import org.cryptomator.common.fs.FileSystemMetrics.Operation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+public class InstrumentingFileSystemProviderTest {
+
+	@TempDir
+	Path tmpDir;
+	private FileSystemMetrics metrics;
+	private Path dir;
+
+	@BeforeEach
+	public void setup() {
+		metrics = new FileSystemMetrics();
+		var root = new InstrumentingFileSystemProvider(tmpDir.getRoot(), metrics).getRoot();
+		dir = root.getFileSystem().getPath(tmpDir.toString());
+	}
+
+	private long count(Operation op) {
+		return metrics.snapshot().get(op).count();
+	}
+
+	@Test
+	public void testOperationsAreForwardedAndCounted() throws IOException {
+		var file = dir.resolve("file.txt");
+		var moved = dir.resolve("moved.txt");
+
+		Files.writeString(file, "hello");
+		var attrs = Files.readAttributes(file, BasicFileAttributes.class);
+		var content = Files.readString(file);
+		Files.move(file, moved);
+		try (var stream = Files.newDirectoryStream(dir)) {
+			Assertions.assertIterableEquals(List.of(moved), stream);
+		}
+		Files.delete(moved);
+
+		Assertions.assertEquals(5, attrs.size());
+		Assertions.assertEquals("hello", content);
+		Assertions.assertFalse(Files.exists(tmpDir.resolve("moved.txt")));
+		Assertions.assertEquals(2, count(Operation.NEW_BYTE_CHANNEL));
+		Assertions.assertEquals(1, count(Operation.WRITE));
+		Assertions.assertTrue(count(Operation.READ) >= 1);
+		Assertions.assertTrue(count(Operation.READ_ATTRIBUTES) >= 1);
+		Assertions.assertEquals(1, count(Operation.MOVE));
+		Assertions.assertEquals(1, count(Operation.LIST_DIRECTORY));
+		Assertions.assertEquals(1, count(Operation.DELETE));
+	}
+
+	@Test
+	public void testFailedOperationsAreCounted() {
+		Assertions.assertThrows(IOException.class, () -> Files.delete(dir.resolve("nonexistent")));
+
+		Assertions.assertEquals(1, count(Operation.DELETE));
+	}
+
+	@Test
+	public void testRejectsForeignPaths() {
+		Assertions.assertThrows(ProviderMismatchException.class, () -> dir.resolve(tmpDir));
+	}
+
+	@Test
+	public void testPercentiles() {
+		for (int i = 0; i < 99; i++) {
+			metrics.record(Operation.READ, System.nanoTime() - 1000); // ~1 µs
+		}
+		metrics.record(Operation.READ, System.nanoTime() - 1_000_000_000L); // ~1 s
+
+		var stats = metrics.snapshot().get(Operation.READ);
+
+		Assertions.assertEquals(100, stats.count());
+		Assertions.assertTrue(stats.p50().toNanos() >= 1000 && stats.p50().toNanos() < 1_000_000, () -> "p50 " + stats.p50());
+		Assertions.assertTrue(stats.p99().toNanos() < 1_000_000, () -> "p99 " + stats.p99());
+		Assertions.assertTrue(stats.total().toNanos() >= 1_000_000_000L);
+	}
+
+}
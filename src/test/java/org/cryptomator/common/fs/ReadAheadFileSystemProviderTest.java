@@ -0,0 +1,160 @@
+package org.cryptomator.common.fs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ReadAheadFileSystemProviderTest {
+
+	private static final int CHUNK_SIZE = 1024;
+	private static final int MAX_CHUNKS = 8;
+
+	@TempDir
+	Path tmpDir;
+	private ExecutorService executor;
+	private ChunkBudget budget;
+	private ReadAheadFileSystemProvider provider;
+	private Path file;
+	private byte[] content;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		executor = Executors.newFixedThreadPool(2);
+		budget = new ChunkBudget(MAX_CHUNKS);
+		provider = new ReadAheadFileSystemProvider(tmpDir.getRoot(), executor, CHUNK_SIZE, MAX_CHUNKS, budget);
+		file = provider.getRoot().getFileSystem().getPath(tmpDir.toString(), "file.bin");
+		content = new byte[100 * CHUNK_SIZE + 123];
+		new Random(42L).nextBytes(content);
+		Files.write(file, content);
+	}
+
+	@AfterEach
+	public void teardown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testSequentialReadReturnsContentAndPrefetches() throws IOException {
+		var result = ByteBuffer.allocate(content.length);
+		boolean prefetched = false;
+		try (var ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			var buf = ByteBuffer.allocate(300); // not aligned to chunks
+			while (ch.read(buf.clear()) >= 0) {
+				result.put(buf.flip());
+				prefetched |= provider.availableChunks() < MAX_CHUNKS;
+			}
+		}
+
+		Assertions.assertTrue(prefetched);
+		Assertions.assertArrayEquals(content, result.array());
+		Assertions.assertEquals(MAX_CHUNKS, provider.availableChunks());
+	}
+
+	@Test
+	public void testRandomReadDiscardsPrefetchedChunks() throws IOException {
+		try (var ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			var buf = ByteBuffer.allocate(CHUNK_SIZE);
+			for (int i = 0; i < 5; i++) {
+				ch.read(buf.clear(), i * CHUNK_SIZE);
+			}
+			Assertions.assertTrue(provider.availableChunks() < MAX_CHUNKS);
+
+			ch.read(buf.clear(), 50 * CHUNK_SIZE + 7);
+
+			Assertions.assertArrayEquals(Arrays.copyOfRange(content, 50 * CHUNK_SIZE + 7, 51 * CHUNK_SIZE + 7), buf.array());
+			Assertions.assertEquals(MAX_CHUNKS, provider.availableChunks());
+		}
+	}
+
+	@Test
+	public void testWriteDiscardsPrefetchedChunks() throws IOException {
+		try (var ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			var buf = ByteBuffer.allocate(CHUNK_SIZE);
+			for (int i = 0; i < 5; i++) {
+				ch.read(buf.clear(), i * CHUNK_SIZE);
+			}
+			try (var writer = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				writer.write(ByteBuffer.wrap(new byte[CHUNK_SIZE]), 5 * CHUNK_SIZE);
+			}
+
+			ch.read(buf.clear(), 5 * CHUNK_SIZE);
+
+			Assertions.assertArrayEquals(new byte[CHUNK_SIZE], buf.array());
+		}
+	}
+
+	@Test
+	public void testReadWriteChannelPrefetchesAndSeesOwnWrites() throws IOException {
+		try (var ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			var buf = ByteBuffer.allocate(CHUNK_SIZE);
+			for (int i = 0; i < 5; i++) {
+				ch.read(buf.clear(), i * CHUNK_SIZE);
+			}
+			Assertions.assertTrue(provider.availableChunks() < MAX_CHUNKS);
+
+			ch.write(ByteBuffer.wrap(new byte[CHUNK_SIZE]), 5 * CHUNK_SIZE);
+			ch.read(buf.clear(), 5 * CHUNK_SIZE);
+
+			Assertions.assertArrayEquals(new byte[CHUNK_SIZE], buf.array());
+		}
+		Assertions.assertEquals(MAX_CHUNKS, provider.availableChunks());
+	}
+
+	@Test
+	public void testBudgetIsSharedBetweenFileSystems() throws IOException {
+		var other = new ReadAheadFileSystemProvider(tmpDir.getRoot(), executor, CHUNK_SIZE, MAX_CHUNKS, budget);
+		var otherFile = other.getRoot().getFileSystem().getPath(tmpDir.toString(), "file.bin");
+		try (var ch = FileChannel.open(otherFile, StandardOpenOption.READ)) {
+			var buf = ByteBuffer.allocate(CHUNK_SIZE);
+			for (int i = 0; i < 5; i++) {
+				ch.read(buf.clear(), i * CHUNK_SIZE);
+			}
+
+			Assertions.assertTrue(provider.availableChunks() < MAX_CHUNKS);
+		}
+		Assertions.assertEquals(MAX_CHUNKS, provider.availableChunks());
+	}
+
+	@Test
+	public void testShrunkBudgetStopsPrefetching() throws IOException {
+		budget.shrink(MAX_CHUNKS);
+		try (var ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			var buf = ByteBuffer.allocate(CHUNK_SIZE);
+			for (int i = 0; i < 5; i++) {
+				ch.read(buf.clear(), i * CHUNK_SIZE);
+			}
+
+			Assertions.assertEquals(0, provider.availableChunks());
+			Assertions.assertArrayEquals(Arrays.copyOfRange(content, 4 * CHUNK_SIZE, 5 * CHUNK_SIZE), buf.array());
+		}
+	}
+
+	@Test
+	public void testReadAtEndOfFile() throws IOException {
+		try (var ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			var buf = ByteBuffer.allocate(CHUNK_SIZE);
+			long pos = 0;
+			int read;
+			while ((read = ch.read(buf.clear(), pos)) > 0) {
+				pos += read;
+			}
+
+			Assertions.assertEquals(content.length, pos);
+			Assertions.assertEquals(-1, read);
+		}
+	}
+
+}
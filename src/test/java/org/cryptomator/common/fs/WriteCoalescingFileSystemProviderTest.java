@@ -0,0 +1,212 @@
+package org.cryptomator.common.fs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class WriteCoalescingFileSystemProviderTest {
+
+	private static final int CHUNK_SIZE = 1024;
+	private static final int MAX_CHUNKS = 8;
+
+	@TempDir
+	Path tmpDir;
+	private ScheduledExecutorService scheduler;
+	private WriteCoalescingStats stats;
+	private WriteCoalescingFileSystemProvider provider;
+	private Path file;
+	private Path delegateFile;
+	private byte[] content;
+
+	@BeforeEach
+	public void setup() {
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		stats = new WriteCoalescingStats();
+		provider = new WriteCoalescingFileSystemProvider(tmpDir.getRoot(), scheduler, CHUNK_SIZE, MAX_CHUNKS, stats);
+		file = provider.getRoot().getFileSystem().getPath(tmpDir.toString(), "file.bin");
+		delegateFile = tmpDir.resolve("file.bin");
+		content = new byte[20 * CHUNK_SIZE + 123];
+		new Random(42L).nextBytes(content);
+	}
+
+	@AfterEach
+	public void teardown() {
+		scheduler.shutdownNow();
+	}
+
+	private void writeInSmallPieces(FileChannel ch, int pieceSize) throws IOException {
+		for (int pos = 0; pos < content.length; pos += pieceSize) {
+			ch.write(ByteBuffer.wrap(content, pos, Math.min(pieceSize, content.length - pos)));
+		}
+	}
+
+	@Test
+	public void testSmallWritesAreFlushedInFullChunksAndOnClose() throws IOException {
+		try (var ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			writeInSmallPieces(ch, 100);
+			Assertions.assertEquals(content.length, ch.size());
+			Assertions.assertEquals(content.length, ch.position());
+			Assertions.assertTrue(Files.size(delegateFile) < content.length);
+			Assertions.assertEquals(0, Files.size(delegateFile) % CHUNK_SIZE); // only full chunks flushed
+		}
+
+		Assertions.assertArrayEquals(content, Files.readAllBytes(delegateFile));
+		Assertions.assertEquals((content.length + 99) / 100, stats.getWritesAbsorbed());
+		Assertions.assertTrue(stats.getWritesFlushed() < 10);
+		Assertions.assertEquals(MAX_CHUNKS, provider.availableChunks());
+	}
+
+	@Test
+	public void testForceFlushes() throws IOException {
+		try (var ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			ch.write(ByteBuffer.wrap(content, 0, 100));
+			Assertions.assertEquals(0, Files.size(delegateFile));
+
+			ch.force(true);
+
+			Assertions.assertArrayEquals(Arrays.copyOf(content, 100), Files.readAllBytes(delegateFile));
+			Assertions.assertEquals(MAX_CHUNKS, provider.availableChunks());
+		}
+	}
+
+	@Test
+	public void testReadsThroughThisFileSystemSeeBufferedWrites() throws IOException {
+		try (var writer = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE); //
+			 var reader = FileChannel.open(file, StandardOpenOption.READ)) {
+			writer.write(ByteBuffer.wrap(content, 0, 100));
+			writer.write(ByteBuffer.wrap(new byte[10]), 50); // overlapping
+
+			var buf = ByteBuffer.allocate(200);
+			int read = reader.read(buf, 0);
+
+			Assertions.assertEquals(100, read);
+			Assertions.assertEquals(100, Files.size(file));
+			var expected = Arrays.copyOf(content, 100);
+			Arrays.fill(expected, 50, 60, (byte) 0);
+			Assertions.assertArrayEquals(expected, Arrays.copyOf(buf.array(), 100));
+		}
+	}
+
+	@Test
+	public void testNonContiguousWritesFlushBuffer() throws IOException {
+		try (var ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			ch.write(ByteBuffer.wrap(content, 0, 100), 0);
+			ch.write(ByteBuffer.wrap(content, 5000, 100), 5000);
+			Assertions.assertEquals(100, Files.size(delegateFile));
+		}
+
+		var result = Files.readAllBytes(delegateFile);
+		Assertions.assertEquals(5100, result.length);
+		Assertions.assertArrayEquals(Arrays.copyOf(content, 100), Arrays.copyOf(result, 100));
+		Assertions.assertArrayEquals(Arrays.copyOfRange(content, 5000, 5100), Arrays.copyOfRange(result, 5000, 5100));
+	}
+
+	@Test
+	public void testWritesPassThroughWhileBudgetIsExhausted() throws IOException {
+		try (var ch1 = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE); //
+			 var ch2 = FileChannel.open(file.resolveSibling("other.bin"), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			ch1.write(ByteBuffer.wrap(content, 0, 100));
+			ch2.write(ByteBuffer.wrap(content, 0, 100));
+
+			Assertions.assertEquals(0, provider.availableChunks());
+			Assertions.assertEquals(0, Files.size(delegateFile));
+			Assertions.assertEquals(100, Files.size(tmpDir.resolve("other.bin")));
+			Assertions.assertEquals(1, stats.getWritesAbsorbed());
+			Assertions.assertEquals(1, stats.getWritesFlushed());
+		}
+	}
+
+	@Test
+	public void testWriteThroughOtherChannelFlushesBufferFirst() throws IOException {
+		Files.createFile(delegateFile);
+		try (var ch1 = FileChannel.open(file, StandardOpenOption.WRITE); //
+			 var ch2 = FileChannel.open(file, StandardOpenOption.WRITE)) { // closed before ch1
+			ch1.write(ByteBuffer.wrap(content, 0, 100), 0);
+			ch2.write(ByteBuffer.wrap(new byte[100]), 0);
+		}
+
+		Assertions.assertArrayEquals(new byte[100], Files.readAllBytes(delegateFile));
+	}
+
+	@Test
+	public void testTruncateThroughOtherChannelFlushesBufferFirst() throws IOException {
+		Files.createFile(delegateFile);
+		try (var ch1 = FileChannel.open(file, StandardOpenOption.WRITE); //
+			 var ch2 = FileChannel.open(file, StandardOpenOption.WRITE)) { // closed before ch1
+			ch1.write(ByteBuffer.wrap(content, 0, 100), 0);
+			ch2.truncate(10);
+		}
+
+		Assertions.assertArrayEquals(Arrays.copyOf(content, 10), Files.readAllBytes(delegateFile));
+	}
+
+	@Test
+	public void testAttributesReflectBufferedWritesWithoutFlushing() throws IOException {
+		try (var ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			ch.write(ByteBuffer.wrap(content, 0, 100));
+
+			Assertions.assertEquals(100, Files.size(file));
+			Assertions.assertEquals(100L, Files.getAttribute(file, "size"));
+			Assertions.assertEquals(0, Files.size(delegateFile));
+		}
+	}
+
+	@Test
+	public void testSettingTimesFlushesFirst() throws IOException {
+		var time = FileTime.fromMillis(1_000_000_000_000L);
+		try (var ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			ch.write(ByteBuffer.wrap(content, 0, 100));
+
+			Files.getFileAttributeView(file, BasicFileAttributeView.class).setTimes(time, null, null);
+
+			Assertions.assertEquals(100, Files.size(delegateFile));
+		}
+		Assertions.assertEquals(time, Files.getLastModifiedTime(delegateFile));
+	}
+
+	@Test
+	public void testDelayedFlush() throws IOException, InterruptedException {
+		try (var ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			ch.write(ByteBuffer.wrap(content, 0, 100));
+			Assertions.assertEquals(0, Files.size(delegateFile));
+
+			Thread.sleep(WriteCoalescingFileSystemProvider.FLUSH_DELAY_MILLIS + 500);
+
+			Assertions.assertEquals(100, Files.size(delegateFile));
+			Assertions.assertEquals(MAX_CHUNKS, provider.availableChunks());
+		}
+	}
+
+	@Test
+	public void testFlushAllFlushesOpenChannels() throws IOException {
+		var otherFile = file.resolveSibling("other.bin");
+		try (var ch1 = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE); //
+			 var ch2 = FileChannel.open(otherFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			ch1.write(ByteBuffer.wrap(content, 0, 100));
+			ch2.write(ByteBuffer.wrap(content, 0, 200));
+			Assertions.assertEquals(0, Files.size(delegateFile));
+
+			provider.flushAll();
+
+			Assertions.assertEquals(100, Files.size(delegateFile));
+			Assertions.assertEquals(200, Files.size(tmpDir.resolve("other.bin")));
+			Assertions.assertEquals(MAX_CHUNKS, provider.availableChunks());
+		}
+	}
+
+}
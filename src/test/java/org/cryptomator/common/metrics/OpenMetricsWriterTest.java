@@ -0,0 +1,67 @@
+package org.cryptomator.common.metrics;
+
+import org.cryptomator.common.vaults.Vault;
+import org.cryptomator.common.vaults.VaultState;
+import org.cryptomator.common.vaults.VaultStats;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+public class OpenMetricsWriterTest {
+
+	private final OpenMetricsWriter inTest = new OpenMetricsWriter();
+
+	@Test
+	public void testUnlockedVault() throws IOException {
+		var stats = Mockito.mock(VaultStats.class);
+		var snapshot = new VaultStats.Snapshot(1, 2, 3, 4, 0.5, 100, 200, 300, 400, 5, 6, 11, 42, 7, 8, 9, 3, Instant.ofEpochMilli(1500));
+		Mockito.when(stats.snapshot()).thenReturn(snapshot);
+		var vault = mockVault("id1", "My \"Vault\"", VaultState.Value.UNLOCKED, stats);
+		var out = new StringBuilder();
+
+		inTest.write(List.of(vault), out);
+
+		var result = out.toString();
+		Assertions.assertTrue(result.contains("cryptomator_vault_state{vault=\"id1\",name=\"My \\\"Vault\\\"\",cryptomator_vault_state=\"UNLOCKED\"} 1\n"));
+		Assertions.assertTrue(result.contains("cryptomator_vault_state{vault=\"id1\",name=\"My \\\"Vault\\\"\",cryptomator_vault_state=\"LOCKED\"} 0\n"));
+		Assertions.assertTrue(result.contains("# TYPE cryptomator_vault_read_bytes counter\n"));
+		Assertions.assertTrue(result.contains("cryptomator_vault_read_bytes_total{vault=\"id1\",name=\"My \\\"Vault\\\"\"} 100\n"));
+		Assertions.assertTrue(result.contains("cryptomator_vault_metadata_cache_hits_total{vault=\"id1\",name=\"My \\\"Vault\\\"\"} 7\n"));
+		Assertions.assertTrue(result.contains("cryptomator_vault_chunk_cache_hit_ratio{vault=\"id1\",name=\"My \\\"Vault\\\"\"} 0.5\n"));
+		Assertions.assertTrue(result.contains("cryptomator_vault_last_activity_seconds{vault=\"id1\",name=\"My \\\"Vault\\\"\"} 1.5\n"));
+		Assertions.assertTrue(result.endsWith("# EOF\n"));
+	}
+
+	@Test
+	public void testLockedVaultHasNoIoMetrics() throws IOException {
+		var stats = Mockito.mock(VaultStats.class);
+		var vault = mockVault("id2", "Locked", VaultState.Value.LOCKED, stats);
+		var out = new StringBuilder();
+
+		inTest.write(List.of(vault), out);
+
+		var result = out.toString();
+		Assertions.assertTrue(result.contains("cryptomator_vault_state{vault=\"id2\",name=\"Locked\",cryptomator_vault_state=\"LOCKED\"} 1\n"));
+		Assertions.assertFalse(result.contains("cryptomator_vault_read_bytes_total"));
+		Mockito.verifyNoInteractions(stats);
+	}
+
+	@Test
+	public void testEscape() {
+		Assertions.assertEquals("a\\\\b\\\"c\\nd", OpenMetricsWriter.escape("a\\b\"c\nd"));
+	}
+
+	private static Vault mockVault(String id, String name, VaultState.Value state, VaultStats stats) {
+		var vault = Mockito.mock(Vault.class);
+		Mockito.when(vault.getId()).thenReturn(id);
+		Mockito.when(vault.getDisplayName()).thenReturn(name);
+		Mockito.when(vault.getState()).thenReturn(state);
+		Mockito.when(vault.getStats()).thenReturn(stats);
+		return vault;
+	}
+
+}
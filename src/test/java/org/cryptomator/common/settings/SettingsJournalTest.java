@@ -0,0 +1,119 @@
+package org.cryptomator.common.settings;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.cryptomator.common.Environment;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class SettingsJournalTest {
+
+	private final ObjectMapper json = new ObjectMapper().setDefaultLeniency(true).registerModule(new JavaTimeModule());
+
+	@TempDir
+	Path tmpDir;
+	private Path snapshotPath;
+	private Settings settings;
+	private VaultSettings vaultSettings;
+	private SettingsJournal journal;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		snapshotPath = tmpDir.resolve("settings.json");
+		settings = Settings.create(Mockito.mock(Environment.class));
+		vaultSettings = VaultSettings.withRandomId();
+		vaultSettings.path.set(tmpDir);
+		settings.directories.add(vaultSettings);
+		journal = new SettingsJournal(json, settings, snapshotPath, null, () -> "test");
+		journal.flush(); // initial snapshot
+	}
+
+	@Test
+	public void testChangesAreAppendedToJournal() throws IOException {
+		var snapshotBefore = Files.readString(snapshotPath);
+
+		settings.windowXPosition.set(42);
+		vaultSettings.displayName.set("changed");
+		journal.flush();
+
+		Assertions.assertEquals(snapshotBefore, Files.readString(snapshotPath));
+		var loaded = SettingsJournal.load(json, snapshotPath);
+		Assertions.assertEquals(2, loaded.journalRecords());
+		Assertions.assertEquals(42, loaded.settings().windowXPosition);
+		Assertions.assertEquals("changed", loaded.settings().directories.get(0).displayName);
+	}
+
+	@Test
+	public void testNullValuesAreJournaled() throws IOException {
+		settings.licenseKey.set("foo");
+		journal.flush();
+		settings.licenseKey.set(null);
+		journal.flush();
+
+		var loaded = SettingsJournal.load(json, snapshotPath);
+		Assertions.assertNull(loaded.settings().licenseKey);
+	}
+
+	@Test
+	public void testStructuralChangeCompacts() throws IOException {
+		settings.directories.add(VaultSettings.withRandomId());
+		journal.flush();
+
+		var loaded = SettingsJournal.load(json, snapshotPath);
+		Assertions.assertEquals(0, loaded.journalRecords());
+		Assertions.assertEquals(2, loaded.settings().directories.size());
+		Assertions.assertEquals(2, loaded.generation());
+	}
+
+	@Test
+	public void testTornRecordIsIgnored() throws IOException {
+		settings.windowWidth.set(800);
+		journal.flush();
+		Files.writeString(SettingsJournal.journalPath(snapshotPath), "{\"key\":\"windowWid", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+		var loaded = SettingsJournal.load(json, snapshotPath);
+		Assertions.assertEquals(1, loaded.journalRecords());
+		Assertions.assertEquals(800, loaded.settings().windowWidth);
+	}
+
+	@Test
+	public void testChangesAfterTornFirstRecordAreNotLost() throws IOException {
+		Files.writeString(SettingsJournal.journalPath(snapshotPath), "{\"key\":\"windowWid", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+		var loaded = SettingsJournal.load(json, snapshotPath);
+		Assertions.assertEquals(0, loaded.journalRecords());
+		Assertions.assertFalse(loaded.journalAppendable());
+
+		var reloadedSettings = new Settings(loaded.settings());
+		var reloadedJournal = new SettingsJournal(json, reloadedSettings, snapshotPath, loaded, () -> "test");
+		reloadedSettings.windowWidth.set(800);
+		reloadedJournal.flush();
+
+		var reloaded = SettingsJournal.load(json, snapshotPath);
+		Assertions.assertEquals(800, reloaded.settings().windowWidth);
+		Assertions.assertTrue(reloaded.journalAppendable());
+	}
+
+	@Test
+	public void testJournalOfOlderGenerationIsIgnored() throws IOException {
+		settings.windowWidth.set(800);
+		journal.flush();
+		var outdatedJournal = Files.readString(SettingsJournal.journalPath(snapshotPath));
+		settings.windowWidth.set(1024);
+		journal.compact();
+		Files.writeString(SettingsJournal.journalPath(snapshotPath), outdatedJournal, StandardCharsets.UTF_8); // simulate crash before journal got replaced
+
+		var loaded = SettingsJournal.load(json, snapshotPath);
+		Assertions.assertEquals(0, loaded.journalRecords());
+		Assertions.assertEquals(1024, loaded.settings().windowWidth);
+	}
+
+}
@@ -0,0 +1,116 @@
+package org.cryptomator.common.vaults;
+
+import org.cryptomator.common.settings.VaultSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class AutoLockerTest {
+
+	private static final int IDLE_SECONDS = 1;
+
+	private final ObservableList<Vault> vaults = FXCollections.observableArrayList();
+	private final ExecutorService executor = Mockito.mock(ExecutorService.class);
+	private final AtomicReference<Instant> lastActivity = new AtomicReference<>();
+	private ScheduledExecutorService scheduler;
+	private VaultSettings vaultSettings;
+	private Vault vault;
+
+	@BeforeEach
+	public void setup() {
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		vaultSettings = VaultSettings.withRandomId();
+		vaultSettings.autoLockWhenIdle.set(true);
+		vaultSettings.autoLockIdleSeconds.set(IDLE_SECONDS);
+		var stats = Mockito.mock(VaultStats.class);
+		Mockito.when(stats.getLastActivity()).thenAnswer(invocation -> lastActivity.get());
+		vault = Mockito.mock(Vault.class);
+		Mockito.when(vault.isUnlocked()).thenReturn(true);
+		Mockito.when(vault.getVaultSettings()).thenReturn(vaultSettings);
+		Mockito.when(vault.getStats()).thenReturn(stats);
+		new AutoLocker(scheduler, executor, vaults).init();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	// sets the last activity, so that the idle deadline is reached in the given number of milliseconds
+	private void deadlineIn(long millis) {
+		lastActivity.set(Instant.now().minusSeconds(IDLE_SECONDS).plusMillis(millis));
+	}
+
+	@Test
+	public void testIdleVaultIsLockedOnDeadline() {
+		deadlineIn(100);
+
+		vaults.add(vault);
+
+		Mockito.verify(executor, Mockito.after(50).never()).execute(Mockito.any());
+		Mockito.verify(executor, Mockito.timeout(500)).execute(Mockito.any());
+	}
+
+	@Test
+	public void testActivityRearmsTimer() {
+		deadlineIn(100);
+		vaults.add(vault);
+
+		deadlineIn(600); // activity after arming the timer
+
+		Mockito.verify(executor, Mockito.after(400).never()).execute(Mockito.any());
+		Mockito.verify(executor, Mockito.timeout(1000)).execute(Mockito.any());
+	}
+
+	@Test
+	public void testDisablingAutoLockDisarmsTimer() {
+		deadlineIn(100);
+		vaults.add(vault);
+
+		vaultSettings.autoLockWhenIdle.set(false);
+
+		Mockito.verify(executor, Mockito.after(300).never()).execute(Mockito.any());
+	}
+
+	@Test
+	public void testRemovedVaultIsNotLocked() {
+		deadlineIn(100);
+		vaults.add(vault);
+
+		vaults.remove(vault);
+
+		Mockito.verify(executor, Mockito.after(300).never()).execute(Mockito.any());
+	}
+
+	@Test
+	public void testSettingsOfRemovedVaultAreNotObserved() {
+		deadlineIn(100);
+		vaults.add(vault);
+		vaults.remove(vault);
+
+		vaultSettings.autoLockWhenIdle.set(false);
+		vaultSettings.autoLockWhenIdle.set(true);
+
+		Mockito.verify(executor, Mockito.after(300).never()).execute(Mockito.any());
+	}
+
+	@Test
+	public void testLockedVaultIsNotArmed() {
+		Mockito.when(vault.isUnlocked()).thenReturn(false);
+		deadlineIn(0);
+
+		vaults.add(vault);
+
+		Mockito.verify(executor, Mockito.after(300).never()).execute(Mockito.any());
+	}
+
+}
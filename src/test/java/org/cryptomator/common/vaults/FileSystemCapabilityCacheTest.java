@@ -0,0 +1,102 @@
+package org.cryptomator.common.vaults;
+
+import org.cryptomator.cryptofs.common.FileSystemCapabilityChecker;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+public class FileSystemCapabilityCacheTest {
+
+	private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+	@TempDir
+	Path tmpDir;
+	private Path cacheFile;
+	private FileSystemCapabilityChecker checker;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		cacheFile = tmpDir.resolve("cache.json");
+		checker = Mockito.mock(FileSystemCapabilityChecker.class);
+		Mockito.when(checker.determineSupportedCiphertextFileNameLength(Mockito.any())).thenReturn(143);
+		Mockito.when(checker.determineSupportedCleartextFileNameLength(Mockito.any())).thenReturn(42);
+	}
+
+	@Test
+	public void testProbesOnlyOncePerFileStore() throws IOException {
+		var vault1 = Files.createDirectory(tmpDir.resolve("vault1"));
+		var vault2 = Files.createDirectory(tmpDir.resolve("vault2"));
+		var inTest = new FileSystemCapabilityCache(Optional.of(cacheFile), checker, Clock.fixed(NOW, ZoneOffset.UTC));
+
+		Assertions.assertEquals(143, inTest.determineSupportedCiphertextFileNameLength(vault1));
+		Assertions.assertEquals(143, inTest.determineSupportedCiphertextFileNameLength(vault2));
+		Assertions.assertEquals(42, inTest.determineSupportedCleartextFileNameLength(vault1));
+		Assertions.assertEquals(42, inTest.determineSupportedCleartextFileNameLength(vault2));
+
+		Mockito.verify(checker, Mockito.times(1)).determineSupportedCiphertextFileNameLength(Mockito.any());
+		Mockito.verify(checker, Mockito.times(1)).determineSupportedCleartextFileNameLength(Mockito.any());
+	}
+
+	@Test
+	public void testLoadsPersistedResults() throws IOException {
+		var first = new FileSystemCapabilityCache(Optional.of(cacheFile), checker, Clock.fixed(NOW, ZoneOffset.UTC));
+		first.determineSupportedCiphertextFileNameLength(tmpDir);
+
+		var second = new FileSystemCapabilityCache(Optional.of(cacheFile), checker, Clock.fixed(NOW.plusSeconds(60), ZoneOffset.UTC));
+		second.determineSupportedCiphertextFileNameLength(tmpDir);
+
+		Assertions.assertTrue(Files.exists(cacheFile));
+		Mockito.verify(checker, Mockito.times(1)).determineSupportedCiphertextFileNameLength(Mockito.any());
+	}
+
+	@Test
+	public void testRevalidatesAfterTtl() throws IOException {
+		var first = new FileSystemCapabilityCache(Optional.of(cacheFile), checker, Clock.fixed(NOW, ZoneOffset.UTC));
+		first.determineSupportedCiphertextFileNameLength(tmpDir);
+
+		var expired = NOW.plus(FileSystemCapabilityCache.TTL).plusSeconds(1);
+		var second = new FileSystemCapabilityCache(Optional.of(cacheFile), checker, Clock.fixed(expired, ZoneOffset.UTC));
+		second.determineSupportedCiphertextFileNameLength(tmpDir);
+
+		Mockito.verify(checker, Mockito.times(2)).determineSupportedCiphertextFileNameLength(Mockito.any());
+	}
+
+	@Test
+	public void testLongerPathIsProbedAgain() throws IOException {
+		int nameLength = FileSystemCapabilityCache.PATH_LENGTH_BUCKET_SIZE - (tmpDir.toAbsolutePath().toString().length() + 1) % FileSystemCapabilityCache.PATH_LENGTH_BUCKET_SIZE; // start of a bucket
+		var shortVault = Files.createDirectory(tmpDir.resolve("s".repeat(nameLength)));
+		var longVault = Files.createDirectory(tmpDir.resolve("l".repeat(nameLength + 5))); // same bucket
+		var inTest = new FileSystemCapabilityCache(Optional.of(cacheFile), checker, Clock.fixed(NOW, ZoneOffset.UTC));
+
+		inTest.determineSupportedCiphertextFileNameLength(shortVault);
+		inTest.determineSupportedCiphertextFileNameLength(longVault);
+		inTest.determineSupportedCiphertextFileNameLength(shortVault);
+
+		Mockito.verify(checker, Mockito.times(2)).determineSupportedCiphertextFileNameLength(Mockito.any());
+	}
+
+	@Test
+	public void testPathsOfDifferentLengthAreCachedSeparately() throws IOException {
+		var shortVault = Files.createDirectory(tmpDir.resolve("s"));
+		var longVault = Files.createDirectory(tmpDir.resolve("l".repeat(2 * FileSystemCapabilityCache.PATH_LENGTH_BUCKET_SIZE)));
+		var inTest = new FileSystemCapabilityCache(Optional.of(cacheFile), checker, Clock.fixed(NOW, ZoneOffset.UTC));
+
+		inTest.determineSupportedCiphertextFileNameLength(longVault);
+		inTest.determineSupportedCiphertextFileNameLength(shortVault);
+		inTest.determineSupportedCiphertextFileNameLength(longVault);
+		inTest.determineSupportedCiphertextFileNameLength(shortVault);
+
+		Mockito.verify(checker, Mockito.times(2)).determineSupportedCiphertextFileNameLength(Mockito.any());
+	}
+
+}
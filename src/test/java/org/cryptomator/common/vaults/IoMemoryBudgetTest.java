@@ -0,0 +1,62 @@
+package org.cryptomator.common.vaults;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class IoMemoryBudgetTest {
+
+	private static final long MAX_HEAP = 64L * IoTuning.CHUNK_SIZE; // 4 chunks per vault, 16 chunks in total
+
+	private final IoMemoryBudget inTest = new IoMemoryBudget(MAX_HEAP);
+
+	@Test
+	public void testReserveWithinLimits() {
+		var requested = new IoTuning(2, 2);
+
+		var granted = inTest.reserve(requested);
+
+		Assertions.assertEquals(requested, granted);
+		Assertions.assertEquals(requested.bytes(), inTest.getReservedBytes());
+	}
+
+	@Test
+	public void testReserveExceedingPerVaultLimit() {
+		var granted = inTest.reserve(new IoTuning(8, 0));
+
+		Assertions.assertEquals(new IoTuning(4, 0), granted);
+	}
+
+	@Test
+	public void testReserveExceedingTotalLimit() {
+		for (int i = 0; i < 4; i++) {
+			inTest.reserve(new IoTuning(4, 0));
+		}
+
+		var granted = inTest.reserve(new IoTuning(4, 0));
+
+		Assertions.assertEquals(IoTuning.NONE, granted);
+		Assertions.assertEquals(inTest.getTotalBytes(), inTest.getReservedBytes());
+	}
+
+	@Test
+	public void testRelease() {
+		var granted = inTest.reserve(new IoTuning(2, 2));
+
+		inTest.release(granted);
+
+		Assertions.assertEquals(0L, inTest.getReservedBytes());
+	}
+
+	@Test
+	public void testReadAheadBudgetIsShared() {
+		var first = inTest.reserve(new IoTuning(2, 0));
+		inTest.reserve(new IoTuning(3, 1));
+
+		Assertions.assertEquals(5, inTest.getReadAheadBudget().available());
+
+		inTest.release(first);
+
+		Assertions.assertEquals(3, inTest.getReadAheadBudget().available());
+	}
+
+}
@@ -0,0 +1,76 @@
+package org.cryptomator.common.vaults;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LongRingBufferTest {
+
+	private final LongRingBuffer buffer = new LongRingBuffer(3);
+
+	@Test
+	public void testEmpty() {
+		var dst = new long[3];
+
+		buffer.copyTo(dst);
+
+		Assertions.assertEquals(0L, buffer.latest());
+		Assertions.assertEquals(0L, buffer.max());
+		Assertions.assertArrayEquals(new long[]{0L, 0L, 0L}, dst);
+	}
+
+	@Test
+	public void testPartiallyFilled() {
+		var dst = new long[4];
+		buffer.add(5L);
+		buffer.add(2L);
+
+		buffer.copyTo(dst);
+
+		Assertions.assertEquals(2L, buffer.latest());
+		Assertions.assertEquals(5L, buffer.max());
+		Assertions.assertArrayEquals(new long[]{0L, 0L, 5L, 2L}, dst);
+	}
+
+	@Test
+	public void testOverwritesOldestSample() {
+		var dst = new long[3];
+		buffer.add(9L);
+		buffer.add(1L);
+		buffer.add(2L);
+		buffer.add(3L);
+
+		buffer.copyTo(dst);
+
+		Assertions.assertEquals(3L, buffer.latest());
+		Assertions.assertEquals(3L, buffer.max());
+		Assertions.assertArrayEquals(new long[]{1L, 2L, 3L}, dst);
+	}
+
+	@Test
+	public void testCopyToSmallerArray() {
+		var dst = new long[2];
+		buffer.add(1L);
+		buffer.add(2L);
+		buffer.add(3L);
+
+		buffer.copyTo(dst);
+
+		Assertions.assertArrayEquals(new long[]{2L, 3L}, dst);
+	}
+
+	@Test
+	public void testClear() {
+		buffer.add(7L);
+
+		buffer.clear();
+
+		Assertions.assertEquals(0L, buffer.latest());
+		Assertions.assertEquals(0L, buffer.max());
+	}
+
+	@Test
+	public void testInvalidCapacity() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new LongRingBuffer(0));
+	}
+
+}
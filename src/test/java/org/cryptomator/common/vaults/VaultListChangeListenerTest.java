@@ -0,0 +1,86 @@
+package org.cryptomator.common.vaults;
+
+import org.cryptomator.common.settings.VaultSettings;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javafx.beans.InvalidationListener;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+public class VaultListChangeListenerTest {
+
+	private final ObservableList<Vault> vaults = FXCollections.observableArrayList();
+	private final ObservableList<VaultSettings> vaultSettings = FXCollections.observableArrayList();
+	private final AtomicInteger settingsChanges = new AtomicInteger();
+
+	@BeforeEach
+	public void setup() {
+		vaults.addListener(new VaultListChangeListener(vaultSettings));
+		vaultSettings.addListener((InvalidationListener) observable -> settingsChanges.incrementAndGet());
+	}
+
+	private static Vault mockVault() {
+		var settings = VaultSettings.withRandomId();
+		var vault = Mockito.mock(Vault.class);
+		Mockito.when(vault.getVaultSettings()).thenReturn(settings);
+		return vault;
+	}
+
+	private List<VaultSettings> settingsOf(List<Vault> vaults) {
+		return vaults.stream().map(Vault::getVaultSettings).toList();
+	}
+
+	@Test
+	public void testAddAllCausesSingleSettingsChange() {
+		var added = IntStream.range(0, 100).mapToObj(i -> mockVault()).toList();
+
+		vaults.addAll(added);
+
+		Assertions.assertEquals(settingsOf(added), vaultSettings);
+		Assertions.assertEquals(1, settingsChanges.get());
+	}
+
+	@Test
+	public void testInsertKeepsOrder() {
+		var v1 = mockVault();
+		var v2 = mockVault();
+		var v3 = mockVault();
+		vaults.addAll(v1, v3);
+
+		vaults.add(1, v2);
+
+		Assertions.assertEquals(settingsOf(List.of(v1, v2, v3)), vaultSettings);
+	}
+
+	@Test
+	public void testRemoveScatteredCausesSingleSettingsChange() {
+		var all = IntStream.range(0, 100).mapToObj(i -> mockVault()).toList();
+		vaults.addAll(all);
+		settingsChanges.set(0);
+		var removed = IntStream.range(0, 100).filter(i -> i % 3 == 0).mapToObj(all::get).toList();
+
+		vaults.removeAll(removed);
+
+		Assertions.assertEquals(settingsOf(vaults), vaultSettings);
+		Assertions.assertEquals(1, settingsChanges.get());
+	}
+
+	@Test
+	public void testMixedChangeCausesSingleSettingsChange() {
+		var all = IntStream.range(0, 10).mapToObj(i -> mockVault()).toList();
+		vaults.addAll(all);
+		settingsChanges.set(0);
+
+		vaults.setAll(mockVault(), all.get(3), mockVault());
+
+		Assertions.assertEquals(settingsOf(vaults), vaultSettings);
+		Assertions.assertEquals(1, settingsChanges.get());
+	}
+
+}
@@ -0,0 +1,193 @@
+package org.cryptomator.common.vaults;
+
+import org.cryptomator.cryptofs.CryptoFileSystem;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class VaultPathResolverTest {
+
+	private static final int MAX_NAME_LENGTH = 20; // longer names get shortened
+
+	@TempDir
+	Path tmpDir;
+	private Path cleartextRoot;
+	private Path vaultPath;
+	private CryptoFileSystem fs;
+	private VaultPathResolver inTest;
+	private final Map<Path, String> dirIds = new HashMap<>();
+
+	@BeforeEach
+	public void setup() throws IOException {
+		cleartextRoot = Files.createDirectory(tmpDir.resolve("cleartext"));
+		vaultPath = Files.createDirectory(tmpDir.resolve("vault"));
+		Files.createDirectories(ciphertextDir(cleartextRoot));
+		for (int i = 0; i < 10; i++) {
+			createDirectory("dir" + i);
+			var sub = createDirectory("dir" + i + "/sub");
+			Files.writeString(sub.resolve("file.txt"), "hello");
+		}
+		fs = Mockito.mock(CryptoFileSystem.class);
+		Mockito.when(fs.getPathToVault()).thenReturn(vaultPath);
+		Mockito.when(fs.getRootDirectories()).thenReturn(List.of(cleartextRoot));
+		Mockito.when(fs.getCiphertextPath(Mockito.any())).thenAnswer(invocation -> ciphertextPath(invocation.getArgument(0)));
+		inTest = new VaultPathResolver(fs);
+	}
+
+	// stores the children of each cleartext directory in a ciphertext directory named after the directory's original location:
+	private Path ciphertextDir(Path cleartextDir) {
+		var dirId = dirIds.computeIfAbsent(cleartextDir, dir -> cleartextRoot.relativize(dir).toString().replace(dir.getFileSystem().getSeparator(), "_") + "_dir");
+		return vaultPath.resolve("d/XX").resolve(dirId);
+	}
+
+	private Path node(Path cleartextPath) {
+		var name = cleartextPath.getFileName().toString();
+		var parentDir = ciphertextDir(cleartextPath.getParent());
+		return name.length() > MAX_NAME_LENGTH ? parentDir.resolve("shortened" + name.length() + ".c9s") : parentDir.resolve(name + ".c9r");
+	}
+
+	// mimics CryptoFileSystem.getCiphertextPath():
+	private Path ciphertextPath(Path cleartextPath) {
+		if (cleartextPath.equals(cleartextRoot) || Files.isDirectory(cleartextPath, LinkOption.NOFOLLOW_LINKS)) {
+			return ciphertextDir(cleartextPath);
+		} else if (Files.isSymbolicLink(cleartextPath)) {
+			return node(cleartextPath).resolve("symlink.c9r");
+		} else if (node(cleartextPath).getFileName().toString().endsWith(".c9s")) {
+			return node(cleartextPath).resolve("contents.c9r");
+		} else {
+			return node(cleartextPath);
+		}
+	}
+
+	private Path createDirectory(String cleartextRelativePath) throws IOException {
+		var dir = Files.createDirectory(cleartextRoot.resolve(cleartextRelativePath));
+		Files.createDirectories(ciphertextDir(dir));
+		Files.writeString(Files.createDirectories(node(dir)).resolve("dir.c9r"), dirIds.get(dir));
+		return dir;
+	}
+
+	private void move(String source, String target) throws IOException {
+		var sourceDir = cleartextRoot.resolve(source);
+		var targetDir = cleartextRoot.resolve(target);
+		var sourceNode = node(sourceDir);
+		Files.move(sourceDir, targetDir);
+		dirIds.put(targetDir, dirIds.remove(sourceDir)); // directory IDs survive moves
+		Files.move(sourceNode, node(targetDir));
+	}
+
+	private String relativeToVault(Path ciphertextPath) {
+		return vaultPath.relativize(ciphertextPath).toString();
+	}
+
+	private String ciphertextPathString(String cleartextRelativePath) {
+		return relativeToVault(ciphertextPath(cleartextRoot.resolve(cleartextRelativePath)));
+	}
+
+	@Test
+	public void testToCleartextFindsNestedNode() {
+		var result = inTest.toCleartext(List.of(ciphertextPathString("dir7/sub/file.txt"), ciphertextPathString("dir3/sub/file.txt")));
+
+		Assertions.assertEquals(Optional.of(cleartextRoot.resolve("dir7/sub/file.txt").toString()), result.get(0));
+		Assertions.assertEquals(Optional.of(cleartextRoot.resolve("dir3/sub/file.txt").toString()), result.get(1));
+	}
+
+	@Test
+	public void testToCleartextOfCiphertextDir() {
+		var result = inTest.toCleartext(List.of(ciphertextPathString("dir6/sub")));
+
+		Assertions.assertEquals(Optional.of(cleartextRoot.resolve("dir6/sub").toString()), result.get(0));
+	}
+
+	@Test
+	public void testToCleartextOfOnlySubdirectoryNode() {
+		var dirFile = node(cleartextRoot.resolve("dir4/sub")).resolve("dir.c9r");
+
+		var result = inTest.toCleartext(List.of(relativeToVault(dirFile)));
+
+		Assertions.assertEquals(Optional.of(cleartextRoot.resolve("dir4/sub").toString()), result.get(0));
+	}
+
+	@Test
+	public void testToCleartextOfAmbiguousSubdirectoryNodeIsEmpty() {
+		var dirFile = node(cleartextRoot.resolve("dir4")).resolve("dir.c9r"); // one of ten subdirectories of the root
+
+		var result = inTest.toCleartext(List.of(relativeToVault(dirFile)));
+
+		Assertions.assertEquals(Optional.empty(), result.get(0));
+	}
+
+	@Test
+	public void testToCleartextOfShortenedName() throws IOException {
+		var file = Files.writeString(cleartextRoot.resolve("dir2/sub/a file with a very long name.txt"), "hello");
+		var contentsFile = ciphertextPath(file);
+		Assertions.assertEquals("contents.c9r", contentsFile.getFileName().toString());
+
+		var result = inTest.toCleartext(List.of(relativeToVault(contentsFile), relativeToVault(contentsFile.getParent())));
+
+		Assertions.assertEquals(Optional.of(file.toString()), result.get(0));
+		Assertions.assertEquals(Optional.of(file.toString()), result.get(1));
+	}
+
+	@Test
+	public void testToCleartextOfSymlink() throws IOException {
+		var link = Files.createSymbolicLink(cleartextRoot.resolve("dir5/sub/link"), cleartextRoot.resolve("dir1"));
+		var symlinkFile = ciphertextPath(link);
+		Assertions.assertEquals("symlink.c9r", symlinkFile.getFileName().toString());
+
+		var result = inTest.toCleartext(List.of(relativeToVault(symlinkFile)));
+
+		Assertions.assertEquals(Optional.of(link.toString()), result.get(0));
+	}
+
+	@Test
+	public void testToCleartextOfUnknownDirectoryIsEmpty() {
+		var result = inTest.toCleartext(List.of("d/XX/unknown_dir/foo.c9r"));
+
+		Assertions.assertEquals(Optional.empty(), result.get(0));
+	}
+
+	@Test
+	public void testUnresolvableDirectoryDoesNotTriggerAnotherWalk() throws IOException {
+		inTest.toCleartext(List.of("d/XX/unknown_dir/foo.c9r"));
+		Mockito.clearInvocations(fs);
+
+		var result = inTest.toCleartext(List.of("d/XX/unknown_dir/bar.c9r"));
+
+		Assertions.assertEquals(Optional.empty(), result.get(0));
+		Mockito.verify(fs, Mockito.never()).getCiphertextPath(Mockito.any());
+	}
+
+	@Test
+	public void testMappingsLearnedDuringWalkAreReused() throws IOException {
+		inTest.toCleartext(List.of("d/XX/unknown_dir/foo.c9r")); // walks the whole tree
+		Mockito.clearInvocations(fs);
+
+		var result = inTest.toCleartext(List.of(ciphertextPathString("dir5/sub/file.txt")));
+
+		Assertions.assertEquals(Optional.of(cleartextRoot.resolve("dir5/sub/file.txt").toString()), result.get(0));
+		Mockito.verify(fs, Mockito.times(2)).getCiphertextPath(Mockito.any()); // only dir5/sub and its file
+	}
+
+	@Test
+	public void testMovedDirectoryIsFoundAgain() throws IOException {
+		var ciphertextPath = ciphertextPathString("dir1/sub/file.txt");
+		inTest.toCleartext(List.of(ciphertextPath));
+		move("dir1/sub", "dir2/moved");
+
+		var result = inTest.toCleartext(List.of(ciphertextPath));
+
+		Assertions.assertEquals(Optional.of(cleartextRoot.resolve("dir2/moved/file.txt").toString()), result.get(0));
+	}
+
+}
@@ -0,0 +1,89 @@
+package org.cryptomator.common.vaults;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+
+public class VaultPresenceMonitorTest {
+
+	private final ObservableList<Vault> vaults = FXCollections.observableArrayList();
+	private final VaultStateRefresher stateRefresher = Mockito.mock(VaultStateRefresher.class);
+
+	@TempDir
+	Path tmpDir;
+	private VaultPresenceMonitor monitor;
+
+	@BeforeEach
+	public void setup() {
+		monitor = new VaultPresenceMonitor(vaults, stateRefresher);
+		monitor.init();
+	}
+
+	private static Vault mockVault(VaultState.Value state, Path path) {
+		var vault = Mockito.mock(Vault.class);
+		Mockito.when(vault.getState()).thenReturn(state);
+		Mockito.when(vault.getPath()).thenReturn(path);
+		return vault;
+	}
+
+	@Test
+	public void testLockedVaultIsWatched() throws IOException, InterruptedException, ExecutionException {
+		var vault = mockVault(VaultState.Value.LOCKED, Files.createDirectory(tmpDir.resolve("vault")));
+
+		vaults.add(vault);
+
+		Assertions.assertTrue(monitor.isWatched(vault));
+		Assertions.assertFalse(monitor.isPolled(vault));
+	}
+
+	@Test
+	public void testMissingVaultIsWatchedAndPolled() throws InterruptedException, ExecutionException {
+		var vault = mockVault(VaultState.Value.MISSING, tmpDir.resolve("drive/vault"));
+
+		vaults.add(vault);
+
+		Assertions.assertTrue(monitor.isWatched(vault));
+		Assertions.assertTrue(monitor.isPolled(vault));
+	}
+
+	@Test
+	public void testMissingVaultWithoutExistingAncestorIsPolled() throws InterruptedException, ExecutionException {
+		var vault = mockVault(VaultState.Value.MISSING, Path.of("vault")); // e.g. on a detached drive
+
+		vaults.add(vault);
+
+		Assertions.assertFalse(monitor.isWatched(vault));
+		Assertions.assertTrue(monitor.isPolled(vault));
+	}
+
+	@Test
+	public void testUnlockedVaultIsIgnored() throws IOException, InterruptedException, ExecutionException {
+		var vault = mockVault(VaultState.Value.UNLOCKED, Files.createDirectory(tmpDir.resolve("vault")));
+
+		vaults.add(vault);
+
+		Assertions.assertFalse(monitor.isWatched(vault));
+		Assertions.assertFalse(monitor.isPolled(vault));
+	}
+
+	@Test
+	public void testRemovedVaultIsNoLongerMonitored() throws InterruptedException, ExecutionException {
+		var vault = mockVault(VaultState.Value.MISSING, tmpDir.resolve("drive/vault"));
+		vaults.add(vault);
+
+		vaults.remove(vault);
+
+		Assertions.assertFalse(monitor.isWatched(vault));
+		Assertions.assertFalse(monitor.isPolled(vault));
+	}
+
+}
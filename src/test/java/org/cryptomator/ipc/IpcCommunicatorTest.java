@@ -6,21 +6,26 @@ import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
 
 public class IpcCommunicatorTest {
 
 	@Test
 	public void testSendAndReceive(@TempDir Path tmpDir) throws IOException, InterruptedException {
 		var socketPath = tmpDir.resolve("foo.sock");
-		try (var server = IpcCommunicator.create(List.of(socketPath));
-			 var client = IpcCommunicator.create(List.of(socketPath))) {
-			Assertions.assertNotSame(server, client);
-
+		try (var server = IpcCommunicator.create(List.of(socketPath))) {
 			var cdl = new CountDownLatch(1);
 			var executor = Executors.newSingleThreadExecutor();
 			server.listen(new IpcMessageListener() {
@@ -34,11 +39,149 @@ public class IpcCommunicatorTest {
 
 				}
 			}, executor);
-			client.sendRevealRunningApp();
+			try (var client = IpcCommunicator.create(List.of(socketPath))) { // after listening, as connecting waits for the server's handshake
+				Assertions.assertNotSame(server, client);
+
+				client.sendRevealRunningApp();
+
+				Assertions.assertTimeoutPreemptively(Duration.ofMillis(300), (Executable) cdl::await);
+			}
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testConcurrentRequests(@TempDir Path tmpDir) throws IOException, InterruptedException {
+		var socketPath = tmpDir.resolve("foo.sock");
+		try (var server = IpcCommunicator.create(List.of(socketPath))) {
+			var executor = Executors.newSingleThreadExecutor();
+			var slowRequestStarted = new CountDownLatch(1);
+			var slowRequestReleased = new CountDownLatch(1);
+			server.listen(new IpcMessageListener() {
+				@Override
+				public void revealRunningApp() {
+
+				}
+
+				@Override
+				public void handleLaunchArgs(List<String> args) {
+
+				}
+
+				@Override
+				public CommandResultMessage queryVault(String vault) {
+					if ("slow".equals(vault)) {
+						slowRequestStarted.countDown();
+						Assertions.assertDoesNotThrow(() -> slowRequestReleased.await());
+					}
+					return CommandResultMessage.success(List.of(vault));
+				}
+			}, executor);
+			try (var client1 = IpcCommunicator.create(List.of(socketPath)); // after listening, as connecting waits for the server's handshake
+				 var client2 = IpcCommunicator.create(List.of(socketPath))) {
+				var slowReply = CompletableFuture.supplyAsync(() -> Assertions.assertDoesNotThrow(() -> client1.sendQueryVault("slow")));
+				slowRequestStarted.await();
+
+				// neither a second request on the same connection nor one from another client must be blocked by the pending request:
+				Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+					Assertions.assertEquals(List.of("fast"), client1.sendQueryVault("fast").lines());
+					Assertions.assertEquals(List.of("other"), client2.sendQueryVault("other").lines());
+				});
+
+				slowRequestReleased.countDown();
+				Assertions.assertEquals(List.of("slow"), Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> slowReply.get()).lines());
+			}
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testClientWithoutHandshakeIsRejected(@TempDir Path tmpDir) throws IOException {
+		var socketPath = tmpDir.resolve("foo.sock");
+		try (var server = IpcCommunicator.create(List.of(socketPath));
+			 var legacyClient = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+			var executor = Executors.newSingleThreadExecutor();
+			server.listen(new IpcMessageListener() {
+				@Override
+				public void revealRunningApp() {
+					Assertions.fail("Message of incompatible client must not be handled");
+				}
+
+				@Override
+				public void handleLaunchArgs(List<String> args) {
+
+				}
+			}, executor);
+			var legacyMessage = ByteBuffer.allocate(2 * Integer.BYTES).putInt(IpcMessage.MessageType.REVEAL_RUNNING_APP.ordinal()).putInt(0).flip(); // type, length
+			legacyClient.write(legacyMessage);
+
+			var read = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> legacyClient.read(ByteBuffer.allocate(1)));
+
+			Assertions.assertEquals(-1, read); // server hung up
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testIncompatibleServerIsNotTakenOver(@TempDir Path tmpDir) throws IOException {
+		var socketPath = tmpDir.resolve("foo.sock");
+		try (var legacyServer = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+			legacyServer.bind(UnixDomainSocketAddress.of(socketPath));
+			var accepted = CompletableFuture.runAsync(() -> {
+				try (var ch = legacyServer.accept()) {
+					ch.read(ByteBuffer.allocate(IpcMessage.HANDSHAKE_SIZE)); // fails to decode the handshake as a message and hangs up
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+
+			try (var communicator = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> IpcCommunicator.create(List.of(socketPath)))) {
+				Assertions.assertInstanceOf(LoopbackCommunicator.class, communicator);
+				Assertions.assertTrue(Files.exists(socketPath));
+			}
+			accepted.join();
+		}
+	}
+
+	@Test
+	public void testResultsExceedingMessageSizeAreSplit(@TempDir Path tmpDir) throws IOException {
+		var socketPath = tmpDir.resolve("foo.sock");
+		var vaults = IntStream.range(0, 20_000).mapToObj(i -> "vault" + i + "\t" + "x".repeat(100)).toList(); // ~2 MiB
+		var paths = IntStream.range(0, 20_000).mapToObj(i -> "/path" + i + "/" + "y".repeat(100)).toList(); // ~2 MiB, replies twice as large
+		try (var server = IpcCommunicator.create(List.of(socketPath))) {
+			var executor = Executors.newSingleThreadExecutor();
+			server.listen(new IpcMessageListener() {
+				@Override
+				public void revealRunningApp() {
+
+				}
+
+				@Override
+				public void handleLaunchArgs(List<String> args) {
+
+				}
+
+				@Override
+				public CommandResultMessage listVaults(int offset) {
+					return CommandResultMessage.successFitting(vaults.subList(offset, vaults.size()));
+				}
+
+				@Override
+				public CommandResultMessage resolvePaths(String vault, boolean toCiphertext, List<String> paths) {
+					return CommandResultMessage.successFitting(paths.stream().map(p -> p + '\t' + p).toList());
+				}
+			}, executor);
+			try (var client = IpcCommunicator.create(List.of(socketPath))) { // after listening, as connecting waits for the server's handshake
+				var listed = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> client.sendListVaults());
+				var resolved = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> client.sendResolvePaths("vault", true, paths));
 
-			Assertions.assertTimeoutPreemptively(Duration.ofMillis(300), (Executable) cdl::await);
+				Assertions.assertTrue(listed.success());
+				Assertions.assertEquals(vaults, listed.lines());
+				Assertions.assertTrue(resolved.success());
+				Assertions.assertEquals(paths.stream().map(p -> p + '\t' + p).toList(), resolved.lines());
+			}
 			executor.shutdown();
 		}
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package org.cryptomator.ipc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public class ResolvePathsMessageTest {
+
+	@ParameterizedTest
+	@ValueSource(ints = {0, 1, 3})
+	public void testSendAndReceive(int numPaths, @TempDir Path tmpDir) throws IOException {
+		var paths = List.of("/foo bar/baz.txt", "/", "/ä/ö/ü").subList(0, numPaths);
+		var message = new ResolvePathsMessage("my vault", true, paths);
+
+		var file = tmpDir.resolve("tmp.file");
+		try (var ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			message.send(ch);
+			ch.position(0);
+			if (IpcMessage.receive(ch) instanceof ResolvePathsMessage received) {
+				Assertions.assertEquals(message, received);
+			} else {
+				Assertions.fail("Received message of unexpected class");
+			}
+		}
+	}
+
+}
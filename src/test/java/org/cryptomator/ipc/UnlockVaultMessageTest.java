@@ -0,0 +1,48 @@
+package org.cryptomator.ipc;
+
+import org.cryptomator.common.Passphrase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class UnlockVaultMessageTest {
+
+	@Test
+	public void testSendAndReceive(@TempDir Path tmpDir) throws IOException {
+		var message = new UnlockVaultMessage("my vault", Passphrase.copyOf("päss\0wörd"));
+
+		var file = tmpDir.resolve("tmp.file");
+		try (var ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			message.send(ch);
+			ch.position(0);
+			if (IpcMessage.receive(ch) instanceof UnlockVaultMessage received) {
+				Assertions.assertEquals("my vault", received.vault());
+				Assertions.assertEquals("päss\0wörd", received.passphrase().toString());
+			} else {
+				Assertions.fail("Received message of unexpected class");
+			}
+		}
+	}
+
+	@Test
+	public void testSendAndReceiveWithoutPassphrase(@TempDir Path tmpDir) throws IOException {
+		var message = new UnlockVaultMessage("my vault", null);
+
+		var file = tmpDir.resolve("tmp.file");
+		try (var ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			message.send(ch);
+			ch.position(0);
+			if (IpcMessage.receive(ch) instanceof UnlockVaultMessage received) {
+				Assertions.assertEquals("my vault", received.vault());
+				Assertions.assertNull(received.passphrase());
+			} else {
+				Assertions.fail("Received message of unexpected class");
+			}
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package org.cryptomator.launcher;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+public class VaultCommandTest {
+
+	@Test
+	public void testParseWithoutCommand() {
+		var result = VaultCommand.parse(List.of("/foo/bar", "--headless"));
+
+		Assertions.assertTrue(result.isEmpty());
+	}
+
+	@Test
+	public void testParseUnlock() {
+		var result = VaultCommand.parse(List.of("--headless", "--unlock", "my vault", "--passphrase-stdin"));
+
+		Assertions.assertEquals(new VaultCommand(VaultCommand.Type.UNLOCK, "my vault", false, true), result.orElseThrow());
+	}
+
+	@Test
+	public void testParseForcedLock() {
+		var result = VaultCommand.parse(List.of("--force", "--lock", "abc123"));
+
+		Assertions.assertEquals(new VaultCommand(VaultCommand.Type.LOCK, "abc123", true, false), result.orElseThrow());
+	}
+
+	@Test
+	public void testParseListVaults() {
+		var result = VaultCommand.parse(List.of("--list-vaults"));
+
+		Assertions.assertEquals(new VaultCommand(VaultCommand.Type.LIST_VAULTS, null, false, false), result.orElseThrow());
+	}
+
+	@Test
+	public void testParseToCiphertext() {
+		var result = VaultCommand.parse(List.of("--to-ciphertext", "my vault"));
+
+		Assertions.assertEquals(new VaultCommand(VaultCommand.Type.TO_CIPHERTEXT, "my vault", false, false), result.orElseThrow());
+	}
+
+	@Test
+	public void testParseMissingVault() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> VaultCommand.parse(List.of("--query")));
+	}
+
+	@Test
+	public void testParseMultipleCommands() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> VaultCommand.parse(List.of("--lock", "a", "--unlock", "b")));
+	}
+
+	@Test
+	public void testReadPassphrase() throws IOException {
+		var passphrase = VaultCommand.readPassphrase(new StringReader("correct horse battery staple\r\nignored"));
+
+		Assertions.assertEquals("correct horse battery staple", passphrase.toString());
+	}
+
+}
@@ -0,0 +1,93 @@
+package org.cryptomator.ui.health;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+public class CheckpointIndexTest {
+
+	@TempDir
+	Path tmpDir;
+	private Path vaultPath;
+	private Path ciphertextFile;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		vaultPath = Files.createDirectory(tmpDir.resolve("vault"));
+		Files.writeString(vaultPath.resolve("vault.cryptomator"), "config");
+		var shard = Files.createDirectories(vaultPath.resolve("d/AB/CDEFGHIJKLMNOPQRSTUVWXYZ234567"));
+		ciphertextFile = Files.writeString(shard.resolve("foo.c9r"), "ciphertext");
+		Files.createDirectory(shard.resolve("bar.c9r"));
+	}
+
+	@Test
+	public void testFingerprintOfUnchangedVaultIsStable() throws IOException {
+		var first = CheckpointIndex.fingerprint(vaultPath);
+		var second = CheckpointIndex.fingerprint(vaultPath);
+
+		Assertions.assertEquals(first, second);
+		Assertions.assertEquals(4, first.directories()); // d, AB, CDEF…, bar.c9r
+	}
+
+	@Test
+	public void testFingerprintChangesWithContents() throws IOException {
+		var before = CheckpointIndex.fingerprint(vaultPath);
+		Files.writeString(ciphertextFile, "other ciphertext");
+		Files.setLastModifiedTime(ciphertextFile, FileTime.fromMillis(0));
+
+		var after = CheckpointIndex.fingerprint(vaultPath);
+
+		Assertions.assertNotEquals(before.digest(), after.digest());
+	}
+
+	@Test
+	public void testFingerprintChangesWithNewNode() throws IOException {
+		var before = CheckpointIndex.fingerprint(vaultPath);
+		Files.writeString(ciphertextFile.resolveSibling("baz.c9r"), "ciphertext");
+
+		var after = CheckpointIndex.fingerprint(vaultPath);
+
+		Assertions.assertNotEquals(before.digest(), after.digest());
+	}
+
+	@Test
+	public void testCleanPassIsRememberedForSameFingerprintOnly() {
+		var index = new CheckpointIndex(null);
+		var fingerprint = new CheckpointIndex.Fingerprint("AAAA", 1);
+
+		index.record("check", fingerprint, true);
+
+		Assertions.assertTrue(index.lastCleanPass("check", fingerprint).isPresent());
+		Assertions.assertTrue(index.lastCleanPass("check", new CheckpointIndex.Fingerprint("BBBB", 1)).isEmpty());
+		Assertions.assertTrue(index.lastCleanPass("otherCheck", fingerprint).isEmpty());
+	}
+
+	@Test
+	public void testPassWithFindingsForgetsCleanPass() {
+		var index = new CheckpointIndex(null);
+		var fingerprint = new CheckpointIndex.Fingerprint("AAAA", 1);
+		index.record("check", fingerprint, true);
+
+		index.record("check", fingerprint, false);
+
+		Assertions.assertTrue(index.lastCleanPass("check", fingerprint).isEmpty());
+	}
+
+	@Test
+	public void testIndexIsPersisted() {
+		var indexFile = tmpDir.resolve("index/checkpoints.json");
+		var fingerprint = new CheckpointIndex.Fingerprint("AAAA", 1);
+		new CheckpointIndex(indexFile).record("check", fingerprint, true);
+
+		var reloaded = new CheckpointIndex(indexFile);
+
+		Assertions.assertTrue(reloaded.lastCleanPass("check", fingerprint).isPresent());
+	}
+
+}
@@ -0,0 +1,113 @@
+package org.cryptomator.ui.health;
+
+import org.cryptomator.cryptofs.health.api.DiagnosticResult;
+import org.cryptomator.cryptofs.health.api.HealthCheck;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ResultCollectorTest {
+
+	@TempDir
+	Path tmpDir;
+	private Path reportFile;
+	private Check check;
+
+	@BeforeAll
+	public static void startup() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		try {
+			Platform.startup(latch::countDown);
+		} catch (IllegalStateException e) {
+			latch.countDown(); // already started by another test
+		}
+		var javafxStarted = latch.await(5, TimeUnit.SECONDS);
+		Assumptions.assumeTrue(javafxStarted);
+	}
+
+	@BeforeEach
+	public void setup() {
+		reportFile = tmpDir.resolve("report.log");
+		check = new Check(Mockito.mock(HealthCheck.class));
+	}
+
+	private static DiagnosticResult diagnosis(DiagnosticResult.Severity severity) {
+		var diagnosis = Mockito.mock(DiagnosticResult.class);
+		Mockito.when(diagnosis.getSeverity()).thenReturn(severity);
+		return diagnosis;
+	}
+
+	private static Result notFixable(DiagnosticResult diagnosis) {
+		return new Result(diagnosis, new SimpleObjectProperty<>(Result.FixState.NOT_FIXABLE));
+	}
+
+	// all batches published so far are processed once a subsequently queued runnable ran:
+	private static void awaitFxThread() {
+		var latch = new CountDownLatch(1);
+		Platform.runLater(latch::countDown);
+		Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> latch.await());
+	}
+
+	@Test
+	public void testAllDiagnosesAreWrittenToReport() throws IOException {
+		try (var collector = new ResultCollector(check, reportFile, ResultCollectorTest::notFixable)) {
+			collector.accept(diagnosis(DiagnosticResult.Severity.GOOD));
+			collector.accept(diagnosis(DiagnosticResult.Severity.WARN));
+			collector.accept(diagnosis(DiagnosticResult.Severity.CRITICAL));
+		}
+
+		var lines = Files.readAllLines(reportFile);
+		Assertions.assertEquals(reportFile, check.getReportFile());
+		Assertions.assertEquals(3, lines.size());
+		Assertions.assertTrue(lines.get(0).contains("GOOD"));
+		Assertions.assertTrue(lines.get(1).contains("WARN"));
+		Assertions.assertTrue(lines.get(2).contains("CRITICAL"));
+	}
+
+	@Test
+	public void testCountsArePublished() throws IOException {
+		try (var collector = new ResultCollector(check, reportFile, ResultCollectorTest::notFixable)) {
+			collector.accept(diagnosis(DiagnosticResult.Severity.GOOD));
+			collector.accept(diagnosis(DiagnosticResult.Severity.WARN));
+			collector.accept(diagnosis(DiagnosticResult.Severity.WARN));
+			awaitFxThread();
+
+			Assertions.assertEquals(DiagnosticResult.Severity.WARN, collector.getHighestSeverity());
+		}
+
+		Assertions.assertEquals(3, check.getDiagnosisCount());
+		Assertions.assertEquals(1, check.getSeverityCount(DiagnosticResult.Severity.GOOD));
+		Assertions.assertEquals(2, check.getSeverityCount(DiagnosticResult.Severity.WARN));
+		Assertions.assertEquals(0, check.getSeverityCount(DiagnosticResult.Severity.CRITICAL));
+		Assertions.assertEquals(3, check.getResults().size());
+	}
+
+	@Test
+	public void testOnlyFirstResultsAreRetained() throws IOException {
+		var diagnosis = diagnosis(DiagnosticResult.Severity.WARN);
+		try (var collector = new ResultCollector(check, reportFile, ResultCollectorTest::notFixable)) {
+			for (int i = 0; i < ResultCollector.MAX_RESULTS_IN_MEMORY + 5; i++) {
+				collector.accept(diagnosis);
+			}
+			awaitFxThread();
+		}
+
+		Assertions.assertEquals(ResultCollector.MAX_RESULTS_IN_MEMORY, check.getResults().size());
+		Assertions.assertEquals(ResultCollector.MAX_RESULTS_IN_MEMORY + 5, check.getDiagnosisCount());
+		Assertions.assertEquals(ResultCollector.MAX_RESULTS_IN_MEMORY + 5, Files.readAllLines(reportFile).size());
+	}
+
+}